@@ -1,6 +1,8 @@
 import {Event} from "./../models/event";
 import {EventTmp} from "@/app/models/eventTmp";
 import Cookies from "js-cookie";
+import {EventSummaryPage} from "@/app/models/eventSummaryPage";
+import {Status} from "@/app/enumerations/status";
 
 export const dynamic = 'force-static'
 let API_BASE_URL = "";
@@ -13,16 +15,29 @@ function GetDomain(): void {
 }
 
 
-export async function getAllEvents(): Promise<Event[]> {
+/**
+ * Fetch one page of event summaries, newest first, optionally filtered by status and start time.
+ * Full events, with their pools and patients, are only fetched one at a time.
+ */
+export async function getEventSummaries(filter: {
+    status?: Status; from?: number; to?: number; after?: number | null; limit?: number
+} = {}): Promise<EventSummaryPage> {
     GetDomain()
-    const res = await fetch(`${API_BASE_URL}` + ENDPOINT, {
+    const params = new URLSearchParams();
+    Object.entries(filter).forEach(([key, value]) => {
+        if (value != null) {
+            params.set(key, String(value));
+        }
+    });
+    const query = params.toString();
+    const res = await fetch(`${API_BASE_URL}` + ENDPOINT + (query ? "?" + query : ""), {
         method: "GET",
         headers: {
             "Content-Type": "application/json",
         },
     });
     if (!res.ok) {
-        throw new Error(`Failed to fetch patients: ${res.statusText}`);
+        throw new Error(`Failed to fetch events: ${res.statusText}`);
     }
     return res.json();
 }
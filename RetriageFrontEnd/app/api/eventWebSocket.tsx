@@ -1,15 +1,73 @@
 import {useEffect} from 'react';
 import {Event} from "@/app/models/event";
-import {Client, IMessage} from "@stomp/stompjs";
+import {Client, IMessage, StompSubscription} from "@stomp/stompjs";
 import {ResponseWrapper} from "@/app/models/responseWrapper";
+import {EventDelta} from "@/app/models/eventDelta";
+import {EventStateMessage} from "@/app/models/eventStateMessage";
+import {EventResumeMessage} from "@/app/models/eventResumeMessage";
+import {Status} from "@/app/enumerations/status";
+import {TimeSync} from "@/app/models/timeSync";
+import {PatientOperationResult} from "@/app/models/patientOperationResult";
+import {Condition} from "@/app/enumerations/condition";
 import Cookies from "js-cookie";
 
 let API_BASE_URL = ""
 const ENDPOINT = "/active_event";
 const UPDATE_EVENT = "/ws/update";
 const TOPIC = "/topic/event_updates";
+const STATE = "/ws/events/state";
+const RESUME_PREFIX = "/ws/events/";
+const REPLIES = "/user/queue/event_updates";
+const COMMAND_RESULTS = "/user/queue/command_results";
+const BATCH = "/ws/patients/batch";
+const BATCH_RESULTS = "/user/queue/batch_results";
+// How long patient operations are collected before they are sent together
+const BATCH_WINDOW = 50;
+const TIME = "/ws/time";
+const TIME_REPLIES = "/user/queue/time";
+const TIME_SYNC_INTERVAL = 30000;
 let client: Client;
 
+// Patient operations waiting to be sent, the event they target, and the last sequence id handed out
+let pendingOperations: object[] = [];
+let pendingEventId: number | null = null;
+let flushTimer: ReturnType<typeof setTimeout> | undefined;
+let operationSeq = 0;
+
+// The server's event time at a moment of this client's clock, and how fast the event clock runs
+let syncedServerTime = Date.now();
+let syncedAt = syncedServerTime;
+let clockSpeed = 1;
+
+// Estimates the server's current event time, which event countdowns are computed against
+export function serverNow(): number {
+    return syncedServerTime + (Date.now() - syncedAt) * clockSpeed;
+}
+
+// Applies a delta on top of an event, replacing changed pools by id.
+function applyDelta(event: Event, delta: EventDelta): Event {
+    const updated: Event = {...event};
+    if (delta.name !== undefined) updated.name = delta.name;
+    if (delta.status !== undefined) updated.status = delta.status;
+    if (delta.startTime !== undefined) updated.startTime = delta.startTime;
+    if (delta.duration !== undefined) updated.duration = delta.duration;
+    if (delta.remainingDuration !== undefined) updated.remainingDuration = delta.remainingDuration;
+    if (delta.timeOfStatusChange !== undefined) updated.timeOfStatusChange = delta.timeOfStatusChange;
+    if (delta.version !== undefined) updated.version = delta.version;
+    const removed = delta.removedPoolIds || [];
+    let pools = updated.pools.filter(pool => !removed.includes(pool.id || -1));
+    for (const changed of delta.pools || []) {
+        const index = pools.findIndex(pool => pool.id === changed.id);
+        if (index === -1) {
+            pools = [...pools, changed];
+        } else {
+            pools = pools.map((pool, i) => i === index ? changed : pool);
+        }
+    }
+    updated.pools = pools;
+    return updated;
+}
+
 // Helper to resolve the domain safely
 function GetDomain(): void {
     const domain = Cookies.get("domain") || "localhost"
@@ -19,27 +77,141 @@ function GetDomain(): void {
 export function useConnectEventWebSocket(setActiveEvent: (event: Event | null) => void, setError: (error: string) => void): void {
     GetDomain()
     useEffect(() => {
+        let timeSync: ReturnType<typeof setInterval> | undefined;
+        // The event being followed and the seq of the last delta applied to it, kept across reconnects
+        // so a reconnecting client only fetches the deltas it missed
+        let current: Event | null = null;
+        let seq = 0;
         // Create the STOMP client
         const stompClient = new Client({
             brokerURL: API_BASE_URL + ENDPOINT,
             reconnectDelay: 5000, // automatically attempt to reconnect if the connection is lost
             onConnect: () => {
                 console.log("STOMP connected: ", stompClient.connected);
-                // Subscribe to /topic/events
+                // Deltas received while a full state or the missed deltas are being fetched
+                let buffered: EventDelta[] | null = null;
+
+                // Applies the fetched state, then the deltas that arrived meanwhile
+                const finishResync = (pending: EventDelta[]) => {
+                    pending.filter(delta => delta.eventId === current?.id).forEach(onDelta);
+                    setActiveEvent(current);
+                };
+
+                // Fetches what was missed: only the missing deltas of the followed event if the server still has them,
+                // otherwise the full state of the active event. Deltas arriving meanwhile are buffered
+                const resync = () => {
+                    if (buffered !== null) return;
+                    buffered = [];
+                    if (current && current.id != null) {
+                        const followed: Event = current;
+                        const subscription: StompSubscription = stompClient.subscribe(RESUME_PREFIX + followed.id + "/resume", (message: IMessage) => {
+                            subscription.unsubscribe();
+                            const resumeData: ResponseWrapper<EventResumeMessage> = JSON.parse(message.body);
+                            const pending = buffered || [];
+                            buffered = null;
+                            if (resumeData.httpStatus != 200 || !resumeData.data) {
+                                // The followed event stopped; fall back to whichever event is active now
+                                current = null;
+                                setActiveEvent(null);
+                                resync();
+                                return;
+                            }
+                            if (resumeData.data.event) {
+                                current = resumeData.data.event;
+                            } else {
+                                current = (resumeData.data.deltas || []).reduce(applyDelta, followed);
+                            }
+                            seq = resumeData.data.seq;
+                            finishResync(pending);
+                        }, {"last-seq": String(seq)});
+                        return;
+                    }
+                    const subscription: StompSubscription = stompClient.subscribe(STATE, (message: IMessage) => {
+                        subscription.unsubscribe();
+                        const stateData: ResponseWrapper<EventStateMessage> = JSON.parse(message.body);
+                        const pending = buffered || [];
+                        buffered = null;
+                        if (stateData.httpStatus != 200 || !stateData.data) {
+                            current = null;
+                            setActiveEvent(null);
+                            return;
+                        }
+                        current = stateData.data.event;
+                        seq = stateData.data.seq;
+                        finishResync(pending);
+                    });
+                };
+
+                // Applies a delta, or resyncs if one was missed or another event started
+                const onDelta = (delta: EventDelta) => {
+                    if (buffered !== null) {
+                        buffered.push(delta);
+                    } else if (!current || delta.eventId !== current.id) {
+                        if (delta.status === Status.Running) resync();
+                    } else if (delta.seq > seq) {
+                        if (delta.seq !== seq + 1) {
+                            console.warn("Missed event update " + (seq + 1) + ", resyncing.");
+                            resync();
+                            return;
+                        }
+                        current = applyDelta(current, delta);
+                        seq = delta.seq;
+                        setActiveEvent(current);
+                    }
+                };
+
+                // Subscribe to the deltas first so none are lost while the full state is fetched
                 stompClient.subscribe(TOPIC, (message: IMessage) => {
-                    // The server broadcasts Event objects as JSON
-                    const eventData: ResponseWrapper<Event> = JSON.parse(message.body);
-                    if(eventData.httpStatus == 404){
+                    const eventData: ResponseWrapper<EventDelta> = JSON.parse(message.body);
+                    if (eventData.httpStatus == 404) {
+                        current = null;
                         setActiveEvent(null);
-                    }else if(eventData.httpStatus == 400){
-                        console.error(eventData.error);
-                        setError(eventData.error);
                     } else if (eventData.data) {
-                        console.log("Event Sent to front end: " + eventData.data.name);
-                        setActiveEvent(eventData.data);
+                        onDelta(eventData.data);
                     }
                 });
-
+                // Rejected updates are only answered to the sender, whose local copy is then out of date
+                stompClient.subscribe(REPLIES, (message: IMessage) => {
+                    const reply: ResponseWrapper<void> = JSON.parse(message.body);
+                    console.error(reply.error);
+                    setError(reply.error);
+                    resync();
+                });
+                // Commands are only answered to the sender; their effect arrives as a delta like any other change
+                stompClient.subscribe(COMMAND_RESULTS, (message: IMessage) => {
+                    const result: ResponseWrapper<number> = JSON.parse(message.body);
+                    if (result.httpStatus != 200) {
+                        console.error(result.error);
+                        setError(result.error);
+                    }
+                });
+                // A batch is answered once, with the outcome of each of its operations
+                stompClient.subscribe(BATCH_RESULTS, (message: IMessage) => {
+                    const result: ResponseWrapper<PatientOperationResult[]> = JSON.parse(message.body);
+                    if (result.httpStatus != 200) {
+                        console.error(result.error);
+                        setError(result.error);
+                        return;
+                    }
+                    for (const operation of result.data || []) {
+                        if (operation.httpStatus != 200) {
+                            console.error("Operation " + operation.seq + " failed: " + operation.error);
+                            setError(operation.error);
+                        }
+                    }
+                });
+                // The countdown is computed locally, so only the clock offset needs to be kept in sync
+                stompClient.subscribe(TIME_REPLIES, (message: IMessage) => {
+                    const reply: TimeSync = JSON.parse(message.body);
+                    syncedAt = (reply.clientTime + Date.now()) / 2;
+                    syncedServerTime = reply.serverTime ?? syncedAt;
+                    clockSpeed = reply.speed ?? 1;
+                });
+                const ping = () => stompClient.publish({destination: TIME, body: JSON.stringify({clientTime: Date.now()})});
+                ping();
+                clearInterval(timeSync);
+                timeSync = setInterval(ping, TIME_SYNC_INTERVAL);
+                resync();
             },
             onStompError: (frame) => {
                 console.error("Broker reported error: " + frame.headers["message"]);
@@ -55,15 +227,59 @@ export function useConnectEventWebSocket(setActiveEvent: (event: Event | null) =
 
         // Cleanup when component unmounts
         return () => {
+            clearInterval(timeSync);
             stompClient.deactivate();
         };
     }, []);
 }
 
-// Sends an event to the server
-export function sendEvent(event: Event) {
+// Sends an event to the server. Only the listed pools are merged into the current event; an edit based on
+// an outdated version is rejected on REPLIES, after which the client resyncs and the edit can be made again.
+export function sendEvent(event: Event, changedPoolIds?: number[]) {
     console.log("Sending event to be saved.");
-    client.publish({destination: UPDATE_EVENT, body: JSON.stringify(event)});
+    flushOperations();
+    client.publish({destination: UPDATE_EVENT, body: JSON.stringify({...event, changedPoolIds, commandId: newCommandId()})});
+}
+
+// Identifies a command, so the server answers a copy re-sent after a reconnect without applying it twice
+function newCommandId(): string {
+    return crypto.randomUUID();
+}
+
+// Sends the collected patient operations as one batch, which the server applies in a single transaction
+function flushOperations() {
+    clearTimeout(flushTimer);
+    flushTimer = undefined;
+    if (pendingOperations.length === 0 || pendingEventId === null) return;
+    client.publish({destination: BATCH, body: JSON.stringify({eventId: pendingEventId, commandId: newCommandId(), operations: pendingOperations})});
+    pendingOperations = [];
 }
 
+// Queues a patient operation, so a burst of drags during an arrival surge costs one round-trip instead of one each
+function queueOperation(eventId: number, operation: object) {
+    if (pendingEventId !== eventId) flushOperations();
+    pendingEventId = eventId;
+    pendingOperations.push({seq: ++operationSeq, ...operation});
+    if (flushTimer === undefined) flushTimer = setTimeout(flushOperations, BATCH_WINDOW);
+}
+
+// Adds a new patient to a pool of a running event
+export function createPatient(eventId: number, poolId: number, cardId: string, condition: Condition) {
+    queueOperation(eventId, {create: {poolId, cardId, condition}});
+}
+
+// Moves a patient to another pool of the same running event
+export function movePatient(eventId: number, patientId: number, poolId: number) {
+    queueOperation(eventId, {move: {patientId, poolId}});
+}
+
+// Discharges a patient from its pool of a running event
+export function dischargePatient(eventId: number, patientId: number) {
+    queueOperation(eventId, {discharge: {patientId}});
+}
 
+// Starts, pauses, resumes or ends an event
+export function changeEventStatus(eventId: number, status: Status) {
+    flushOperations(); // Patient operations made before the status change are applied before it
+    client.publish({destination: "/ws/events/status", body: JSON.stringify({eventId, status, commandId: newCommandId()})});
+}
@@ -1,11 +1,10 @@
 "use client";
 import React, {useState} from "react";
 import {Event} from "@/app/models/event";
-import {Patient} from "@/app/models/patient";
 import {Condition} from "@/app/enumerations/condition";
 import {PoolType} from "@/app/enumerations/poolType";
 import {PatientPool} from "@/app/models/patientPool";
-import {sendEvent} from "@/app/api/eventWebSocket";
+import {createPatient} from "@/app/api/eventWebSocket";
 
 
 /**
@@ -27,39 +26,18 @@ export default function CreatePatient({getActiveEvent}: { getActiveEvent: () =>
     async function handleAddPatient(e: React.FormEvent) {
         e.preventDefault();
 
-        // 1) Construct new Patient with nurse=null (instead of {} as any)
-        const newPatient: Patient = {
-            processed: false,
-            cardId,
-            condition
-        };
-
-        // 2) If user selected a Bay pool, attach it
-        if (selectedBayPoolId) {
-            console.log("Selected pool is ID of: " + selectedBayPoolId);
-            const chosenPool = getActiveEvent().pools.find(pool => pool.id === selectedBayPoolId);
-            if (chosenPool) {
-                if (chosenPool.patients == null) {
-                    const newPatientArray: Patient[] = new Array(1);
-                    newPatientArray[0] = newPatient;
-                    chosenPool.patients = newPatientArray;
-                } else {
-                    chosenPool.patients.push(newPatient);
-                    console.log("Chosen Pool: " + chosenPool.name);
-                }
-            } else {
-                setError("Selected Patient Pool not found.")
-            }
+        // 1) The server creates the patient in the chosen Bay pool; the change arrives as an event update
+        const eventId = getActiveEvent().id;
+        if (!selectedBayPoolId || eventId == null) {
+            setError("Selected Patient Pool not found.");
+            return;
         }
-
-
-        // 4) Persist via the parent-provided function
         try {
-            sendEvent(getActiveEvent());
+            createPatient(eventId, selectedBayPoolId, String(cardId), condition);
             console.log("Patient added to Patient Pool");
         } catch (err) {
             setError("Failed to add patient");
-            console.error("Failed to update event with new patient:", err);
+            console.error("Failed to add patient:", err);
         }
 
         // 5) Close modal + reset fields
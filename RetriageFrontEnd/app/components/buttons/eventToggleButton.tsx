@@ -1,7 +1,7 @@
 "use client";
 
 import React from "react";
-import {Event} from "@/app/models/event";
+import {EventSummary} from "@/app/models/eventSummary";
 import {Status} from "@/app/enumerations/status";
 
 /**
@@ -10,7 +10,7 @@ import {Status} from "@/app/enumerations/status";
  *  - onStatusChange?: Optional callback your parent can provide if you want to notify the parent or call an API.
  */
 export default function ToggleEvent({event, onStatusChange, active}: {
-    event: Event; onStatusChange?: (UpdatedEvent: Event) => void; active: boolean
+    event: EventSummary; onStatusChange?: (UpdatedEvent: EventSummary) => void; active: boolean
 }) {
 
     // Function to handle button clicks
@@ -22,7 +22,6 @@ export default function ToggleEvent({event, onStatusChange, active}: {
         //    This passes the event ID + new status back upstream
         if (onStatusChange && event.id != null) {
             event.status = newStatus;
-            event.timeOfStatusChange = Date.now();
             onStatusChange(event);
         }
     }
@@ -4,7 +4,7 @@ import BayPanel from "@/app/components/panel/bayPannel";
 import React, {useState} from "react";
 import {DndContext, DragEndEvent, DragOverEvent, DragOverlay, DragStartEvent} from "@dnd-kit/core";
 import {Patient} from "@/app/models/patient";
-import {sendEvent} from "@/app/api/eventWebSocket";
+import {movePatient} from "@/app/api/eventWebSocket";
 import MedServicePanel from "@/app/components/panel/medServicePanel";
 import FloorPanel from "@/app/components/panel/floorPannel";
 import PatientIcon from "@/app/components/panel/patientIcon";
@@ -51,49 +51,24 @@ export default function EventVisualization({getActiveEvent}: { getActiveEvent: (
                 // Prevent moving a patient that is currently being processed in a MedService.
                 if (
                     originPool.poolType === PoolType.MedService &&
-                    originPool.patients.length > 0 &&
-                    originPool.patients[0].id === patient.id &&
-                    !patient.processed
+                    !patient.processed &&
+                    (patient.startedProcessingAt != null ||
+                        (originPool.patients.length > 0 && originPool.patients[0].id === patient.id))
                 ) {
                     setError("Cannot move a patient that is currently being processed at a service.");
                     return;
                 }
                 // Remove patient from origin pool and add to destination pool.
-                if (overPool.patients.length === overPool.queueSize) {
+                if (overPool.queueSize > 0 && overPool.patients.length >= overPool.queueSize) {
                     setError("The maximum number of patients are already assigned.");
                 } else {
-                    // Remove the patient from the origin pool.
-                    const index = originPool.patients.findIndex(storedPatient => storedPatient.id === patient.id);
-                    if (index !== -1) {
-                        originPool.patients.splice(index, 1);
-                        if (originPool.poolType == PoolType.MedService && index == 0)
-                            overPool.startedProcessingAt = Date.now();
-                    } else {
+                    // The server moves the patient and starts its timer once a server of the new pool is free
+                    const eventId = getActiveEvent().id;
+                    if (patient.id == null || overPool.id == null || eventId == null) {
                         setError("Patient not found");
                         return;
                     }
-
-                    // Mark patient as not processed
-                    patient.processed = false;
-
-                    // update the origin pool's startedProcessingAt.
-                    if (originPool.poolType === PoolType.MedService &&
-                        index == 0 && originPool.patients.length > 0) {
-                        originPool.startedProcessingAt = Date.now();
-                    }
-                    // Add patient to the destination pool.
-                    overPool.patients.push(patient);
-
-                    // For MedService pools, if after adding the patient becomes the first one and is not processed,
-                    // update the destination pool's startedProcessingAt.
-                    if (overPool.poolType === PoolType.MedService &&
-                        overPool.patients.length > 0 &&
-                        overPool.patients[0].id === patient.id &&
-                        !patient.processed) {
-                        overPool.startedProcessingAt = Date.now();
-                    }
-
-                    sendEvent(getActiveEvent());
+                    movePatient(eventId, patient.id, overPool.id);
                 }
             } else {
                 setError("Selected Patient Pool not found.");
@@ -8,6 +8,7 @@ import Link from "next/link";
 import {UserDto} from "@/app/models/userDto";
 import {getUserByToken} from "@/app/api/userApi";
 import ErrorMessage from "@/app/components/modals/errorMessage";
+import {serverNow} from "@/app/api/eventWebSocket";
 
 export default function EventNavBar({
                                         activeEvent,
@@ -27,24 +28,19 @@ export default function EventNavBar({
         void getUserByToken(setUser, setError);
     }, []);
 
-    // When activeEvent updates, immediately recalc time left.
+    // When activeEvent updates, immediately recalc time left from its clock anchor, then every second while running.
+    // The server only sends the anchor when the status changes, so the countdown itself runs here.
     useEffect(() => {
-        if (activeEvent && activeEvent.status === Status.Running && activeEvent.timeOfStatusChange) {
-            const now = Date.now();
-            const start = new Date(activeEvent.timeOfStatusChange).getTime();
-            setTimeLeft(Math.max(activeEvent.remainingDuration - (now - start), 0));
+        if (!activeEvent) {
+            return;
         }
-    }, [activeEvent]);
-
-    // Recalculate the time left every second using the onStatusChange.
-    useEffect(() => {
-        if (activeEvent && activeEvent.status === Status.Running && activeEvent.timeOfStatusChange) {
-            const interval = setInterval(() => {
-                const now = Date.now();
-                const start = new Date(activeEvent.timeOfStatusChange).getTime();
-                const calculated = activeEvent.remainingDuration - (now - start);
-                setTimeLeft(calculated > 0 ? calculated : 0);
-            }, 1000);
+        const recalculate = () => {
+            const elapsed = activeEvent.status === Status.Running ? serverNow() - activeEvent.timeOfStatusChange : 0;
+            setTimeLeft(Math.max(activeEvent.remainingDuration - elapsed, 0));
+        };
+        recalculate();
+        if (activeEvent.status === Status.Running) {
+            const interval = setInterval(recalculate, 1000);
             return () => clearInterval(interval);
         }
     }, [activeEvent]);
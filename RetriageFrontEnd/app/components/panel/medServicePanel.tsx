@@ -6,6 +6,7 @@ import { PatientPool } from "@/app/models/patientPool";
 import { useDroppable } from "@dnd-kit/core";
 import { Event } from "@/app/models/event";
 import { PoolType } from "@/app/enumerations/poolType";
+import { Patient } from "@/app/models/patient";
 
 interface ProcessingProgressBarProps {
     processTime: number; // in milliseconds
@@ -61,21 +62,21 @@ export default function MedServicePanel({ service, getActiveEvent }: {
         color: isOver ? "green" : undefined,
     };
 
-    // We assume that when the poolType is MedService and there is at least one patient,
-    // the patient at index 0 (if not marked as processed) is the one currently processing.
-    const currentlyProcessing =
-        service.poolType === PoolType.MedService && service.patients.length > 0
-            ? service.patients[0]
-            : null;
+    // A MedService pool may process several patients at once; the server marks each of them with
+    // the time they started processing. Older events only process the patient at index 0.
+    const isProcessing = (patient: Patient, idx: number) =>
+        service.poolType === PoolType.MedService && !patient.processed &&
+        (patient.startedProcessingAt != null || (idx === 0 && service.patients.every(p => p.startedProcessingAt == null)));
+    const currentlyProcessing = service.patients.filter(isProcessing);
 
     return (
         <div ref={setNodeRef} style={style} className="card rounded mb-3">
             <div className="card-header d-flex justify-content-between align-items-center">
                 <div>
                     <h2 className="card-title">{service.name}</h2>
-                    {currentlyProcessing && !currentlyProcessing.processed && (
+                    {currentlyProcessing.length > 0 && (
                         <small className="text-muted">
-                            Processing: {currentlyProcessing.cardId}
+                            Processing: {currentlyProcessing.map(patient => patient.cardId).join(", ")}
                         </small>
                     )}
                 </div>
@@ -94,11 +95,7 @@ export default function MedServicePanel({ service, getActiveEvent }: {
               If the patient is currently processing, we add a progress bar overlay. */}
                     <div className="row row-cols">
                         {service.patients.map((patient, idx) => {
-                            const isProcessing =
-                                currentlyProcessing &&
-                                patient.id === currentlyProcessing.id &&
-                                !patient.processed;
-                            if (isProcessing) {
+                            if (isProcessing(patient, idx)) {
                                 return (
                                     <div key={patient.id || idx} className="col-sm-4 mb-1" style={{ position: "relative" }}>
                                         <PatientIcon
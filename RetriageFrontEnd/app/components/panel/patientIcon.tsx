@@ -2,7 +2,7 @@ import React, {MouseEvent, useEffect, useRef, useState} from "react";
 import {Patient} from "@/app/models/patient";
 import {useDraggable} from "@dnd-kit/core";
 import {Condition} from "@/app/enumerations/condition";
-import {sendEvent} from "@/app/api/eventWebSocket";
+import {dischargePatient, sendEvent} from "@/app/api/eventWebSocket";
 import {Event} from "@/app/models/event";
 import {Role} from "@/app/enumerations/role";
 import {UserDto} from "@/app/models/userDto";
@@ -81,9 +81,9 @@ export default function PatientIcon({
         const index: number = patientList.findIndex(
             (storedPatient) => storedPatient.id === patient.id
         );
-        if (index !== -1) {
-            patientList.splice(index, 1);
-            sendEvent(getActiveEvent());
+        const eventId = getActiveEvent().id;
+        if (index !== -1 && patient.id != null && eventId != null) {
+            dischargePatient(eventId, patient.id);
             console.log("Patient " + patient.id + " deleted");
             setMenuVisible(false);
         } else {
@@ -96,9 +96,9 @@ export default function PatientIcon({
         const index: number = patientList.findIndex(
             (storedPatient) => storedPatient.id === patient.id
         );
-        if (index !== -1) {
-            patientList.splice(index, 1);
-            sendEvent(getActiveEvent());
+        const eventId = getActiveEvent().id;
+        if (index !== -1 && patient.id != null && eventId != null) {
+            dischargePatient(eventId, patient.id);
             console.log("Patient " + patient.id + " discharged");
             setMenuVisible(false);
         } else {
@@ -109,7 +109,9 @@ export default function PatientIcon({
     const handleUpdateCondition = (e: React.MouseEvent, newCondition: Condition) => {
         e.stopPropagation();
         patient.condition = newCondition;
-        sendEvent(getActiveEvent());
+        const event = getActiveEvent();
+        const pool = event.pools.find(pool => pool.patients.some(storedPatient => storedPatient.id === patient.id));
+        sendEvent(event, pool && pool.id != null ? [pool.id] : undefined);
         setMenuVisible(false);
         setShowConditionOptions(false);
     };
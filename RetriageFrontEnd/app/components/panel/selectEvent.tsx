@@ -1,48 +1,47 @@
 "use client";
 
 import React, { useEffect, useState } from "react";
-import { Event } from "@/app/models/event";
-import { deleteEvent, getAllEvents } from "@/app/api/eventApi";
+import { EventSummary } from "@/app/models/eventSummary";
+import { deleteEvent, getEventSummaries } from "@/app/api/eventApi";
 import ToggleEvent from "@/app/components/buttons/eventToggleButton";
-import { sendEvent } from "@/app/api/eventWebSocket";
+import { changeEventStatus } from "@/app/api/eventWebSocket";
 import ErrorMessage from "@/app/components/modals/errorMessage";
 import DeleteEventButton from "@/app/components/buttons/deleteEventButton";
 import { Status } from "@/app/enumerations/status";
 
 export default function SelectEvent({ eventViewToggle }: { eventViewToggle: () => void }) {
-    const [allEvents, setAllEvents] = useState<Event[]>([]);
+    const [allEvents, setAllEvents] = useState<EventSummary[]>([]);
+    const [nextCursor, setNextCursor] = useState<number | null>(null);
     const [active, setActive] = useState(false);
     const [error, setError] = useState<string | null>(null);
 
-    useEffect(() => {
-        async function fetchEvents() {
-            try {
-                const data = await getAllEvents();
-                setAllEvents(data);
-
-                // Example logic deriving if an event is active
-                const runningEvents = data.filter(e => e.status === Status.Running);
-                if (runningEvents.length > 1) {
-                    setError("There is more than one active event!! This should not be possible");
-                    setActive(false);
-                } else if (runningEvents.length === 1) {
-                    setActive(true);
-                } else {
-                    setActive(false);
-                }
-            } catch (err: unknown) {
-                if (err instanceof Error) {
-                    setError(err.message);
-                } else {
-                    setError("An unknown error occurred when fetching events.");
-                }
+    // Loads a page of summaries; the first page replaces the list, later pages are appended to it
+    async function fetchEvents(after: number | null) {
+        try {
+            const page = await getEventSummaries({ after });
+            setAllEvents(events => after == null ? page.events : [...events, ...page.events]);
+            setNextCursor(page.nextCursor ?? null);
+        } catch (err: unknown) {
+            if (err instanceof Error) {
+                setError(err.message);
+            } else {
+                setError("An unknown error occurred when fetching events.");
             }
         }
-        fetchEvents();
+    }
+
+    useEffect(() => {
+        fetchEvents(null);
+        // Running events may be on any page, so they are asked for separately
+        getEventSummaries({ status: Status.Running, limit: 1 })
+            .then(page => setActive(page.events.length > 0))
+            .catch(() => setActive(false));
     }, []);
 
-    function onStatusChange(event: Event) {
-        sendEvent(event);
+    function onStatusChange(event: EventSummary) {
+        if (event.id != null) {
+            changeEventStatus(event.id, event.status);
+        }
         eventViewToggle();
 
         if (event.status === Status.Running) {
@@ -95,6 +94,9 @@ export default function SelectEvent({ eventViewToggle }: { eventViewToggle: () =
                                             <br />
                                             <strong>Runtime Left:</strong>{" "}
                                             {(event.remainingDuration / 60000).toFixed(2)} Minutes
+                                            <br />
+                                            <strong>Pools:</strong> {event.poolCount}{" "}
+                                            <strong>Patients:</strong> {event.patientCount}
                                         </div>
 
                                         {/* Right side: buttons */}
@@ -120,6 +122,11 @@ export default function SelectEvent({ eventViewToggle }: { eventViewToggle: () =
                             ))}
                         </ul>
                     )}
+                    {nextCursor != null && (
+                        <button className="btn btn-outline-secondary mt-3" onClick={() => fetchEvents(nextCursor)}>
+                            Load More
+                        </button>
+                    )}
                 </div>
             </div>
         </main>
@@ -122,6 +122,7 @@ export default function EventCreation() {
 
         const newPool: PatientPoolTmp = {
             queueSize: 1,
+            concurrency: 1,
             poolType: poolType,
             processTime: parseInt(patientProcessTime) * 60000 || 60000,
             autoDischarge: poolType === PoolType.MedService ? autoDischarge : false,
@@ -10,4 +10,5 @@ export interface Event {
     pools: PatientPool[];
     remainingDuration: number;
     timeOfStatusChange: number;
+    version?: number;
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+import {PatientPool} from "@/app/models/patientPool";
+import {Status} from "@/app/enumerations/status";
+
+// A patch to a running event; only the fields that changed are present.
+export interface EventDelta {
+    eventId: number;
+    seq: number;
+    name?: string;
+    status?: Status;
+    startTime?: number;
+    duration?: number;
+    remainingDuration?: number;
+    timeOfStatusChange?: number;
+    version?: number;
+    pools?: PatientPool[];
+    removedPoolIds?: number[];
+}
@@ -0,0 +1,10 @@
+import {Event} from "@/app/models/event";
+import {EventDelta} from "@/app/models/eventDelta";
+
+// What a reconnecting client missed: either the missed deltas, or the full event if they are no longer kept.
+export interface EventResumeMessage {
+    eventId: number;
+    seq: number;
+    deltas?: EventDelta[];
+    event?: Event;
+}
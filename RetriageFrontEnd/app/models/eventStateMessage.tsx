@@ -0,0 +1,8 @@
+import {Event} from "@/app/models/event";
+
+// The full state of a running event; deltas with a higher seq apply on top of it.
+export interface EventStateMessage {
+    eventId: number;
+    seq: number;
+    event: Event;
+}
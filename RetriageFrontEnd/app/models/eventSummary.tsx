@@ -0,0 +1,14 @@
+import {Status} from "@/app/enumerations/status";
+
+// An event as listed, without its pools and patients; the server counts them instead.
+export interface EventSummary {
+    id: number;
+    name: string;
+    status: Status;
+    startTime: number;
+    duration: number;
+    remainingDuration: number;
+    timeOfStatusChange: number;
+    poolCount: number;
+    patientCount: number;
+}
@@ -0,0 +1,7 @@
+import {EventSummary} from "@/app/models/eventSummary";
+
+// One page of event summaries, newest first; pass nextCursor as "after" to get the next page.
+export interface EventSummaryPage {
+    events: EventSummary[];
+    nextCursor?: number | null;
+}
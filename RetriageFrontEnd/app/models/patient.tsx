@@ -5,4 +5,6 @@ export interface Patient {
     cardId: number,
     condition: Condition;
     processed: boolean;
+    startedProcessingAt?: number;
+    version?: number;
 }
\ No newline at end of file
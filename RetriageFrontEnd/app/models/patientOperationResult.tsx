@@ -0,0 +1,7 @@
+// The outcome of one operation of a patient batch, matched to the operation by the sequence id the client gave it.
+export interface PatientOperationResult {
+    seq: number;
+    httpStatus: number;
+    error: string;
+    patientId?: number;
+}
@@ -10,5 +10,7 @@ export interface PatientPool {
     autoDischarge: boolean;
     poolType: PoolType;
     queueSize: number;
+    concurrency?: number;
     icon: string;
+    version?: number;
 }
\ No newline at end of file
@@ -8,5 +8,6 @@ export interface PatientPoolTmp {
     poolType: PoolType;
     poolNumber: number;
     queueSize: number;
+    concurrency?: number;
     icon: string;
 }
\ No newline at end of file
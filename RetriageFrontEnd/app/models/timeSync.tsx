@@ -0,0 +1,6 @@
+// A time-sync ping; the server answers with its event time and how fast its event clock runs.
+export interface TimeSync {
+    clientTime: number;
+    serverTime?: number;
+    speed?: number;
+}
@@ -37,6 +37,9 @@ dependencies {
 	implementation("org.springframework.boot:spring-boot-starter-web")
 	// Spring Boot Starter Data JPA for database interaction using JPA
 	implementation("org.springframework.boot:spring-boot-starter-data-jpa")
+	// Flyway for versioned schema migrations (src/main/resources/db/migration), with MySQL support
+	implementation("org.flywaydb:flyway-core")
+	implementation("org.flywaydb:flyway-mysql")
 	// Lombok for reducing boilerplate code in Java classes
 	compileOnly("org.projectlombok:lombok:1.18.34")
 	annotationProcessor("org.projectlombok:lombok:1.18.34")
@@ -44,6 +47,8 @@ dependencies {
 	implementation("org.springframework.boot:spring-boot-starter-thymeleaf")
 	// Spring Boot Starter Test for testing Spring Boot applications
 	testImplementation("org.springframework.boot:spring-boot-starter-test")
+	// H2 in-memory database for repository tests (@DataJpaTest)
+	testImplementation("com.h2database:h2")
 	// MySQL Connector/J for connecting to MySQL databases (runtime dependency)
 	runtimeOnly("com.mysql:mysql-connector-j")
 	// JUnit Platform Launcher for running JUnit Platform tests (runtime dependency for tests)
@@ -51,6 +56,11 @@ dependencies {
 	implementation("org.springframework.boot:spring-boot-starter-validation")
 	// Websocket dependency
 	implementation("org.springframework.boot:spring-boot-starter-websocket")
+	// TCP client used to relay STOMP messages to an external broker (retriage.broker.mode=relay or embedded)
+	implementation("io.projectreactor.netty:reactor-netty-core")
+	// Embedded Artemis broker with STOMP support (retriage.broker.mode=embedded)
+	implementation("org.apache.activemq:artemis-server")
+	implementation("org.apache.activemq:artemis-stomp-protocol")
 
 
 	// Okta Dependencies below:
@@ -84,4 +94,22 @@ dependencies {
 tasks.withType<Test> {
 	// Configure test tasks to use JUnit Platform
 	useJUnitPlatform()
+}
+
+tasks.test {
+	// Timing benchmarks are slow and machine dependent, so they only run through the benchmark task
+	useJUnitPlatform {
+		excludeTags("benchmark")
+	}
+}
+
+// Runs the tests tagged "benchmark": ./gradlew benchmark
+tasks.register<Test>("benchmark") {
+	description = "Runs the timing benchmarks."
+	group = "verification"
+	testClassesDirs = sourceSets.test.get().output.classesDirs
+	classpath = sourceSets.test.get().runtimeClasspath
+	useJUnitPlatform {
+		includeTags("benchmark")
+	}
 }
\ No newline at end of file
@@ -2,16 +2,15 @@ package com.retriage.retriage;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 
 /**
  * The main entry point for the Retriage Spring Boot application.
  * This class bootstraps the application, enabling auto-configuration, component scanning,
- * scheduled task execution via {@link EnableScheduling}, and method-level security via {@link EnableMethodSecurity}.
+ * and method-level security via {@link EnableMethodSecurity}.
+ * Event ticks run on the dedicated clock thread of {@link com.retriage.retriage.services.EventClockService}.
  */
 @SpringBootApplication
-@EnableScheduling
 @EnableMethodSecurity // Enables Spring Security's method-level security annotations (like @PreAuthorize)
 public class RetriageApplication {
 
@@ -0,0 +1,307 @@
+package com.retriage.retriage.configurations;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.regex.Pattern;
+
+/**
+ * Gives a WebSocket session its own bounded outbound buffer, drained by a sender thread, so a slow client never
+ * holds up the broker. Messages on state topics, which always carry the whole state of a pool or clock, are coalesced:
+ * a newer message replaces one still waiting for the same destination, so a slow client only receives the newest
+ * state. When the buffer still outgrows its limit, the oldest broadcast messages on {@code /topic} destinations are
+ * dropped; a client that misses a delta sees the gap in its sequence numbers and resyncs. Control frames and replies
+ * to a single client, such as the state it asked for to resync, are never dropped, and the message being sent does
+ * not count toward the limit. A session whose sends stall for longer than the send time limit is closed by the
+ * {@link WebSocketSessionRegistry}.
+ */
+class CoalescingSessionDecorator extends WebSocketSessionDecorator {
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingSessionDecorator.class);
+    /**
+     * Destinations whose messages carry a whole state and may replace each other.
+     */
+    private static final Pattern STATE_DESTINATION = Pattern.compile("/topic/events/\\d+/(clock|pools/\\d+)");
+    /**
+     * The header prefix of a STOMP frame's destination.
+     */
+    private static final String DESTINATION_HEADER = "\ndestination:";
+    /**
+     * The destination prefix of broadcast messages, the only ones that may be dropped.
+     */
+    private static final String BROADCAST_PREFIX = "/topic/";
+    /**
+     * Registry receiving the counters of this session.
+     */
+    private final WebSocketSessionRegistry registry;
+    /**
+     * Executor running the sender of this session.
+     */
+    private final Executor senders;
+    /**
+     * The maximum number of bytes waiting to be sent.
+     */
+    private final int bufferSizeLimit;
+    /**
+     * Messages waiting to be sent, oldest first. Guarded by this object's monitor.
+     */
+    private final Deque<Pending> buffer = new ArrayDeque<>();
+    /**
+     * The waiting message of each state destination. Guarded by this object's monitor.
+     */
+    private final Map<String, Pending> pendingByDestination = new HashMap<>();
+    /**
+     * The number of bytes waiting to be sent. Guarded by this object's monitor.
+     */
+    private int bufferSize;
+    /**
+     * The number of bytes of the message being sent, which are still counted in {@link #bufferSize}.
+     * Guarded by this object's monitor.
+     */
+    private int sendingSize;
+    /**
+     * Whether a sender is draining the buffer. Guarded by this object's monitor.
+     */
+    private boolean sending;
+    /**
+     * When the send in progress started, in milliseconds since epoch, or {@code 0} while idle.
+     */
+    private volatile long sendStartedAt;
+    /**
+     * Whether the session was closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Constructs a buffered session.
+     *
+     * @param delegate        The session to send on.
+     * @param registry        The {@link WebSocketSessionRegistry} counting dropped and coalesced messages.
+     * @param senders         The executor running the sender.
+     * @param bufferSizeLimit The maximum number of bytes waiting to be sent.
+     */
+    CoalescingSessionDecorator(WebSocketSession delegate, WebSocketSessionRegistry registry, Executor senders, int bufferSizeLimit) {
+        super(delegate);
+        this.registry = registry;
+        this.senders = senders;
+        this.bufferSizeLimit = bufferSizeLimit;
+    }
+
+    /**
+     * Queues a message and returns at once. A message on a state destination replaces the one still waiting for
+     * the same destination; if the waiting messages then exceed the limit, the oldest broadcast messages are dropped.
+     *
+     * @param message The message to send.
+     */
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        if (closed) {
+            return;
+        }
+        boolean startSender;
+        synchronized (this) {
+            String broadcast = broadcastDestination(message);
+            String destination = broadcast != null && STATE_DESTINATION.matcher(broadcast).matches() ? broadcast : null;
+            Pending waiting = destination == null ? null : pendingByDestination.get(destination);
+            if (waiting != null) {
+                bufferSize += message.getPayloadLength() - waiting.message.getPayloadLength();
+                waiting.message = message;
+                registry.recordCoalesced();
+            } else {
+                Pending pending = new Pending(destination, broadcast != null, message);
+                buffer.addLast(pending);
+                bufferSize += message.getPayloadLength();
+                if (destination != null) {
+                    pendingByDestination.put(destination, pending);
+                }
+            }
+            dropOverflow();
+            startSender = !sending;
+            sending = true;
+        }
+        if (startSender) {
+            senders.execute(this::drain);
+        }
+    }
+
+    /**
+     * Sends the buffered messages one at a time until the buffer is empty.
+     */
+    private void drain() {
+        while (true) {
+            Pending next;
+            synchronized (this) {
+                next = buffer.pollFirst();
+                if (next == null || closed) {
+                    sending = false;
+                    return;
+                }
+                // Once taken, the message can no longer be replaced; its bytes stay counted until it is sent
+                if (next.destination != null) {
+                    pendingByDestination.remove(next.destination, next);
+                }
+                sendingSize = next.message.getPayloadLength();
+            }
+            sendStartedAt = System.currentTimeMillis();
+            try {
+                getDelegate().sendMessage(next.message);
+            } catch (IOException | RuntimeException e) {
+                logger.debug("drain - Send to session {} failed: {}", getId(), e.getMessage());
+                closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+            } finally {
+                sendStartedAt = 0;
+                synchronized (this) {
+                    bufferSize -= next.message.getPayloadLength();
+                    sendingSize = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns how long the send in progress has been running.
+     *
+     * @param now The current time in milliseconds since epoch.
+     * @return The duration of the send in progress in milliseconds, or {@code 0} while idle.
+     */
+    long getTimeSinceSendStarted(long now) {
+        long started = sendStartedAt;
+        return started == 0 ? 0 : now - started;
+    }
+
+    /**
+     * Returns the number of bytes waiting to be sent, including the message being sent.
+     *
+     * @return The buffered bytes.
+     */
+    synchronized int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Discards the buffer and closes the session.
+     *
+     * @param status The close status.
+     * @throws IOException If the session could not be closed.
+     */
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        synchronized (this) {
+            closed = true;
+            buffer.clear();
+            pendingByDestination.clear();
+        }
+        super.close(status);
+    }
+
+    /**
+     * Closes the session, ignoring failures of an already broken connection.
+     *
+     * @param status The close status.
+     */
+    void closeQuietly(CloseStatus status) {
+        try {
+            close(status);
+        } catch (IOException e) {
+            logger.debug("closeQuietly - Failed to close session {}: {}", getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Drops the oldest broadcast messages while the waiting messages exceed the limit. The message being sent is not
+     * counted, and the message just queued is never dropped, so a single large message still goes out. Must be
+     * called while holding this object's monitor.
+     */
+    private void dropOverflow() {
+        Iterator<Pending> oldestFirst = buffer.iterator();
+        Pending newest = buffer.peekLast();
+        while (bufferSize - sendingSize > bufferSizeLimit && oldestFirst.hasNext()) {
+            Pending pending = oldestFirst.next();
+            if (pending.droppable && pending != newest) {
+                oldestFirst.remove();
+                remove(pending);
+                registry.recordDropped();
+            }
+        }
+    }
+
+    /**
+     * Takes a message out of the buffer accounting. Must be called while holding this object's monitor.
+     *
+     * @param pending The message leaving the buffer.
+     */
+    private void remove(Pending pending) {
+        bufferSize -= pending.message.getPayloadLength();
+        if (pending.destination != null) {
+            pendingByDestination.remove(pending.destination, pending);
+        }
+    }
+
+    /**
+     * Reads the destination of a STOMP MESSAGE frame, if it is a broadcast {@code /topic} destination.
+     * Control frames and messages sent to a single client have none.
+     *
+     * @param message The outbound message.
+     * @return The broadcast destination, or {@code null} if the message may not be dropped or coalesced.
+     */
+    static String broadcastDestination(WebSocketMessage<?> message) {
+        if (!(message instanceof TextMessage text)) {
+            return null;
+        }
+        String payload = text.getPayload();
+        if (!payload.startsWith("MESSAGE\n")) {
+            return null;
+        }
+        int headersEnd = payload.indexOf("\n\n");
+        int start = payload.indexOf(DESTINATION_HEADER);
+        if (start < 0 || (headersEnd >= 0 && start > headersEnd)) {
+            return null;
+        }
+        start += DESTINATION_HEADER.length();
+        int end = payload.indexOf('\n', start);
+        String destination = end < 0 ? payload.substring(start) : payload.substring(start, end);
+        return destination.startsWith(BROADCAST_PREFIX) ? destination : null;
+    }
+
+    /**
+     * A message waiting in the buffer. The message itself is replaced when a newer state for the destination arrives.
+     */
+    private static final class Pending {
+        /**
+         * The state destination of the message, or {@code null} if it may not be coalesced.
+         */
+        private final String destination;
+        /**
+         * Whether the message is a broadcast that may be dropped when the buffer overflows.
+         */
+        private final boolean droppable;
+        /**
+         * The message to send.
+         */
+        private WebSocketMessage<?> message;
+
+        /**
+         * Constructs a waiting message.
+         *
+         * @param destination The state destination, or {@code null}.
+         * @param droppable   Whether the message may be dropped.
+         * @param message     The message.
+         */
+        private Pending(String destination, boolean droppable, WebSocketMessage<?> message) {
+            this.destination = destination;
+            this.droppable = droppable;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.retriage.retriage.configurations;
+
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class starting a STOMP broker inside this JVM when {@code retriage.broker.mode=embedded}.
+ * Intended for single-host setups and tests: the application relays to it exactly like it would to an external
+ * broker, so the relay path is exercised without running one. Messages are kept in memory only.
+ */
+@Configuration
+@ConditionalOnProperty(name = "retriage.broker.mode", havingValue = "embedded")
+public class EmbeddedBrokerConfiguration {
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedBrokerConfiguration.class);
+
+    /**
+     * Creates and starts the embedded broker. "/topic" destinations are delivered to every subscriber
+     * and "/queue" destinations to a single one, as the relay expects.
+     *
+     * @param host The host the broker's STOMP acceptor binds to.
+     * @param port The port the broker's STOMP acceptor listens on.
+     * @return The running {@link EmbeddedActiveMQ} broker, stopped when the application shuts down.
+     * @throws Exception If the broker could not be started.
+     */
+    @Bean(destroyMethod = "stop")
+    public EmbeddedActiveMQ embeddedBroker(@Value("${retriage.broker.host:localhost}") String host,
+                                           @Value("${retriage.broker.port:61613}") int port) throws Exception {
+        ConfigurationImpl configuration = new ConfigurationImpl();
+        configuration.setPersistenceEnabled(false);
+        configuration.setSecurityEnabled(false);
+        configuration.setJMXManagementEnabled(false);
+        configuration.addAcceptorConfiguration("stomp", "tcp://" + host + ":" + port
+                + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/");
+        EmbeddedActiveMQ broker = new EmbeddedActiveMQ();
+        broker.setConfiguration(configuration);
+        broker.start();
+        logger.info("embeddedBroker - Embedded STOMP broker listening on {}:{}", host, port);
+        return broker;
+    }
+}
@@ -0,0 +1,34 @@
+package com.retriage.retriage.configurations;
+
+import com.retriage.retriage.services.EventClock;
+import com.retriage.retriage.services.ScaledEventClock;
+import com.retriage.retriage.services.SystemEventClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the {@link EventClock} used by running events.
+ * The clock follows the system time unless {@code retriage.clock.speed} is set to run events faster.
+ */
+@Configuration
+public class EventClockConfiguration {
+    private static final Logger logger = LoggerFactory.getLogger(EventClockConfiguration.class);
+
+    /**
+     * Creates the event clock.
+     *
+     * @param speed The number of event seconds per real second; {@code 1} runs events in real time.
+     * @return A {@link SystemEventClock} for real time, or a {@link ScaledEventClock} when accelerated.
+     */
+    @Bean
+    public EventClock eventClock(@Value("${retriage.clock.speed:1}") double speed) {
+        if (speed == 1) {
+            return new SystemEventClock();
+        }
+        logger.warn("eventClock - Events run {} times faster than real time.", speed);
+        return new ScaledEventClock(speed);
+    }
+}
@@ -1,18 +1,110 @@
 package com.retriage.retriage.configurations;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.util.concurrent.Executor;
 
 /**
  * Configuration class for setting up WebSocket message handling using STOMP.
  * This enables a message broker and defines endpoints for clients to connect to.
+ * By default messages go through Spring's in-process simple broker, which only reaches the sessions of this node.
+ * With {@code retriage.broker.mode=relay} they are relayed to an external STOMP broker shared by every node,
+ * and with {@code retriage.broker.mode=embedded} to one started inside this JVM by {@link EmbeddedBrokerConfiguration}.
+ * Destinations are relayed as they are, {@code /}-separated like {@code /topic/events/1/pools/2}, so the external
+ * broker must accept hierarchical destinations of that form. ActiveMQ Artemis, which embedded mode runs, does;
+ * RabbitMQ's STOMP plugin does not, and is not supported.
+ * With {@code spring.threads.virtual.enabled=true} the STOMP channels run every message on its own virtual thread,
+ * like the servlet container does with requests, instead of on Spring's bounded pools of platform threads.
  */
 @Configuration
 @EnableWebSocketMessageBroker
 public class EventWebSocketConfiguration implements WebSocketMessageBrokerConfigurer {
+    private static final Logger logger = LoggerFactory.getLogger(EventWebSocketConfiguration.class);
+    /**
+     * Broker mode using Spring's in-process simple broker.
+     */
+    static final String SIMPLE_MODE = "simple";
+    /**
+     * Destination on which nodes share which users are connected to them, so user destinations resolve cluster-wide.
+     */
+    private static final String USER_REGISTRY_BROADCAST = "/topic/simp-user-registry";
+    /**
+     * Destination on which messages for users not connected to this node are passed on to the other nodes.
+     */
+    private static final String USER_DESTINATION_BROADCAST = "/topic/unresolved-user-destination";
+    /**
+     * Registry of open sessions, used to close them cleanly on shutdown.
+     */
+    private final WebSocketSessionRegistry sessionRegistry;
+    /**
+     * The broker mode: {@code simple}, {@code relay} or {@code embedded}.
+     */
+    private final String brokerMode;
+    /**
+     * Host of the STOMP broker messages are relayed to.
+     */
+    private final String brokerHost;
+    /**
+     * STOMP port of the broker messages are relayed to.
+     */
+    private final int brokerPort;
+    /**
+     * Login used for both the client sessions and the shared system session on the broker.
+     */
+    private final String brokerLogin;
+    /**
+     * Passcode matching {@link #brokerLogin}.
+     */
+    private final String brokerPasscode;
+    /**
+     * Virtual host of the broker, or blank for the broker's default.
+     */
+    private final String brokerVirtualHost;
+    /**
+     * Whether the STOMP channels hand messages to virtual threads.
+     */
+    private final boolean virtualThreads;
+
+    /**
+     * Constructs an instance of {@code EventWebSocketConfiguration}.
+     *
+     * @param sessionRegistry   The {@link WebSocketSessionRegistry} tracking open sessions.
+     * @param brokerMode        The broker mode: {@code simple}, {@code relay} or {@code embedded}.
+     * @param brokerHost        Host of the STOMP broker in relay or embedded mode.
+     * @param brokerPort        STOMP port of the broker in relay or embedded mode.
+     * @param brokerLogin       Login on the broker.
+     * @param brokerPasscode    Passcode on the broker.
+     * @param brokerVirtualHost Virtual host of the broker, or blank for its default.
+     * @param virtualThreads    Whether the STOMP channels hand messages to virtual threads.
+     */
+    public EventWebSocketConfiguration(WebSocketSessionRegistry sessionRegistry,
+                                       @Value("${retriage.broker.mode:simple}") String brokerMode,
+                                       @Value("${retriage.broker.host:localhost}") String brokerHost,
+                                       @Value("${retriage.broker.port:61613}") int brokerPort,
+                                       @Value("${retriage.broker.login:guest}") String brokerLogin,
+                                       @Value("${retriage.broker.passcode:guest}") String brokerPasscode,
+                                       @Value("${retriage.broker.virtual-host:}") String brokerVirtualHost,
+                                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.sessionRegistry = sessionRegistry;
+        this.brokerMode = brokerMode;
+        this.brokerHost = brokerHost;
+        this.brokerPort = brokerPort;
+        this.brokerLogin = brokerLogin;
+        this.brokerPasscode = brokerPasscode;
+        this.brokerVirtualHost = brokerVirtualHost;
+        this.virtualThreads = virtualThreads;
+    }
 
     /**
      * Registers STOMP endpoints that clients can use to connect to the WebSocket server.
@@ -27,13 +119,87 @@ public class EventWebSocketConfiguration implements WebSocketMessageBrokerConfig
 
     /**
      * Configures the message broker for handling messages sent to and from clients.
-     * Enables a simple in-memory broker to send messages to destinations prefixed with "/topic".
+     * Sends messages to destinations prefixed with "/topic", and to "/queue" for replies addressed to a single
+     * session through "/user/queue", either through a simple in-memory broker or through a relayed STOMP broker.
+     * When relayed, nodes also share their connected users over the broker, so a reply reaches its session
+     * whichever node produced it.
      * Sets the application destination prefix to "/ws" for messages sent from clients to the server.
      * @param registry The registry for configuring the message broker.
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic");
+        if (SIMPLE_MODE.equalsIgnoreCase(brokerMode)) {
+            registry.enableSimpleBroker("/topic", "/queue");
+        } else {
+            logger.info("configureMessageBroker - Relaying STOMP messages to the {} broker at {}:{}, which must accept '/'-separated destinations (e.g. ActiveMQ Artemis).",
+                    brokerMode, brokerHost, brokerPort);
+            StompBrokerRelayRegistration relay = registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(brokerHost)
+                    .setRelayPort(brokerPort)
+                    .setClientLogin(brokerLogin)
+                    .setClientPasscode(brokerPasscode)
+                    .setSystemLogin(brokerLogin)
+                    .setSystemPasscode(brokerPasscode)
+                    .setUserRegistryBroadcast(USER_REGISTRY_BROADCAST)
+                    .setUserDestinationBroadcast(USER_DESTINATION_BROADCAST);
+            if (!brokerVirtualHost.isBlank()) {
+                relay.setVirtualHost(brokerVirtualHost);
+            }
+        }
         registry.setApplicationDestinationPrefixes("/ws");
+        if (virtualThreads) {
+            registry.configureBrokerChannel().executor(virtualExecutor("stomp-broker-"));
+        }
+    }
+
+    /**
+     * Configures the channel carrying messages from clients to the controllers. With virtual threads enabled,
+     * a controller blocked on JDBC no longer holds one of the channel's few platform threads.
+     *
+     * @param registration The registration for configuring the inbound channel.
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        if (virtualThreads) {
+            registration.executor(virtualExecutor("stomp-inbound-"));
+        }
+    }
+
+    /**
+     * Configures the channel carrying messages from the broker to the client sessions.
+     *
+     * @param registration The registration for configuring the outbound channel.
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if (virtualThreads) {
+            registration.executor(virtualExecutor("stomp-outbound-"));
+        }
+    }
+
+    /**
+     * Configures the WebSocket transport. Every session is tracked by the {@link WebSocketSessionRegistry},
+     * which gives it a bounded, coalescing outbound buffer. Spring's own per-session limits are set to the same
+     * values as a second line of defence.
+     *
+     * @param registration The registration for configuring the transport.
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.addDecoratorFactory(sessionRegistry);
+        registration.setSendTimeLimit(sessionRegistry.getSendTimeLimit());
+        registration.setSendBufferSizeLimit(sessionRegistry.getSendBufferSizeLimit());
+    }
+
+    /**
+     * Creates an executor running each task on a new virtual thread.
+     *
+     * @param threadNamePrefix The prefix of the threads' names.
+     * @return The executor.
+     */
+    private static Executor virtualExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        return executor;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package com.retriage.retriage.configurations;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread, which happens when they block inside a
+ * {@code synchronized} block or a native call, for instance in a JDBC driver or Hibernate. A pinned virtual thread
+ * holds one of the few carrier threads, so on a 2-thread VM two of them stall every other request.
+ * Listens to the JVM's own {@code jdk.VirtualThreadPinned} flight recorder events and logs each pin longer than
+ * {@code retriage.threads.pinned-threshold-ms}, with the stack that caused it. Only active with
+ * {@code spring.threads.virtual.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    /**
+     * The name of the flight recorder event emitted when a virtual thread blocks while pinned.
+     */
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    /**
+     * The number of stack frames logged for each pin.
+     */
+    private static final int LOGGED_FRAMES = 12;
+    /**
+     * The stream of pinning events.
+     */
+    private final RecordingStream stream;
+    /**
+     * The number of pins reported since startup.
+     */
+    private final AtomicLong pinnedCount = new AtomicLong();
+
+    /**
+     * Constructs an instance of {@code VirtualThreadPinningMonitor} and starts listening for pins.
+     *
+     * @param thresholdMillis The shortest pin reported, in milliseconds.
+     */
+    public VirtualThreadPinningMonitor(@Value("${retriage.threads.pinned-threshold-ms:20}") long thresholdMillis) {
+        this.stream = new RecordingStream();
+        this.stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMillis)).withStackTrace();
+        this.stream.onEvent(PINNED_EVENT, this::report);
+        this.stream.startAsync();
+        logger.info("VirtualThreadPinningMonitor - Reporting virtual threads pinned for more than {} ms", thresholdMillis);
+    }
+
+    /**
+     * Gets the number of pins reported since startup.
+     *
+     * @return The number of pins.
+     */
+    public long getPinnedCount() {
+        return pinnedCount.get();
+    }
+
+    /**
+     * Stops listening when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        stream.close();
+    }
+
+    /**
+     * Logs a pin with the top of the stack of the pinned thread.
+     *
+     * @param event The {@code jdk.VirtualThreadPinned} event.
+     */
+    private void report(RecordedEvent event) {
+        pinnedCount.incrementAndGet();
+        StringBuilder stack = new StringBuilder();
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+        for (RecordedFrame frame : frames.subList(0, Math.min(LOGGED_FRAMES, frames.size()))) {
+            stack.append("\n\tat ").append(frame.getMethod().getType().getName()).append('.')
+                    .append(frame.getMethod().getName()).append(':').append(frame.getLineNumber());
+        }
+        logger.warn("report - Virtual thread {} pinned to its carrier for {} ms{}",
+                event.getThread() == null ? "?" : event.getThread().getJavaName(),
+                event.getDuration().toMillis(), stack);
+    }
+}
@@ -0,0 +1,223 @@
+package com.retriage.retriage.configurations;
+
+import com.retriage.retriage.models.WebSocketStats;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the open WebSocket sessions of the STOMP endpoint, so they can be closed cleanly
+ * when the application shuts down instead of being dropped mid-frame. Clients are told the server
+ * is going away and reconnect to the next instance.
+ * Every session gets a bounded outbound buffer with latest-wins coalescing of state messages
+ * (see {@link CoalescingSessionDecorator}), and a watchdog closes sessions whose sends stall for longer
+ * than the send time limit, so slow clients cannot fill the heap with stale updates.
+ */
+@Component
+public class WebSocketSessionRegistry implements WebSocketHandlerDecoratorFactory {
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketSessionRegistry.class);
+    /**
+     * The open sessions by session ID.
+     */
+    private final Map<String, CoalescingSessionDecorator> sessions = new ConcurrentHashMap<>();
+    /**
+     * Threads draining the session buffers. A thread only lives while a session has something to send.
+     */
+    private final ExecutorService senders;
+    /**
+     * Thread checking for stalled sends.
+     */
+    private final ScheduledExecutorService watchdog;
+    /**
+     * The longest a single send may take before the session is closed, in milliseconds.
+     */
+    private final int sendTimeLimit;
+    /**
+     * The maximum number of bytes waiting to be sent per session.
+     */
+    private final int sendBufferSizeLimit;
+    /**
+     * The number of state messages replaced by a newer state before they were sent.
+     */
+    private final AtomicLong coalescedMessages = new AtomicLong();
+    /**
+     * The number of messages dropped because a session's buffer was full.
+     */
+    private final AtomicLong droppedMessages = new AtomicLong();
+    /**
+     * The number of sessions closed because a send stalled.
+     */
+    private final AtomicLong slowConsumerDisconnects = new AtomicLong();
+
+    /**
+     * Constructs an instance of {@code WebSocketSessionRegistry}.
+     *
+     * @param sendTimeLimit       The longest a single send may take before the session is closed, in milliseconds.
+     * @param sendBufferSizeLimit The maximum number of bytes waiting to be sent per session.
+     * @param virtualThreads      Whether sessions are drained on virtual threads, which a stalled send does not
+     *                            keep from other work.
+     */
+    public WebSocketSessionRegistry(@Value("${retriage.websocket.send-time-limit-ms:10000}") int sendTimeLimit,
+                                    @Value("${retriage.websocket.send-buffer-size:524288}") int sendBufferSizeLimit,
+                                    @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.sendTimeLimit = sendTimeLimit;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+        Thread.Builder threadBuilder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        this.senders = Executors.newCachedThreadPool(threadBuilder.name("websocket-send-", 1).factory());
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "websocket-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(100, sendTimeLimit / 4);
+        this.watchdog.scheduleWithFixedDelay(this::closeStalledSessions, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Wraps the STOMP handler so every session is registered when it opens, given its outbound buffer,
+     * and removed when it closes.
+     *
+     * @param handler The handler to decorate.
+     * @return The decorated handler.
+     */
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                CoalescingSessionDecorator buffered = new CoalescingSessionDecorator(session, WebSocketSessionRegistry.this, senders, sendBufferSizeLimit);
+                sessions.put(session.getId(), buffered);
+                super.afterConnectionEstablished(buffered);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Gets the longest a single send may take before the session is closed.
+     *
+     * @return The send time limit in milliseconds.
+     */
+    public int getSendTimeLimit() {
+        return sendTimeLimit;
+    }
+
+    /**
+     * Gets the maximum number of bytes waiting to be sent per session.
+     *
+     * @return The buffer size limit in bytes.
+     */
+    public int getSendBufferSizeLimit() {
+        return sendBufferSizeLimit;
+    }
+
+    /**
+     * Returns the number of open sessions.
+     *
+     * @return The number of open sessions.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Returns the current health of the sessions, including the dropped, coalesced and disconnected counters.
+     *
+     * @return A snapshot of the {@link WebSocketStats}.
+     */
+    public WebSocketStats getStats() {
+        WebSocketStats stats = new WebSocketStats();
+        long buffered = 0;
+        for (CoalescingSessionDecorator session : sessions.values()) {
+            buffered += session.getBufferSize();
+        }
+        stats.setOpenSessions(sessions.size());
+        stats.setBufferedBytes(buffered);
+        stats.setCoalescedMessages(coalescedMessages.get());
+        stats.setDroppedMessages(droppedMessages.get());
+        stats.setSlowConsumerDisconnects(slowConsumerDisconnects.get());
+        return stats;
+    }
+
+    /**
+     * Counts a state message replaced by a newer state before it was sent.
+     */
+    void recordCoalesced() {
+        coalescedMessages.incrementAndGet();
+    }
+
+    /**
+     * Counts a message dropped because a session's buffer was full.
+     */
+    void recordDropped() {
+        droppedMessages.incrementAndGet();
+    }
+
+    /**
+     * Closes every session whose send in progress has taken longer than the send time limit.
+     * The client reconnects and fetches a fresh state, instead of receiving a backlog of stale updates.
+     */
+    private void closeStalledSessions() {
+        long now = System.currentTimeMillis();
+        for (CoalescingSessionDecorator session : sessions.values()) {
+            long stalled = session.getTimeSinceSendStarted(now);
+            if (stalled > sendTimeLimit) {
+                slowConsumerDisconnects.incrementAndGet();
+                logger.warn("closeStalledSessions - Closing session {}, a send has stalled for {} ms with {} bytes waiting.",
+                        session.getId(), stalled, session.getBufferSize());
+                sessions.remove(session.getId());
+                session.closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+            }
+        }
+    }
+
+    /**
+     * Closes every open session with {@link CloseStatus#GOING_AWAY}.
+     */
+    public void closeAll() {
+        int closed = 0;
+        for (WebSocketSession session : new ArrayList<>(sessions.values())) {
+            try {
+                if (session.isOpen()) {
+                    session.close(CloseStatus.GOING_AWAY);
+                    closed++;
+                }
+            } catch (IOException e) {
+                logger.warn("closeAll - Failed to close session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+        sessions.clear();
+        logger.info("closeAll - Closed {} WebSocket session(s).", closed);
+    }
+
+    /**
+     * Stops the sender and watchdog threads when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        senders.shutdownNow();
+    }
+}
@@ -0,0 +1,148 @@
+package com.retriage.retriage.controllers;
+
+import com.retriage.retriage.forms.EventStatusForm;
+import com.retriage.retriage.forms.PatientBatchForm;
+import com.retriage.retriage.forms.PatientCreateForm;
+import com.retriage.retriage.forms.PatientDischargeForm;
+import com.retriage.retriage.forms.PatientMoveForm;
+import com.retriage.retriage.models.PatientOperationResult;
+import com.retriage.retriage.models.ResponseWrapper;
+import com.retriage.retriage.services.EventCommandSequencer;
+import com.retriage.retriage.services.EventCommandService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * WebSocket controller for the fine-grained commands nurses and directors send while an event runs.
+ * Unlike {@code /ws/update}, which carries the whole event, each command names only what it changes and is applied
+ * to the affected pools alone. The outcome is answered only to the sender, on {@code /user/queue/command_results};
+ * the change itself reaches every client as a delta on the event's topics. Commands are handed to the event's
+ * {@link EventCommandSequencer} rather than applied on the inbound thread, and answered once they have committed.
+ */
+@Controller
+public class EventCommandController {
+    private final EventCommandService eventCommandService;
+    private final EventCommandSequencer eventCommandSequencer;
+
+    /**
+     * Constructs an instance of {@code EventCommandController}.
+     *
+     * @param eventCommandService   The service applying the commands.
+     * @param eventCommandSequencer The single writer of each event, which applies, broadcasts and wakes in order.
+     */
+    EventCommandController(EventCommandService eventCommandService, EventCommandSequencer eventCommandSequencer) {
+        this.eventCommandService = eventCommandService;
+        this.eventCommandSequencer = eventCommandSequencer;
+    }
+
+    /**
+     * Adds a new patient to a pool of a running event.
+     *
+     * @param form The pool and the patient's card ID and condition.
+     * @return A future {@link ResponseWrapper} with the new patient's ID, or an error status if the command was rejected.
+     */
+    @MessageMapping("/patients/create")
+    @SendToUser(destinations = "/queue/command_results", broadcast = false)
+    public CompletableFuture<ResponseWrapper<Long>> createPatient(PatientCreateForm form) {
+        return apply(form.getEventId(), form.getCommandId(), () -> eventCommandService.createPatient(form));
+    }
+
+    /**
+     * Moves a patient to another pool of the same running event.
+     *
+     * @param form The patient and the pool it moves to.
+     * @return A future {@link ResponseWrapper} with the patient's ID, or an error status if the command was rejected.
+     */
+    @MessageMapping("/patients/move")
+    @SendToUser(destinations = "/queue/command_results", broadcast = false)
+    public CompletableFuture<ResponseWrapper<Long>> movePatient(PatientMoveForm form) {
+        return apply(form.getEventId(), form.getCommandId(), () -> eventCommandService.movePatient(form));
+    }
+
+    /**
+     * Discharges a patient from its pool of a running event.
+     *
+     * @param form The patient to discharge.
+     * @return A future {@link ResponseWrapper} with the patient's ID, or an error status if the command was rejected.
+     */
+    @MessageMapping("/patients/discharge")
+    @SendToUser(destinations = "/queue/command_results", broadcast = false)
+    public CompletableFuture<ResponseWrapper<Long>> dischargePatient(PatientDischargeForm form) {
+        return apply(form.getEventId(), form.getCommandId(), () -> eventCommandService.dischargePatient(form));
+    }
+
+    /**
+     * Applies several patient operations to a running event in one transaction, such as a burst of moves made
+     * while patients arrive. Every operation is answered in the single reply, by the sequence ID the client gave it.
+     *
+     * @param form The event and its operations.
+     * @return A future {@link ResponseWrapper} with the result of every operation, or an error status if the batch
+     * was rejected.
+     */
+    @MessageMapping("/patients/batch")
+    @SendToUser(destinations = "/queue/batch_results", broadcast = false)
+    public CompletableFuture<ResponseWrapper<List<PatientOperationResult>>> applyBatch(PatientBatchForm form) {
+        return apply(form.getEventId(), form.getCommandId(), () -> eventCommandService.applyBatch(form));
+    }
+
+    /**
+     * Starts, pauses, resumes or ends an event.
+     *
+     * @param form The event and its new status.
+     * @return A future {@link ResponseWrapper} with the event's ID, or an error status if the command was rejected.
+     */
+    @MessageMapping("/events/status")
+    @SendToUser(destinations = "/queue/command_results", broadcast = false)
+    public CompletableFuture<ResponseWrapper<Long>> changeStatus(EventStatusForm form) {
+        return apply(form.getEventId(), form.getCommandId(), () -> eventCommandService.changeStatus(form));
+    }
+
+    /**
+     * Hands a command to the event's single writer, which broadcasts what it changed and wakes the event's clock
+     * so it re-plans its next deadline, or starts or stops ticking. Both happen after the command's transaction
+     * has committed. A command re-sent under the same ID is answered with the first one's result instead.
+     *
+     * @param eventId   The ID of the event the command targets.
+     * @param commandId The ID the client generated for the command, or {@code null} if it has none.
+     * @param command   The command to run.
+     * @param <T>       The data type of the command's answer.
+     * @return The command's future result; a "service unavailable" response if too many commands are waiting.
+     */
+    private <T> CompletableFuture<ResponseWrapper<T>> apply(Long eventId, String commandId, Supplier<ResponseWrapper<T>> command) {
+        if (eventId == null) {
+            return CompletableFuture.completedFuture(new ResponseWrapper<>(HttpStatus.BAD_REQUEST.value(), "Event id is required.", null));
+        }
+        return eventCommandSequencer.submit(eventId, commandId, command).exceptionally(EventCommandController::failed);
+    }
+
+    /**
+     * Builds the answer to a command that could not be applied.
+     *
+     * @param cause The reason the command failed.
+     * @param <T>   The data type of the answer.
+     * @return An error {@link ResponseWrapper}.
+     */
+    static <T> ResponseWrapper<T> failed(Throwable cause) {
+        Throwable failure = cause instanceof CompletionException && cause.getCause() != null ? cause.getCause() : cause;
+        if (failure instanceof RejectedExecutionException) {
+            return new ResponseWrapper<>(HttpStatus.SERVICE_UNAVAILABLE.value(), "The event is busy, please retry.", null);
+        }
+        if (failure instanceof NoSuchElementException) {
+            return new ResponseWrapper<>(HttpStatus.NOT_FOUND.value(), failure.getMessage(), null);
+        }
+        if (failure instanceof DataIntegrityViolationException) {
+            return new ResponseWrapper<>(HttpStatus.CONFLICT.value(), "The command conflicts with the stored data.", null);
+        }
+        return new ResponseWrapper<>(HttpStatus.INTERNAL_SERVER_ERROR.value(), "The command failed.", null);
+    }
+}
@@ -1,17 +1,27 @@
 package com.retriage.retriage.controllers;
 
+import com.retriage.retriage.configurations.WebSocketSessionRegistry;
 import com.retriage.retriage.enums.PoolType;
 import com.retriage.retriage.enums.Status;
 import com.retriage.retriage.exceptions.ErrorResponse;
 import com.retriage.retriage.exceptions.SuccessResponse;
 import com.retriage.retriage.forms.EventTmpForm;
+import com.retriage.retriage.forms.SimulationForm;
 import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.EventClockStats;
+import com.retriage.retriage.models.EventSummaryPage;
 import com.retriage.retriage.models.Patient;
 import com.retriage.retriage.models.PatientPool;
 import com.retriage.retriage.models.PatientPoolTmp;
+import com.retriage.retriage.models.SimulationResult;
+import com.retriage.retriage.models.WebSocketStats;
+import com.retriage.retriage.services.EventClock;
+import com.retriage.retriage.services.EventClockService;
+import com.retriage.retriage.services.EventRuntimeService;
 import com.retriage.retriage.services.EventService;
+import com.retriage.retriage.services.EventSimulationService;
+import com.retriage.retriage.services.EventTimerService;
 import com.retriage.retriage.services.UserService;
-import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,16 +47,36 @@ public class EventController {
     private static final Logger logger = LoggerFactory.getLogger(EventController.class);
     private final EventService eventService;
     private final UserService userService;
+    private final EventRuntimeService eventRuntimeService;
+    private final EventTimerService eventTimerService;
+    private final EventClockService eventClockService;
+    private final EventClock eventClock;
+    private final EventSimulationService eventSimulationService;
+    private final WebSocketSessionRegistry webSocketSessionRegistry;
 
     /**
      * Constructs an instance of {@code EventController}.
      *
-     * @param eventService The service for managing events.
-     * @param userService  The service for managing users.
+     * @param eventService             The service for managing events.
+     * @param userService              The service for managing users.
+     * @param eventRuntimeService      The in-memory runtime holding the running event.
+     * @param eventTimerService        The service broadcasting that a deleted event stopped.
+     * @param eventClockService        The clock driving event ticks.
+     * @param eventClock               The source of the current event time.
+     * @param eventSimulationService   The service running headless simulations of an event's pools.
+     * @param webSocketSessionRegistry The registry of open WebSocket sessions and their counters.
      */
-    public EventController(EventService eventService, UserService userService) {
+    public EventController(EventService eventService, UserService userService, EventRuntimeService eventRuntimeService,
+                           EventTimerService eventTimerService, EventClockService eventClockService, EventClock eventClock,
+                           EventSimulationService eventSimulationService, WebSocketSessionRegistry webSocketSessionRegistry) {
         this.eventService = eventService;
         this.userService = userService;
+        this.eventRuntimeService = eventRuntimeService;
+        this.eventTimerService = eventTimerService;
+        this.eventClockService = eventClockService;
+        this.eventClock = eventClock;
+        this.eventSimulationService = eventSimulationService;
+        this.webSocketSessionRegistry = webSocketSessionRegistry;
     }
 
     /**
@@ -79,6 +109,7 @@ public class EventController {
                     patientPool.setPoolType(poolTmp.getPoolType());
                     patientPool.setAutoDischarge(poolTmp.isAutoDischarge());
                     patientPool.setQueueSize(poolTmp.getQueueSize());
+                    patientPool.setConcurrency(poolTmp.getConcurrency());
                     patientPool.setIcon(poolTmp.getIcon());
                     if (poolTmp.getPoolType() == PoolType.Bay) {
                         patientPool.setProcessTime(eventform.getDuration());
@@ -106,10 +137,10 @@ public class EventController {
             newEvent.setName(eventform.getName());
             newEvent.setPools(pools);
             newEvent.setStatus(Status.Created);
-            newEvent.setStartTime(System.currentTimeMillis());
+            newEvent.setStartTime(eventClock.now());
             newEvent.setDuration(eventform.getDuration());
             newEvent.setRemainingDuration(eventform.getDuration());
-            newEvent.setTimeOfStatusChange(System.currentTimeMillis());
+            newEvent.setTimeOfStatusChange(eventClock.now());
             logger.info("createEvent - Event object created: {}", newEvent);
 
             boolean saved = eventService.saveEvent(newEvent);
@@ -132,6 +163,7 @@ public class EventController {
     /**
      * findEventByID
      * Retrieves an {@link Event} by its unique identifier.
+     * A running event is served from the in-memory runtime; any other event is read from the database.
      * Only accessible to users with 'Director' or 'Nurse' roles.
      *
      * @param id The ID associated to the event you are looking for.
@@ -141,7 +173,10 @@ public class EventController {
     @GetMapping(value = "/{id}", produces = "application/json")
     @PreAuthorize("hasAnyRole('Director', 'Nurse')") // Restricts to Director and Nurse roles only
     public ResponseEntity<?> findEventByID(@PathVariable Long id) {
-        Event event = eventService.findEventById(id);
+        Event event = eventRuntimeService.getEvent(id);
+        if (event == null) {
+            event = eventService.findEventById(id);
+        }
         if (event == null) {
             logger.warn("findEventByID - Event find failed: Event with id {} not found.", id);
             ErrorResponse errorResponse = new ErrorResponse(List.of("Event with id " + id + " not found."), HttpStatus.NOT_FOUND.value(), "EVENT_NOT_FOUND");
@@ -153,29 +188,56 @@ public class EventController {
 
     /**
      * getAllEvents
-     * Returns every previously created Event.
+     * Returns one page of event summaries, newest event first, for event lists. Summaries carry the pool and patient
+     * counts instead of the pools and patients themselves; the whole graph of an event is only returned by
+     * {@link #findEventByID(Long)}. The next page is requested by passing the returned cursor as {@code after}.
      * Accessible to all authenticated users (implied by the absence of {@code @PreAuthorize} and controller-level security).
      *
-     * @return A {@link ResponseEntity} containing a list of all {@link Event} objects,
-     * or an empty list if none exist, with HTTP 200 (OK).
+     * @param status Only events with this {@link Status}, if given.
+     * @param from   Only events starting at or after this time in milliseconds since epoch, if given.
+     * @param to     Only events starting before this time in milliseconds since epoch, if given.
+     * @param after  The cursor returned with the previous page, if any.
+     * @param limit  The largest number of summaries to return.
+     * @return A {@link ResponseEntity} containing an {@link EventSummaryPage} with HTTP 200 (OK),
+     * or HTTP 400 (Bad Request) with an {@link ErrorResponse} if the date range is empty.
      */
     @GetMapping(produces = "application/json")
-    public ResponseEntity<?> getAllEvents() {
-        List<Event> events = eventService.findAllEvents();
-        return new ResponseEntity<>(events, HttpStatus.OK); // Returning 200 OK with the list of events
+    public ResponseEntity<?> getAllEvents(@RequestParam(required = false) Status status,
+                                          @RequestParam(required = false) Long from,
+                                          @RequestParam(required = false) Long to,
+                                          @RequestParam(required = false) Long after,
+                                          @RequestParam(defaultValue = "50") int limit) {
+        if (from != null && to != null && from >= to) {
+            logger.warn("getAllEvents - Invalid date range: from {} is not before to {}.", from, to);
+            ErrorResponse errorResponse = new ErrorResponse(List.of("The start of the date range must be before its end."), HttpStatus.BAD_REQUEST.value(), "INVALID_RANGE");
+            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        }
+        EventSummaryPage page = eventService.findEventSummaries(status, from, to, after, limit);
+        return new ResponseEntity<>(page, HttpStatus.OK); // Returning 200 OK with the page of summaries
+    }
+
+    /**
+     * getRunningEvents
+     * Retrieves every running {@link Event}. Several events may run at the same time, e.g. parallel drills.
+     * Served from the in-memory runtime, so no database query is made.
+     *
+     * @return A {@link ResponseEntity} containing the list of running events, or an empty list, with HTTP 200 (OK).
+     */
+    @GetMapping(value = "/running", produces = "application/json")
+    public ResponseEntity<List<Event>> getRunningEvents() {
+        return ResponseEntity.ok(eventRuntimeService.getRunningEvents());
     }
 
     /**
-     * Retrieves the currently active {@link Event}.
-     * The definition of "active" is determined by the {@link EventService}.
+     * Retrieves the currently active {@link Event}. If several events are running, the most recently started one is returned.
+     * Served from the in-memory copy held by the {@link EventRuntimeService}, so no database query is made.
      *
      * @return A {@link ResponseEntity} containing the active {@link Event} object if found,
      * or HTTP 404 (Not Found) if no active event exists.
      */
-    @Transactional
     @GetMapping(value = "/active", produces = "application/json")
     public ResponseEntity<Event> getActiveEvent() {
-        Event event = eventService.findActiveEvent();
+        Event event = eventRuntimeService.getActiveEvent();
         if (event == null) {
             logger.warn("getActiveEvent - Event find failed: No active event found.");
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -183,6 +245,64 @@ public class EventController {
         return ResponseEntity.ok(event);
     }
 
+    /**
+     * getClockStats
+     * Reports the health of the event clock: whether it is idle, how late ticks fire, and how many
+     * ticks were coalesced after an overrun.
+     * Only accessible to users with the 'Director' role.
+     *
+     * @return A {@link ResponseEntity} containing the current {@link EventClockStats} with HTTP 200 (OK).
+     */
+    @GetMapping(value = "/clock", produces = "application/json")
+    @PreAuthorize("hasRole('Director')") // Restricts to Director roles only
+    public ResponseEntity<EventClockStats> getClockStats() {
+        return ResponseEntity.ok(eventClockService.getStats());
+    }
+
+    /**
+     * getWebSocketStats
+     * Reports the health of the WebSocket sessions: how many are open, how many bytes wait to be sent, how many
+     * state messages were coalesced or dropped for slow clients, and how many slow clients were disconnected.
+     * Only accessible to users with the 'Director' role.
+     *
+     * @return A {@link ResponseEntity} containing the current {@link WebSocketStats} with HTTP 200 (OK).
+     */
+    @GetMapping(value = "/websocket", produces = "application/json")
+    @PreAuthorize("hasRole('Director')") // Restricts to Director roles only
+    public ResponseEntity<WebSocketStats> getWebSocketStats() {
+        return ResponseEntity.ok(webSocketSessionRegistry.getStats());
+    }
+
+    /**
+     * simulateEvent
+     * Runs a headless simulation of an event's Medical Service pools, so an instructor can preview how the
+     * pool configuration copes with a scenario before running it. A three-hour scenario completes in milliseconds.
+     * The event itself, running or not, is left untouched.
+     * Only accessible to users with the 'Director' role.
+     *
+     * @param id   The ID of the event whose pools should be simulated.
+     * @param form The arrival pattern and length of the scenario.
+     * @return A {@link ResponseEntity} containing the {@link SimulationResult} with HTTP 200 (OK),
+     * HTTP 404 (Not Found) with an {@link ErrorResponse} if the event does not exist,
+     * or HTTP 400 (Bad Request) with an {@link ErrorResponse} if the event cannot be simulated.
+     */
+    @PostMapping(value = "/{id}/simulate", consumes = "application/json", produces = "application/json")
+    @PreAuthorize("hasRole('Director')") // Restricts to Director roles only
+    public ResponseEntity<?> simulateEvent(@PathVariable Long id, @Valid @RequestBody SimulationForm form) {
+        try {
+            SimulationResult result = eventSimulationService.simulate(id, form);
+            if (result == null) {
+                ErrorResponse errorResponse = new ErrorResponse(List.of("Event with id " + id + " not found."), HttpStatus.NOT_FOUND.value(), "EVENT_NOT_FOUND");
+                return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+            }
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("simulateEvent - Simulation of event {} failed: {}", id, e.getMessage());
+            ErrorResponse errorResponse = new ErrorResponse(List.of(e.getMessage()), HttpStatus.BAD_REQUEST.value(), "SIMULATION_FAILED");
+            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        }
+    }
+
     /**
      * deleteEvent
      * Deletes a specified Event by its ID.
@@ -202,6 +322,9 @@ public class EventController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
         eventService.deleteEventById(id);
+        // Drops a running copy, tells its clients it stopped and frees its runtime slot
+        eventRuntimeService.loadEvent(id);
+        eventTimerService.broadcastEventUpdates(id);
         // Verify deletion
         if (eventService.findEventById(id) != null) {
             logger.info("deleteEvent - Event failed to delete with id: {}", id);
@@ -4,93 +4,265 @@ package com.retriage.retriage.controllers;
 import com.retriage.retriage.enums.Status;
 import com.retriage.retriage.forms.EventForm;
 import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.EventClockAnchor;
+import com.retriage.retriage.models.EventConflict;
+import com.retriage.retriage.models.EventPoolUpdate;
+import com.retriage.retriage.models.EventResumeMessage;
+import com.retriage.retriage.models.EventStateMessage;
 import com.retriage.retriage.models.ResponseWrapper;
+import com.retriage.retriage.models.TimeSync;
+import com.retriage.retriage.services.EventClock;
+import com.retriage.retriage.services.EventCommandSequencer;
+import com.retriage.retriage.services.EventCountdown;
+import com.retriage.retriage.services.EventMerger;
+import com.retriage.retriage.services.EventRuntime;
+import com.retriage.retriage.services.EventRuntimeService;
 import com.retriage.retriage.services.EventService;
-import jakarta.transaction.Transactional;
+import com.retriage.retriage.services.EventTimerService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * WebSocket controller for handling real-time updates related to {@link Event} objects.
- * Receives event updates from clients and broadcasts the latest active event status
- * to subscribed clients.
+ * Receives event updates from clients and broadcasts what changed in the updated event as a sequenced delta
+ * to subscribed clients. Clients fetch the full state once by subscribing to {@code /ws/events/state} or
+ * {@code /ws/events/{id}/state}, then apply the deltas on top. The countdown is not broadcast: clients run it
+ * locally from the event's clock anchor, corrected with a {@code /ws/time} ping. Any number of events may be
+ * running; every update is keyed by event ID.
  */
 @Controller
 public class EventWebSocketController {
     private static final Logger logger = LoggerFactory.getLogger(EventWebSocketController.class);
     private final EventService eventService;
+    private final EventRuntimeService eventRuntimeService;
+    private final EventCommandSequencer eventCommandSequencer;
+    private final EventTimerService eventTimerService;
+    private final EventClock eventClock;
 
     /**
      * Constructs an instance of {@code EventWebSocketController}.
      *
-     * @param eventService The service for managing events.
+     * @param eventService          The service for managing events.
+     * @param eventRuntimeService   The in-memory runtime holding the running events.
+     * @param eventCommandSequencer The single writer of each event, which applies updates in order.
+     * @param eventTimerService     The service broadcasting event deltas and serving full event state.
+     * @param eventClock            The source of the current event time.
      */
-    EventWebSocketController(EventService eventService) {
+    EventWebSocketController(EventService eventService, EventRuntimeService eventRuntimeService,
+                             EventCommandSequencer eventCommandSequencer, EventTimerService eventTimerService,
+                             EventClock eventClock) {
         this.eventService = eventService;
+        this.eventRuntimeService = eventRuntimeService;
+        this.eventCommandSequencer = eventCommandSequencer;
+        this.eventTimerService = eventTimerService;
+        this.eventClock = eventClock;
     }
 
     /**
      * Handles incoming WebSocket messages to update an event.
      * Expects an {@link EventForm} containing the updated event details.
-     * Processes the update, checks for conflicts with other running events,
-     * updates the event status (including resetting if changing from Ended to Running),
-     * and broadcasts the currently active event to the {@code /topic/event_updates} destination.
+     * Processes the update, updates the event status (including resetting if changing from Ended to Running),
+     * and broadcasts what changed as a delta to the {@code /topic/event_updates} destination and to the event's own
+     * {@code /topic/events/{id}} destination. Several events may be running at the same time.
+     * The update is merged into the current event pool by pool, so concurrent edits to different pools all apply.
+     * A rejected update is only answered to the sender, on {@code /user/queue/event_updates}, so it can resync;
+     * an update based on outdated versions is answered with the current versions, so the client can rebase.
+     * Updates are applied by the event's {@link EventCommandSequencer}, in order with every other command against it,
+     * while holding the event's lock so its tick cannot persist a stale copy between the save and the runtime refresh.
+     * An update re-sent under the same command ID is not applied again.
      *
      * @param eventForm The form containing the updated event data sent via WebSocket.
-     * @return A {@link ResponseWrapper} containing the updated active {@link Event}
-     * and a status message, or an error response if the update fails or
-     * a conflict occurs (e.g., trying to start an event when another is already running).
+     * @return A future error {@link ResponseWrapper} for the sender if the update was rejected, or {@code null} if it was applied.
      */
-    @Transactional
     @MessageMapping("/update")
-    @SendTo("/topic/event_updates")
-    public ResponseWrapper WebsocketConnection(EventForm eventForm) {
-        if (eventForm.getStatus() == Status.Running) {
-            Event activeEvent = eventService.findActiveEvent();
-            if (activeEvent != null && !activeEvent.getId().equals(eventForm.getId())) {
-                return new ResponseWrapper<Void>(HttpStatus.BAD_REQUEST.value(), "Another event is already running.", null);
-            }
+    @SendToUser(destinations = "/queue/event_updates", broadcast = false)
+    public CompletableFuture<ResponseWrapper<EventConflict>> WebsocketConnection(EventForm eventForm) {
+        Long eventId = eventForm.getId();
+        if (eventId == null) {
+            return CompletableFuture.completedFuture(new ResponseWrapper<>(HttpStatus.BAD_REQUEST.value(), "Event id is required.", null));
+        }
+        return eventCommandSequencer.submit(eventId, eventForm.getCommandId(), () -> applyUpdate(eventForm)).exceptionally(EventCommandController::failed);
+    }
+
+    /**
+     * Answers a client's time-sync ping with the current event time and clock speed, only to the sender,
+     * on {@code /user/queue/time}. Clients compute the countdown of a running event locally from its clock anchor
+     * and use this ping to correct for the offset between their clock and the server's.
+     *
+     * @param ping The ping holding the client's send time.
+     * @return The {@link TimeSync} answer.
+     */
+    @MessageMapping("/time")
+    @SendToUser(destinations = "/queue/time", broadcast = false)
+    public TimeSync timeSync(TimeSync ping) {
+        TimeSync answer = new TimeSync();
+        answer.setClientTime(ping.getClientTime());
+        answer.setServerTime(eventClock.now());
+        answer.setSpeed(eventClock.getSpeed());
+        return answer;
+    }
+
+    /**
+     * Sends the full state of the most recently started running event to a client subscribing to
+     * {@code /ws/events/state}. Used by clients that follow a single event, on connect and to resync.
+     *
+     * @return A {@link ResponseWrapper} with the {@link EventStateMessage}, or a "not found" response if no event is running.
+     */
+    @SubscribeMapping("/events/state")
+    public ResponseWrapper<EventStateMessage> subscribeActiveEventState() {
+        Event activeEvent = eventRuntimeService.getActiveEvent();
+        return eventState(activeEvent == null ? null : activeEvent.getId());
+    }
+
+    /**
+     * Sends the full state of a running event to a client subscribing to {@code /ws/events/{id}/state},
+     * on connect and to resync after missing a delta.
+     *
+     * @param eventId The ID of the event.
+     * @return A {@link ResponseWrapper} with the {@link EventStateMessage}, or a "not found" response if the event is not running.
+     */
+    @SubscribeMapping("/events/{eventId}/state")
+    public ResponseWrapper<EventStateMessage> subscribeEventState(@DestinationVariable Long eventId) {
+        return eventState(eventId);
+    }
+
+    /**
+     * Wraps the full state of a running event for a subscribing client.
+     *
+     * @param eventId The ID of the event, may be {@code null}.
+     * @return A {@link ResponseWrapper} with the {@link EventStateMessage}, or a "not found" response.
+     */
+    private ResponseWrapper<EventStateMessage> eventState(Long eventId) {
+        EventStateMessage state = eventTimerService.getEventState(eventId);
+        if (state == null) {
+            return new ResponseWrapper<>(HttpStatus.NOT_FOUND.value(), "There is not an event running currently.", null);
+        }
+        return new ResponseWrapper<>(HttpStatus.OK.value(), "Event State", state);
+    }
+
+    /**
+     * Resumes a running event for a client that reconnects after a drop, subscribing to {@code /ws/events/{id}/resume}
+     * with the sequence number of the last delta it applied in the {@code last-seq} header. Only the deltas it missed
+     * are sent back, or the full event if some of them are no longer kept.
+     *
+     * @param eventId The ID of the event.
+     * @param lastSeq The sequence number of the last delta the client applied, or {@code null} to get the full event.
+     * @return A {@link ResponseWrapper} with the {@link EventResumeMessage}, or a "not found" response if the event is not running.
+     */
+    @SubscribeMapping("/events/{eventId}/resume")
+    public ResponseWrapper<EventResumeMessage> subscribeEventResume(@DestinationVariable Long eventId,
+                                                                    @Header(name = "last-seq", required = false) Long lastSeq) {
+        EventResumeMessage resume = eventTimerService.getEventResume(eventId, lastSeq == null ? -1 : lastSeq);
+        if (resume == null) {
+            return new ResponseWrapper<>(HttpStatus.NOT_FOUND.value(), "There is not an event running currently.", null);
+        }
+        return new ResponseWrapper<>(HttpStatus.OK.value(), "Event Resume", resume);
+    }
+
+    /**
+     * Sends the current state of a single pool to a client subscribing to {@code /ws/events/{id}/pools/{poolId}/state},
+     * before it follows {@code /topic/events/{id}/pools/{poolId}}.
+     *
+     * @param eventId The ID of the event.
+     * @param poolId  The ID of the pool.
+     * @return A {@link ResponseWrapper} with the {@link EventPoolUpdate}, or a "not found" response if there is no such running pool.
+     */
+    @SubscribeMapping("/events/{eventId}/pools/{poolId}/state")
+    public ResponseWrapper<EventPoolUpdate> subscribePoolState(@DestinationVariable Long eventId, @DestinationVariable Long poolId) {
+        EventPoolUpdate pool = eventTimerService.getPoolState(eventId, poolId);
+        if (pool == null) {
+            return new ResponseWrapper<>(HttpStatus.NOT_FOUND.value(), "There is no such pool in a running event.", null);
         }
-        List<String> errorList = new ArrayList<>();
+        return new ResponseWrapper<>(HttpStatus.OK.value(), "Pool State", pool);
+    }
+
+    /**
+     * Sends the current clock anchor of a running event to a client subscribing to {@code /ws/events/{id}/clock/state},
+     * before it follows {@code /topic/events/{id}/clock}.
+     *
+     * @param eventId The ID of the event.
+     * @return A {@link ResponseWrapper} with the {@link EventClockAnchor}, or a "not found" response if the event is not running.
+     */
+    @SubscribeMapping("/events/{eventId}/clock/state")
+    public ResponseWrapper<EventClockAnchor> subscribeClockAnchor(@DestinationVariable Long eventId) {
+        EventClockAnchor anchor = eventTimerService.getClockAnchor(eventId);
+        if (anchor == null) {
+            return new ResponseWrapper<>(HttpStatus.NOT_FOUND.value(), "There is not an event running currently.", null);
+        }
+        return new ResponseWrapper<>(HttpStatus.OK.value(), "Clock Anchor", anchor);
+    }
 
-        Event updatedEvent = new Event();
-        updatedEvent.setName(eventForm.getName());
-        updatedEvent.setId(eventForm.getId());
-        updatedEvent.setDuration(eventForm.getDuration());
-        updatedEvent.setPools(eventForm.getPools());
-        updatedEvent.setStatus(eventForm.getStatus());
-        updatedEvent.setStartTime(eventForm.getStartTime());
-        updatedEvent.setRemainingDuration(eventForm.getRemainingDuration());
+    /**
+     * Merges an {@link EventForm} update into the current event and refreshes the in-memory runtime from the saved result.
+     * The runtime is reloaded from the database only when the event is started or resumed; any other
+     * update adopts the graph returned by the save.
+     *
+     * @param eventForm The form containing the updated event data.
+     * @return An error {@link ResponseWrapper} if the update was rejected, or {@code null} if it was applied.
+     */
+    private ResponseWrapper<EventConflict> applyUpdate(EventForm eventForm) {
         Event oldEvent = eventService.findEventById(eventForm.getId());
         if (oldEvent == null) {
-            errorList.add("Attempted to update event without already existing.");
-        } else if (oldEvent.getStatus() != eventForm.getStatus()) {
+            logger.warn("WebsocketConnection - Attempted to update event {} without already existing.", eventForm.getId());
+            return new ResponseWrapper<>(HttpStatus.NOT_FOUND.value(), "Attempted to update event without already existing.", null);
+        }
+        // The running copy is the current state; its clock anchor is owned by the server and the client's is ignored
+        EventRuntime runtime = eventRuntimeService.getRuntime(eventForm.getId());
+        Event current = runtime == null ? null : runtime.getEvent();
+        Event incoming = new Event();
+        incoming.setName(eventForm.getName());
+        incoming.setDuration(eventForm.getDuration());
+        incoming.setPools(eventForm.getPools());
+        incoming.setStatus(eventForm.getStatus());
+        incoming.setStartTime(eventForm.getStartTime());
+        incoming.setVersion(eventForm.getVersion());
+        // Card IDs are checked against the runtime's card index; an event that is not loaded builds its own
+        EventMerger.Result merge = current != null
+                ? EventMerger.merge(current, incoming, eventForm.getChangedPoolIds(), runtime.getPatientsByCard())
+                : EventMerger.merge(oldEvent, incoming, eventForm.getChangedPoolIds());
+        if (current == null) {
+            current = oldEvent;
+        }
+        if (merge.conflict() != null && !merge.conflict().getDuplicateCardIds().isEmpty()) {
+            logger.info("WebsocketConnection - Update of event {} reuses cards {}.", eventForm.getId(), merge.conflict().getDuplicateCardIds());
+            return new ResponseWrapper<>(HttpStatus.CONFLICT.value(), "A card is already in use in this event.", merge.conflict());
+        }
+        if (merge.conflict() != null) {
+            logger.info("WebsocketConnection - Update of event {} conflicts with pools {}.", eventForm.getId(), merge.conflict().getConflictingPoolIds());
+            return new ResponseWrapper<>(HttpStatus.CONFLICT.value(), "The event changed meanwhile, please retry on the current state.", merge.conflict());
+        }
+        Event updatedEvent = merge.merged();
+        boolean startedOrResumed = false;
+        if (oldEvent.getStatus() != eventForm.getStatus()) {
             if (oldEvent.getStatus() == Status.Ended && eventForm.getStatus() == Status.Running) {
-                updatedEvent = eventService.resetEventById(oldEvent);
-                updatedEvent.setStatus(Status.Running);
+                updatedEvent = eventService.resetEventById(oldEvent); // Restarts the countdown from the full duration
+            } else {
+                updatedEvent.setStatus(current.getStatus()); // The status the anchor was taken in
             }
-            updatedEvent.setTimeOfStatusChange(System.currentTimeMillis());
-        } else {
-            updatedEvent.setTimeOfStatusChange(eventForm.getTimeOfStatusChange());
+            EventCountdown.reanchor(updatedEvent, eventForm.getStatus(), eventClock.now());
+            startedOrResumed = eventForm.getStatus() == Status.Running;
         }
 
-
-        eventService.updateEvent(eventForm.getId(), updatedEvent);
-
-        Event response = eventService.findActiveEvent();
-        if (response == null) {
-            logger.debug("WebsocketConnection - Active event find failed: No active event found.");
-            return new ResponseWrapper<Void>(HttpStatus.NOT_FOUND.value(), "There is not an event running currently.", null);
-
+        Event savedEvent = eventService.updateEvent(eventForm.getId(), updatedEvent);
+        if (savedEvent == null) {
+            logger.warn("WebsocketConnection - Update of event {} was rejected.", eventForm.getId());
+            return new ResponseWrapper<>(HttpStatus.BAD_REQUEST.value(), "The update was rejected, e.g. because a pool is full.", null);
+        }
+        if (startedOrResumed) {
+            eventRuntimeService.loadEvent(eventForm.getId());
+        } else {
+            eventRuntimeService.adoptEvent(savedEvent);
         }
-        logger.info("WebsocketConnection - Active event found.");
-        return new ResponseWrapper<Event>(HttpStatus.OK.value(), "Nominal Event Update", response);
+        logger.info("WebsocketConnection - Event {} updated.", eventForm.getId());
+        return null;
     }
 }
\ No newline at end of file
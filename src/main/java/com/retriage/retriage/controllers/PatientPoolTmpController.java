@@ -59,6 +59,7 @@ public class PatientPoolTmpController {
         newPool.setProcessTime(poolForm.getProcessTime());
         newPool.setPoolType(poolForm.getPoolType());
         newPool.setQueueSize(poolForm.getQueueSize());
+        newPool.setConcurrency(poolForm.getConcurrency());
         newPool.setIcon(poolForm.getIcon());
 
         boolean saved = poolService.savePoolTmp(newPool);
@@ -3,6 +3,7 @@ package com.retriage.retriage.exceptions;
 import com.retriage.retriage.forms.PatientForm;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -27,6 +28,7 @@ import java.util.stream.Collectors;
  * improving error handling and the overall robustness of the application.
  * Currently, it specifically handles {@link MethodArgumentNotValidException} for validation failures,
  * {@link MaxUploadSizeExceededException} for file upload limits, {@link AccessDeniedException} for authorization issues,
+ * {@link ObjectOptimisticLockingFailureException} for saves based on an outdated version,
  * and a generic {@link Exception} fallback for any other unhandled exceptions.
  */
 @RestControllerAdvice
@@ -94,6 +96,29 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
 
+    /**
+     * Handles exceptions thrown when a save was based on an outdated version of an entity, because another
+     * request changed it in the meantime. Returns an HTTP status of 409 (Conflict) so the client reloads and retries.
+     *
+     * @param ex The {@link ObjectOptimisticLockingFailureException} that was thrown.
+     * @return A {@link ResponseEntity} containing a map representing the error details and an
+     * HTTP status code of 409. The map includes a timestamp, status code, an error type,
+     * and a message asking the user to reload.
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLockingException(ObjectOptimisticLockingFailureException ex) {
+        logger.warn("Handling optimistic locking exception: {}", ex.getMessage());
+
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("timestamp", LocalDateTime.now());
+        errorResponse.put("status", HttpStatus.CONFLICT.value());
+        errorResponse.put("error", "Conflict!");
+        errorResponse.put("message", "The data was changed by someone else. Please reload and try again.");
+
+        logger.debug("Returning conflict error response: {}", errorResponse);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
     /**
      * Handles exceptions thrown when an uploaded file exceeds the configured maximum size limit.
      * Returns a standardized error response with an HTTP status of 400 (Bad Request).
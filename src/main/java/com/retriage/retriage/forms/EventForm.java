@@ -65,6 +65,25 @@ public class EventForm {
     @NotNull(message = "timeOfStatusChange Left must be not null. At least 0.")
     private long timeOfStatusChange;
 
+    /**
+     * The version of the event the update is based on. Changes to the event's own fields are rejected
+     * if it is older than the current version.
+     */
+    private long version;
+
+    /**
+     * The IDs of the pools the client changed. Only these pools are merged into the current event; each is rejected
+     * if its version is older than the current one. If {@code null}, every pool that differs from the current event
+     * is treated as changed.
+     */
+    private List<Long> changedPoolIds;
+
+    /**
+     * The ID the client generated for this update. The same update sent again with the same ID, e.g. after a
+     * reconnect, gets the original result instead of being applied twice.
+     */
+    private String commandId;
+
     /**
      * Default no-argument constructor.
      */
@@ -0,0 +1,37 @@
+package com.retriage.retriage.forms;
+
+import com.retriage.retriage.enums.Status;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * Command form for starting, pausing, resuming or ending an event.
+ * Sent to {@code /ws/events/status}.
+ */
+@Data
+public class EventStatusForm {
+
+    /**
+     * The ID of the event.
+     */
+    @NotNull(message = "Event id is required")
+    private Long eventId;
+
+    /**
+     * The status the event should change to.
+     */
+    @NotNull(message = "Status is required")
+    private Status status;
+
+    /**
+     * The ID the client generated for this command. The same command sent again with the same ID, e.g. after a
+     * reconnect, gets the original result instead of being applied twice.
+     */
+    private String commandId;
+
+    /**
+     * Default no-argument constructor.
+     */
+    public EventStatusForm() {
+    }
+}
@@ -0,0 +1,38 @@
+package com.retriage.retriage.forms;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command form carrying several patient operations against one running event, applied in order in a single
+ * transaction and broadcast as one delta. Sent to {@code /ws/patients/batch}.
+ */
+@Data
+public class PatientBatchForm {
+
+    /**
+     * The ID of the running event every operation applies to.
+     */
+    @NotNull(message = "Event id is required")
+    private Long eventId;
+
+    /**
+     * The operations, in the order the client made them.
+     */
+    private List<PatientOperationForm> operations = new ArrayList<>();
+
+    /**
+     * The ID the client generated for this batch. The same batch sent again with the same ID, e.g. after a
+     * reconnect, gets the original result instead of being applied twice.
+     */
+    private String commandId;
+
+    /**
+     * Default no-argument constructor.
+     */
+    public PatientBatchForm() {
+    }
+}
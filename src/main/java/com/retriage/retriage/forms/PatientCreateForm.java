@@ -0,0 +1,50 @@
+package com.retriage.retriage.forms;
+
+import com.retriage.retriage.enums.Condition;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * Command form for adding a new patient to a pool of a running event.
+ * Sent to {@code /ws/patients/create}.
+ */
+@Data
+public class PatientCreateForm {
+
+    /**
+     * The ID of the running event.
+     */
+    @NotNull(message = "Event id is required")
+    private Long eventId;
+
+    /**
+     * The ID of the pool the patient arrives in.
+     */
+    @NotNull(message = "Pool id is required")
+    private Long poolId;
+
+    /**
+     * The card ID of the patient.
+     */
+    @NotBlank(message = "Card ID is required")
+    private String cardId;
+
+    /**
+     * The condition of the patient.
+     */
+    @NotNull(message = "Condition is required")
+    private Condition condition;
+
+    /**
+     * The ID the client generated for this command. The same command sent again with the same ID, e.g. after a
+     * reconnect, gets the original result instead of being applied twice.
+     */
+    private String commandId;
+
+    /**
+     * Default no-argument constructor.
+     */
+    public PatientCreateForm() {
+    }
+}
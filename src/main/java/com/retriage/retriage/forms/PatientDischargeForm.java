@@ -0,0 +1,36 @@
+package com.retriage.retriage.forms;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * Command form for discharging a patient from its pool of a running event.
+ * Sent to {@code /ws/patients/discharge}.
+ */
+@Data
+public class PatientDischargeForm {
+
+    /**
+     * The ID of the running event.
+     */
+    @NotNull(message = "Event id is required")
+    private Long eventId;
+
+    /**
+     * The ID of the patient to discharge.
+     */
+    @NotNull(message = "Patient id is required")
+    private Long patientId;
+
+    /**
+     * The ID the client generated for this command. The same command sent again with the same ID, e.g. after a
+     * reconnect, gets the original result instead of being applied twice.
+     */
+    private String commandId;
+
+    /**
+     * Default no-argument constructor.
+     */
+    public PatientDischargeForm() {
+    }
+}
@@ -0,0 +1,42 @@
+package com.retriage.retriage.forms;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * Command form for moving a patient from its current pool to another pool of the same running event.
+ * Sent to {@code /ws/patients/move}.
+ */
+@Data
+public class PatientMoveForm {
+
+    /**
+     * The ID of the running event.
+     */
+    @NotNull(message = "Event id is required")
+    private Long eventId;
+
+    /**
+     * The ID of the patient to move.
+     */
+    @NotNull(message = "Patient id is required")
+    private Long patientId;
+
+    /**
+     * The ID of the pool the patient moves to.
+     */
+    @NotNull(message = "Pool id is required")
+    private Long poolId;
+
+    /**
+     * The ID the client generated for this command. The same command sent again with the same ID, e.g. after a
+     * reconnect, gets the original result instead of being applied twice.
+     */
+    private String commandId;
+
+    /**
+     * Default no-argument constructor.
+     */
+    public PatientMoveForm() {
+    }
+}
@@ -0,0 +1,37 @@
+package com.retriage.retriage.forms;
+
+import lombok.Data;
+
+/**
+ * One operation of a {@link PatientBatchForm}. Exactly one of {@code create}, {@code move} and {@code discharge}
+ * is set; the event ID inside it may be left out, since the batch names the event.
+ */
+@Data
+public class PatientOperationForm {
+
+    /**
+     * The sequence ID the client gave the operation, echoed in its result so the client can match them up.
+     */
+    private Long seq;
+
+    /**
+     * The patient to add, if this operation adds one.
+     */
+    private PatientCreateForm create;
+
+    /**
+     * The patient to move, if this operation moves one.
+     */
+    private PatientMoveForm move;
+
+    /**
+     * The patient to discharge, if this operation discharges one.
+     */
+    private PatientDischargeForm discharge;
+
+    /**
+     * Default no-argument constructor.
+     */
+    public PatientOperationForm() {
+    }
+}
@@ -56,6 +56,13 @@ public class PatientPoolTmpForm {
     @Min(0)
     private int queueSize;
 
+    /**
+     * The number of patients that pools created from this template can process at the same time.
+     * Must be at least 1 and defaults to 1 when omitted.
+     */
+    @Min(1)
+    private int concurrency = 1;
+
     /**
      * An optional string representing an icon associated with this pool type.
      */
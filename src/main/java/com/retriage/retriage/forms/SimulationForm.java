@@ -0,0 +1,52 @@
+package com.retriage.retriage.forms;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+/**
+ * Form object used for requesting a headless simulation of an event's pool configuration.
+ * Patients arrive at random at the given rate, with the given mix of conditions, and are sent
+ * to the least busy MedService pool that has room.
+ */
+@Data
+public class SimulationForm {
+
+    /**
+     * The length of the simulated scenario in milliseconds. Uses the event's own duration when omitted.
+     */
+    @Min(1)
+    private Long duration;
+
+    /**
+     * The average number of patients arriving per hour of simulated time.
+     */
+    @DecimalMin("0.0")
+    private double arrivalsPerHour = 60;
+
+    /**
+     * The percentage of arriving patients in Immediate condition.
+     */
+    @Min(0)
+    @Max(100)
+    private int immediatePercent = 20;
+
+    /**
+     * The percentage of arriving patients in Delayed condition. The remaining patients are Minor.
+     */
+    @Min(0)
+    @Max(100)
+    private int delayedPercent = 30;
+
+    /**
+     * An optional seed for the random arrivals, so a run can be repeated exactly.
+     */
+    private Long seed;
+
+    /**
+     * Default no-argument constructor.
+     */
+    public SimulationForm() {
+    }
+}
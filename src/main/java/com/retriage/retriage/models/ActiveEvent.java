@@ -0,0 +1,46 @@
+package com.retriage.retriage.models;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Represents the pointer to the active event: the running event most recently started or resumed, which clients
+ * following a single event are shown. This class is a JPA entity mapped to the "active_event" table in the database,
+ * which holds exactly one row, so there can never be two active events.
+ */
+@Data
+@Entity
+@Table(name = "active_event")
+public class ActiveEvent {
+
+    /**
+     * The ID of the only row of the table.
+     */
+    public static final Long SINGLETON_ID = 1L;
+
+    /**
+     * The ID of the row, always {@link #SINGLETON_ID}.
+     */
+    @Id
+    private Long id = SINGLETON_ID;
+
+    /**
+     * The ID of the active event, or {@code null} if no event is running.
+     * Not a foreign key, so deleting the active event is not blocked by the pointer.
+     */
+    private Long eventId;
+
+    /**
+     * The time the active event was started or resumed, in milliseconds since epoch. Only an event started later
+     * may take the pointer over.
+     */
+    private long startedAt;
+
+    /**
+     * Default no-argument constructor required by JPA.
+     */
+    public ActiveEvent() {
+    }
+}
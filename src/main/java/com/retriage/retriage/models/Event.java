@@ -14,14 +14,30 @@ import java.util.List;
  */
 @Data
 @Entity
-@Table(name = "events") // Renamed to avoid MySQL 'event' keyword conflicts
+@Table(name = "events", indexes = @Index(name = "idx_events_status", columnList = "status")) // Renamed to avoid MySQL 'event' keyword conflicts
+@NamedEntityGraph(name = Event.POOLS_GRAPH, attributeNodes = @NamedAttributeNode("pools"))
 public class Event {
 
+    /**
+     * The name of the entity graph loading an event together with its pools. Their patients follow in one more
+     * statement for all pools at once, see {@link PatientPool#getPatients()}.
+     */
+    public static final String POOLS_GRAPH = "Event.pools";
+
+    /**
+     * The number of IDs taken from a sequence at once by events, pools and patients. Matches the JDBC batch size,
+     * so a full batch of inserts costs a single sequence call. On MySQL, which has no sequences, each sequence is
+     * a single-row table.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     /**
      * The unique identifier for the event. This is the primary key and is auto-generated.
+     * IDs are taken from the "events_seq" sequence in blocks of {@link #ID_ALLOCATION_SIZE}, so inserts can be batched.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "events_seq")
+    @SequenceGenerator(name = "events_seq", sequenceName = "events_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     /**
@@ -68,6 +84,14 @@ public class Event {
     @NotNull(message = "timeOfStatusChange Left must be not null. At least 0.")
     private long timeOfStatusChange;
 
+    /**
+     * The version of the event's own fields, incremented on every change. Used to detect concurrent edits:
+     * an update based on an older version is rejected instead of silently undoing the newer change.
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     /**
      * Default no-argument constructor required by JPA.
      */
@@ -0,0 +1,51 @@
+package com.retriage.retriage.models;
+
+import com.retriage.retriage.enums.Status;
+import lombok.Data;
+
+/**
+ * The clock anchor of an {@link Event}, broadcast on {@code /topic/events/{id}/clock} whenever it moves.
+ * Clients run the countdown from it: while the event is running, the time left is {@link #remainingDuration}
+ * minus the event time elapsed since {@link #timeOfStatusChange}; in any other status it is frozen.
+ */
+@Data
+public class EventClockAnchor {
+    /**
+     * The ID of the event.
+     */
+    private Long eventId;
+    /**
+     * The sequence number of the delta that moved the anchor.
+     */
+    private long seq;
+    /**
+     * The status of the event.
+     */
+    private Status status;
+    /**
+     * The start time of the event in milliseconds since epoch.
+     */
+    private Long startTime;
+    /**
+     * The planned total duration of the event in milliseconds.
+     */
+    private Long duration;
+    /**
+     * The time left when the status last changed, in milliseconds.
+     */
+    private Long remainingDuration;
+    /**
+     * The time of the last status change in milliseconds since epoch.
+     */
+    private Long timeOfStatusChange;
+    /**
+     * The server's event time when the anchor was sent, in milliseconds since epoch.
+     */
+    private long serverTime;
+
+    /**
+     * Default no-argument constructor.
+     */
+    public EventClockAnchor() {
+    }
+}
@@ -0,0 +1,49 @@
+package com.retriage.retriage.models;
+
+import lombok.Data;
+
+/**
+ * A snapshot of the event clock's health, reported by the {@link com.retriage.retriage.services.EventClockService}.
+ * Used to see how late ticks fire and how often the clock had to coalesce missed ticks.
+ */
+@Data
+public class EventClockStats {
+    /**
+     * Whether the clock is idle because no event is running.
+     */
+    private boolean idle;
+    /**
+     * The number of events the clock is currently ticking.
+     */
+    private int runningEvents;
+    /**
+     * The number of threads ticks are spread across.
+     */
+    private int threads;
+    /**
+     * The number of ticks fired since startup.
+     */
+    private long tickCount;
+    /**
+     * How late the most recent tick fired compared to its planned time, in milliseconds.
+     */
+    private long lastLagMillis;
+    /**
+     * The largest lag observed since startup, in milliseconds.
+     */
+    private long maxLagMillis;
+    /**
+     * The number of ticks that fired more than a full second late.
+     */
+    private long overrunCount;
+    /**
+     * The number of one-second ticks skipped because they were coalesced into a late tick.
+     */
+    private long coalescedTicks;
+
+    /**
+     * Default no-argument constructor.
+     */
+    public EventClockStats() {
+    }
+}
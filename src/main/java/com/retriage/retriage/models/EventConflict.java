@@ -0,0 +1,47 @@
+package com.retriage.retriage.models;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The answer to an event update that was based on outdated versions, sent only to its sender on
+ * {@code /user/queue/event_updates}. Holds the current versions so the client can rebase its change on the
+ * current state and send it again.
+ */
+@Data
+public class EventConflict {
+    /**
+     * The ID of the event.
+     */
+    private Long eventId;
+    /**
+     * The current version of the event's own fields.
+     */
+    private long eventVersion;
+    /**
+     * Whether the update changed the event's own fields based on an outdated version.
+     */
+    private boolean eventConflict;
+    /**
+     * The IDs of the pools the update changed based on an outdated version.
+     */
+    private List<Long> conflictingPoolIds = new ArrayList<>();
+    /**
+     * The card IDs the update gave to a patient while another patient of the event holds them.
+     */
+    private List<String> duplicateCardIds = new ArrayList<>();
+    /**
+     * The current version of every pool of the event, by pool ID.
+     */
+    private Map<Long, Long> poolVersions = new HashMap<>();
+
+    /**
+     * Default no-argument constructor.
+     */
+    public EventConflict() {
+    }
+}
@@ -0,0 +1,74 @@
+package com.retriage.retriage.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.retriage.retriage.enums.Status;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A patch to the state of a running {@link Event}, broadcast instead of the full event.
+ * Only the fields that changed since the previous delta are present; every other field is left out of the JSON.
+ * Deltas of an event carry consecutive sequence numbers, so a client that sees a gap knows it missed one and
+ * should fetch a fresh {@link EventStateMessage}.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class EventDelta {
+    /**
+     * The ID of the event this delta applies to.
+     */
+    private Long eventId;
+    /**
+     * The sequence number of this delta, one more than the previous delta of the same event.
+     */
+    private long seq;
+    /**
+     * The new name of the event, if it changed.
+     */
+    private String name;
+    /**
+     * The new status of the event, if it changed.
+     */
+    private Status status;
+    /**
+     * The new start time of the event, if it changed.
+     */
+    private Long startTime;
+    /**
+     * The new duration of the event, if it changed.
+     */
+    private Long duration;
+    /**
+     * The new remaining duration of the event, if it changed.
+     */
+    private Long remainingDuration;
+    /**
+     * The new time of the last status change, if it changed.
+     */
+    private Long timeOfStatusChange;
+    /**
+     * The new version of the event's own fields, if it changed.
+     */
+    private Long version;
+    /**
+     * The pools that were added or changed, each with its full list of patients.
+     */
+    private List<PatientPool> pools = new ArrayList<>();
+    /**
+     * The IDs of the pools that were removed from the event.
+     */
+    private List<Long> removedPoolIds = new ArrayList<>();
+    /**
+     * The IDs of the pools that were added or changed. Only set on the summary topic, which leaves out the pools
+     * themselves; their contents are on the per-pool topics.
+     */
+    private List<Long> changedPoolIds = new ArrayList<>();
+
+    /**
+     * Default no-argument constructor.
+     */
+    public EventDelta() {
+    }
+}
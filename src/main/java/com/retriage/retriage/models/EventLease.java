@@ -0,0 +1,40 @@
+package com.retriage.retriage.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Represents the lease a server node holds on a running event, granting it the right to drive the event's clock.
+ * This class is a JPA entity mapped to the "event_leases" table in the database.
+ * A lease that is not renewed before it expires may be taken over by any other node.
+ */
+@Data
+@Entity
+@Table(name = "event_leases", indexes = {
+        @Index(name = "idx_event_leases_node_id", columnList = "nodeId"),
+        @Index(name = "idx_event_leases_expires_at", columnList = "expiresAt")
+})
+public class EventLease {
+
+    /**
+     * The ID of the leased event. One lease exists per event at most.
+     */
+    @Id
+    private Long eventId;
+
+    /**
+     * The ID of the node holding the lease.
+     */
+    private String nodeId;
+
+    /**
+     * The time the lease expires unless renewed, in milliseconds since epoch.
+     */
+    private long expiresAt;
+
+    /**
+     * Default no-argument constructor required by JPA.
+     */
+    public EventLease() {
+    }
+}
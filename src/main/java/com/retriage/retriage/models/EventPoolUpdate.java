@@ -0,0 +1,50 @@
+package com.retriage.retriage.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+/**
+ * The new state of a single pool of a running {@link Event}, broadcast on {@code /topic/events/{id}/pools/{poolId}}
+ * so a client showing one pool only receives that pool's changes. The pool is always sent whole, so applying the
+ * update with the highest sequence number gives the current pool even after a missed message.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EventPoolUpdate {
+    /**
+     * The ID of the event.
+     */
+    private Long eventId;
+    /**
+     * The sequence number of the event delta this update belongs to.
+     */
+    private long seq;
+    /**
+     * The ID of the pool.
+     */
+    private Long poolId;
+    /**
+     * The pool with its full list of patients, or {@code null} if the pool was removed.
+     */
+    private PatientPool pool;
+    /**
+     * Whether the pool was removed from the event.
+     */
+    private boolean removed;
+
+    /**
+     * Constructs a pool update.
+     *
+     * @param eventId The ID of the event.
+     * @param seq     The sequence number of the event delta this update belongs to.
+     * @param poolId  The ID of the pool.
+     * @param pool    The pool, or {@code null} if it was removed.
+     */
+    public EventPoolUpdate(Long eventId, long seq, Long poolId, PatientPool pool) {
+        this.eventId = eventId;
+        this.seq = seq;
+        this.poolId = poolId;
+        this.pool = pool;
+        this.removed = pool == null;
+    }
+}
@@ -0,0 +1,47 @@
+package com.retriage.retriage.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * The answer to a client resuming an {@link Event} after a reconnect. It carries either the deltas the client missed,
+ * to apply in order, or the full event if some of them are no longer kept. Deltas with a sequence number above
+ * {@link #seq} apply on top of it.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EventResumeMessage {
+    /**
+     * The ID of the event.
+     */
+    private Long eventId;
+    /**
+     * The sequence number of the last delta included in this answer.
+     */
+    private long seq;
+    /**
+     * The missed deltas in order, or {@code null} if the full event is sent instead.
+     */
+    private List<EventDelta> deltas;
+    /**
+     * The full event, or {@code null} if the missed deltas are sent instead.
+     */
+    private Event event;
+
+    /**
+     * Constructs a resume message.
+     *
+     * @param eventId The ID of the event.
+     * @param seq     The sequence number of the last delta included in this answer.
+     * @param deltas  The missed deltas, or {@code null} if the full event is sent.
+     * @param event   The full event, or {@code null} if the missed deltas are sent.
+     */
+    public EventResumeMessage(Long eventId, long seq, List<EventDelta> deltas, Event event) {
+        this.eventId = eventId;
+        this.seq = seq;
+        this.deltas = deltas;
+        this.event = event;
+    }
+}
@@ -0,0 +1,36 @@
+package com.retriage.retriage.models;
+
+import lombok.Data;
+
+/**
+ * The full state of a running {@link Event}, sent to a client when it subscribes or resyncs.
+ * Deltas with a sequence number above {@link #seq} apply on top of it.
+ */
+@Data
+public class EventStateMessage {
+    /**
+     * The ID of the event.
+     */
+    private Long eventId;
+    /**
+     * The sequence number of the last delta included in this state.
+     */
+    private long seq;
+    /**
+     * The full event.
+     */
+    private Event event;
+
+    /**
+     * Constructs a state message.
+     *
+     * @param eventId The ID of the event.
+     * @param seq     The sequence number of the last delta included in this state.
+     * @param event   The full event.
+     */
+    public EventStateMessage(Long eventId, long seq, Event event) {
+        this.eventId = eventId;
+        this.seq = seq;
+        this.event = event;
+    }
+}
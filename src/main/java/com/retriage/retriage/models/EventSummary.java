@@ -0,0 +1,81 @@
+package com.retriage.retriage.models;
+
+import com.retriage.retriage.enums.Status;
+import lombok.Data;
+
+/**
+ * A summary of an {@link Event} for event lists, without its pools and patients.
+ * Built by a single projection query in which the pool and patient counts are computed by the database,
+ * so listing events never loads their graphs.
+ */
+@Data
+public class EventSummary {
+    /**
+     * The ID of the event.
+     */
+    private Long id;
+    /**
+     * The name of the event.
+     */
+    private String name;
+    /**
+     * The status of the event.
+     */
+    private Status status;
+    /**
+     * The start time of the event in milliseconds since epoch.
+     */
+    private Long startTime;
+    /**
+     * The planned total duration of the event in milliseconds.
+     */
+    private Long duration;
+    /**
+     * The time left when the status last changed, in milliseconds.
+     */
+    private long remainingDuration;
+    /**
+     * The time of the last status change in milliseconds since epoch.
+     */
+    private long timeOfStatusChange;
+    /**
+     * The number of pools of the event.
+     */
+    private long poolCount;
+    /**
+     * The number of patients currently held by the pools of the event.
+     */
+    private long patientCount;
+
+    /**
+     * Default no-argument constructor.
+     */
+    public EventSummary() {
+    }
+
+    /**
+     * Constructs a summary from the columns selected by the projection query.
+     *
+     * @param id                 The ID of the event.
+     * @param name               The name of the event.
+     * @param status             The status of the event.
+     * @param startTime          The start time of the event in milliseconds since epoch.
+     * @param duration           The planned total duration of the event in milliseconds.
+     * @param remainingDuration  The time left when the status last changed, in milliseconds.
+     * @param timeOfStatusChange The time of the last status change in milliseconds since epoch.
+     * @param poolCount          The number of pools of the event.
+     * @param patientCount       The number of patients held by the pools of the event.
+     */
+    public EventSummary(Long id, String name, Status status, Long startTime, Long duration, long remainingDuration,
+                        long timeOfStatusChange, long poolCount, long patientCount) {
+        this.id = id;
+        this.name = name;
+        this.status = status;
+        this.startTime = startTime;
+        this.duration = duration;
+        this.remainingDuration = remainingDuration;
+        this.timeOfStatusChange = timeOfStatusChange;
+        this.poolCount = poolCount;
+        this.patientCount = patientCount;
+    }
+}
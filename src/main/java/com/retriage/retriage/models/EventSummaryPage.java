@@ -0,0 +1,39 @@
+package com.retriage.retriage.models;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of {@link EventSummary} objects, newest event first.
+ * The next page is requested with {@link #nextCursor} rather than an offset, so each page costs the same however
+ * many events came before it, and events created meanwhile do not shift the pages.
+ */
+@Data
+public class EventSummaryPage {
+    /**
+     * The summaries of this page, by descending event ID.
+     */
+    private List<EventSummary> events;
+    /**
+     * The cursor to pass as {@code after} for the next page, or {@code null} if this is the last page.
+     */
+    private Long nextCursor;
+
+    /**
+     * Default no-argument constructor.
+     */
+    public EventSummaryPage() {
+    }
+
+    /**
+     * Constructs a page.
+     *
+     * @param events     The summaries of this page.
+     * @param nextCursor The cursor of the next page, or {@code null} if this is the last page.
+     */
+    public EventSummaryPage(List<EventSummary> events, Long nextCursor) {
+        this.events = events;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -14,19 +14,22 @@ import lombok.Data;
  */
 @Data
 @Entity
-@Table(name = "patients")
+@Table(name = "patients", uniqueConstraints = @UniqueConstraint(name = "uk_patients_pool_card", columnNames = {"pool_id", "card_id"}))
 public class Patient {
 
     /**
      * The unique identifier for the patient. This is the primary key and is auto-generated.
+     * Taken from the "patients_seq" sequence, see {@link Event#ID_ALLOCATION_SIZE}.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patients_seq")
+    @SequenceGenerator(name = "patients_seq", sequenceName = "patients_seq", allocationSize = Event.ID_ALLOCATION_SIZE)
     private Long id;
 
     /**
      * A unique identifier for the patient, often represented as a card ID.
-     * This field is required and must be unique across all patients.
+     * This field is required and must be unique among the patients of an event; ended and reset events keep their
+     * patients, so a card may be reused in another event or drill.
      */
     @NotBlank(message = "Card ID cannot be blank")
     @Column(nullable = false)
@@ -49,6 +52,19 @@ public class Patient {
     @NotNull(message = "BeingProcessed must be either true or false")
     private boolean processed;
 
+    /**
+     * The timestamp (milliseconds since epoch) when this patient started being processed in a MedService pool,
+     * or {@code null} while the patient is waiting for one of the pool's servers.
+     */
+    private Long startedProcessingAt;
+
+    /**
+     * The version of the patient, incremented on every change. Used to detect concurrent edits.
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     /**
      * Default no-argument constructor required by JPA.
      */
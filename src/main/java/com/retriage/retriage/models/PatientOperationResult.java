@@ -0,0 +1,45 @@
+package com.retriage.retriage.models;
+
+import lombok.Data;
+
+/**
+ * The outcome of one operation of a patient batch, answered to its sender on {@code /user/queue/batch_results}.
+ */
+@Data
+public class PatientOperationResult {
+    /**
+     * The sequence ID the client gave the operation.
+     */
+    private Long seq;
+    /**
+     * The HTTP status code of the operation (e.g., 200, 400, 404).
+     */
+    private int httpStatus;
+    /**
+     * The reason the operation was rejected, or a short success message.
+     */
+    private String error;
+    /**
+     * The ID of the patient the operation added, moved or discharged, or {@code null} if it was rejected.
+     */
+    private Long patientId;
+
+    /**
+     * Default no-argument constructor.
+     */
+    public PatientOperationResult() {
+    }
+
+    /**
+     * Constructs the result of an operation from the answer of the command it ran.
+     *
+     * @param seq    The sequence ID the client gave the operation.
+     * @param answer The answer of the command.
+     */
+    public PatientOperationResult(Long seq, ResponseWrapper<Long> answer) {
+        this.seq = seq;
+        this.httpStatus = answer.getHttpStatus();
+        this.error = answer.getError();
+        this.patientId = answer.getData();
+    }
+}
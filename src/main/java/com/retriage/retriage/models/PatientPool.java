@@ -3,6 +3,8 @@ package com.retriage.retriage.models;
 import com.retriage.retriage.enums.PoolType;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import java.util.List;
 
@@ -13,14 +15,16 @@ import java.util.List;
  */
 @Entity
 @Data
-@Table(name = "patient_pool")
+@Table(name = "patient_pool", indexes = @Index(name = "idx_patient_pool_event_id", columnList = "event_id"))
 public class PatientPool {
 
     /**
      * The unique identifier for the patient pool. This is the primary key and is auto-generated.
+     * Taken from the "patient_pool_seq" sequence, see {@link Event#ID_ALLOCATION_SIZE}.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patient_pool_seq")
+    @SequenceGenerator(name = "patient_pool_seq", sequenceName = "patient_pool_seq", allocationSize = Event.ID_ALLOCATION_SIZE)
     private Long id;
 
     /**
@@ -34,8 +38,8 @@ public class PatientPool {
     private Long processTime;
 
     /**
-     * The timestamp (milliseconds since epoch) when a patient currently being processed in this pool started processing.
-     * This is typically used for pools that process one patient at a time.
+     * The timestamp (milliseconds since epoch) when the earliest patient still being processed in this pool started processing.
+     * Each patient carries its own start time; this value is kept for clients that only show one patient in progress.
      */
     private Long startedProcessingAt;
 
@@ -48,10 +52,13 @@ public class PatientPool {
      * The list of {@link Patient}s currently associated with this pool.
      * This is a one-to-many relationship. Operations on the PatientPool will cascade to the Patients.
      * The foreign key is managed by the Patient entity via the 'pool_id' column.
+     * Loaded by subselect: the first pool whose patients are read loads the patients of every pool that was read
+     * with it in a single statement, instead of one statement per pool.
      */
     //Owner
     @OneToMany(cascade = CascadeType.ALL)
     @JoinColumn(name = "pool_id")
+    @Fetch(FetchMode.SUBSELECT)
     private List<Patient> patients;
 
     /**
@@ -61,15 +68,30 @@ public class PatientPool {
     private PoolType poolType;
 
     /**
-     * The maximum number of patients allowed in the queue for this pool.
+     * The maximum number of patients allowed in this pool, including those being processed.
+     * A value of {@code 0} means the pool has no limit.
      */
     private int queueSize;
 
+    /**
+     * The number of patients this pool can process at the same time, e.g. the number of scanners in a CT suite.
+     * Only used by MedService pools. Pools stored before this setting existed are treated as processing one at a time.
+     */
+    private int concurrency = 1;
+
     /**
      * An optional string representing an icon associated with this pool type, used for UI representation.
      */
     private String icon;
 
+    /**
+     * The version of the pool, incremented whenever its fields or the set of patients it holds change.
+     * Updates are merged pool by pool: an edit to a pool is only accepted if it was based on the pool's current version.
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     /**
      * Default no-argument constructor required by JPA.
      */
@@ -54,6 +54,11 @@ public class PatientPoolTmp {
      */
     private int queueSize;
 
+    /**
+     * The default number of patients that pools created from this template can process at the same time.
+     */
+    private int concurrency = 1;
+
     /**
      * An optional string representing an icon associated with this template's pool type, used for UI representation.
      */
@@ -0,0 +1,36 @@
+package com.retriage.retriage.models;
+
+import lombok.Data;
+
+/**
+ * The outcome of a single MedService pool in a headless simulation. Part of a {@link SimulationResult}.
+ */
+@Data
+public class PoolSimulationResult {
+    /**
+     * The ID of the simulated pool.
+     */
+    private Long poolId;
+    /**
+     * The name of the simulated pool.
+     */
+    private String name;
+    /**
+     * The number of patients the pool could process at the same time.
+     */
+    private int concurrency;
+    /**
+     * The number of patients the pool completed.
+     */
+    private int completed;
+    /**
+     * The share of the pool's server time spent processing patients, between 0 and 1.
+     */
+    private double utilization;
+
+    /**
+     * Default no-argument constructor.
+     */
+    public PoolSimulationResult() {
+    }
+}
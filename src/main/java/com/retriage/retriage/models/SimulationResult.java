@@ -0,0 +1,79 @@
+package com.retriage.retriage.models;
+
+import com.retriage.retriage.enums.Condition;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of a headless simulation run by the {@link com.retriage.retriage.services.EventSimulationService}.
+ * Reports how many patients the event's MedService pools could take and complete, and how long they waited for a server.
+ */
+@Data
+public class SimulationResult {
+    /**
+     * The ID of the event whose pool configuration was simulated.
+     */
+    private Long eventId;
+    /**
+     * The length of the simulated scenario in milliseconds.
+     */
+    private long simulatedMillis;
+    /**
+     * How long the simulation took to run, in milliseconds of real time.
+     */
+    private long wallClockMillis;
+    /**
+     * The number of patients that arrived.
+     */
+    private int arrivals;
+    /**
+     * The number of arriving patients admitted to a pool.
+     */
+    private int admitted;
+    /**
+     * The number of arriving patients turned away because every pool was full.
+     */
+    private int rejected;
+    /**
+     * The number of patients that completed processing.
+     */
+    private int completed;
+    /**
+     * The number of patients still waiting for a server when the scenario ended.
+     */
+    private int waitingAtEnd;
+    /**
+     * The number of patients completed per hour of simulated time.
+     */
+    private double throughputPerHour;
+    /**
+     * The average time completed patients waited for a server, in milliseconds.
+     */
+    private long averageWaitMillis;
+    /**
+     * The 90th percentile of the time completed patients waited for a server, in milliseconds.
+     */
+    private long p90WaitMillis;
+    /**
+     * The longest time a completed patient waited for a server, in milliseconds.
+     */
+    private long maxWaitMillis;
+    /**
+     * The average wait of completed patients by condition, in milliseconds.
+     */
+    private Map<Condition, Long> averageWaitByCondition = new EnumMap<>(Condition.class);
+    /**
+     * The results of each simulated MedService pool.
+     */
+    private List<PoolSimulationResult> pools = new ArrayList<>();
+
+    /**
+     * Default no-argument constructor.
+     */
+    public SimulationResult() {
+    }
+}
@@ -0,0 +1,30 @@
+package com.retriage.retriage.models;
+
+import lombok.Data;
+
+/**
+ * A time-sync ping used by clients to run an event's countdown locally.
+ * The client sends the time it sent the ping; the server echoes it with its own event time and clock speed,
+ * from which the client estimates the offset between its clock and the server's event clock.
+ */
+@Data
+public class TimeSync {
+    /**
+     * The client's time when it sent the ping, in milliseconds since epoch, echoed back unchanged.
+     */
+    private long clientTime;
+    /**
+     * The server's event time when it answered, in milliseconds since epoch.
+     */
+    private long serverTime;
+    /**
+     * How many milliseconds of event time pass per millisecond of real time.
+     */
+    private double speed;
+
+    /**
+     * Default no-argument constructor.
+     */
+    public TimeSync() {
+    }
+}
@@ -7,6 +7,8 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
+import java.util.Locale;
+
 /**
  * Represents a user within the application.
  * This class is a JPA entity mapped to the "users" table in the database.
@@ -14,7 +16,7 @@ import lombok.Data;
  */
 @Data
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = @UniqueConstraint(name = "uk_users_email_normalized", columnNames = "email_normalized"))
 public class User {
     /**
      * The unique identifier for the user. This is the primary key and is auto-generated.
@@ -32,6 +34,14 @@ public class User {
     @NotNull(message = "Email can't be null!") //Validation: Not null
     private String email;
 
+    /**
+     * The user's email address trimmed and in lower case, kept in step with {@link #email} on every save.
+     * Users are looked up by this column, which is indexed and unique, instead of comparing {@code lower(email)},
+     * which no index can serve.
+     */
+    @Column(name = "email_normalized", nullable = false)
+    private String emailNormalized;
+
     /**
      * The user's first name. Must not be blank or null.
      */
@@ -58,4 +68,23 @@ public class User {
      */
     public User() {
     }
+
+    /**
+     * Normalizes an email address the way it is stored in {@link #emailNormalized}.
+     *
+     * @param email The email address, may be {@code null}.
+     * @return The trimmed, lower-case address, or {@code null} if {@code email} is {@code null}.
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Updates {@link #emailNormalized} from {@link #email} before the user is written.
+     */
+    @PrePersist
+    @PreUpdate
+    void normalizeEmail() {
+        this.emailNormalized = normalizeEmail(email);
+    }
 }
\ No newline at end of file
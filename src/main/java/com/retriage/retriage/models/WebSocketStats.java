@@ -0,0 +1,38 @@
+package com.retriage.retriage.models;
+
+import lombok.Data;
+
+/**
+ * A snapshot of the health of the WebSocket sessions, reported by the
+ * {@link com.retriage.retriage.configurations.WebSocketSessionRegistry}.
+ * Used to see how often slow clients fell behind and what it cost them.
+ */
+@Data
+public class WebSocketStats {
+    /**
+     * The number of open sessions.
+     */
+    private int openSessions;
+    /**
+     * The number of bytes waiting to be sent across all sessions.
+     */
+    private long bufferedBytes;
+    /**
+     * The number of state messages replaced by a newer state before they were sent.
+     */
+    private long coalescedMessages;
+    /**
+     * The number of messages dropped because a session's buffer was full.
+     */
+    private long droppedMessages;
+    /**
+     * The number of sessions closed because a send stalled for longer than the send time limit.
+     */
+    private long slowConsumerDisconnects;
+
+    /**
+     * Default no-argument constructor.
+     */
+    public WebSocketStats() {
+    }
+}
@@ -0,0 +1,44 @@
+package com.retriage.retriage.repositories;
+
+import com.retriage.retriage.models.ActiveEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for managing the single {@link ActiveEvent} row.
+ * Extends {@link JpaRepository} to provide standard CRUD operations.
+ * <p>
+ * This interface interacts with the "active_event" table in the database.
+ * Every method writes with a single conditional statement, so two nodes moving the pointer at once cannot
+ * overwrite each other with an older event.
+ */
+@Repository
+public interface ActiveEventRepo extends JpaRepository<ActiveEvent, Long> {
+
+    /**
+     * Points to an event that has just been started or resumed, unless an event started later is already active.
+     *
+     * @param eventId   The ID of the event.
+     * @param startedAt The time the event was started or resumed, in milliseconds since epoch.
+     * @return The number of rows updated: {@code 1} if the event is now active, {@code 0} otherwise.
+     */
+    @Modifying
+    @Query("UPDATE ActiveEvent a SET a.eventId = :eventId, a.startedAt = :startedAt WHERE a.id = 1 AND (a.eventId IS NULL OR a.eventId = :eventId OR a.startedAt < :startedAt)")
+    int activate(@Param("eventId") Long eventId, @Param("startedAt") long startedAt);
+
+    /**
+     * Hands the pointer from an event that stopped to the next one, if the stopped event was the active one.
+     *
+     * @param eventId       The ID of the event that stopped.
+     * @param nextEventId   The ID of the event taking over, or {@code null} if none is running.
+     * @param nextStartedAt The time the event taking over was started or resumed, in milliseconds since epoch.
+     * @return The number of rows updated: {@code 1} if the pointer moved, {@code 0} otherwise.
+     */
+    @Modifying
+    @Query("UPDATE ActiveEvent a SET a.eventId = :nextEventId, a.startedAt = :nextStartedAt WHERE a.id = 1 AND a.eventId = :eventId")
+    int deactivate(@Param("eventId") Long eventId, @Param("nextEventId") Long nextEventId,
+                   @Param("nextStartedAt") long nextStartedAt);
+}
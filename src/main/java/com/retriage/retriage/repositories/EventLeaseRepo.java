@@ -0,0 +1,95 @@
+package com.retriage.retriage.repositories;
+
+import com.retriage.retriage.models.EventLease;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for managing {@link EventLease} entities.
+ * Extends {@link JpaRepository} to provide standard CRUD operations.
+ * <p>
+ * This interface interacts with the "event_leases" table in the database.
+ * Every method writes with a single conditional statement, so two nodes racing for a lease never both win.
+ */
+@Repository
+public interface EventLeaseRepo extends JpaRepository<EventLease, Long> {
+
+    /**
+     * Takes a lease if it is already held by the node or has expired.
+     *
+     * @param eventId   The ID of the leased event.
+     * @param nodeId    The ID of the node taking the lease.
+     * @param now       The current time in milliseconds since epoch.
+     * @param expiresAt The new expiry of the lease in milliseconds since epoch.
+     * @return The number of rows updated: {@code 1} if the node now holds the lease, {@code 0} otherwise.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE EventLease l SET l.nodeId = :nodeId, l.expiresAt = :expiresAt WHERE l.eventId = :eventId AND (l.nodeId = :nodeId OR l.expiresAt < :now)")
+    int takeLease(@Param("eventId") Long eventId, @Param("nodeId") String nodeId,
+                  @Param("now") long now, @Param("expiresAt") long expiresAt);
+
+    /**
+     * Creates a lease for an event that has none. Fails with a duplicate key if another node created it first.
+     *
+     * @param eventId   The ID of the leased event.
+     * @param nodeId    The ID of the node taking the lease.
+     * @param expiresAt The expiry of the lease in milliseconds since epoch.
+     * @return The number of rows inserted.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO event_leases (event_id, node_id, expires_at) VALUES (:eventId, :nodeId, :expiresAt)", nativeQuery = true)
+    int insertLease(@Param("eventId") Long eventId, @Param("nodeId") String nodeId, @Param("expiresAt") long expiresAt);
+
+    /**
+     * Renews every lease held by a node and takes over every expired lease, in one statement.
+     *
+     * @param nodeId    The ID of the renewing node.
+     * @param now       The current time in milliseconds since epoch.
+     * @param expiresAt The new expiry of the leases in milliseconds since epoch.
+     * @return The number of leases the node now holds.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE EventLease l SET l.nodeId = :nodeId, l.expiresAt = :expiresAt WHERE l.nodeId = :nodeId OR l.expiresAt < :now")
+    int renewLeases(@Param("nodeId") String nodeId, @Param("now") long now, @Param("expiresAt") long expiresAt);
+
+    /**
+     * Finds the IDs of the events whose lease a node holds.
+     *
+     * @param nodeId The ID of the node.
+     * @return The IDs of the leased events. Returns an empty list if the node holds none.
+     */
+    @Query("SELECT l.eventId FROM EventLease l WHERE l.nodeId = :nodeId")
+    List<Long> findEventIdsByNodeId(@Param("nodeId") String nodeId);
+
+    /**
+     * Gives up a lease, if the node still holds it.
+     *
+     * @param eventId The ID of the leased event.
+     * @param nodeId  The ID of the node giving up the lease.
+     * @return The number of rows deleted.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EventLease l WHERE l.eventId = :eventId AND l.nodeId = :nodeId")
+    int releaseLease(@Param("eventId") Long eventId, @Param("nodeId") String nodeId);
+
+    /**
+     * Gives up every lease a node holds.
+     *
+     * @param nodeId The ID of the node.
+     * @return The number of rows deleted.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EventLease l WHERE l.nodeId = :nodeId")
+    int releaseLeases(@Param("nodeId") String nodeId);
+}
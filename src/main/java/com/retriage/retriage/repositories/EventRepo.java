@@ -2,16 +2,27 @@ package com.retriage.retriage.repositories;
 
 import com.retriage.retriage.enums.Status;
 import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.EventSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for managing {@link Event} entities.
  * Extends {@link JpaRepository} to provide standard CRUD operations.
  * <p>
  * This interface interacts with the "events" table in the database.
+ * <p>
+ * Events are read with their whole graph in a constant number of statements: the events and their pools in one,
+ * through the {@link Event#POOLS_GRAPH} entity graph, and the patients of all those pools in one more.
+ * Serializing the result therefore never loads pools or patients one pool at a time.
  */
 @Repository
 public interface EventRepo extends JpaRepository<Event, Long> {
@@ -23,5 +34,97 @@ public interface EventRepo extends JpaRepository<Event, Long> {
      * @param status The {@link Status} to search for (e.g., {@code Status.Running}, {@code Status.Ended}).
      * @return A {@link List} of {@link Event} objects found with the specified status. Returns an empty list if no events are found.
      */
+    @EntityGraph(Event.POOLS_GRAPH)
     List<Event> findByStatus(Status status);
-}
\ No newline at end of file
+
+    /**
+     * Finds the most recently started or resumed event with the given status, other than the given event.
+     * Only the event itself is read; its pools are loaded lazily if touched.
+     *
+     * @param status  The {@link Status} to search for.
+     * @param eventId The ID of the event to leave out.
+     * @return The most recent matching event, or an empty {@link Optional} if there is none.
+     */
+    Optional<Event> findFirstByStatusAndIdNotOrderByTimeOfStatusChangeDesc(Status status, Long eventId);
+
+    /**
+     * Finds an event by its ID, together with its pools.
+     * Read with a query rather than a lookup by ID, since Hibernate only loads the patients of all pools with one
+     * subselect for pools that were read by a query.
+     *
+     * @param id The ID of the event.
+     * @return The event, or an empty {@link Optional} if there is none.
+     */
+    @Override
+    @EntityGraph(Event.POOLS_GRAPH)
+    @Query("SELECT e FROM Event e WHERE e.id = :id")
+    Optional<Event> findById(@Param("id") Long id);
+
+    /**
+     * Finds every event, together with its pools.
+     *
+     * @return A {@link List} of all events.
+     */
+    @Override
+    @EntityGraph(Event.POOLS_GRAPH)
+    List<Event> findAll();
+
+    /**
+     * Finds one page of event summaries, newest event first, without loading any pool or patient.
+     * Pages are read by keyset: each page starts below the lowest ID of the previous one, which the primary key
+     * (or, when filtering by status, the status index) serves directly. The counts are subqueries on the page's
+     * rows only. Every filter is optional.
+     *
+     * @param status   Only events with this {@link Status}, or {@code null} for any status.
+     * @param from     Only events starting at or after this time in milliseconds since epoch, or {@code null}.
+     * @param to       Only events starting before this time in milliseconds since epoch, or {@code null}.
+     * @param after    Only events with an ID below this cursor, or {@code null} for the first page.
+     * @param pageable The size of the page; its offset must be zero.
+     * @return The summaries of the page, by descending ID.
+     */
+    @Query("SELECT new com.retriage.retriage.models.EventSummary(e.id, e.name, e.status, e.startTime, e.duration, "
+            + "e.remainingDuration, e.timeOfStatusChange, SIZE(e.pools), "
+            + "(SELECT COUNT(pt) FROM Event e2 JOIN e2.pools p2 JOIN p2.patients pt WHERE e2.id = e.id)) "
+            + "FROM Event e "
+            + "WHERE (:status IS NULL OR e.status = :status) "
+            + "AND (:from IS NULL OR e.startTime >= :from) "
+            + "AND (:to IS NULL OR e.startTime < :to) "
+            + "AND (:after IS NULL OR e.id < :after) "
+            + "ORDER BY e.id DESC")
+    List<EventSummary> findSummaries(@Param("status") Status status, @Param("from") Long from, @Param("to") Long to,
+                                     @Param("after") Long after, Pageable pageable);
+
+    /**
+     * Writes an event's status and clock anchor in one statement, without loading or merging its pools,
+     * and increments the event's version.
+     *
+     * @param eventId            The ID of the event.
+     * @param status             The new status.
+     * @param remainingDuration  The time left at the status change, in milliseconds.
+     * @param timeOfStatusChange The time of the status change, in milliseconds since epoch.
+     * @return The number of rows updated.
+     */
+    @Modifying
+    @Query("UPDATE Event e SET e.status = :status, e.remainingDuration = :remainingDuration, e.timeOfStatusChange = :timeOfStatusChange, e.version = e.version + 1 WHERE e.id = :eventId")
+    int updateStatus(@Param("eventId") Long eventId, @Param("status") Status status,
+                     @Param("remainingDuration") long remainingDuration, @Param("timeOfStatusChange") long timeOfStatusChange);
+
+    /**
+     * Reads an event's version without loading the event.
+     *
+     * @param eventId The ID of the event.
+     * @return The version, or {@code null} if the event does not exist.
+     */
+    @Query("SELECT e.version FROM Event e WHERE e.id = :eventId")
+    Long findVersionById(@Param("eventId") Long eventId);
+
+    /**
+     * Increments an event's version in one statement, without changing anything else.
+     *
+     * @param eventId The ID of the event.
+     * @return The number of rows updated.
+     */
+    @Modifying
+    @Query("UPDATE Event e SET e.version = e.version + 1 WHERE e.id = :eventId")
+    int incrementVersion(@Param("eventId") Long eventId);
+}
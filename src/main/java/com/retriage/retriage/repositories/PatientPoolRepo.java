@@ -2,17 +2,28 @@ package com.retriage.retriage.repositories;
 
 import com.retriage.retriage.models.PatientPool;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
  * Repository interface for managing {@link PatientPool} entities.
  * Extends {@link JpaRepository} to provide standard CRUD operations.
  * <p>
- * This interface interacts with the "patient_pool" table in the database
- * and intentionally contains no custom query methods beyond those provided by JpaRepository.
+ * This interface interacts with the "patient_pool" table in the database.
  */
 @Repository
 public interface PatientPoolRepo extends JpaRepository<PatientPool, Long> {
-    //This is empty, intentionally
 
-}
\ No newline at end of file
+    /**
+     * Increments a pool's version after a patient command changed the patients it holds through targeted updates,
+     * which Hibernate does not see.
+     *
+     * @param poolId The ID of the pool.
+     * @return The number of rows updated.
+     */
+    @Modifying
+    @Query("UPDATE PatientPool p SET p.version = p.version + 1 WHERE p.id = :poolId")
+    int incrementVersion(@Param("poolId") Long poolId);
+}
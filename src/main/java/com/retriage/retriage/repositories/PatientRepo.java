@@ -2,17 +2,50 @@ package com.retriage.retriage.repositories;
 
 import com.retriage.retriage.models.Patient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
  * Repository interface for managing {@link Patient} entities.
  * Extends {@link JpaRepository} to provide standard CRUD operations.
  * <p>
- * This interface interacts with the "patients" table in the database
- * and intentionally contains no custom query methods beyond those provided by JpaRepository.
+ * This interface interacts with the "patients" table in the database.
+ * The update methods let patient commands write a single row instead of merging the whole event graph.
  */
 @Repository
 public interface PatientRepo extends JpaRepository<Patient, Long> {
-    //This is empty, intentionally
 
+    /**
+     * Moves a patient into a pool, or out of every pool, and writes its processing state in one statement.
+     * The pool is owned by {@code PatientPool.patients}, which has no field on the patient, hence the native query.
+     *
+     * @param patientId           The ID of the patient.
+     * @param poolId              The ID of the pool now holding the patient, or {@code null} if it was discharged.
+     * @param processed           Whether the patient has been processed.
+     * @param startedProcessingAt When the patient started processing, or {@code null} if it is not in service.
+     * @param versionIncrement    How much to increment the patient's version: {@code 1} for a patient already stored,
+     *                            {@code 0} for one persisted in the same transaction, whose version Hibernate maintains.
+     * @return The number of rows updated.
+     */
+    @Modifying
+    @Query(value = "UPDATE patients SET pool_id = :poolId, processed = :processed, started_processing_at = :startedProcessingAt, version = version + :versionIncrement WHERE id = :patientId",
+            nativeQuery = true)
+    int placePatient(@Param("patientId") Long patientId, @Param("poolId") Long poolId,
+                     @Param("processed") boolean processed, @Param("startedProcessingAt") Long startedProcessingAt,
+                     @Param("versionIncrement") int versionIncrement);
+
+    /**
+     * Writes a patient's processing state without touching its pool, and increments its version.
+     *
+     * @param patientId           The ID of the patient.
+     * @param processed           Whether the patient has been processed.
+     * @param startedProcessingAt When the patient started processing, or {@code null} if it is not in service.
+     * @return The number of rows updated.
+     */
+    @Modifying
+    @Query("UPDATE Patient p SET p.processed = :processed, p.startedProcessingAt = :startedProcessingAt, p.version = p.version + 1 WHERE p.id = :patientId")
+    int updateProcessing(@Param("patientId") Long patientId, @Param("processed") boolean processed,
+                         @Param("startedProcessingAt") Long startedProcessingAt);
 }
\ No newline at end of file
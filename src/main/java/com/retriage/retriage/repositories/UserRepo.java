@@ -16,14 +16,14 @@ import java.util.List;
 public interface UserRepo extends JpaRepository<User, Long> {
 
     /**
-     * Finds and returns a list of {@link User} entities with the given email address, ignoring case.
+     * Finds and returns a list of {@link User} entities with the given normalized email address.
      * Spring Data JPA automatically generates the query for this method based on its name.
-     * Since email is expected to be unique, this list should typically contain at most one element.
+     * Since the normalized email is unique, this list contains at most one element.
      *
-     * @param email The email address to search for (case-insensitive).
+     * @param emailNormalized The email address, normalized with {@link User#normalizeEmail(String)}.
      * @return A {@link List} of {@link User} objects found with the specified email. Returns an empty list if no user is found.
      */
-    List<User> findByEmailIgnoreCase(String email);
+    List<User> findByEmailNormalized(String emailNormalized);
     //This is empty, intentionally
 
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.models.Event;
+
+/**
+ * Service interface defining the contract for the registry of the active event: the running event most recently
+ * started or resumed, which clients following a single event are shown. Several events may run at once, but only
+ * one is active. The pointer is stored in a single database row and mirrored in memory, so reading it costs
+ * neither a query nor a scan of the running events.
+ */
+public interface ActiveEventService {
+
+    /**
+     * Returns the ID of the active event from memory.
+     *
+     * @return The ID of the active event, or {@code null} if no event is running.
+     */
+    Long getActiveEventId();
+
+    /**
+     * Makes an event that has just been started or resumed the active one, unless an event started later is
+     * already active. Joins the caller's transaction; the in-memory pointer follows once it commits.
+     *
+     * @param event The running event.
+     */
+    void started(Event event);
+
+    /**
+     * Hands the pointer from an event that was paused, ended or deleted to the running event started most recently
+     * after it, if the event was the active one. Joins the caller's transaction; the in-memory pointer follows once
+     * it commits.
+     *
+     * @param eventId The ID of the event that stopped.
+     */
+    void stopped(Long eventId);
+
+    /**
+     * Re-reads the pointer from the database, creating its row if it is missing. Picks up the changes other nodes
+     * made to the pointer.
+     */
+    void refresh();
+}
@@ -0,0 +1,134 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.models.ActiveEvent;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.repositories.ActiveEventRepo;
+import com.retriage.retriage.repositories.EventRepo;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+/**
+ * Implementation of the {@link ActiveEventService} interface.
+ * The pointer is written with conditional updates in the transaction of the status change that moves it, and the
+ * in-memory copy is only replaced once that transaction has committed, so readers never see an event that was
+ * rolled back. Other nodes pick the change up on their next {@link #refresh()}.
+ */
+@Service
+public class ActiveEventServiceImp implements ActiveEventService {
+    /**
+     * Logger for this service implementation.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ActiveEventServiceImp.class);
+    /**
+     * Repository holding the pointer row.
+     */
+    private final ActiveEventRepo activeEventRepo;
+    /**
+     * Repository used to find the event taking over when the active one stops.
+     */
+    private final EventRepo eventRepo;
+    /**
+     * The ID of the active event as last committed, or {@code null} if no event is running.
+     */
+    private volatile Long activeEventId;
+
+    /**
+     * Constructs an instance of {@code ActiveEventServiceImp}.
+     *
+     * @param activeEventRepo The {@link ActiveEventRepo} holding the pointer row.
+     * @param eventRepo       The {@link EventRepo} used to find the next running event.
+     */
+    public ActiveEventServiceImp(ActiveEventRepo activeEventRepo, EventRepo eventRepo) {
+        this.activeEventRepo = activeEventRepo;
+        this.eventRepo = eventRepo;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Long getActiveEventId() {
+        return activeEventId;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void started(Event event) {
+        if (event == null || event.getId() == null) {
+            return;
+        }
+        if (activeEventRepo.activate(event.getId(), event.getTimeOfStatusChange()) == 1) {
+            logger.info("started - Event {} is now the active event.", event.getId());
+            afterCommit(event.getId());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void stopped(Long eventId) {
+        if (eventId == null) {
+            return;
+        }
+        Optional<Event> next = eventRepo.findFirstByStatusAndIdNotOrderByTimeOfStatusChangeDesc(Status.Running, eventId);
+        Long nextEventId = next.map(Event::getId).orElse(null);
+        long nextStartedAt = next.map(Event::getTimeOfStatusChange).orElse(0L);
+        if (activeEventRepo.deactivate(eventId, nextEventId, nextStartedAt) == 1) {
+            logger.info("stopped - Event {} is no longer active, active event is now {}.", eventId, nextEventId);
+            afterCommit(nextEventId);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Runs at startup, before any client asks for the active event, and on every lease renewal. Each statement
+     * runs in its own transaction, so losing the race to create the row does not fail the refresh.
+     */
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void refresh() {
+        Optional<ActiveEvent> pointer = activeEventRepo.findById(ActiveEvent.SINGLETON_ID);
+        if (pointer.isEmpty()) {
+            try {
+                activeEventRepo.saveAndFlush(new ActiveEvent());
+                logger.info("refresh - Created the active event pointer.");
+            } catch (DataIntegrityViolationException e) {
+                logger.debug("refresh - Another node created the active event pointer first.");
+            }
+        }
+        activeEventId = pointer.map(ActiveEvent::getEventId).orElse(null);
+    }
+
+    /**
+     * Replaces the in-memory pointer once the current transaction commits, or at once outside of a transaction.
+     *
+     * @param eventId The ID of the new active event, or {@code null} if none is running.
+     */
+    private void afterCommit(Long eventId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            activeEventId = eventId;
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                activeEventId = eventId;
+            }
+        });
+    }
+}
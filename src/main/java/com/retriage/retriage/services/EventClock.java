@@ -0,0 +1,36 @@
+package com.retriage.retriage.services;
+
+/**
+ * Source of the current time for running events.
+ * Everything that stamps or advances event time (timers, status changes, resets, pool processing) reads it
+ * from the injected {@code EventClock} instead of calling {@link System#currentTimeMillis()} directly,
+ * so the same logic can run in real time, accelerated, or fully simulated.
+ */
+public interface EventClock {
+
+    /**
+     * Returns the current event time.
+     *
+     * @return The current time in milliseconds since epoch, as seen by events.
+     */
+    long now();
+
+    /**
+     * Converts a span of event time into the wall-clock time the scheduler should wait for it.
+     *
+     * @param eventMillis A span of event time in milliseconds.
+     * @return The matching span of real time in milliseconds.
+     */
+    default long toRealDelay(long eventMillis) {
+        return eventMillis;
+    }
+
+    /**
+     * Returns how many milliseconds of event time pass per millisecond of real time.
+     *
+     * @return The clock's speed; {@code 1} for real time.
+     */
+    default double getSpeed() {
+        return 1;
+    }
+}
@@ -0,0 +1,27 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.models.EventClockStats;
+
+/**
+ * Service interface defining the contract for the clock that drives event ticks.
+ * Every running event has its own clock slot. A slot sleeps while its event is not running and,
+ * while it is, fires exactly when something visible happens: a pool deadline or the end of the event.
+ * The countdown in between is computed by clients from the event's clock anchor.
+ */
+public interface EventClockService {
+
+    /**
+     * Wakes an event's clock so it ticks immediately and re-plans its next tick.
+     * Called when an event changes status, e.g. when it is started, resumed, paused or ended.
+     *
+     * @param eventId The ID of the event whose clock should be woken.
+     */
+    void wake(Long eventId);
+
+    /**
+     * Returns the current health of the clock across all events, including tick lag and overrun counters.
+     *
+     * @return A snapshot of the clock's {@link EventClockStats}.
+     */
+    EventClockStats getStats();
+}
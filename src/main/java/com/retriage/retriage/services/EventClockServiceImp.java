@@ -0,0 +1,293 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.EventClockStats;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of the {@link EventClockService} interface.
+ * Runs event ticks on a dedicated, bounded pool of clock threads instead of Spring's shared scheduler.
+ * Each running event plans exactly one follow-up tick at a time, for its next pool deadline or its end,
+ * so a single event is never ticked concurrently while different events tick in parallel and a slow event
+ * only holds up its own thread. The countdown does not need ticks, since clients compute it from the event's
+ * clock anchor. No tick is planned for an event that is not running. A tick that fires more than a second
+ * late is counted as an overrun.
+ * When several nodes share the database, only the node holding an event's lease from the {@link EventLeaseService}
+ * ticks it. The leases are renewed on the clock threads, and events taken over from a node that died are reloaded
+ * from the database and ticked from then on.
+ */
+@Service
+public class EventClockServiceImp implements EventClockService {
+    /**
+     * Logger for this service implementation.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(EventClockServiceImp.class);
+    /**
+     * The lag in milliseconds above which a tick counts as an overrun.
+     */
+    private static final long SECOND_MS = 1000;
+    /**
+     * Service performing the tick and broadcast against a running event.
+     */
+    private final EventTimerService eventTimerService;
+    /**
+     * In-memory runtime used to plan the next tick without touching the database.
+     */
+    private final EventRuntimeService eventRuntimeService;
+    /**
+     * Source of the current event time. Ticks are planned in event time and waited for in real time.
+     */
+    private final EventClock eventClock;
+    /**
+     * Leases deciding which node ticks each event.
+     */
+    private final EventLeaseService eventLeaseService;
+    /**
+     * Registry of the active event, re-read on every lease renewal to pick up other nodes' changes.
+     */
+    private final ActiveEventService activeEventService;
+    /**
+     * The dedicated clock threads.
+     */
+    private final ScheduledThreadPoolExecutor executor;
+    /**
+     * Health counters, only modified while holding this object's monitor.
+     */
+    private final EventClockStats stats = new EventClockStats();
+
+    /**
+     * Constructs an instance of {@code EventClockServiceImp}.
+     *
+     * @param eventTimerService   The {@link EventTimerService} performing each tick.
+     * @param eventRuntimeService The {@link EventRuntimeService} holding the running events in memory.
+     * @param eventClock          The {@link EventClock} ticks are planned against.
+     * @param eventLeaseService   The {@link EventLeaseService} deciding which node ticks each event.
+     * @param activeEventService  The {@link ActiveEventService} refreshed with the leases.
+     * @param threads             The number of clock threads; {@code 0} uses one per available core.
+     * @param virtualThreads      Whether the clock threads are virtual threads.
+     */
+    public EventClockServiceImp(EventTimerService eventTimerService, EventRuntimeService eventRuntimeService,
+                                EventClock eventClock, EventLeaseService eventLeaseService,
+                                ActiveEventService activeEventService,
+                                @Value("${retriage.clock.threads:0}") int threads,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.eventTimerService = eventTimerService;
+        this.eventRuntimeService = eventRuntimeService;
+        this.eventClock = eventClock;
+        this.eventLeaseService = eventLeaseService;
+        this.activeEventService = activeEventService;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        // Ticks block on JDBC; as virtual threads they release their carrier while they wait
+        Thread.Builder threadBuilder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        this.executor = new ScheduledThreadPoolExecutor(poolSize, threadBuilder.name("event-clock-", 1).factory());
+        this.executor.setRemoveOnCancelPolicy(true);
+        this.stats.setIdle(true);
+        this.stats.setThreads(poolSize);
+    }
+
+    /**
+     * Starts a clock for every event the runtime loaded at startup whose lease this node can take,
+     * and starts renewing the leases.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order // Lowest precedence, so the runtime has already been restored from the snapshot or the database
+    public void onApplicationReady() {
+        for (Event event : eventRuntimeService.getRunningEvents()) {
+            wake(event.getId());
+        }
+        long interval = eventLeaseService.getRenewInterval();
+        executor.scheduleWithFixedDelay(this::renewLeases, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void wake(Long eventId) {
+        if (executor.isShutdown() || eventId == null) {
+            return;
+        }
+        EventRuntime runtime = eventRuntimeService.getRuntime(eventId);
+        if (runtime == null) {
+            eventLeaseService.release(eventId); // Not running on this node, so there is nothing to tick
+            return;
+        }
+        runtime.getClockLock().lock();
+        try {
+            long now = eventClock.now();
+            logger.debug("wake - Event clock woken for event {}.", eventId);
+            plan(runtime, now, now);
+        } finally {
+            runtime.getClockLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized EventClockStats getStats() {
+        EventClockStats copy = new EventClockStats();
+        int running = eventRuntimeService.getRunningEvents().size();
+        copy.setIdle(running == 0);
+        copy.setRunningEvents(running);
+        copy.setThreads(stats.getThreads());
+        copy.setTickCount(stats.getTickCount());
+        copy.setLastLagMillis(stats.getLastLagMillis());
+        copy.setMaxLagMillis(stats.getMaxLagMillis());
+        copy.setOverrunCount(stats.getOverrunCount());
+        copy.setCoalescedTicks(stats.getCoalescedTicks());
+        return copy;
+    }
+
+    /**
+     * Stops the clock threads when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Renews this node's leases, and takes over the events whose holder stopped renewing: their last persisted state
+     * is reloaded from the database and their clock started here. The active event pointer is re-read as well, so
+     * this node follows an event another node started within one renewal interval. Events this node holds that
+     * another node changed meanwhile, by applying a command without the lease, are reloaded and their changes
+     * broadcast from here, so the holder stays the only node emitting their deltas.
+     * Logs instead of throwing so the renewals keep running.
+     */
+    private void renewLeases() {
+        try {
+            Set<Long> gained = eventLeaseService.renew();
+            for (Long eventId : gained) {
+                eventRuntimeService.loadEvent(eventId);
+                wake(eventId);
+            }
+            for (Event event : eventRuntimeService.getRunningEvents()) {
+                Long eventId = event.getId();
+                if (!gained.contains(eventId) && eventLeaseService.holds(eventId)
+                        && eventRuntimeService.reloadIfChanged(eventId) != null) {
+                    eventTimerService.broadcastEventUpdates(eventId);
+                    wake(eventId);
+                }
+            }
+            activeEventService.refresh();
+        } catch (RuntimeException e) {
+            logger.error("renewLeases - Renewing the event leases failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Runs a planned tick of an event, records how late it fired, and plans the event's next tick.
+     * Called on a clock thread once the tick is due; package-private so tests can fire a tick at an exact time.
+     *
+     * @param runtime   The runtime of the event to tick.
+     * @param plannedAt The time this tick was planned for, in milliseconds since epoch.
+     */
+    void tick(EventRuntime runtime, long plannedAt) {
+        long firedAt = eventClock.now();
+        recordLag(runtime.getEventId(), firedAt - plannedAt);
+        try {
+            if (eventLeaseService.holds(runtime.getEventId())) {
+                eventTimerService.updateEventDuration(runtime.getEventId());
+            } else {
+                logger.warn("tick - Lease of event {} lost, skipping its tick.", runtime.getEventId());
+            }
+        } catch (RuntimeException e) {
+            logger.error("tick - Tick of event {} failed: {}", runtime.getEventId(), e.getMessage(), e);
+        }
+        runtime.getClockLock().lock();
+        try {
+            // Only re-plan if no wake() replaced this tick while it was running
+            if (runtime.getNextTickAt() != null && runtime.getNextTickAt() == plannedAt) {
+                plan(runtime, eventClock.now(), null);
+            }
+        } finally {
+            runtime.getClockLock().unlock();
+        }
+    }
+
+    /**
+     * Records the lag of a tick. A tick more than a second late counts as an overrun;
+     * the whole seconds it missed are coalesced into it rather than replayed.
+     * Lag is measured in event time, so an accelerated clock reports it scaled up.
+     *
+     * @param eventId The ID of the ticked event.
+     * @param lag     How late the tick fired, in milliseconds of event time.
+     */
+    private synchronized void recordLag(Long eventId, long lag) {
+        lag = Math.max(0, lag);
+        stats.setTickCount(stats.getTickCount() + 1);
+        stats.setLastLagMillis(lag);
+        stats.setMaxLagMillis(Math.max(stats.getMaxLagMillis(), lag));
+        if (lag >= SECOND_MS) {
+            stats.setOverrunCount(stats.getOverrunCount() + 1);
+            stats.setCoalescedTicks(stats.getCoalescedTicks() + lag / SECOND_MS);
+            logger.warn("tick - Tick of event {} fired {} ms late, coalesced {} missed tick(s).", eventId, lag, lag / SECOND_MS);
+        } else {
+            logger.debug("tick - Tick of event {} fired {} ms late.", eventId, lag);
+        }
+    }
+
+    /**
+     * Plans the next tick of an event, replacing any tick already planned.
+     * Must be called while holding the runtime's clock lock.
+     *
+     * @param runtime The runtime of the event.
+     * @param now     The current time in milliseconds since epoch.
+     * @param fireAt  A forced fire time, or {@code null} to compute it from the running event.
+     */
+    private void plan(EventRuntime runtime, long now, Long fireAt) {
+        if (runtime.getPendingTick() != null) {
+            runtime.getPendingTick().cancel(false);
+            runtime.setPendingTick(null);
+        }
+        long next = fireAt != null ? fireAt : nextTickTime(runtime.getEventId(), now);
+        if (next < 0) {
+            runtime.setNextTickAt(null);
+            logger.debug("plan - Event {} is not running or leased by another node, its clock is idle.", runtime.getEventId());
+            return;
+        }
+        runtime.setNextTickAt(next);
+        long delay = eventClock.toRealDelay(Math.max(0, next - now));
+        runtime.setPendingTick(executor.schedule(() -> tick(runtime, next), delay, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Computes when the next tick of an event should fire: the earlier of the next pool deadline
+     * and the end of the event. Takes the event's lease if it is running, and gives it up once it is not.
+     *
+     * @param eventId The ID of the event.
+     * @param now     The current time in milliseconds since epoch.
+     * @return The next fire time in milliseconds since epoch, or {@code -1} if the event is not running
+     * or another node holds its lease.
+     */
+    private long nextTickTime(Long eventId, long now) {
+        Event event = eventRuntimeService.getEvent(eventId);
+        if (event == null || event.getStatus() != Status.Running) {
+            eventLeaseService.release(eventId);
+            return -1;
+        }
+        if (!eventLeaseService.acquire(eventId)) {
+            return -1;
+        }
+        long next = Math.max(EventCountdown.endsAt(event), now);
+        Long deadline = eventRuntimeService.nextDeadline(eventId);
+        if (deadline != null) {
+            next = Math.min(next, Math.max(deadline, now));
+        }
+        return next;
+    }
+}
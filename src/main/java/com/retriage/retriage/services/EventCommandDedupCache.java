@@ -0,0 +1,120 @@
+package com.retriage.retriage.services;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The results of the commands recently submitted to a single event, by the ID the client generated for each,
+ * held by the {@link EventCommandSequencerImp} rather than the event's {@link EventRuntime}, so it outlives a runtime
+ * slot released while the event is not loaded. A client that reconnects may send its last command again; looking it up here
+ * hands back the original result, or the result still to come, instead of applying it a second time.
+ * The cache is bounded and its entries expire, so it only covers the window in which a client retries.
+ */
+public class EventCommandDedupCache {
+    /**
+     * The cached results by command ID, oldest first. Guarded by this object's monitor, which is never held
+     * across blocking calls.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    /**
+     * The largest number of results kept.
+     */
+    private final int capacity;
+    /**
+     * How long a result is kept, in milliseconds.
+     */
+    private final long ttlMillis;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param capacity  The largest number of results kept; the oldest are evicted beyond it.
+     * @param ttlMillis How long a result is kept, in milliseconds.
+     */
+    public EventCommandDedupCache(int capacity, long ttlMillis) {
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Records the result of a command, unless a command with the same ID was recorded before.
+     *
+     * @param commandId The ID the client generated for the command.
+     * @param result    The future result of the command.
+     * @param now       The current time in milliseconds since epoch.
+     * @return The result recorded for the earlier command with this ID, or {@code null} if there was none and
+     * {@code result} was recorded.
+     */
+    public synchronized CompletableFuture<?> putIfAbsent(String commandId, CompletableFuture<?> result, long now) {
+        evictExpired(now);
+        Entry existing = entries.get(commandId);
+        if (existing != null) {
+            return existing.result;
+        }
+        entries.put(commandId, new Entry(result, now + ttlMillis));
+        if (entries.size() > capacity) {
+            Iterator<Entry> eldest = entries.values().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+        return null;
+    }
+
+    /**
+     * Forgets the result of a command, so the client may retry it, for instance after it was rejected because
+     * the event was busy. Does nothing if the ID now belongs to another result.
+     *
+     * @param commandId The ID the client generated for the command.
+     * @param result    The result recorded for it.
+     */
+    public synchronized void remove(String commandId, CompletableFuture<?> result) {
+        Entry existing = entries.get(commandId);
+        if (existing != null && existing.result == result) {
+            entries.remove(commandId);
+        }
+    }
+
+    /**
+     * Checks whether every result has expired, so the cache can be dropped.
+     *
+     * @param now The current time in milliseconds since epoch.
+     * @return {@code true} if no result is kept any more.
+     */
+    public synchronized boolean isEmpty(long now) {
+        evictExpired(now);
+        return entries.isEmpty();
+    }
+
+    /**
+     * Gets the number of results kept.
+     *
+     * @return The number of results.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drops the results that expired. Since entries are kept in the order they were recorded and all live equally
+     * long, only the oldest need to be looked at.
+     *
+     * @param now The current time in milliseconds since epoch.
+     */
+    private void evictExpired(long now) {
+        Iterator<Map.Entry<String, Entry>> oldest = entries.entrySet().iterator();
+        while (oldest.hasNext() && oldest.next().getValue().expiresAt <= now) {
+            oldest.remove();
+        }
+    }
+
+    /**
+     * A cached result.
+     *
+     * @param result    The future result of the command.
+     * @param expiresAt The time the result is dropped, in milliseconds since epoch.
+     */
+    private record Entry(CompletableFuture<?> result, long expiresAt) {
+    }
+}
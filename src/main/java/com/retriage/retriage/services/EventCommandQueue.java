@@ -0,0 +1,170 @@
+package com.retriage.retriage.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The commands waiting to be applied to a single event, held by its {@link EventRuntime}.
+ * Any number of threads may enqueue without locking; only the one thread that currently drains the queue,
+ * as decided by {@link #startDrain()}, takes commands out. The queue is bounded, so a burst beyond its capacity
+ * is rejected instead of growing memory and latency without limit.
+ */
+public class EventCommandQueue {
+    /**
+     * The waiting commands, in the order they were submitted.
+     */
+    private final ConcurrentLinkedQueue<PendingCommand<?>> commands = new ConcurrentLinkedQueue<>();
+    /**
+     * The number of waiting commands, kept separately since counting a {@link ConcurrentLinkedQueue} is linear.
+     */
+    private final AtomicInteger size = new AtomicInteger();
+    /**
+     * Whether a thread is draining the queue.
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+    /**
+     * The largest number of commands that may wait.
+     */
+    private final int capacity;
+
+    /**
+     * Constructs an empty queue.
+     *
+     * @param capacity The largest number of commands that may wait.
+     */
+    public EventCommandQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Enqueues a command, unless the queue is full.
+     *
+     * @param command The command to enqueue.
+     * @return {@code true} if it was enqueued, {@code false} if the queue is full.
+     */
+    public boolean offer(PendingCommand<?> command) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            return false;
+        }
+        commands.offer(command);
+        return true;
+    }
+
+    /**
+     * Takes the oldest waiting commands out of the queue. Only the draining thread may call this.
+     *
+     * @param max The largest number of commands to take.
+     * @return The commands in submission order. Returns an empty list if none are waiting.
+     */
+    public List<PendingCommand<?>> poll(int max) {
+        List<PendingCommand<?>> batch = new ArrayList<>();
+        PendingCommand<?> command;
+        while (batch.size() < max && (command = commands.poll()) != null) {
+            size.decrementAndGet();
+            batch.add(command);
+        }
+        return batch;
+    }
+
+    /**
+     * Gets the number of waiting commands.
+     *
+     * @return The queue's size.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Claims the right to drain the queue.
+     *
+     * @return {@code true} if the caller is now the only thread draining the queue.
+     */
+    public boolean startDrain() {
+        return draining.compareAndSet(false, true);
+    }
+
+    /**
+     * Gives up the right to drain the queue. The caller must check for commands enqueued meanwhile afterwards.
+     */
+    public void finishDrain() {
+        draining.set(false);
+    }
+
+    /**
+     * Checks whether no command is waiting and no thread is draining the queue.
+     *
+     * @return {@code true} if the queue is idle.
+     */
+    public boolean isIdle() {
+        return size.get() == 0 && !draining.get();
+    }
+
+    /**
+     * A command waiting in the queue, together with the future its sender is waiting on.
+     * The command runs before its batch is committed, but its future only completes afterwards.
+     *
+     * @param <T> The result type of the command.
+     */
+    public static class PendingCommand<T> {
+        /**
+         * The command to apply.
+         */
+        private final Supplier<T> command;
+        /**
+         * The future completed with the command's result once its batch is committed.
+         */
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        /**
+         * The result of the command, set when it has run.
+         */
+        private T result;
+
+        /**
+         * Constructs a pending command.
+         *
+         * @param command The command to apply.
+         */
+        public PendingCommand(Supplier<T> command) {
+            this.command = command;
+        }
+
+        /**
+         * Runs the command and keeps its result until its batch is committed.
+         */
+        public void run() {
+            result = command.get();
+        }
+
+        /**
+         * Completes the command's future with its result.
+         */
+        public void complete() {
+            future.complete(result);
+        }
+
+        /**
+         * Completes the command's future with a failure.
+         *
+         * @param cause The reason the command failed.
+         */
+        public void fail(Throwable cause) {
+            future.completeExceptionally(cause);
+        }
+
+        /**
+         * Gets the future completed once the command is committed.
+         *
+         * @return The command's future.
+         */
+        public CompletableFuture<T> getFuture() {
+            return future;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.retriage.retriage.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Service interface defining the contract for the single writer of each event.
+ * Everything that changes an event on behalf of a client is submitted here instead of running on the thread that
+ * received it. The commands of an event are applied one after another, in submission order, by one thread at a
+ * time, so they never race each other or contend for the same rows. Different events are written in parallel.
+ */
+public interface EventCommandSequencer {
+
+    /**
+     * Enqueues a command against an event. Commands waiting together are applied in one transaction, after which
+     * what they changed is broadcast once and the event's clock is woken.
+     *
+     * @param eventId The ID of the event the command changes.
+     * @param command The command to apply, returning the answer for its sender.
+     * @param <T>     The result type of the command.
+     * @return A future completed with the command's result once its transaction has committed, or failed with a
+     * {@link java.util.concurrent.RejectedExecutionException} if too many commands are already waiting for the event,
+     * or with a {@link java.util.NoSuchElementException} if the event does not exist.
+     */
+    <T> CompletableFuture<T> submit(Long eventId, Supplier<T> command);
+
+    /**
+     * Enqueues a command the client identified, so that sending it again does not apply it twice.
+     * A command whose ID was submitted recently is not enqueued; it gets the result of the first one instead,
+     * without touching the database. A command that was rejected or failed may be retried under the same ID.
+     *
+     * @param eventId   The ID of the event the command changes.
+     * @param commandId The ID the client generated for the command, or {@code null} if it has none.
+     * @param command   The command to apply, returning the answer for its sender.
+     * @param <T>       The result type of the command.
+     * @return A future completed with the command's result once its transaction has committed, or with the result
+     * of the earlier command with the same ID.
+     */
+    <T> CompletableFuture<T> submit(Long eventId, String commandId, Supplier<T> command);
+}
@@ -0,0 +1,310 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.services.EventCommandQueue.PendingCommand;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Implementation of the {@link EventCommandSequencer} interface.
+ * Commands are enqueued into the event's {@link EventCommandQueue} without locking. The first submit to an idle
+ * queue hands it to a bounded pool of writer threads, and whichever thread claims it drains up to one batch
+ * while holding the event's lock, inside a single transaction, before giving the thread back. A busy event
+ * therefore gets one commit, one broadcast and one clock wake-up per batch rather than per command.
+ * If a batch fails, it is rolled back, the event is reloaded from the database, and its commands are retried
+ * one transaction each so only the failing command is lost.
+ * Commands carrying a client-generated ID are looked up in the event's {@link EventCommandDedupCache} first,
+ * so a command re-sent after a reconnect is answered from there instead of being applied again. The caches are
+ * kept here by event ID, not in the runtime slot, so they survive the slot being released while the event is not
+ * loaded. They are local to this node: a command re-sent to another node after a reconnect is applied again.
+ * Commands for an event that does not exist are rejected before a runtime slot is created for it.
+ * Only the node holding an event's lease applies commands as the event's authority: it takes the lease if nobody
+ * holds it, and broadcasts and plans the event's clock afterwards. Any other node reloads the event from the
+ * database first, so it never writes over changes it has not seen, applies the batch without broadcasting, and
+ * bumps the event's version, from which the holder reloads and broadcasts the change at its next lease renewal.
+ */
+@Service
+public class EventCommandSequencerImp implements EventCommandSequencer {
+    /**
+     * Logger for this service implementation.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(EventCommandSequencerImp.class);
+    /**
+     * The number of recent command results kept per event to answer commands a client sends again.
+     */
+    private static final int COMMAND_DEDUP_CAPACITY = 1024;
+    /**
+     * How long a command result is kept to answer the same command sent again, in milliseconds.
+     */
+    private static final long COMMAND_DEDUP_TTL_MS = 10 * 60 * 1000;
+    /**
+     * In-memory runtime holding each event's lock and command queue.
+     */
+    private final EventRuntimeService eventRuntimeService;
+    /**
+     * Service broadcasting what a batch changed.
+     */
+    private final EventTimerService eventTimerService;
+    /**
+     * Clock woken when a batch may have changed an event's deadlines or status.
+     */
+    private final EventClockService eventClockService;
+    /**
+     * Leases deciding which node applies and broadcasts each event's commands.
+     */
+    private final EventLeaseService eventLeaseService;
+    /**
+     * Runs each batch in a single transaction.
+     */
+    private final TransactionTemplate transactionTemplate;
+    /**
+     * The largest number of commands applied in one transaction.
+     */
+    private final int batchSize;
+    /**
+     * The writer threads.
+     */
+    private final ExecutorService executor;
+    /**
+     * The results of the commands recently submitted to each event, by event ID. An event's cache is dropped once
+     * all its results have expired.
+     */
+    private final Map<Long, EventCommandDedupCache> commandResults = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an instance of {@code EventCommandSequencerImp}.
+     *
+     * @param eventRuntimeService The {@link EventRuntimeService} holding the running events in memory.
+     * @param eventTimerService   The {@link EventTimerService} broadcasting event deltas.
+     * @param eventClockService   The {@link EventClockService} woken after each batch.
+     * @param eventLeaseService   The {@link EventLeaseService} deciding whether this node is an event's authority.
+     * @param transactionTemplate The {@link TransactionTemplate} each batch runs in.
+     * @param threads             The number of writer threads; {@code 0} uses one per available core.
+     * @param batchSize           The largest number of commands applied in one transaction.
+     * @param virtualThreads      Whether the writer threads are virtual threads.
+     */
+    public EventCommandSequencerImp(EventRuntimeService eventRuntimeService, EventTimerService eventTimerService,
+                                    EventClockService eventClockService, EventLeaseService eventLeaseService,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${retriage.commands.threads:0}") int threads,
+                                    @Value("${retriage.commands.batch-size:32}") int batchSize,
+                                    @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.eventRuntimeService = eventRuntimeService;
+        this.eventTimerService = eventTimerService;
+        this.eventClockService = eventClockService;
+        this.eventLeaseService = eventLeaseService;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = Math.max(1, batchSize);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        // The pool stays bounded either way, so the writers never hold more database connections than it has threads
+        Thread.Builder threadBuilder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        this.executor = Executors.newFixedThreadPool(poolSize, threadBuilder.name("event-commands-", 1).factory());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> CompletableFuture<T> submit(Long eventId, Supplier<T> command) {
+        return submit(eventId, null, command);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked") // A client reusing an ID for another kind of command gets that command's answer
+    public <T> CompletableFuture<T> submit(Long eventId, String commandId, Supplier<T> command) {
+        EventRuntime runtime = eventRuntimeService.openRuntime(eventId);
+        if (runtime == null) {
+            logger.info("submit - Event {} does not exist, rejecting the command.", eventId);
+            return CompletableFuture.failedFuture(new NoSuchElementException("Event " + eventId + " does not exist."));
+        }
+        PendingCommand<T> pending = new PendingCommand<>(command);
+        if (commandId != null && !commandId.isBlank()) {
+            long now = System.currentTimeMillis();
+            CompletableFuture<?>[] original = new CompletableFuture<?>[1];
+            EventCommandDedupCache results = commandResults(eventId, now, cache -> original[0] = cache.putIfAbsent(commandId, pending.getFuture(), now));
+            if (original[0] != null) {
+                logger.info("submit - Command {} of event {} was already submitted, answering with its result.", commandId, eventId);
+                if (eventRuntimeService.getEvent(eventId) == null) {
+                    eventRuntimeService.releaseRuntime(eventId); // Nothing was queued in the slot opened for it
+                }
+                return (CompletableFuture<T>) original[0];
+            }
+            pending.getFuture().whenComplete((result, failure) -> {
+                if (failure != null) {
+                    results.remove(commandId, pending.getFuture());
+                }
+            });
+        }
+        if (!runtime.getCommands().offer(pending)) {
+            logger.warn("submit - Command queue of event {} is full, rejecting the command.", eventId);
+            pending.fail(new RejectedExecutionException("Too many commands are waiting for event " + eventId + "."));
+            return pending.getFuture();
+        }
+        schedule(runtime);
+        return pending.getFuture();
+    }
+
+    /**
+     * Runs an action on the command results of an event, creating its cache if it has none. The action runs
+     * atomically with the map entry, so a cache is never dropped between being looked up and being written.
+     * A new cache is a chance to drop the caches of other events whose results have all expired.
+     *
+     * @param eventId The ID of the event.
+     * @param now     The current time in milliseconds since epoch.
+     * @param action  The action to run on the event's cache.
+     * @return The event's {@link EventCommandDedupCache}.
+     */
+    private EventCommandDedupCache commandResults(Long eventId, long now, Consumer<EventCommandDedupCache> action) {
+        if (!commandResults.containsKey(eventId)) {
+            for (Long other : commandResults.keySet()) {
+                commandResults.computeIfPresent(other, (id, cache) -> cache.isEmpty(now) ? null : cache);
+            }
+        }
+        return commandResults.compute(eventId, (id, cache) -> {
+            EventCommandDedupCache results = cache != null ? cache : new EventCommandDedupCache(COMMAND_DEDUP_CAPACITY, COMMAND_DEDUP_TTL_MS);
+            action.accept(results);
+            return results;
+        });
+    }
+
+    /**
+     * Stops the writer threads when the application shuts down. Commands already taken out of a queue finish first.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Hands an event's queue to a writer thread, unless one is already draining it.
+     *
+     * @param runtime The runtime of the event.
+     */
+    private void schedule(EventRuntime runtime) {
+        if (!runtime.getCommands().startDrain()) {
+            return;
+        }
+        try {
+            executor.execute(() -> drain(runtime));
+        } catch (RejectedExecutionException e) {
+            runtime.getCommands().finishDrain();
+            runtime.getCommands().poll(Integer.MAX_VALUE).forEach(pending -> pending.fail(e));
+        }
+    }
+
+    /**
+     * Applies one batch of an event's commands, then hands the queue on if more commands arrived meanwhile,
+     * so a busy event never holds a writer thread for longer than one batch.
+     *
+     * @param runtime The runtime of the event.
+     */
+    private void drain(EventRuntime runtime) {
+        try {
+            List<PendingCommand<?>> batch = runtime.getCommands().poll(batchSize);
+            if (!batch.isEmpty()) {
+                apply(runtime.getEventId(), batch);
+            }
+        } finally {
+            runtime.getCommands().finishDrain();
+            if (runtime.getCommands().size() > 0) {
+                schedule(runtime);
+            } else if (eventRuntimeService.getEvent(runtime.getEventId()) == null) {
+                eventRuntimeService.releaseRuntime(runtime.getEventId());
+            }
+        }
+    }
+
+    /**
+     * Applies a batch of commands to an event in one transaction while holding the event's lock, and answers their
+     * senders once it committed. The lease holder then broadcasts what changed and wakes the event's clock; any
+     * other node first reloads the event and afterwards only marks it as changed for the holder.
+     *
+     * @param eventId The ID of the event.
+     * @param batch   The commands, in submission order.
+     */
+    private void apply(Long eventId, List<PendingCommand<?>> batch) {
+        boolean held = eventLeaseService.holds(eventId);
+        boolean holder = held || eventLeaseService.acquire(eventId);
+        if (!held) {
+            // The copy held here may be stale: another node holds the lease, or held it until now
+            eventRuntimeService.loadEvent(eventId);
+        }
+        try {
+            eventRuntimeService.withEvent(eventId, event -> transactionTemplate.execute(status -> {
+                batch.forEach(PendingCommand::run);
+                markForHolder(eventId, holder);
+                return null;
+            }));
+            batch.forEach(PendingCommand::complete);
+            logger.debug("apply - Applied {} command(s) to event {} in one transaction.", batch.size(), eventId);
+        } catch (RuntimeException e) {
+            logger.warn("apply - Batch of {} command(s) for event {} failed, retrying them one by one: {}", batch.size(), eventId, e.getMessage());
+            retryAlone(eventId, batch, holder);
+        }
+        if (!holder) {
+            logger.debug("apply - Event {} is leased by another node, leaving the broadcast to it.", eventId);
+            return;
+        }
+        eventTimerService.broadcastEventUpdates(eventId);
+        // Waking also gives up the lease if the event is not running
+        eventClockService.wake(eventId);
+    }
+
+    /**
+     * Bumps the event's version when this node does not hold its lease, so the holder reloads it.
+     * Must be called inside the transaction of the commands.
+     *
+     * @param eventId The ID of the event.
+     * @param holder  Whether this node holds the event's lease.
+     */
+    private void markForHolder(Long eventId, boolean holder) {
+        if (!holder) {
+            eventRuntimeService.touchEvent(eventId);
+        }
+    }
+
+    /**
+     * Retries the commands of a rolled-back batch one transaction each, after reloading the event so the
+     * in-memory copy no longer holds what the rolled-back commands changed.
+     *
+     * @param eventId The ID of the event.
+     * @param batch   The commands, in submission order.
+     * @param holder  Whether this node holds the event's lease.
+     */
+    private void retryAlone(Long eventId, List<PendingCommand<?>> batch, boolean holder) {
+        eventRuntimeService.withEvent(eventId, event -> {
+            eventRuntimeService.loadEvent(eventId);
+            for (PendingCommand<?> pending : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        pending.run();
+                        markForHolder(eventId, holder);
+                    });
+                    pending.complete();
+                } catch (RuntimeException e) {
+                    logger.error("apply - Command for event {} failed: {}", eventId, e.getMessage(), e);
+                    eventRuntimeService.loadEvent(eventId);
+                    pending.fail(e);
+                }
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.forms.EventStatusForm;
+import com.retriage.retriage.forms.PatientBatchForm;
+import com.retriage.retriage.forms.PatientCreateForm;
+import com.retriage.retriage.forms.PatientDischargeForm;
+import com.retriage.retriage.forms.PatientMoveForm;
+import com.retriage.retriage.models.PatientOperationResult;
+import com.retriage.retriage.models.ResponseWrapper;
+
+import java.util.List;
+
+/**
+ * Service interface defining the contract for fine-grained commands against a running {@link com.retriage.retriage.models.Event}.
+ * Each command changes the in-memory event in place, touching only the pools it names, and writes only the rows
+ * it changed instead of merging the whole event graph. Callers broadcast the resulting delta afterwards.
+ */
+public interface EventCommandService {
+
+    /**
+     * Adds a new patient to a pool of a running event. A card already held by a patient of the event is rejected.
+     * Costs one insert and one update.
+     *
+     * @param form The pool and the patient's card ID and condition.
+     * @return A {@link ResponseWrapper} with the new patient's ID, or an error status if the command was rejected.
+     */
+    ResponseWrapper<Long> createPatient(PatientCreateForm form);
+
+    /**
+     * Moves a patient to another pool of the same running event.
+     * Costs one update, plus one per waiting patient that starts processing on the server it freed.
+     *
+     * @param form The patient and the pool it moves to.
+     * @return A {@link ResponseWrapper} with the patient's ID, or an error status if the command was rejected.
+     */
+    ResponseWrapper<Long> movePatient(PatientMoveForm form);
+
+    /**
+     * Discharges a patient from its pool of a running event.
+     * Costs one update, plus one per waiting patient that starts processing on the server it freed.
+     *
+     * @param form The patient to discharge.
+     * @return A {@link ResponseWrapper} with the patient's ID, or an error status if the command was rejected.
+     */
+    ResponseWrapper<Long> dischargePatient(PatientDischargeForm form);
+
+    /**
+     * Applies several patient operations to a running event, in order. Each operation is answered on its own,
+     * so a rejected one does not stop the rest; an unexpected failure rolls the whole batch back.
+     * Costs what its operations cost, in a single transaction.
+     *
+     * @param form The event and its operations.
+     * @return A {@link ResponseWrapper} with the result of every operation, or an error status if the batch itself
+     * was rejected.
+     */
+    ResponseWrapper<List<PatientOperationResult>> applyBatch(PatientBatchForm form);
+
+    /**
+     * Starts, pauses, resumes or ends an event.
+     * Costs one update; starting or resuming adds the cold read that brings the event into memory, and restarting
+     * an ended event resets and saves the whole event.
+     *
+     * @param form The event and its new status.
+     * @return A {@link ResponseWrapper} with the event's ID, or an error status if the command was rejected.
+     */
+    ResponseWrapper<Long> changeStatus(EventStatusForm form);
+}
@@ -0,0 +1,430 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.forms.EventStatusForm;
+import com.retriage.retriage.forms.PatientBatchForm;
+import com.retriage.retriage.forms.PatientCreateForm;
+import com.retriage.retriage.forms.PatientDischargeForm;
+import com.retriage.retriage.forms.PatientMoveForm;
+import com.retriage.retriage.forms.PatientOperationForm;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientOperationResult;
+import com.retriage.retriage.models.PatientPool;
+import com.retriage.retriage.models.ResponseWrapper;
+import com.retriage.retriage.repositories.EventRepo;
+import com.retriage.retriage.repositories.PatientPoolRepo;
+import com.retriage.retriage.repositories.PatientRepo;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of the {@link EventCommandService} interface.
+ * Commands run while holding the event's lock, find their pools and patients through the indexes of the
+ * event's {@link EventRuntime}, and hand freed MedService servers on through the pool's {@link PatientPoolQueue}.
+ * Only the patient rows that changed are written, through targeted updates in {@link PatientRepo}. Since Hibernate
+ * does not see those updates, the commands increment the versions of the rows and pools they touched themselves,
+ * both in the database and on the in-memory copies, so the two never drift apart.
+ */
+@Service
+public class EventCommandServiceImp implements EventCommandService {
+    /**
+     * Logger for this service implementation.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(EventCommandServiceImp.class);
+    /**
+     * The largest number of operations accepted in one batch.
+     */
+    static final int MAX_BATCH_OPERATIONS = 256;
+    /**
+     * In-memory runtime holding the running events the commands apply to.
+     */
+    private final EventRuntimeService eventRuntimeService;
+    /**
+     * Service used for the rare commands that need the whole event, such as restarting an ended event.
+     */
+    private final EventService eventService;
+    /**
+     * Repository used to write an event's status without merging its pools.
+     */
+    private final EventRepo eventRepo;
+    /**
+     * Repository used to write single patient rows.
+     */
+    private final PatientRepo patientRepo;
+    /**
+     * Repository used to increment the versions of the pools a command changed.
+     */
+    private final PatientPoolRepo patientPoolRepo;
+    /**
+     * Source of the current event time.
+     */
+    private final EventClock eventClock;
+
+    /**
+     * Constructs an instance of {@code EventCommandServiceImp}.
+     *
+     * @param eventRuntimeService The {@link EventRuntimeService} holding the running events in memory.
+     * @param eventService        The {@link EventService} used to reset and save whole events.
+     * @param eventRepo           The {@link EventRepo} used to write event status changes.
+     * @param patientRepo         The {@link PatientRepo} used to write patient changes.
+     * @param patientPoolRepo     The {@link PatientPoolRepo} used to version pool changes.
+     * @param eventClock          The {@link EventClock} used to stamp status changes and processing starts.
+     */
+    public EventCommandServiceImp(EventRuntimeService eventRuntimeService, EventService eventService,
+                                  EventRepo eventRepo, PatientRepo patientRepo, PatientPoolRepo patientPoolRepo,
+                                  EventClock eventClock) {
+        this.eventRuntimeService = eventRuntimeService;
+        this.eventService = eventService;
+        this.eventRepo = eventRepo;
+        this.patientRepo = patientRepo;
+        this.patientPoolRepo = patientPoolRepo;
+        this.eventClock = eventClock;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public ResponseWrapper<Long> createPatient(PatientCreateForm form) {
+        if (form.getEventId() == null || form.getPoolId() == null || form.getCondition() == null
+                || form.getCardId() == null || form.getCardId().isBlank()) {
+            return error(HttpStatus.BAD_REQUEST, "Event id, pool id, card ID and condition are required.");
+        }
+        return eventRuntimeService.withEvent(form.getEventId(), event -> {
+            if (event == null) {
+                return notRunning(form.getEventId());
+            }
+            EventRuntime runtime = eventRuntimeService.getRuntime(form.getEventId());
+            PatientPool pool = runtime.getPool(form.getPoolId());
+            if (pool == null) {
+                return error(HttpStatus.NOT_FOUND, "The event has no pool with id " + form.getPoolId() + ".");
+            }
+            if (!PatientPoolQueue.hasRoom(pool)) {
+                return error(HttpStatus.CONFLICT, "Pool " + pool.getName() + " is full.");
+            }
+            // Checked against the runtime's card index, so a reused card is a conflict rather than a failed transaction
+            if (runtime.getPatientByCard(form.getCardId()) != null) {
+                return error(HttpStatus.CONFLICT, "Card " + form.getCardId() + " is already in use in this event.");
+            }
+            Patient patient = new Patient();
+            patient.setCardId(form.getCardId());
+            patient.setCondition(form.getCondition());
+            patient.setProcessed(false);
+            patientRepo.save(patient);
+            admit(runtime, pool, patient, eventClock.now());
+            // The new patient was persisted in this transaction, so Hibernate keeps its version
+            patientRepo.placePatient(patient.getId(), pool.getId(), patient.isProcessed(), patient.getStartedProcessingAt(), 0);
+            incrementVersion(pool);
+            logger.info("createPatient - Patient {} added to pool {} of event {}.", patient.getId(), pool.getName(), form.getEventId());
+            return new ResponseWrapper<>(HttpStatus.OK.value(), "Patient created", patient.getId());
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public ResponseWrapper<Long> movePatient(PatientMoveForm form) {
+        if (form.getEventId() == null || form.getPatientId() == null || form.getPoolId() == null) {
+            return error(HttpStatus.BAD_REQUEST, "Event id, patient id and pool id are required.");
+        }
+        return eventRuntimeService.withEvent(form.getEventId(), event -> {
+            if (event == null) {
+                return notRunning(form.getEventId());
+            }
+            EventRuntime runtime = eventRuntimeService.getRuntime(form.getEventId());
+            PatientPool target = runtime.getPool(form.getPoolId());
+            if (target == null) {
+                return error(HttpStatus.NOT_FOUND, "The event has no pool with id " + form.getPoolId() + ".");
+            }
+            PatientPool source = runtime.getPoolOf(form.getPatientId());
+            Patient patient = source == null ? null : findPatient(source, form.getPatientId());
+            if (patient == null) {
+                return error(HttpStatus.NOT_FOUND, "The event has no patient with id " + form.getPatientId() + ".");
+            }
+            if (source == target) {
+                return new ResponseWrapper<>(HttpStatus.OK.value(), "Patient already in pool", patient.getId());
+            }
+            if (!PatientPoolQueue.hasRoom(target)) {
+                return error(HttpStatus.CONFLICT, "Pool " + target.getName() + " is full.");
+            }
+            long now = eventClock.now();
+            List<Patient> started = remove(runtime, source, patient, now);
+            admit(runtime, target, patient, now);
+            place(patient, target);
+            writeProcessing(started);
+            incrementVersion(source);
+            incrementVersion(target);
+            logger.info("movePatient - Patient {} moved from pool {} to pool {} of event {}.", patient.getId(), source.getName(), target.getName(), form.getEventId());
+            return new ResponseWrapper<>(HttpStatus.OK.value(), "Patient moved", patient.getId());
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public ResponseWrapper<Long> dischargePatient(PatientDischargeForm form) {
+        if (form.getEventId() == null || form.getPatientId() == null) {
+            return error(HttpStatus.BAD_REQUEST, "Event id and patient id are required.");
+        }
+        return eventRuntimeService.withEvent(form.getEventId(), event -> {
+            if (event == null) {
+                return notRunning(form.getEventId());
+            }
+            EventRuntime runtime = eventRuntimeService.getRuntime(form.getEventId());
+            PatientPool source = runtime.getPoolOf(form.getPatientId());
+            Patient patient = source == null ? null : findPatient(source, form.getPatientId());
+            if (patient == null) {
+                return error(HttpStatus.NOT_FOUND, "The event has no patient with id " + form.getPatientId() + ".");
+            }
+            List<Patient> started = remove(runtime, source, patient, eventClock.now());
+            runtime.placePatient(patient, null);
+            patient.setStartedProcessingAt(null);
+            place(patient, null);
+            writeProcessing(started);
+            incrementVersion(source);
+            logger.info("dischargePatient - Patient {} discharged from pool {} of event {}.", patient.getId(), source.getName(), form.getEventId());
+            return new ResponseWrapper<>(HttpStatus.OK.value(), "Patient discharged", patient.getId());
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * The operations run under a single hold of the event's lock, so no tick or other command lands between them.
+     */
+    @Override
+    @Transactional
+    public ResponseWrapper<List<PatientOperationResult>> applyBatch(PatientBatchForm form) {
+        if (form.getEventId() == null || form.getOperations() == null) {
+            return batchError(HttpStatus.BAD_REQUEST, "Event id and operations are required.");
+        }
+        if (form.getOperations().size() > MAX_BATCH_OPERATIONS) {
+            return batchError(HttpStatus.BAD_REQUEST, "A batch holds at most " + MAX_BATCH_OPERATIONS + " operations.");
+        }
+        return eventRuntimeService.withEvent(form.getEventId(), event -> {
+            if (event == null) {
+                return batchError(HttpStatus.NOT_FOUND, "Event " + form.getEventId() + " is not running.");
+            }
+            List<PatientOperationResult> results = new ArrayList<>(form.getOperations().size());
+            for (PatientOperationForm operation : form.getOperations()) {
+                results.add(new PatientOperationResult(operation.getSeq(), applyOperation(form.getEventId(), operation)));
+            }
+            logger.info("applyBatch - Applied {} operation(s) to event {}.", results.size(), form.getEventId());
+            return new ResponseWrapper<>(HttpStatus.OK.value(), "Batch applied", results);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * The status and clock anchor are written with a single update. Starting or resuming then loads the event into
+     * the runtime, reusing the entity already read in this transaction; pausing or ending clears it from the runtime.
+     */
+    @Override
+    @Transactional
+    public ResponseWrapper<Long> changeStatus(EventStatusForm form) {
+        if (form.getEventId() == null || form.getStatus() == null) {
+            return error(HttpStatus.BAD_REQUEST, "Event id and status are required.");
+        }
+        Long eventId = form.getEventId();
+        return eventRuntimeService.withEvent(eventId, running -> {
+            Event event = running != null ? running : eventService.findEventById(eventId);
+            if (event == null) {
+                return error(HttpStatus.NOT_FOUND, "Event " + eventId + " does not exist.");
+            }
+            if (event.getStatus() == form.getStatus()) {
+                return new ResponseWrapper<>(HttpStatus.OK.value(), "Status unchanged", eventId);
+            }
+            long now = eventClock.now();
+            if (event.getStatus() == Status.Ended && form.getStatus() == Status.Running) {
+                // Restarting clears every pool, so the whole event is saved
+                eventService.resetEventById(event);
+                EventCountdown.reanchor(event, Status.Running, now);
+                if (eventService.updateEvent(eventId, event) == null) {
+                    return error(HttpStatus.BAD_REQUEST, "Event " + eventId + " could not be restarted.");
+                }
+            } else {
+                EventCountdown.reanchor(event, form.getStatus(), now);
+                if (running != null) {
+                    // The running copy is detached, so only its status and anchor are written
+                    eventRepo.updateStatus(eventId, event.getStatus(), event.getRemainingDuration(), event.getTimeOfStatusChange());
+                    event.setVersion(event.getVersion() + 1);
+                } // Otherwise the event was read in this transaction and the change is flushed with it
+            }
+            if (form.getStatus() == Status.Running) {
+                eventRuntimeService.loadEvent(eventId);
+            } else if (running != null) {
+                eventRuntimeService.adoptEvent(event);
+            }
+            logger.info("changeStatus - Event {} is now {}.", eventId, form.getStatus());
+            return new ResponseWrapper<>(HttpStatus.OK.value(), "Status changed", eventId);
+        });
+    }
+
+    /**
+     * Adds a patient to a pool in memory. MedService pools queue it and start it at once if a server is free;
+     * other pools simply hold it. Must be called while holding the event's lock.
+     *
+     * @param runtime The event's runtime.
+     * @param pool    The pool, which must have room.
+     * @param patient The patient to add.
+     * @param now     The current time in milliseconds since epoch.
+     */
+    private void admit(EventRuntime runtime, PatientPool pool, Patient patient, long now) {
+        PatientPoolQueue queue = runtime.getQueue(pool);
+        if (queue != null) {
+            queue.admit(patient, now);
+            runtime.getDeadlines().reschedule(pool);
+        } else {
+            if (pool.getPatients() == null) {
+                pool.setPatients(new ArrayList<>());
+            }
+            patient.setStartedProcessingAt(null);
+            pool.getPatients().add(patient);
+        }
+        runtime.placePatient(patient, pool);
+    }
+
+    /**
+     * Takes a patient out of a pool in memory, handing a freed MedService server to the next waiting patient.
+     * Must be called while holding the event's lock.
+     *
+     * @param runtime The event's runtime.
+     * @param pool    The pool holding the patient.
+     * @param patient The patient to take out.
+     * @param now     The current time in milliseconds since epoch.
+     * @return The patients that started processing on the freed server.
+     */
+    private List<Patient> remove(EventRuntime runtime, PatientPool pool, Patient patient, long now) {
+        PatientPoolQueue queue = runtime.getQueue(pool);
+        if (queue == null) {
+            pool.getPatients().remove(patient);
+            return List.of();
+        }
+        List<Patient> started = queue.remove(patient, now);
+        runtime.getDeadlines().reschedule(pool);
+        return started == null ? List.of() : started;
+    }
+
+    /**
+     * Writes which pool holds a patient already stored, with its processing state, and increments its version.
+     *
+     * @param patient The patient, as held by the in-memory event.
+     * @param pool    The pool now holding the patient, or {@code null} if it was discharged.
+     */
+    private void place(Patient patient, PatientPool pool) {
+        patientRepo.placePatient(patient.getId(), pool == null ? null : pool.getId(), patient.isProcessed(),
+                patient.getStartedProcessingAt(), 1);
+        patient.setVersion(patient.getVersion() + 1);
+    }
+
+    /**
+     * Writes the processing state of patients that started processing as a side effect of a command.
+     *
+     * @param patients The patients to write.
+     */
+    private void writeProcessing(List<Patient> patients) {
+        for (Patient patient : patients) {
+            patientRepo.updateProcessing(patient.getId(), patient.isProcessed(), patient.getStartedProcessingAt());
+            patient.setVersion(patient.getVersion() + 1);
+        }
+    }
+
+    /**
+     * Increments the version of a pool whose patients a command changed, in the database and in memory.
+     *
+     * @param pool The pool, as held by the in-memory event.
+     */
+    private void incrementVersion(PatientPool pool) {
+        patientPoolRepo.incrementVersion(pool.getId());
+        pool.setVersion(pool.getVersion() + 1);
+    }
+
+    /**
+     * Finds a patient in a pool by ID.
+     *
+     * @param pool      The pool to search.
+     * @param patientId The ID of the patient.
+     * @return The patient, or {@code null} if the pool does not hold it.
+     */
+    private Patient findPatient(PatientPool pool, Long patientId) {
+        if (pool.getPatients() == null) {
+            return null;
+        }
+        for (Patient patient : pool.getPatients()) {
+            if (patientId.equals(patient.getId())) {
+                return patient;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs one operation of a batch against the batch's event.
+     *
+     * @param eventId   The ID of the event the batch targets.
+     * @param operation The operation.
+     * @return The answer of the command the operation ran.
+     */
+    private ResponseWrapper<Long> applyOperation(Long eventId, PatientOperationForm operation) {
+        int set = (operation.getCreate() != null ? 1 : 0) + (operation.getMove() != null ? 1 : 0)
+                + (operation.getDischarge() != null ? 1 : 0);
+        if (set != 1) {
+            return error(HttpStatus.BAD_REQUEST, "An operation must either create, move or discharge a patient.");
+        }
+        if (operation.getCreate() != null) {
+            operation.getCreate().setEventId(eventId);
+            return createPatient(operation.getCreate());
+        }
+        if (operation.getMove() != null) {
+            operation.getMove().setEventId(eventId);
+            return movePatient(operation.getMove());
+        }
+        operation.getDischarge().setEventId(eventId);
+        return dischargePatient(operation.getDischarge());
+    }
+
+    /**
+     * Builds the answer to a command against an event that is not running.
+     *
+     * @param eventId The ID of the event.
+     * @return A "not found" {@link ResponseWrapper}.
+     */
+    private ResponseWrapper<Long> notRunning(Long eventId) {
+        return error(HttpStatus.NOT_FOUND, "Event " + eventId + " is not running.");
+    }
+
+    /**
+     * Builds the answer to a rejected command.
+     *
+     * @param status  The HTTP status describing the rejection.
+     * @param message The reason for the rejection.
+     * @return An error {@link ResponseWrapper}.
+     */
+    private ResponseWrapper<Long> error(HttpStatus status, String message) {
+        logger.warn("command - Rejected: {}", message);
+        return new ResponseWrapper<>(status.value(), message, null);
+    }
+
+    /**
+     * Builds the answer to a rejected batch.
+     *
+     * @param status  The HTTP status describing the rejection.
+     * @param message The reason for the rejection.
+     * @return An error {@link ResponseWrapper}.
+     */
+    private ResponseWrapper<List<PatientOperationResult>> batchError(HttpStatus status, String message) {
+        logger.warn("applyBatch - Rejected: {}", message);
+        return new ResponseWrapper<>(status.value(), message, null);
+    }
+}
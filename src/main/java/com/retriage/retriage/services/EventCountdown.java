@@ -0,0 +1,58 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.models.Event;
+
+/**
+ * Computes an event's countdown from its clock anchor instead of storing it on every tick.
+ * The anchor is the pair of {@link Event#getRemainingDuration()} and {@link Event#getTimeOfStatusChange()}:
+ * the time left at the moment the status last changed. While the event is {@link Status#Running} the countdown
+ * runs down from that moment; in any other status it is frozen. Clients compute the same countdown locally,
+ * so the anchor only has to be broadcast when the status changes.
+ */
+public final class EventCountdown {
+
+    /**
+     * Not instantiable; all methods are static.
+     */
+    private EventCountdown() {
+    }
+
+    /**
+     * Computes the time an event has left at the given moment.
+     *
+     * @param event The event.
+     * @param now   The current event time in milliseconds since epoch.
+     * @return The remaining duration in milliseconds, never negative.
+     */
+    public static long remainingAt(Event event, long now) {
+        long remaining = event.getRemainingDuration();
+        if (event.getStatus() == Status.Running) {
+            remaining -= Math.max(0, now - event.getTimeOfStatusChange());
+        }
+        return Math.max(0, remaining);
+    }
+
+    /**
+     * Computes when a running event reaches the end of its countdown.
+     *
+     * @param event The running event.
+     * @return The end time in milliseconds since epoch.
+     */
+    public static long endsAt(Event event) {
+        return event.getTimeOfStatusChange() + event.getRemainingDuration();
+    }
+
+    /**
+     * Moves an event's anchor to a status change, carrying over the time it had left.
+     *
+     * @param event     The event whose status changes, holding the anchor before the change.
+     * @param newStatus The status the event changes to.
+     * @param now       The time of the change in milliseconds since epoch.
+     */
+    public static void reanchor(Event event, Status newStatus, long now) {
+        event.setRemainingDuration(remainingAt(event, now));
+        event.setTimeOfStatusChange(now);
+        event.setStatus(newStatus);
+    }
+}
@@ -0,0 +1,75 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.models.EventDelta;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A bounded ring buffer of the most recent deltas broadcast for a single event, so a client that reconnects
+ * after a short drop can be sent only the deltas it missed instead of the whole event.
+ * Changed pools are held by reference, so a replay may show a pool in a newer state than its delta did; since
+ * pools are always sent whole, applying the replay in order still ends in the current state.
+ * This class is not thread-safe and is guarded by the runtime's lock.
+ */
+public class EventDeltaLog {
+    /**
+     * The number of deltas kept.
+     */
+    private final int capacity;
+    /**
+     * The kept deltas, oldest first, with consecutive sequence numbers.
+     */
+    private final Deque<EventDelta> deltas = new ArrayDeque<>();
+
+    /**
+     * Constructs an empty log.
+     *
+     * @param capacity The number of deltas kept.
+     */
+    public EventDeltaLog(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Records a broadcast delta, evicting the oldest one when the log is full.
+     * A delta that does not follow the last one starts the log over, so the log never has a gap.
+     *
+     * @param delta The delta that was broadcast.
+     */
+    public void append(EventDelta delta) {
+        if (!deltas.isEmpty() && deltas.peekLast().getSeq() + 1 != delta.getSeq()) {
+            deltas.clear();
+        }
+        deltas.addLast(delta);
+        while (deltas.size() > capacity) {
+            deltas.pollFirst();
+        }
+    }
+
+    /**
+     * Returns the deltas a client missed after the given sequence number.
+     *
+     * @param lastSeq The sequence number of the last delta the client applied.
+     * @param seq     The sequence number of the last delta broadcast.
+     * @return The missed deltas in order, an empty list if the client is up to date, or {@code null} if some of
+     * them are no longer kept and the client needs the full state.
+     */
+    public List<EventDelta> since(long lastSeq, long seq) {
+        if (lastSeq == seq) {
+            return List.of();
+        }
+        if (lastSeq > seq || deltas.isEmpty() || deltas.peekFirst().getSeq() > lastSeq + 1 || deltas.peekLast().getSeq() != seq) {
+            return null;
+        }
+        List<EventDelta> missed = new ArrayList<>();
+        for (EventDelta delta : deltas) {
+            if (delta.getSeq() > lastSeq) {
+                missed.add(delta);
+            }
+        }
+        return missed;
+    }
+}
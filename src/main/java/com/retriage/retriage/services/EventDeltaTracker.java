@@ -0,0 +1,242 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Condition;
+import com.retriage.retriage.enums.PoolType;
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.EventClockAnchor;
+import com.retriage.retriage.models.EventDelta;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Computes the {@link EventDelta}s of a single event by comparing it with the state last broadcast.
+ * The baseline is a compact copy of the values clients have seen, not the entities themselves, so it stays
+ * valid when the runtime swaps in a freshly saved graph. Pools are compared by ID.
+ * This class is not thread-safe and is guarded by the runtime's lock.
+ */
+public class EventDeltaTracker {
+    /**
+     * The ID of the event this tracker belongs to.
+     */
+    private final Long eventId;
+    /**
+     * The event fields clients have seen, or {@code null} before the first delta.
+     */
+    private EventState event;
+    /**
+     * The pools clients have seen, by pool ID.
+     */
+    private Map<Long, PoolState> pools = new HashMap<>();
+    /**
+     * The sequence number of the last delta.
+     */
+    private long seq;
+    /**
+     * The event fields the event stopped with, waiting to be broadcast.
+     */
+    private EventState pendingStop;
+
+    /**
+     * Constructs a tracker with an empty baseline, so the first delta carries the whole event.
+     *
+     * @param eventId The ID of the event.
+     */
+    public EventDeltaTracker(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    /**
+     * Compares the event with the baseline, advances the baseline and returns what changed.
+     *
+     * @param current The running event.
+     * @return The delta, or {@code null} if nothing changed.
+     */
+    public EventDelta diff(Event current) {
+        pendingStop = null;
+        EventDelta delta = new EventDelta();
+        EventState state = EventState.of(current);
+        boolean changed = diffFields(state, delta);
+        Map<Long, PoolState> poolStates = new HashMap<>();
+        if (current.getPools() != null) {
+            for (PatientPool pool : current.getPools()) {
+                PoolState poolState = PoolState.of(pool);
+                poolStates.put(pool.getId(), poolState);
+                if (!poolState.equals(pools.get(pool.getId()))) {
+                    delta.getPools().add(pool);
+                    changed = true;
+                }
+            }
+        }
+        Set<Long> removed = new HashSet<>(pools.keySet());
+        removed.removeAll(poolStates.keySet());
+        if (!removed.isEmpty()) {
+            delta.setRemovedPoolIds(new ArrayList<>(removed));
+            changed = true;
+        }
+        pools = poolStates;
+        return changed ? sequence(delta) : null;
+    }
+
+    /**
+     * Records that the event stopped running, so the next {@link #diffStopped()} reports its final status and clock anchor.
+     *
+     * @param last The event as it stopped, or {@code null} if it no longer exists, which is reported as ended.
+     */
+    public void stopped(Event last) {
+        if (last != null) {
+            pendingStop = EventState.of(last);
+        } else if (event != null) {
+            pendingStop = new EventState(event.name(), Status.Ended, event.startTime(), event.duration(), event.remainingDuration(), event.timeOfStatusChange(), event.version());
+        } else {
+            pendingStop = new EventState(null, Status.Ended, null, null, null, null, null);
+        }
+    }
+
+    /**
+     * Returns the delta announcing that the event stopped running, once.
+     * Only event fields are reported; the pools of a stopped event are no longer tracked.
+     *
+     * @return The delta carrying the new status and anchor, or {@code null} if no stop is waiting to be broadcast.
+     */
+    public EventDelta diffStopped() {
+        if (pendingStop == null) {
+            return null;
+        }
+        EventDelta delta = new EventDelta();
+        diffFields(pendingStop, delta);
+        delta.setStatus(pendingStop.status());
+        pendingStop = null;
+        return sequence(delta);
+    }
+
+    /**
+     * Builds the clock anchor of the event from the state clients have seen.
+     *
+     * @param serverTime The current event time in milliseconds since epoch.
+     * @return The {@link EventClockAnchor}, or {@code null} if nothing was broadcast yet.
+     */
+    public EventClockAnchor clockAnchor(long serverTime) {
+        if (event == null) {
+            return null;
+        }
+        EventClockAnchor anchor = new EventClockAnchor();
+        anchor.setEventId(eventId);
+        anchor.setSeq(seq);
+        anchor.setStatus(event.status());
+        anchor.setStartTime(event.startTime());
+        anchor.setDuration(event.duration());
+        anchor.setRemainingDuration(event.remainingDuration());
+        anchor.setTimeOfStatusChange(event.timeOfStatusChange());
+        anchor.setServerTime(serverTime);
+        return anchor;
+    }
+
+    /**
+     * Compares the event fields with the baseline, writes the changed ones to the delta and advances the baseline.
+     *
+     * @param state The current event fields.
+     * @param delta The delta to fill.
+     * @return {@code true} if any field changed.
+     */
+    private boolean diffFields(EventState state, EventDelta delta) {
+        boolean changed = false;
+        EventState before = event == null ? new EventState(null, null, null, null, null, null, null) : event;
+        if (!Objects.equals(state.name(), before.name())) {
+            delta.setName(state.name());
+            changed = true;
+        }
+        if (!Objects.equals(state.status(), before.status())) {
+            delta.setStatus(state.status());
+            changed = true;
+        }
+        if (!Objects.equals(state.startTime(), before.startTime())) {
+            delta.setStartTime(state.startTime());
+            changed = true;
+        }
+        if (!Objects.equals(state.duration(), before.duration())) {
+            delta.setDuration(state.duration());
+            changed = true;
+        }
+        if (!Objects.equals(state.remainingDuration(), before.remainingDuration())) {
+            delta.setRemainingDuration(state.remainingDuration());
+            changed = true;
+        }
+        if (!Objects.equals(state.timeOfStatusChange(), before.timeOfStatusChange())) {
+            delta.setTimeOfStatusChange(state.timeOfStatusChange());
+            changed = true;
+        }
+        if (!Objects.equals(state.version(), before.version())) {
+            delta.setVersion(state.version());
+            changed = true;
+        }
+        event = state;
+        return changed;
+    }
+
+    /**
+     * Gets the sequence number of the last delta.
+     *
+     * @return The last sequence number, or {@code 0} if no delta was produced yet.
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Stamps a delta with the event ID and the next sequence number.
+     *
+     * @param delta The delta to stamp.
+     * @return The same delta.
+     */
+    private EventDelta sequence(EventDelta delta) {
+        delta.setEventId(eventId);
+        delta.setSeq(++seq);
+        return delta;
+    }
+
+    /**
+     * The event fields clients have seen.
+     */
+    private record EventState(String name, Status status, Long startTime, Long duration, Long remainingDuration,
+                              Long timeOfStatusChange, Long version) {
+        static EventState of(Event event) {
+            return new EventState(event.getName(), event.getStatus(), event.getStartTime(), event.getDuration(),
+                    event.getRemainingDuration(), event.getTimeOfStatusChange(), event.getVersion());
+        }
+    }
+
+    /**
+     * The pool fields and patients clients have seen.
+     */
+    private record PoolState(String name, Long processTime, Long startedProcessingAt, boolean autoDischarge,
+                             PoolType poolType, int queueSize, int concurrency, String icon, long version,
+                             List<PatientState> patients) {
+        static PoolState of(PatientPool pool) {
+            List<PatientState> patients = new ArrayList<>();
+            if (pool.getPatients() != null) {
+                for (Patient patient : pool.getPatients()) {
+                    patients.add(new PatientState(patient.getId(), patient.getCardId(), patient.getCondition(),
+                            patient.isProcessed(), patient.getStartedProcessingAt(), patient.getVersion()));
+                }
+            }
+            return new PoolState(pool.getName(), pool.getProcessTime(), pool.getStartedProcessingAt(), pool.isAutoDischarge(),
+                    pool.getPoolType(), pool.getQueueSize(), pool.getConcurrency(), pool.getIcon(), pool.getVersion(), patients);
+        }
+    }
+
+    /**
+     * The patient fields clients have seen.
+     */
+    private record PatientState(Long id, String cardId, Condition condition, boolean processed, Long startedProcessingAt,
+                                long version) {
+    }
+}
@@ -0,0 +1,57 @@
+package com.retriage.retriage.services;
+
+import java.util.Set;
+
+/**
+ * Service interface defining the contract for the per-event leases that make exactly one node drive each event's clock.
+ * A node must hold an event's lease before ticking it. Leases are kept in a database row with an expiry, renewed
+ * for all events of a node at once, and taken over by another node within seconds if their holder stops renewing.
+ */
+public interface EventLeaseService {
+
+    /**
+     * Returns the ID this node holds leases under.
+     *
+     * @return The node ID.
+     */
+    String getNodeId();
+
+    /**
+     * Returns how often the leases should be renewed.
+     *
+     * @return The renewal interval in milliseconds.
+     */
+    long getRenewInterval();
+
+    /**
+     * Checks whether this node currently holds an event's lease, without touching the database.
+     * Cheap enough to call on every tick.
+     *
+     * @param eventId The ID of the event.
+     * @return {@code true} if the lease is held and has not expired locally.
+     */
+    boolean holds(Long eventId);
+
+    /**
+     * Takes an event's lease unless another node holds it. Only touches the database if it is not already held.
+     *
+     * @param eventId The ID of the event.
+     * @return {@code true} if this node now holds the lease.
+     */
+    boolean acquire(Long eventId);
+
+    /**
+     * Gives up an event's lease, e.g. because the event stopped running.
+     *
+     * @param eventId The ID of the event.
+     */
+    void release(Long eventId);
+
+    /**
+     * Renews every lease this node holds and takes over the expired leases of other nodes, in one statement.
+     * Intended to be called once per renewal interval.
+     *
+     * @return The IDs of the events whose lease this node gained from another node. Returns an empty set if none.
+     */
+    Set<Long> renew();
+}
@@ -0,0 +1,244 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.repositories.EventLeaseRepo;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Implementation of the {@link EventLeaseService} interface.
+ * Keeps the leases this node holds in memory, together with the time until which they are safe to use locally.
+ * That time stops one renewal interval short of the expiry written to the database, so a node that falls behind
+ * stops ticking before any other node may take its events over. Leases are timed with the system clock rather than
+ * the event clock, and nodes are assumed to keep their clocks in sync.
+ */
+@Service
+public class EventLeaseServiceImp implements EventLeaseService {
+    /**
+     * Logger for this service implementation.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(EventLeaseServiceImp.class);
+    /**
+     * Repository holding the lease rows.
+     */
+    private final EventLeaseRepo eventLeaseRepo;
+    /**
+     * The ID this node holds leases under.
+     */
+    private final String nodeId;
+    /**
+     * How long a lease lasts without being renewed, in milliseconds.
+     */
+    private final long ttlMillis;
+    /**
+     * How often the leases are renewed, in milliseconds.
+     */
+    private final long renewIntervalMillis;
+    /**
+     * Source of the current system time in milliseconds since epoch.
+     */
+    private final LongSupplier now;
+    /**
+     * Guards the leases held by this node. A lock rather than a monitor, since it is held across JDBC calls,
+     * which would pin a virtual thread to its carrier inside a {@code synchronized} block.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * The leases held by this node: the time until which each may be used locally, by event ID.
+     * Guarded by the lock.
+     */
+    private final Map<Long, Long> held = new HashMap<>();
+    /**
+     * The time of the last renewal in milliseconds since epoch, or {@code 0} before the first one.
+     * Guarded by the lock.
+     */
+    private long lastRenewal;
+
+    /**
+     * Constructs an instance of {@code EventLeaseServiceImp}.
+     *
+     * @param eventLeaseRepo      The {@link EventLeaseRepo} holding the lease rows.
+     * @param nodeId              The ID of this node; blank generates a random one at startup.
+     * @param ttlMillis           How long a lease lasts without being renewed, in milliseconds.
+     * @param renewIntervalMillis How often the leases are renewed, in milliseconds. Must be below {@code ttlMillis}.
+     */
+    @Autowired
+    public EventLeaseServiceImp(EventLeaseRepo eventLeaseRepo,
+                                @Value("${retriage.lease.node-id:}") String nodeId,
+                                @Value("${retriage.lease.ttl-ms:10000}") long ttlMillis,
+                                @Value("${retriage.lease.renew-interval-ms:3000}") long renewIntervalMillis) {
+        this(eventLeaseRepo, nodeId, ttlMillis, renewIntervalMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructs an instance of {@code EventLeaseServiceImp} with its own time source, for tests.
+     *
+     * @param eventLeaseRepo      The {@link EventLeaseRepo} holding the lease rows.
+     * @param nodeId              The ID of this node; blank generates a random one.
+     * @param ttlMillis           How long a lease lasts without being renewed, in milliseconds.
+     * @param renewIntervalMillis How often the leases are renewed, in milliseconds. Must be below {@code ttlMillis}.
+     * @param now                 Source of the current time in milliseconds since epoch.
+     */
+    EventLeaseServiceImp(EventLeaseRepo eventLeaseRepo, String nodeId, long ttlMillis, long renewIntervalMillis, LongSupplier now) {
+        if (renewIntervalMillis <= 0 || renewIntervalMillis >= ttlMillis) {
+            throw new IllegalArgumentException("The lease renewal interval must be positive and shorter than the lease TTL.");
+        }
+        this.eventLeaseRepo = eventLeaseRepo;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.ttlMillis = ttlMillis;
+        this.renewIntervalMillis = renewIntervalMillis;
+        this.now = now;
+        logger.info("EventLeaseServiceImp - Holding event leases as node {}", this.nodeId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRenewInterval() {
+        return renewIntervalMillis;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean holds(Long eventId) {
+        lock.lock();
+        try {
+            Long validUntil = held.get(eventId);
+            return validUntil != null && now.getAsLong() < validUntil;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean acquire(Long eventId) {
+        lock.lock();
+        try {
+            if (eventId == null) {
+                return false;
+            }
+            long time = now.getAsLong();
+            Long validUntil = held.get(eventId);
+            if (validUntil != null && time < validUntil) {
+                return true;
+            }
+            boolean taken = eventLeaseRepo.takeLease(eventId, nodeId, time, time + ttlMillis) == 1;
+            if (!taken && !eventLeaseRepo.existsById(eventId)) {
+                try {
+                    taken = eventLeaseRepo.insertLease(eventId, nodeId, time + ttlMillis) == 1;
+                } catch (DataIntegrityViolationException e) {
+                    logger.debug("acquire - Another node created the lease of event {} first", eventId);
+                }
+            }
+            if (taken) {
+                held.put(eventId, time + ttlMillis - renewIntervalMillis);
+                logger.info("acquire - Node {} took the lease of event {}", nodeId, eventId);
+            } else {
+                held.remove(eventId);
+                logger.debug("acquire - The lease of event {} is held by another node", eventId);
+            }
+            return taken;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release(Long eventId) {
+        lock.lock();
+        try {
+            if (held.remove(eventId) != null) {
+                eventLeaseRepo.releaseLease(eventId, nodeId);
+                logger.info("release - Node {} released the lease of event {}", nodeId, eventId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Only reads the leased events back from the database when the renewal touched a different number of rows
+     * than expected, or when this node renewed too late and may have lost leases.
+     */
+    @Override
+    public Set<Long> renew() {
+        lock.lock();
+        try {
+            long time = now.getAsLong();
+            boolean late = lastRenewal != 0 && time - lastRenewal >= ttlMillis;
+            int count = eventLeaseRepo.renewLeases(nodeId, time, time + ttlMillis);
+            lastRenewal = time;
+            Set<Long> gained = new HashSet<>();
+            if (count != held.size() || late) {
+                List<Long> owned = eventLeaseRepo.findEventIdsByNodeId(nodeId);
+                for (Long eventId : owned) {
+                    if (!held.containsKey(eventId)) {
+                        gained.add(eventId);
+                    }
+                }
+                Set<Long> lost = new HashSet<>(held.keySet());
+                owned.forEach(lost::remove);
+                if (!lost.isEmpty()) {
+                    logger.warn("renew - Node {} lost the lease of events {}", nodeId, lost);
+                    held.keySet().removeAll(lost);
+                }
+                if (!gained.isEmpty()) {
+                    logger.warn("renew - Node {} took over the expired lease of events {}", nodeId, gained);
+                }
+                gained.forEach(eventId -> held.put(eventId, 0L));
+            }
+            held.replaceAll((eventId, validUntil) -> time + ttlMillis - renewIntervalMillis);
+            return gained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives up every lease this node holds when the application shuts down, so other nodes take over at once.
+     */
+    @PreDestroy
+    public void shutdown() {
+        lock.lock();
+        try {
+            if (!held.isEmpty()) {
+                held.clear();
+                eventLeaseRepo.releaseLeases(nodeId);
+                logger.info("shutdown - Node {} released its event leases", nodeId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.EventConflict;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Merges an event update sent by a client into the current event, pool by pool, instead of saving the client's
+ * whole graph over it. Only the pools the client changed are taken from the update; every other pool keeps its
+ * current state, so two clients editing different pools at the same time both see their change applied.
+ * A changed pool is only accepted if the client based its change on the pool's current version and on the current
+ * version of every patient in it; otherwise the update is rejected with the current versions, so the client can
+ * rebase instead of silently undoing a change it had not seen. No lock is taken beyond the event's own.
+ */
+public final class EventMerger {
+
+    /**
+     * Not instantiable; all methods are static.
+     */
+    private EventMerger() {
+    }
+
+    /**
+     * The outcome of a merge: either the merged event or the conflict that prevented it.
+     *
+     * @param merged   The merged event, or {@code null} if the update conflicts.
+     * @param conflict The conflict, or {@code null} if the update was merged.
+     */
+    public record Result(Event merged, EventConflict conflict) {
+    }
+
+    /**
+     * Merges an update into the current event. Neither argument is modified; the merged event is a new object
+     * sharing the pools that did not change with the current event. The status is only checked for conflicts,
+     * since changing it also moves the clock anchor, which is left to the caller.
+     * The card index is built from the current event, for events that are not loaded in a runtime.
+     *
+     * @param current        The current event, as held by the database.
+     * @param incoming       The event sent by the client.
+     * @param changedPoolIds The IDs of the pools the client changed, or {@code null} to treat every pool that
+     *                       differs from the current event as changed.
+     * @return The {@link Result} of the merge.
+     */
+    public static Result merge(Event current, Event incoming, Collection<Long> changedPoolIds) {
+        Map<String, Long> patientsByCard = new HashMap<>();
+        for (PatientPool pool : current.getPools() == null ? List.<PatientPool>of() : current.getPools()) {
+            for (Patient patient : pool.getPatients() == null ? List.<Patient>of() : pool.getPatients()) {
+                if (patient.getCardId() != null) {
+                    patientsByCard.put(patient.getCardId(), patient.getId());
+                }
+            }
+        }
+        return merge(current, incoming, changedPoolIds, patientsByCard);
+    }
+
+    /**
+     * Merges an update into the current event. Neither argument is modified; the merged event is a new object
+     * sharing the pools that did not change with the current event. The status is only checked for conflicts,
+     * since changing it also moves the clock anchor, which is left to the caller.
+     * Card IDs must stay unique within the event, so a changed or new pool may not give a card to a second patient.
+     *
+     * @param current        The current event, as held by the runtime or the database.
+     * @param incoming       The event sent by the client.
+     * @param changedPoolIds The IDs of the pools the client changed, or {@code null} to treat every pool that
+     *                       differs from the current event as changed.
+     * @param patientsByCard The ID of the patient holding each card in the current event, by card ID.
+     * @return The {@link Result} of the merge.
+     */
+    public static Result merge(Event current, Event incoming, Collection<Long> changedPoolIds, Map<String, Long> patientsByCard) {
+        EventConflict conflict = new EventConflict();
+        conflict.setEventId(current.getId());
+        conflict.setEventVersion(current.getVersion());
+
+        Event merged = new Event();
+        merged.setId(current.getId());
+        merged.setName(current.getName());
+        merged.setStartTime(current.getStartTime());
+        merged.setDuration(current.getDuration());
+        merged.setStatus(current.getStatus());
+        merged.setRemainingDuration(current.getRemainingDuration());
+        merged.setTimeOfStatusChange(current.getTimeOfStatusChange());
+        merged.setVersion(current.getVersion());
+        if (!Objects.equals(incoming.getName(), current.getName())
+                || !Objects.equals(incoming.getStartTime(), current.getStartTime())
+                || !Objects.equals(incoming.getDuration(), current.getDuration())
+                || incoming.getStatus() != current.getStatus()) {
+            if (incoming.getVersion() != current.getVersion()) {
+                conflict.setEventConflict(true);
+            } else {
+                merged.setName(incoming.getName());
+                merged.setStartTime(incoming.getStartTime());
+                merged.setDuration(incoming.getDuration());
+            }
+        }
+
+        List<PatientPool> pools = new ArrayList<>(current.getPools() == null ? List.of() : current.getPools());
+        Map<Long, Integer> poolIndexes = new HashMap<>();
+        Map<Long, Long> patientVersions = new HashMap<>();
+        for (int i = 0; i < pools.size(); i++) {
+            PatientPool pool = pools.get(i);
+            poolIndexes.put(pool.getId(), i);
+            conflict.getPoolVersions().put(pool.getId(), pool.getVersion());
+            if (pool.getPatients() != null) {
+                pool.getPatients().forEach(patient -> patientVersions.put(patient.getId(), patient.getVersion()));
+            }
+        }
+        Set<Long> replaced = new HashSet<>();
+        List<PatientPool> sent = new ArrayList<>();
+        for (PatientPool pool : incoming.getPools() == null ? List.<PatientPool>of() : incoming.getPools()) {
+            if (pool.getId() == null) {
+                pools.add(pool); // A new pool cannot conflict with any version
+                sent.add(pool);
+                continue;
+            }
+            Integer index = poolIndexes.get(pool.getId());
+            if (index == null) {
+                conflict.getConflictingPoolIds().add(pool.getId()); // Removed meanwhile
+                continue;
+            }
+            PatientPool before = pools.get(index);
+            if ((changedPoolIds != null && !changedPoolIds.contains(pool.getId())) || sameContent(pool, before)) {
+                continue;
+            }
+            if (pool.getVersion() != before.getVersion() || !currentPatients(pool, patientVersions)) {
+                conflict.getConflictingPoolIds().add(pool.getId());
+                continue;
+            }
+            pools.set(index, pool);
+            replaced.add(pool.getId());
+            sent.add(pool);
+        }
+        // A patient moved concurrently, or moved without its old pool being sent, would end up in two pools
+        Set<Long> seen = new HashSet<>();
+        for (PatientPool pool : pools) {
+            for (Patient patient : pool.getPatients() == null ? List.<Patient>of() : pool.getPatients()) {
+                if (patient.getId() != null && !seen.add(patient.getId())) {
+                    pools.stream()
+                            .filter(other -> replaced.contains(other.getId()) && other.getPatients() != null
+                                    && other.getPatients().stream().anyMatch(p -> patient.getId().equals(p.getId())))
+                            .map(PatientPool::getId)
+                            .filter(id -> !conflict.getConflictingPoolIds().contains(id))
+                            .forEach(conflict.getConflictingPoolIds()::add);
+                }
+            }
+        }
+        // Only the patients sent can take a card. A holder that was sent again is judged by the card it was sent with;
+        // any other holder still in the event keeps its card.
+        Set<Long> sentIds = new HashSet<>();
+        for (PatientPool pool : sent) {
+            for (Patient patient : pool.getPatients() == null ? List.<Patient>of() : pool.getPatients()) {
+                if (patient.getId() != null) {
+                    sentIds.add(patient.getId());
+                }
+            }
+        }
+        Map<String, Patient> sentCards = new HashMap<>();
+        for (PatientPool pool : sent) {
+            for (Patient patient : pool.getPatients() == null ? List.<Patient>of() : pool.getPatients()) {
+                String cardId = patient.getCardId();
+                if (cardId == null) {
+                    continue;
+                }
+                Long holder = patientsByCard.get(cardId);
+                Patient other = sentCards.put(cardId, patient);
+                boolean heldElsewhere = holder != null && !holder.equals(patient.getId())
+                        && seen.contains(holder) && !sentIds.contains(holder);
+                boolean sentTwice = other != null && (patient.getId() == null || !patient.getId().equals(other.getId()));
+                if ((heldElsewhere || sentTwice) && !conflict.getDuplicateCardIds().contains(cardId)) {
+                    conflict.getDuplicateCardIds().add(cardId);
+                }
+            }
+        }
+
+        if (conflict.isEventConflict() || !conflict.getConflictingPoolIds().isEmpty() || !conflict.getDuplicateCardIds().isEmpty()) {
+            return new Result(null, conflict);
+        }
+        merged.setPools(pools);
+        return new Result(merged, null);
+    }
+
+    /**
+     * Checks that every stored patient in a pool sent by a client is at its current version.
+     *
+     * @param pool            The pool sent by the client.
+     * @param patientVersions The current version of every patient of the event, by patient ID.
+     * @return {@code true} if no patient in the pool is outdated or gone.
+     */
+    private static boolean currentPatients(PatientPool pool, Map<Long, Long> patientVersions) {
+        if (pool.getPatients() == null) {
+            return true;
+        }
+        for (Patient patient : pool.getPatients()) {
+            if (patient.getId() != null && !Objects.equals(patientVersions.get(patient.getId()), patient.getVersion())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares two pools and their patients field by field, ignoring versions.
+     *
+     * @param a The first pool.
+     * @param b The second pool.
+     * @return {@code true} if both pools hold the same state.
+     */
+    private static boolean sameContent(PatientPool a, PatientPool b) {
+        if (!Objects.equals(a.getName(), b.getName())
+                || !Objects.equals(a.getProcessTime(), b.getProcessTime())
+                || !Objects.equals(a.getStartedProcessingAt(), b.getStartedProcessingAt())
+                || a.isAutoDischarge() != b.isAutoDischarge()
+                || a.getPoolType() != b.getPoolType()
+                || a.getQueueSize() != b.getQueueSize()
+                || a.getConcurrency() != b.getConcurrency()
+                || !Objects.equals(a.getIcon(), b.getIcon())) {
+            return false;
+        }
+        List<Patient> patientsA = a.getPatients() == null ? List.of() : a.getPatients();
+        List<Patient> patientsB = b.getPatients() == null ? List.of() : b.getPatients();
+        if (patientsA.size() != patientsB.size()) {
+            return false;
+        }
+        // Walked with iterators, since a MedService pool's list is a view of its queue without cheap indexed access
+        Iterator<Patient> iteratorB = patientsB.iterator();
+        for (Patient x : patientsA) {
+            Patient y = iteratorB.next();
+            if (!Objects.equals(x.getId(), y.getId())
+                    || !Objects.equals(x.getCardId(), y.getCardId())
+                    || x.getCondition() != y.getCondition()
+                    || x.isProcessed() != y.isProcessed()
+                    || !Objects.equals(x.getStartedProcessingAt(), y.getStartedProcessingAt())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
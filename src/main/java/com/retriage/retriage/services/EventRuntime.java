@@ -0,0 +1,361 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.PoolType;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The in-memory state of a single event, held by the {@link EventRuntimeService}.
+ * Each event has its own lock, pool deadlines, MedService queues, command queue and clock slot, so running events
+ * never wait on each other. The event graph is only present while the event is running.
+ */
+public class EventRuntime {
+    /**
+     * The number of recent deltas kept for reconnecting clients. At a few deltas per minute this covers
+     * any realistic Wi-Fi drop; longer gaps fall back to the full state.
+     */
+    private static final int DELTA_LOG_CAPACITY = 256;
+    /**
+     * The number of commands that may wait for the event before further ones are rejected.
+     */
+    private static final int COMMAND_QUEUE_CAPACITY = 1024;
+    /**
+     * The ID of the event this runtime belongs to.
+     */
+    private final Long eventId;
+    /**
+     * Guards the event graph and deadlines against concurrent ticks and client updates.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Guards the tick planned by the clock. A lock rather than a monitor, since planning may take or release the
+     * event's lease through JDBC, which would pin a virtual thread to its carrier inside a {@code synchronized} block.
+     */
+    private final ReentrantLock clockLock = new ReentrantLock();
+    /**
+     * Processing deadlines of the event's pools.
+     */
+    private final PoolDeadlineQueue deadlines = new PoolDeadlineQueue();
+    /**
+     * The service queue of each MedService pool of the event, by pool identity.
+     */
+    private final Map<PatientPool, PatientPoolQueue> queues = new IdentityHashMap<>();
+    /**
+     * The pools of the event by ID, so commands find their pool without scanning the event.
+     */
+    private final Map<Long, PatientPool> poolsById = new HashMap<>();
+    /**
+     * The pool holding each patient of the event, by patient ID.
+     */
+    private final Map<Long, PatientPool> poolsByPatient = new HashMap<>();
+    /**
+     * The ID of the patient holding each card in the event's pools, so a reused card is found without scanning the event.
+     */
+    private final Map<String, Long> patientsByCard = new HashMap<>();
+    /**
+     * Tracks what clients have seen of the event, to broadcast deltas instead of the full event.
+     */
+    private final EventDeltaTracker deltas;
+    /**
+     * The most recent deltas broadcast, replayed to clients that reconnect.
+     */
+    private final EventDeltaLog deltaLog = new EventDeltaLog(DELTA_LOG_CAPACITY);
+    /**
+     * The commands waiting to be applied to the event by its single writer.
+     */
+    private final EventCommandQueue commands = new EventCommandQueue(COMMAND_QUEUE_CAPACITY);
+    /**
+     * The in-memory copy of the running event, or {@code null} if the event is not running.
+     */
+    private volatile Event event;
+    /**
+     * Counts the changes to the in-memory event. Incremented every time the graph is replaced,
+     * which happens whenever its state really changes.
+     */
+    private volatile long version;
+    /**
+     * The next tick planned by the clock, or {@code null} while idle. Guarded by the clock lock.
+     */
+    private ScheduledFuture<?> pendingTick;
+    /**
+     * The planned time of the next tick in milliseconds since epoch, or {@code null} while idle.
+     * Guarded by the clock lock.
+     */
+    private Long nextTickAt;
+
+    /**
+     * Constructs an empty runtime for the given event.
+     *
+     * @param eventId The ID of the event.
+     */
+    public EventRuntime(Long eventId) {
+        this.eventId = eventId;
+        this.deltas = new EventDeltaTracker(eventId);
+    }
+
+    /**
+     * Gets the ID of the event this runtime belongs to.
+     *
+     * @return The event ID.
+     */
+    public Long getEventId() {
+        return eventId;
+    }
+
+    /**
+     * Gets the lock guarding this runtime's state.
+     *
+     * @return The runtime's lock.
+     */
+    public ReentrantLock getLock() {
+        return lock;
+    }
+
+    /**
+     * Gets the lock guarding the tick planned by the clock.
+     *
+     * @return The runtime's clock lock.
+     */
+    public ReentrantLock getClockLock() {
+        return clockLock;
+    }
+
+    /**
+     * Gets the processing deadlines of the event's pools. Only use while holding the lock.
+     *
+     * @return The runtime's {@link PoolDeadlineQueue}.
+     */
+    public PoolDeadlineQueue getDeadlines() {
+        return deadlines;
+    }
+
+    /**
+     * Gets the delta tracker of the event. Only use while holding the lock.
+     *
+     * @return The runtime's {@link EventDeltaTracker}.
+     */
+    public EventDeltaTracker getDeltas() {
+        return deltas;
+    }
+
+    /**
+     * Gets the log of recent deltas of the event. Only use while holding the lock.
+     *
+     * @return The runtime's {@link EventDeltaLog}.
+     */
+    public EventDeltaLog getDeltaLog() {
+        return deltaLog;
+    }
+
+    /**
+     * Gets the commands waiting to be applied to the event. Safe to use without the lock.
+     *
+     * @return The runtime's {@link EventCommandQueue}.
+     */
+    public EventCommandQueue getCommands() {
+        return commands;
+    }
+
+    /**
+     * Gets the in-memory copy of the event.
+     *
+     * @return The running event, or {@code null} if it is not running.
+     */
+    public Event getEvent() {
+        return event;
+    }
+
+    /**
+     * Gets the service queue of a MedService pool of the event. Only use while holding the lock.
+     *
+     * @param pool The pool, as held by the in-memory event.
+     * @return The pool's {@link PatientPoolQueue}, or {@code null} if it is not a MedService pool of the event.
+     */
+    public PatientPoolQueue getQueue(PatientPool pool) {
+        return queues.get(pool);
+    }
+
+    /**
+     * Replaces the in-memory copy of the event, rebuilds the service queues of its MedService pools,
+     * hands free servers to waiting patients, and rebuilds its pool deadlines.
+     * A patient only keeps its processing timer if it was already in service in the same pool,
+     * so moving a patient between pools never carries a timer along. Only use while holding the lock.
+     *
+     * @param event The running event, or {@code null} to clear the runtime.
+     * @param now   The current time in milliseconds since epoch.
+     */
+    public void setEvent(Event event, long now) {
+        Map<Long, Set<Long>> inServiceBefore = this.event == null ? null : inServiceByPool();
+        this.event = event;
+        this.version++;
+        queues.clear();
+        poolsById.clear();
+        poolsByPatient.clear();
+        patientsByCard.clear();
+        if (event != null && event.getPools() != null) {
+            for (PatientPool pool : event.getPools()) {
+                poolsById.put(pool.getId(), pool);
+                if (pool.getPatients() != null) {
+                    for (Patient patient : pool.getPatients()) {
+                        poolsByPatient.put(patient.getId(), pool);
+                        if (patient.getCardId() != null) {
+                            patientsByCard.put(patient.getCardId(), patient.getId());
+                        }
+                    }
+                }
+                if (pool.getPoolType() != PoolType.MedService) {
+                    if (pool.getPatients() != null) {
+                        pool.getPatients().forEach(patient -> patient.setStartedProcessingAt(null));
+                    }
+                    continue;
+                }
+                Set<Long> before = inServiceBefore == null ? null : inServiceBefore.getOrDefault(pool.getId(), Set.of());
+                PatientPoolQueue queue = new PatientPoolQueue(pool, before);
+                queue.dispatch(now);
+                queues.put(pool, queue);
+            }
+        }
+        deadlines.rebuild(event == null ? null : event.getPools());
+    }
+
+    /**
+     * Gets a pool of the event by its ID. Only use while holding the lock.
+     *
+     * @param poolId The ID of the pool.
+     * @return The pool, as held by the in-memory event, or {@code null} if the event has no such pool.
+     */
+    public PatientPool getPool(Long poolId) {
+        return poolsById.get(poolId);
+    }
+
+    /**
+     * Gets the pool currently holding a patient. Only use while holding the lock.
+     *
+     * @param patientId The ID of the patient.
+     * @return The pool holding the patient, or {@code null} if no pool of the event holds it.
+     */
+    public PatientPool getPoolOf(Long patientId) {
+        return poolsByPatient.get(patientId);
+    }
+
+    /**
+     * Gets the patient holding a card in one of the event's pools. Only use while holding the lock.
+     *
+     * @param cardId The card ID.
+     * @return The ID of the patient holding the card, or {@code null} if no patient of the event holds it.
+     */
+    public Long getPatientByCard(String cardId) {
+        return patientsByCard.get(cardId);
+    }
+
+    /**
+     * Gets the patient holding each card in the event's pools. Only use while holding the lock.
+     *
+     * @return A read-only view of the card index, by card ID.
+     */
+    public Map<String, Long> getPatientsByCard() {
+        return Collections.unmodifiableMap(patientsByCard);
+    }
+
+    /**
+     * Records that a patient now sits in a pool, or in none, after a command changed the event in place,
+     * and counts the change like a replaced graph. A discharged patient frees its card. Only use while holding the lock.
+     *
+     * @param patient The patient.
+     * @param pool    The pool now holding the patient, or {@code null} if it was discharged.
+     */
+    public void placePatient(Patient patient, PatientPool pool) {
+        if (pool == null) {
+            poolsByPatient.remove(patient.getId());
+            patientsByCard.remove(patient.getCardId(), patient.getId());
+        } else {
+            poolsByPatient.put(patient.getId(), pool);
+            if (patient.getCardId() != null) {
+                patientsByCard.put(patient.getCardId(), patient.getId());
+            }
+        }
+        version++;
+    }
+
+    /**
+     * Collects the IDs of the patients in service in each MedService pool of the current event.
+     *
+     * @return The IDs of the patients in service, by pool ID.
+     */
+    private Map<Long, Set<Long>> inServiceByPool() {
+        Map<Long, Set<Long>> inService = new HashMap<>();
+        for (Map.Entry<PatientPool, PatientPoolQueue> entry : queues.entrySet()) {
+            Set<Long> ids = new HashSet<>();
+            for (Patient patient : entry.getValue().getInService()) {
+                ids.add(patient.getId());
+            }
+            inService.put(entry.getKey().getId(), ids);
+        }
+        return inService;
+    }
+
+    /**
+     * Gets the number of changes made to the in-memory event.
+     *
+     * @return The runtime's version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Continues the version count from a restored snapshot, so versions never go backwards across restarts.
+     * Only use while holding the lock.
+     *
+     * @param version The version recorded in the snapshot.
+     */
+    public void restoreVersion(long version) {
+        this.version = Math.max(this.version, version);
+    }
+
+    /**
+     * Gets the next tick planned by the clock. Only use while holding the clock lock.
+     *
+     * @return The pending tick, or {@code null} while idle.
+     */
+    public ScheduledFuture<?> getPendingTick() {
+        return pendingTick;
+    }
+
+    /**
+     * Sets the next tick planned by the clock. Only use while holding the clock lock.
+     *
+     * @param pendingTick The pending tick, or {@code null} while idle.
+     */
+    public void setPendingTick(ScheduledFuture<?> pendingTick) {
+        this.pendingTick = pendingTick;
+    }
+
+    /**
+     * Gets the planned time of the next tick. Only use while holding the clock lock.
+     *
+     * @return The next tick time in milliseconds since epoch, or {@code null} while idle.
+     */
+    public Long getNextTickAt() {
+        return nextTickAt;
+    }
+
+    /**
+     * Sets the planned time of the next tick. Only use while holding the clock lock.
+     *
+     * @param nextTickAt The next tick time in milliseconds since epoch, or {@code null} while idle.
+     */
+    public void setNextTickAt(Long nextTickAt) {
+        this.nextTickAt = nextTickAt;
+    }
+}
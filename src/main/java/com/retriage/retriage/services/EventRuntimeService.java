@@ -0,0 +1,171 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.PatientPool;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Service interface defining the contract for the in-memory runtime of running {@link Event}s.
+ * The runtime is the authoritative copy of each running event while it is active: the clock and
+ * pool timers advance against it without reading from the database, and it is only written back
+ * when a real state change happens. The database is only read cold when an event starts or resumes.
+ * Any number of events may run at once; every lookup is keyed by event ID.
+ */
+public interface EventRuntimeService {
+
+    /**
+     * Returns the in-memory copy of a running event without touching the database.
+     *
+     * @param eventId The ID of the event.
+     * @return The running {@link Event}, or {@code null} if that event is not running.
+     */
+    Event getEvent(Long eventId);
+
+    /**
+     * Returns the in-memory copies of all running events.
+     *
+     * @return A {@link List} of running events. Returns an empty list if none are running.
+     */
+    List<Event> getRunningEvents();
+
+    /**
+     * Returns the active event, the running event most recently started or resumed, for clients that only follow
+     * a single event.
+     *
+     * @return The active {@link Event}, or {@code null} if none is running.
+     */
+    Event getActiveEvent();
+
+    /**
+     * Performs a cold read of an event from the database and makes it the in-memory copy if it is running.
+     * Intended for an event being started or resumed.
+     *
+     * @param eventId The ID of the event to load.
+     * @return The running {@link Event} loaded from the database, or {@code null} if it is not running.
+     */
+    Event loadEvent(Long eventId);
+
+    /**
+     * Performs a cold read of every running event from the database. Intended for application startup.
+     *
+     * @return A {@link List} of the running events now held in memory.
+     */
+    List<Event> loadRunningEvents();
+
+    /**
+     * Replaces the in-memory copy of an event with a graph that has just been saved by the caller.
+     * If the given event is not running, its runtime is cleared instead.
+     *
+     * @param event The freshly saved {@link Event}.
+     * @return The event now held by the runtime, or {@code null} if the runtime was cleared.
+     */
+    Event adoptEvent(Event event);
+
+    /**
+     * Writes the in-memory copy of a running event to the database.
+     * Should only be called when the state has really changed.
+     *
+     * @param eventId The ID of the event to persist.
+     * @return The event now held by the runtime, or {@code null} if nothing was persisted.
+     * @throws IllegalStateException If the event was rejected by validation. A version conflict surfaces as the
+     *                               persistence exception itself. Either way the in-memory copy is left as it was,
+     *                               so the caller must reload it.
+     */
+    Event persistEvent(Long eventId);
+
+    /**
+     * Reloads a running event from the database if its stored version moved past the in-memory copy, which
+     * happens when a node that does not hold the event's lease applied a command to it. Reads only the version
+     * when nothing changed.
+     *
+     * @param eventId The ID of the event.
+     * @return The previous in-memory copy if the event was reloaded, or {@code null} if it was unchanged or is not
+     * running here.
+     */
+    Event reloadIfChanged(Long eventId);
+
+    /**
+     * Increments the stored version of an event, and of its in-memory copy if there is one, without changing
+     * anything else, so the node holding the event's lease sees that it was changed. Joins the caller's transaction.
+     *
+     * @param eventId The ID of the event.
+     */
+    void touchEvent(Long eventId);
+
+    /**
+     * Reconciles the in-memory copy of an event restored from a snapshot with the database, which is authoritative:
+     * pools and patients are taken from the database, and only the restored timers, shifted over the downtime, are
+     * kept and written back for rows that have not changed since the snapshot. An event that stopped running in the
+     * database is dropped from the runtime.
+     *
+     * @param eventId The ID of the restored event.
+     * @return The event now held by the runtime, or {@code null} if it is no longer running.
+     */
+    Event reconcileEvent(Long eventId);
+
+    /**
+     * Runs the given action while holding the event's lock, so that ticks and client updates
+     * never interleave on the same in-memory state. Other events are not blocked.
+     *
+     * @param eventId The ID of the event.
+     * @param action  The action to run, receiving the running event (may be {@code null}).
+     * @param <T>     The result type of the action.
+     * @return The result of the action.
+     */
+    <T> T withEvent(Long eventId, Function<Event, T> action);
+
+    /**
+     * Removes and returns the pools of a running event whose processing deadline has passed.
+     * Only pools with a pending completion are considered, so the cost does not grow with idle pools.
+     *
+     * @param eventId The ID of the event.
+     * @param now     The current time in milliseconds since epoch.
+     * @return The due pools in deadline order. Returns an empty list if none are due.
+     */
+    List<PatientPool> pollDuePools(Long eventId, long now);
+
+    /**
+     * Recomputes the processing deadline of a pool after its patients or timer changed in memory.
+     *
+     * @param eventId The ID of the event the pool belongs to.
+     * @param pool    The pool to reschedule.
+     */
+    void reschedulePool(Long eventId, PatientPool pool);
+
+    /**
+     * Returns the earliest pending processing deadline of a running event's pools.
+     *
+     * @param eventId The ID of the event.
+     * @return The earliest deadline in milliseconds since epoch, or {@code null} if nothing is pending.
+     */
+    Long nextDeadline(Long eventId);
+
+    /**
+     * Returns the runtime slot of an event held by this node. Slots only exist for running events, for a stopped
+     * event until its final delta was broadcast, and for an existing event while commands for it are applied.
+     * Used by the clock to keep per-event tick state next to the event.
+     *
+     * @param eventId The ID of the event.
+     * @return The event's {@link EventRuntime}, or {@code null} if this node holds no slot for it.
+     */
+    EventRuntime getRuntime(Long eventId);
+
+    /**
+     * Returns the runtime slot of an event, creating an empty one if the event exists in the database,
+     * so commands such as starting it can be queued. Intended for the command sequencer.
+     *
+     * @param eventId The ID of the event.
+     * @return The event's {@link EventRuntime}, or {@code null} if the event does not exist.
+     */
+    EventRuntime openRuntime(Long eventId);
+
+    /**
+     * Removes the runtime slot of an event that is not running and has no commands waiting, so slots do not
+     * outlive the events they were created for.
+     *
+     * @param eventId The ID of the event.
+     */
+    void releaseRuntime(Long eventId);
+}
@@ -0,0 +1,442 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Implementation of the {@link EventRuntimeService} interface.
+ * Holds each running {@link Event} graph in memory, in its own {@link EventRuntime}, so ticks and
+ * broadcasts can work from it instead of reloading the whole Event, PatientPool and Patient graph from MySQL.
+ */
+@Service
+public class EventRuntimeServiceImp implements EventRuntimeService {
+    /**
+     * Logger for this service implementation.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(EventRuntimeServiceImp.class);
+    /**
+     * Service for managing event business logic and data access.
+     */
+    private final EventService eventService;
+    /**
+     * Source of the current event time, used when patients are handed a free server.
+     */
+    private final EventClock eventClock;
+    /**
+     * Registry of the active event, moved when an event starts or stops running.
+     */
+    private final ActiveEventService activeEventService;
+    /**
+     * Runtime slots by event ID. Slots are only created for events that are loaded or have commands applied, and
+     * removed once their event no longer runs; only slots holding an event graph count as running.
+     */
+    private final Map<Long, EventRuntime> runtimes = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an instance of {@code EventRuntimeServiceImp}.
+     *
+     * @param eventService       The {@link EventService} used for cold reads and persisting state changes.
+     * @param eventClock         The {@link EventClock} used to stamp patients that start processing.
+     * @param activeEventService The {@link ActiveEventService} told when an event starts or stops running.
+     */
+    public EventRuntimeServiceImp(EventService eventService, EventClock eventClock, ActiveEventService activeEventService) {
+        this.eventService = eventService;
+        this.eventClock = eventClock;
+        this.activeEventService = activeEventService;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Event getEvent(Long eventId) {
+        EventRuntime runtime = eventId == null ? null : runtimes.get(eventId);
+        return runtime == null ? null : runtime.getEvent();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Event> getRunningEvents() {
+        List<Event> events = new ArrayList<>();
+        for (EventRuntime runtime : runtimes.values()) {
+            Event event = runtime.getEvent();
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * {@inheritDoc}
+     * A constant-time read of the pointer kept by the {@link ActiveEventService}; the running events are not scanned.
+     */
+    @Override
+    public Event getActiveEvent() {
+        return getEvent(activeEventService.getActiveEventId());
+    }
+
+    /**
+     * {@inheritDoc}
+     * The pools and patients are initialized inside the transaction so the graph can be used
+     * after it has been detached.
+     */
+    @Override
+    @Transactional
+    public Event loadEvent(Long eventId) {
+        return withRuntime(eventId, current -> {
+            Event event = eventService.findEventById(eventId);
+            logger.info("loadEvent - Cold read of event {}.", eventId);
+            return store(eventId, event);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public List<Event> loadRunningEvents() {
+        List<Event> loaded = new ArrayList<>();
+        for (Event event : eventService.findRunningEvents()) {
+            Event stored = withRuntime(event.getId(), current -> store(event.getId(), event));
+            if (stored != null) {
+                loaded.add(stored);
+            }
+        }
+        logger.info("loadRunningEvents - Cold read of {} running event(s).", loaded.size());
+        return loaded;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Event adoptEvent(Event event) {
+        if (event == null || event.getId() == null) {
+            return null;
+        }
+        return withRuntime(event.getId(), current -> store(event.getId(), event));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public Event persistEvent(Long eventId) {
+        return withEvent(eventId, current -> {
+            if (current == null) {
+                return null;
+            }
+            Event saved = eventService.updateEvent(eventId, current);
+            if (saved == null) {
+                logger.warn("persistEvent - Failed to persist running event {}.", eventId);
+                throw new IllegalStateException("Running event " + eventId + " could not be persisted.");
+            }
+            return store(eventId, saved);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * Only the version is read unless it changed.
+     */
+    @Override
+    @Transactional
+    public Event reloadIfChanged(Long eventId) {
+        return withEvent(eventId, current -> {
+            if (current == null) {
+                return null;
+            }
+            Long stored = eventService.findEventVersion(eventId);
+            if (stored != null && stored == current.getVersion()) {
+                return null;
+            }
+            logger.info("reloadIfChanged - Event {} was changed by another node, reloading it.", eventId);
+            store(eventId, eventService.findEventById(eventId));
+            return current;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void touchEvent(Long eventId) {
+        withEvent(eventId, current -> {
+            eventService.incrementEventVersion(eventId);
+            if (current != null) {
+                current.setVersion(current.getVersion() + 1);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * The event is read again inside this transaction and becomes the in-memory copy. A timer is only taken from
+     * the restored copy when the row it belongs to is still at the version the restored copy was based on.
+     */
+    @Override
+    @Transactional
+    public Event reconcileEvent(Long eventId) {
+        return withRuntime(eventId, restored -> {
+            Event stored = eventService.findEventById(eventId);
+            if (restored == null || stored == null || stored.getStatus() != Status.Running) {
+                logger.info("reconcileEvent - Event {} is no longer running in the database, dropping it.", eventId);
+                return store(eventId, stored);
+            }
+            boolean shifted = takeRestoredTimers(restored, stored);
+            if (shifted) {
+                Event saved = eventService.updateEvent(eventId, stored);
+                if (saved == null) {
+                    throw new IllegalStateException("Restored timers of event " + eventId + " could not be persisted.");
+                }
+                stored = saved;
+            }
+            // The stored timers are authoritative, so they are not checked against the restored servers
+            getRuntime(eventId).setEvent(null, eventClock.now());
+            logger.info("reconcileEvent - Event {} reconciled with the database, restored timers {}.", eventId, shifted ? "kept" : "dropped");
+            return store(eventId, stored);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * An event without a runtime slot is not running, so the action is given {@code null} without taking a lock.
+     */
+    @Override
+    public <T> T withEvent(Long eventId, Function<Event, T> action) {
+        EventRuntime runtime = lock(eventId, false);
+        if (runtime == null) {
+            return action.apply(null);
+        }
+        try {
+            return action.apply(runtime.getEvent());
+        } finally {
+            runtime.getLock().unlock();
+        }
+    }
+
+    /**
+     * Runs the given action while holding the event's lock, creating its runtime slot first if needed.
+     * Only for actions that store the event; a slot left without a running event is removed by {@link #store}.
+     *
+     * @param eventId The ID of the event.
+     * @param action  The action, given the current in-memory copy or {@code null}.
+     * @param <T>     The type of the action's result.
+     * @return The action's result.
+     */
+    private <T> T withRuntime(Long eventId, Function<Event, T> action) {
+        EventRuntime runtime = lock(eventId, true);
+        try {
+            return action.apply(runtime.getEvent());
+        } finally {
+            runtime.getLock().unlock();
+        }
+    }
+
+    /**
+     * Takes the lock of an event's runtime slot. A thread that waited on a slot which was removed meanwhile
+     * moves on to the slot that replaced it, so two threads never hold different locks for the same event.
+     *
+     * @param eventId The ID of the event.
+     * @param create  Whether to create the slot if there is none.
+     * @return The locked runtime, or {@code null} if there is no slot and none was created.
+     */
+    private EventRuntime lock(Long eventId, boolean create) {
+        while (true) {
+            EventRuntime runtime = create ? runtimes.computeIfAbsent(eventId, EventRuntime::new) : getRuntime(eventId);
+            if (runtime == null) {
+                return null;
+            }
+            runtime.getLock().lock();
+            if (runtimes.get(eventId) == runtime) {
+                return runtime;
+            }
+            runtime.getLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<PatientPool> pollDuePools(Long eventId, long now) {
+        return withEvent(eventId, current -> current == null ? List.of() : getRuntime(eventId).getDeadlines().pollDue(now));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reschedulePool(Long eventId, PatientPool pool) {
+        withEvent(eventId, current -> {
+            if (current != null) {
+                getRuntime(eventId).getDeadlines().reschedule(pool);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Long nextDeadline(Long eventId) {
+        return withEvent(eventId, current -> current == null ? null : getRuntime(eventId).getDeadlines().nextDeadline());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EventRuntime getRuntime(Long eventId) {
+        return eventId == null ? null : runtimes.get(eventId);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Only events without a slot are looked up in the database.
+     */
+    @Override
+    public EventRuntime openRuntime(Long eventId) {
+        EventRuntime runtime = getRuntime(eventId);
+        if (runtime != null || !eventService.existsEventById(eventId)) {
+            return runtime;
+        }
+        return runtimes.computeIfAbsent(eventId, EventRuntime::new);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void releaseRuntime(Long eventId) {
+        EventRuntime runtime = lock(eventId, false);
+        if (runtime == null) {
+            return;
+        }
+        try {
+            if (runtime.getEvent() == null && runtime.getCommands().isIdle()) {
+                runtimes.remove(eventId, runtime);
+                logger.debug("releaseRuntime - Removed runtime slot of event {}.", eventId);
+            }
+        } finally {
+            runtime.getLock().unlock();
+        }
+    }
+
+    /**
+     * Stores an event graph in its runtime slot if it is running, or clears the slot otherwise.
+     * Storing a graph rebuilds its MedService queues, so patients waiting for a free server start right away.
+     * An event that starts or stops running here also moves the active event pointer, in the caller's transaction.
+     * A slot that stops holding a running event is kept until its final delta is broadcast; one that never held
+     * one is removed right away. Must be called while holding the event's lock.
+     *
+     * @param eventId The ID of the event.
+     * @param event   The event graph, or {@code null} if it no longer exists.
+     * @return The event now held by the runtime, or {@code null} if the slot was cleared.
+     */
+    private Event store(Long eventId, Event event) {
+        EventRuntime runtime = getRuntime(eventId);
+        boolean wasRunning = runtime.getEvent() != null;
+        if (event == null || event.getStatus() != Status.Running) {
+            if (wasRunning) {
+                logger.debug("store - Event {} is no longer running, clearing runtime.", eventId);
+                // Clients are told the event stopped by the next broadcast
+                runtime.getDeltas().stopped(event);
+                activeEventService.stopped(eventId);
+            }
+            runtime.setEvent(null, eventClock.now());
+            if (!wasRunning && runtime.getCommands().isIdle()) {
+                runtimes.remove(eventId, runtime);
+            }
+            return null;
+        }
+        runtime.setEvent(initializeGraph(event), eventClock.now());
+        if (!wasRunning) {
+            activeEventService.started(event);
+        }
+        return event;
+    }
+
+    /**
+     * Copies the timers of a restored event onto the stored event, for the event, pools and patients whose stored
+     * row has not changed since the snapshot. Rows that changed keep their stored timers.
+     *
+     * @param restored The event restored from a snapshot, with its timers shifted by the downtime.
+     * @param stored   The event as stored in the database. Modified in place.
+     * @return {@code true} if any timer was taken from the restored event.
+     */
+    private static boolean takeRestoredTimers(Event restored, Event stored) {
+        boolean taken = false;
+        if (restored.getVersion() == stored.getVersion() && restored.getStatus() == stored.getStatus()) {
+            taken = !Objects.equals(stored.getTimeOfStatusChange(), restored.getTimeOfStatusChange())
+                    || !Objects.equals(stored.getStartTime(), restored.getStartTime());
+            stored.setStartTime(restored.getStartTime());
+            stored.setRemainingDuration(restored.getRemainingDuration());
+            stored.setTimeOfStatusChange(restored.getTimeOfStatusChange());
+        }
+        Map<Long, PatientPool> restoredPools = new HashMap<>();
+        Map<Long, Patient> restoredPatients = new HashMap<>();
+        for (PatientPool pool : restored.getPools() == null ? List.<PatientPool>of() : restored.getPools()) {
+            restoredPools.put(pool.getId(), pool);
+            if (pool.getPatients() != null) {
+                pool.getPatients().forEach(patient -> restoredPatients.put(patient.getId(), patient));
+            }
+        }
+        for (PatientPool pool : stored.getPools() == null ? List.<PatientPool>of() : stored.getPools()) {
+            PatientPool before = restoredPools.get(pool.getId());
+            if (before != null && before.getVersion() == pool.getVersion()
+                    && !Objects.equals(before.getStartedProcessingAt(), pool.getStartedProcessingAt())) {
+                pool.setStartedProcessingAt(before.getStartedProcessingAt());
+                taken = true;
+            }
+            for (Patient patient : pool.getPatients() == null ? List.<Patient>of() : pool.getPatients()) {
+                Patient previous = restoredPatients.get(patient.getId());
+                if (previous != null && previous.getVersion() == patient.getVersion()
+                        && !Objects.equals(previous.getStartedProcessingAt(), patient.getStartedProcessingAt())) {
+                    patient.setStartedProcessingAt(previous.getStartedProcessingAt());
+                    taken = true;
+                }
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Touches the lazy pool and patient collections so they are loaded before the entity is detached.
+     *
+     * @param event The event whose graph should be initialized. May be {@code null}.
+     * @return The same event, for chaining.
+     */
+    private Event initializeGraph(Event event) {
+        if (event != null && event.getPools() != null) {
+            for (PatientPool pool : event.getPools()) {
+                if (pool.getPatients() != null) {
+                    pool.getPatients().size();
+                }
+            }
+        }
+        return event;
+    }
+}
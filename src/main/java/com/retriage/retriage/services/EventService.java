@@ -1,6 +1,9 @@
 package com.retriage.retriage.services;
 
+import com.retriage.retriage.enums.Status;
 import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.EventSummary;
+import com.retriage.retriage.models.EventSummaryPage;
 
 import java.util.List;
 
@@ -27,6 +30,29 @@ public interface EventService {
      */
     Event findEventById(Long id);
 
+    /**
+     * Checks whether an {@link Event} exists, without loading it.
+     *
+     * @param id The unique ID of the event.
+     * @return {@code true} if the event exists.
+     */
+    boolean existsEventById(Long id);
+
+    /**
+     * Finds the stored version of an {@link Event}, without loading it.
+     *
+     * @param id The unique ID of the event.
+     * @return The version, or {@code null} if the event does not exist.
+     */
+    Long findEventVersion(Long id);
+
+    /**
+     * Increments the stored version of an {@link Event} without changing it otherwise.
+     *
+     * @param id The unique ID of the event.
+     */
+    void incrementEventVersion(Long id);
+
     /**
      * Updates an existing {@link Event} entity with new data.
      *
@@ -43,6 +69,19 @@ public interface EventService {
      */
     List<Event> findAllEvents();
 
+    /**
+     * Retrieves one page of {@link EventSummary} objects, newest event first, optionally filtered by status and by
+     * start time. Pools and patients are counted, not loaded.
+     *
+     * @param status Only events with this {@link Status}, or {@code null} for any status.
+     * @param from   Only events starting at or after this time in milliseconds since epoch, or {@code null}.
+     * @param to     Only events starting before this time in milliseconds since epoch, or {@code null}.
+     * @param after  The cursor returned with the previous page, or {@code null} for the first page.
+     * @param limit  The largest number of summaries to return; clamped to the implementation's maximum.
+     * @return The {@link EventSummaryPage}, with the cursor of the next page if there is one.
+     */
+    EventSummaryPage findEventSummaries(Status status, Long from, Long to, Long after, int limit);
+
     /**
      * Deletes an {@link Event} entity by its unique identifier.
      *
@@ -58,6 +97,13 @@ public interface EventService {
      */
     Event findActiveEvent();
 
+    /**
+     * Finds every {@link Event} that is currently running. Several events may run at the same time.
+     *
+     * @return A {@link List} of running {@link Event} entities. Returns an empty list if none are running.
+     */
+    List<Event> findRunningEvents();
+
     /**
      * Resets the state of a given {@link Event} entity.
      * This typically involves setting its status back to {@code Created} and potentially clearing related progress data.
@@ -2,11 +2,14 @@ package com.retriage.retriage.services;
 
 import com.retriage.retriage.enums.Status;
 import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.EventSummary;
+import com.retriage.retriage.models.EventSummaryPage;
 import com.retriage.retriage.models.PatientPool;
 import com.retriage.retriage.repositories.EventRepo;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -25,18 +28,34 @@ public class EventServiceImp implements EventService {
      * Logger for this service implementation.
      */
     private static final Logger logger = LoggerFactory.getLogger(EventServiceImp.class);
+    /**
+     * The largest number of event summaries returned in one page.
+     */
+    static final int MAX_SUMMARY_PAGE_SIZE = 200;
     /**
      * Repository for accessing and managing Event entities in the database.
      */
     private final EventRepo eventRepository;
+    /**
+     * Source of the current event time.
+     */
+    private final EventClock eventClock;
+    /**
+     * Registry of the active event.
+     */
+    private final ActiveEventService activeEventService;
 
     /**
      * Constructs an instance of {@code EventServiceImp}.
      *
-     * @param eventRepository The {@link EventRepo} used for database operations on events.
+     * @param eventRepository    The {@link EventRepo} used for database operations on events.
+     * @param eventClock         The {@link EventClock} used to stamp reset events.
+     * @param activeEventService The {@link ActiveEventService} pointing to the active event.
      */
-    public EventServiceImp(EventRepo eventRepository) {
+    public EventServiceImp(EventRepo eventRepository, EventClock eventClock, ActiveEventService activeEventService) {
         this.eventRepository = eventRepository;
+        this.eventClock = eventClock;
+        this.activeEventService = activeEventService;
     }
 
     /**
@@ -84,6 +103,39 @@ public class EventServiceImp implements EventService {
 
     }
 
+    /**
+     * Checks whether an event exists by its ID, without loading its pools.
+     *
+     * @param id The ID of the event.
+     * @return {@code true} if the event exists.
+     */
+    @Override
+    public boolean existsEventById(Long id) {
+        return id != null && eventRepository.existsById(id);
+    }
+
+    /**
+     * Finds the version of an event by its ID in one narrow query.
+     *
+     * @param id The ID of the event.
+     * @return The version, or {@code null} if the event does not exist.
+     */
+    @Override
+    public Long findEventVersion(Long id) {
+        return eventRepository.findVersionById(id);
+    }
+
+    /**
+     * Increments the version of an event in one statement.
+     *
+     * @param id The ID of the event.
+     */
+    @Override
+    @Transactional
+    public void incrementEventVersion(Long id) {
+        eventRepository.incrementVersion(id);
+    }
+
     /**
      * Updates an existing event with new data.
      * Performs validation before updating.
@@ -128,6 +180,23 @@ public class EventServiceImp implements EventService {
         return events;
     }
 
+    /**
+     * {@inheritDoc}
+     * One more summary than asked for is read, so the cursor is only returned when another page really exists.
+     */
+    @Override
+    public EventSummaryPage findEventSummaries(Status status, Long from, Long to, Long after, int limit) {
+        int size = Math.clamp(limit, 1, MAX_SUMMARY_PAGE_SIZE);
+        List<EventSummary> summaries = eventRepository.findSummaries(status, from, to, after, PageRequest.of(0, size + 1));
+        Long nextCursor = null;
+        if (summaries.size() > size) {
+            summaries = summaries.subList(0, size);
+            nextCursor = summaries.getLast().getId();
+        }
+        logger.debug("findEventSummaries - Retrieved {} event summaries after {}.", summaries.size(), after);
+        return new EventSummaryPage(new ArrayList<>(summaries), nextCursor);
+    }
+
     /**
      * Deletes an event by its unique ID.
      * Checks if the event exists before attempting deletion.
@@ -138,6 +207,7 @@ public class EventServiceImp implements EventService {
     public void deleteEventById(Long id) {
         if (eventRepository.existsById(id)) {
             eventRepository.deleteById(id);
+            activeEventService.stopped(id);
             logger.info("deleteEventById - Event deleted successfully with ID: {}", id);
         } else {
             logger.warn("deleteEventById - Event with id {} does not exist.", id);
@@ -146,27 +216,34 @@ public class EventServiceImp implements EventService {
 
     /**
      * Finds the currently active (Running) event.
-     * If multiple events are found with Status.Running, logs an error and returns null.
+     * Several events may run at the same time; the active one is the most recently started, as kept by the
+     * {@link ActiveEventService}, so it is read by ID instead of by scanning the running events.
      *
-     * @return The active {@link Event} entity if exactly one is found with {@link Status#Running}, otherwise {@code null}.
+     * @return The active {@link Event}, or {@code null} if none is running.
      */
     @Override
     @Transactional
     // Ensures the operation is atomic, potentially needed if status check and retrieval need to be consistent
     public Event findActiveEvent() {
-        List<Event> events = eventRepository.findByStatus(Status.Running);
-        Event returnEvent;
-        if (events.isEmpty()) {
+        Long activeEventId = activeEventService.getActiveEventId();
+        if (activeEventId == null) {
             logger.debug("getActiveEvent: Checked for active events, none found.");
-            returnEvent = null;
-        } else if (events.size() > 1) {
-            logger.error("getActiveEvent: More than one running event found!");
-            returnEvent = null;
-        } else {
-            returnEvent = events.getFirst();
-
+            return null;
         }
-        return returnEvent;
+        return findEventById(activeEventId);
+    }
+
+    /**
+     * Finds every event with {@link Status#Running}.
+     *
+     * @return A list of running events. Returns an empty list if none are running.
+     */
+    @Override
+    @Transactional
+    public List<Event> findRunningEvents() {
+        List<Event> events = eventRepository.findByStatus(Status.Running);
+        logger.debug("findRunningEvents - Found {} running event(s).", events.size());
+        return events;
     }
 
     /**
@@ -184,7 +261,7 @@ public class EventServiceImp implements EventService {
             pool.setPatients(new ArrayList<>());
         }
         // Reset timing attributes
-        event.setStartTime(System.currentTimeMillis());
+        event.setStartTime(eventClock.now());
         event.setRemainingDuration(event.getDuration());
         // Optionally set status back to Created if needed, depending on desired reset state
         // event.setStatus(Status.Created);
@@ -193,7 +270,7 @@ public class EventServiceImp implements EventService {
 
     /**
      * Validates an Event object before saving or updating.
-     * Checks for null/empty name, null/empty pool list, and null status.
+     * Checks for null/empty name, null/empty pool list, null status, and pools holding more patients than their queue size.
      *
      * @param event The Event object to validate.
      * @throws IllegalArgumentException if the event is invalid (e.g., null/empty fields).
@@ -215,5 +292,11 @@ public class EventServiceImp implements EventService {
             logger.warn("validateEvent - Status is null.");
             throw new IllegalArgumentException("Status cannot be null.");
         }
+        for (PatientPool pool : event.getPools()) {
+            if (!PatientPoolQueue.hasRoom(pool) && pool.getPatients().size() > pool.getQueueSize()) {
+                logger.warn("validateEvent - Pool {} holds {} patients, more than its queue size of {}.", pool.getName(), pool.getPatients().size(), pool.getQueueSize());
+                throw new IllegalArgumentException("Pool " + pool.getName() + " is full.");
+            }
+        }
     }
 }
\ No newline at end of file
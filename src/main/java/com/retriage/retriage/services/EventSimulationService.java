@@ -0,0 +1,34 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.forms.SimulationForm;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.SimulationResult;
+
+/**
+ * Service interface defining the contract for headless simulations of an event's pool configuration.
+ * A simulation never touches the running event: it works on a copy of the MedService pools and a
+ * {@link ManualEventClock}, jumping straight from one arrival or pool deadline to the next, so a
+ * multi-hour scenario completes in milliseconds.
+ */
+public interface EventSimulationService {
+
+    /**
+     * Simulates the pool configuration of a stored event.
+     *
+     * @param eventId The ID of the event to simulate.
+     * @param form    The arrival pattern and length of the scenario.
+     * @return The {@link SimulationResult}, or {@code null} if the event does not exist.
+     * @throws IllegalArgumentException if the event has no MedService pools or the condition mix is invalid.
+     */
+    SimulationResult simulate(Long eventId, SimulationForm form);
+
+    /**
+     * Simulates the pool configuration of the given event. The event itself is not modified.
+     *
+     * @param event The event to simulate.
+     * @param form  The arrival pattern and length of the scenario.
+     * @return The {@link SimulationResult}.
+     * @throws IllegalArgumentException if the event has no MedService pools or the condition mix is invalid.
+     */
+    SimulationResult simulate(Event event, SimulationForm form);
+}
@@ -0,0 +1,292 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Condition;
+import com.retriage.retriage.enums.PoolType;
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.forms.SimulationForm;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+import com.retriage.retriage.models.PoolSimulationResult;
+import com.retriage.retriage.models.SimulationResult;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Implementation of the {@link EventSimulationService} interface.
+ * Runs a discrete-event simulation over copies of an event's MedService pools. The copies are held by a detached
+ * {@link EventRuntimeServiceImp} on a {@link ManualEventClock} and completed by the production
+ * {@link EventTimerServiceImp} step, so the results match how live pools behave; the clock jumps straight to the
+ * next pool deadline or arrival. Completed patients leave their pool straight away, as if a nurse discharged them
+ * the moment they were done.
+ */
+@Service
+public class EventSimulationServiceImp implements EventSimulationService {
+    /**
+     * Logger for this service implementation.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(EventSimulationServiceImp.class);
+    /**
+     * The number of milliseconds in an hour.
+     */
+    private static final double HOUR_MS = 3_600_000;
+    /**
+     * The ID the simulated copy of an event runs under in its detached runtime.
+     */
+    private static final long SIMULATED_EVENT_ID = 0L;
+    /**
+     * Service for reading the event to simulate.
+     */
+    private final EventService eventService;
+
+    /**
+     * Constructs an instance of {@code EventSimulationServiceImp}.
+     *
+     * @param eventService The {@link EventService} used to read the event to simulate.
+     */
+    public EventSimulationServiceImp(EventService eventService) {
+        this.eventService = eventService;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The pools are copied inside the transaction, so the simulation itself runs on detached data.
+     */
+    @Override
+    @Transactional
+    public SimulationResult simulate(Long eventId, SimulationForm form) {
+        Event event = eventService.findEventById(eventId);
+        if (event == null) {
+            logger.warn("simulate - Event with id {} not found.", eventId);
+            return null;
+        }
+        return simulate(event, form);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SimulationResult simulate(Event event, SimulationForm form) {
+        if (form.getImmediatePercent() + form.getDelayedPercent() > 100) {
+            throw new IllegalArgumentException("Immediate and Delayed percentages cannot add up to more than 100.");
+        }
+        List<PatientPool> pools = copyMedServicePools(event);
+        if (pools.isEmpty()) {
+            throw new IllegalArgumentException("Event must have at least one Medical Service pool to simulate.");
+        }
+        long wallClockStart = System.nanoTime();
+        long duration = form.getDuration() != null ? form.getDuration() : event.getDuration();
+        Random random = form.getSeed() != null ? new Random(form.getSeed()) : new Random();
+        double meanGap = form.getArrivalsPerHour() > 0 ? HOUR_MS / form.getArrivalsPerHour() : Double.POSITIVE_INFINITY;
+
+        ManualEventClock clock = new ManualEventClock(0);
+        // A detached runtime: no database, no active event pointer, the only lease holder, and nobody listening
+        EventRuntimeServiceImp runtimeService = new EventRuntimeServiceImp(new NoOpEventService(), clock, new NoOpActiveEventService());
+        EventTimerServiceImp timerService = new EventTimerServiceImp(runtimeService,
+                new SimpMessagingTemplate((message, timeout) -> true), clock, new NoOpEventLeaseService());
+        runtimeService.adoptEvent(copyEvent(event, pools, duration));
+        EventRuntime runtime = runtimeService.getRuntime(SIMULATED_EVENT_ID);
+        Map<PatientPool, PoolSimulationResult> poolResults = new IdentityHashMap<>();
+        for (PatientPool pool : pools) {
+            poolResults.put(pool, newPoolResult(pool));
+        }
+        Map<Patient, Long> arrivedAt = new IdentityHashMap<>();
+        Map<Condition, long[]> waitByCondition = new EnumMap<>(Condition.class); // Sum and count per condition
+        List<Long> waits = new ArrayList<>();
+        SimulationResult result = new SimulationResult();
+
+        long nextArrival = nextArrivalAfter(random, meanGap, 0);
+        while (true) {
+            Long deadline = runtimeService.nextDeadline(SIMULATED_EVENT_ID);
+            long next = Math.min(nextArrival, deadline == null ? Long.MAX_VALUE : deadline);
+            if (next > duration) {
+                break;
+            }
+            clock.advanceTo(next);
+            long now = clock.now();
+
+            // Completions first, so a server freed at the same moment as an arrival is already available
+            timerService.completeDuePatients(SIMULATED_EVENT_ID, now).forEach((pool, completed) -> {
+                for (Patient patient : completed) {
+                    long wait = now - pool.getProcessTime() - arrivedAt.remove(patient);
+                    waits.add(wait);
+                    long[] byCondition = waitByCondition.computeIfAbsent(patient.getCondition(), condition -> new long[2]);
+                    byCondition[0] += wait;
+                    byCondition[1]++;
+                }
+                poolResults.get(pool).setCompleted(poolResults.get(pool).getCompleted() + completed.size());
+            });
+
+            if (nextArrival <= now) {
+                result.setArrivals(result.getArrivals() + 1);
+                Patient patient = new Patient();
+                patient.setCardId("SIM-" + result.getArrivals());
+                patient.setCondition(drawCondition(random, form));
+                PatientPool pool = leastBusy(pools);
+                if (pool == null) {
+                    result.setRejected(result.getRejected() + 1);
+                } else {
+                    runtimeService.withEvent(SIMULATED_EVENT_ID, simulated -> runtime.getQueue(pool).admit(patient, now));
+                    runtimeService.reschedulePool(SIMULATED_EVENT_ID, pool);
+                    arrivedAt.put(patient, now);
+                    result.setAdmitted(result.getAdmitted() + 1);
+                }
+                nextArrival = nextArrivalAfter(random, meanGap, now);
+            }
+        }
+
+        for (PatientPool pool : pools) {
+            PatientPoolQueue queue = runtime.getQueue(pool);
+            PoolSimulationResult poolResult = poolResults.get(pool);
+            long busy = poolResult.getCompleted() * pool.getProcessTime();
+            for (Patient patient : queue.getInService()) {
+                busy += Math.min(duration, patient.getStartedProcessingAt() + pool.getProcessTime()) - patient.getStartedProcessingAt();
+            }
+            poolResult.setUtilization(duration > 0 ? (double) busy / ((long) poolResult.getConcurrency() * duration) : 0);
+            result.setWaitingAtEnd(result.getWaitingAtEnd() + queue.getWaitingCount());
+            result.getPools().add(poolResult);
+        }
+        Collections.sort(waits);
+        result.setEventId(event.getId());
+        result.setSimulatedMillis(duration);
+        result.setCompleted(waits.size());
+        result.setThroughputPerHour(duration > 0 ? waits.size() * HOUR_MS / duration : 0);
+        if (!waits.isEmpty()) {
+            result.setAverageWaitMillis(Math.round(waits.stream().mapToLong(Long::longValue).average().orElse(0)));
+            result.setP90WaitMillis(waits.get((int) Math.ceil(waits.size() * 0.9) - 1));
+            result.setMaxWaitMillis(waits.getLast());
+        }
+        waitByCondition.forEach((condition, sum) -> result.getAverageWaitByCondition().put(condition, sum[0] / sum[1]));
+        result.setWallClockMillis((System.nanoTime() - wallClockStart) / 1_000_000);
+        logger.info("simulate - Simulated {} ms of event {} in {} ms: {} arrivals, {} completed, {} rejected.",
+                duration, event.getId(), result.getWallClockMillis(), result.getArrivals(), result.getCompleted(), result.getRejected());
+        return result;
+    }
+
+    /**
+     * Copies the MedService pools of an event with empty patient lists. Copies always auto-discharge.
+     *
+     * @param event The event to copy the pools of.
+     * @return The copied pools. Returns an empty list if the event has no MedService pools.
+     */
+    private List<PatientPool> copyMedServicePools(Event event) {
+        List<PatientPool> copies = new ArrayList<>();
+        if (event.getPools() == null) {
+            return copies;
+        }
+        for (PatientPool pool : event.getPools()) {
+            if (pool.getPoolType() != PoolType.MedService || pool.getProcessTime() == null) {
+                continue;
+            }
+            PatientPool copy = new PatientPool();
+            copy.setId(pool.getId());
+            copy.setName(pool.getName());
+            copy.setPoolType(PoolType.MedService);
+            copy.setProcessTime(pool.getProcessTime());
+            copy.setConcurrency(pool.getConcurrency());
+            copy.setQueueSize(pool.getQueueSize());
+            copy.setAutoDischarge(true);
+            copy.setPatients(new ArrayList<>());
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    /**
+     * Creates the running copy of an event that the simulation drives, holding the copied pools.
+     *
+     * @param event    The event to simulate.
+     * @param pools    The copied MedService pools.
+     * @param duration The length of the scenario in milliseconds.
+     * @return The simulated {@link Event}.
+     */
+    private Event copyEvent(Event event, List<PatientPool> pools, long duration) {
+        Event copy = new Event();
+        copy.setId(SIMULATED_EVENT_ID);
+        copy.setName(event.getName());
+        copy.setStatus(Status.Running);
+        copy.setDuration(duration);
+        copy.setRemainingDuration(duration);
+        copy.setTimeOfStatusChange(0L);
+        copy.setPools(pools);
+        return copy;
+    }
+
+    /**
+     * Creates the empty result of a simulated pool.
+     *
+     * @param pool The simulated pool.
+     * @return A {@link PoolSimulationResult} with no completions yet.
+     */
+    private PoolSimulationResult newPoolResult(PatientPool pool) {
+        PoolSimulationResult poolResult = new PoolSimulationResult();
+        poolResult.setPoolId(pool.getId());
+        poolResult.setName(pool.getName());
+        poolResult.setConcurrency(PatientPoolQueue.concurrencyOf(pool));
+        return poolResult;
+    }
+
+    /**
+     * Picks the pool with the fewest patients per server among the pools that have room.
+     *
+     * @param pools The simulated pools.
+     * @return The least busy pool, or {@code null} if every pool is full.
+     */
+    private PatientPool leastBusy(List<PatientPool> pools) {
+        PatientPool best = null;
+        double bestLoad = Double.MAX_VALUE;
+        for (PatientPool pool : pools) {
+            double load = (double) pool.getPatients().size() / PatientPoolQueue.concurrencyOf(pool);
+            if (PatientPoolQueue.hasRoom(pool) && load < bestLoad) {
+                best = pool;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Draws the condition of an arriving patient from the requested mix.
+     *
+     * @param random The random source of the run.
+     * @param form   The requested condition mix.
+     * @return The patient's {@link Condition}.
+     */
+    private Condition drawCondition(Random random, SimulationForm form) {
+        int roll = random.nextInt(100);
+        if (roll < form.getImmediatePercent()) {
+            return Condition.Immediate;
+        }
+        if (roll < form.getImmediatePercent() + form.getDelayedPercent()) {
+            return Condition.Delayed;
+        }
+        return Condition.Minor;
+    }
+
+    /**
+     * Draws the time of the next arrival, with exponentially distributed gaps.
+     *
+     * @param random  The random source of the run.
+     * @param meanGap The average gap between arrivals in milliseconds; infinite if nobody arrives.
+     * @param now     The current simulated time in milliseconds.
+     * @return The time of the next arrival, or {@link Long#MAX_VALUE} if nobody arrives.
+     */
+    private long nextArrivalAfter(Random random, double meanGap, long now) {
+        if (Double.isInfinite(meanGap)) {
+            return Long.MAX_VALUE;
+        }
+        return now + Math.max(1, Math.round(-meanGap * Math.log(1 - random.nextDouble())));
+    }
+}
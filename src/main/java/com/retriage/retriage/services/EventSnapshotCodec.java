@@ -0,0 +1,265 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Condition;
+import com.retriage.retriage.enums.PoolType;
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of the running events for the {@link EventSnapshotFile}.
+ * Only the state needed to resume is written: the event timers, the pools with their settings and
+ * queues, and every patient with its condition and processing timer, in service order, together with
+ * the version of each of them so the resumed copies can still be saved.
+ */
+public final class EventSnapshotCodec {
+    /**
+     * The layout version of an encoded snapshot, bumped whenever the layout changes.
+     */
+    private static final int FORMAT = 2;
+
+    /**
+     * Utility class, not instantiated.
+     */
+    private EventSnapshotCodec() {
+    }
+
+    /**
+     * Encodes a single running event. Intended to be called while holding the event's lock,
+     * so the graph cannot change while it is written.
+     *
+     * @param version The runtime version of the event.
+     * @param event   The event graph.
+     * @return The encoded event.
+     */
+    public static byte[] encodeEvent(long version, Event event) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeEvent(out, version, event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Cannot happen when writing to memory
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Assembles a snapshot from events encoded by {@link #encodeEvent(long, Event)}.
+     *
+     * @param writtenAt The event time at which the snapshot is taken, in milliseconds since epoch.
+     * @param events    The encoded running events.
+     * @return The encoded snapshot.
+     */
+    public static byte[] encode(long writtenAt, List<byte[]> events) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT);
+            out.writeLong(writtenAt);
+            out.writeInt(events.size());
+            for (byte[] event : events) {
+                out.write(event);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Cannot happen when writing to memory
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a snapshot written by {@link #encode(long, List)}.
+     *
+     * @param data The encoded snapshot.
+     * @return The decoded {@link Snapshot}.
+     * @throws IOException if the data is truncated or was written in an unknown layout.
+     */
+    public static Snapshot decode(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int format = in.readInt();
+            if (format != FORMAT) {
+                throw new IOException("Unknown snapshot format " + format);
+            }
+            long writtenAt = in.readLong();
+            int count = in.readInt();
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long version = in.readLong();
+                entries.add(new Entry(version, readEvent(in)));
+            }
+            return new Snapshot(writtenAt, entries);
+        }
+    }
+
+    /**
+     * Writes an event, its pools and its patients.
+     *
+     * @param out     The stream to write to.
+     * @param version The runtime version of the event.
+     * @param event   The event to write.
+     * @throws IOException if the stream fails.
+     */
+    private static void writeEvent(DataOutputStream out, long version, Event event) throws IOException {
+        out.writeLong(version);
+        writeLong(out, event.getId());
+        writeString(out, event.getName());
+        writeString(out, event.getStatus() == null ? null : event.getStatus().name());
+        writeLong(out, event.getStartTime());
+        writeLong(out, event.getDuration());
+        out.writeLong(event.getRemainingDuration());
+        out.writeLong(event.getTimeOfStatusChange());
+        out.writeLong(event.getVersion());
+        List<PatientPool> pools = event.getPools() == null ? List.of() : event.getPools();
+        out.writeInt(pools.size());
+        for (PatientPool pool : pools) {
+            writeLong(out, pool.getId());
+            writeString(out, pool.getName());
+            writeLong(out, pool.getProcessTime());
+            writeLong(out, pool.getStartedProcessingAt());
+            out.writeBoolean(pool.isAutoDischarge());
+            writeString(out, pool.getPoolType() == null ? null : pool.getPoolType().name());
+            out.writeInt(pool.getQueueSize());
+            out.writeInt(pool.getConcurrency());
+            writeString(out, pool.getIcon());
+            out.writeLong(pool.getVersion());
+            List<Patient> patients = pool.getPatients() == null ? List.of() : pool.getPatients();
+            out.writeInt(patients.size());
+            for (Patient patient : patients) {
+                writeLong(out, patient.getId());
+                writeString(out, patient.getCardId());
+                writeString(out, patient.getCondition() == null ? null : patient.getCondition().name());
+                out.writeBoolean(patient.isProcessed());
+                writeLong(out, patient.getStartedProcessingAt());
+                out.writeLong(patient.getVersion());
+            }
+        }
+    }
+
+    /**
+     * Reads an event, its pools and its patients written by {@link #writeEvent(DataOutputStream, long, Event)}.
+     *
+     * @param in The stream to read from.
+     * @return The detached event graph.
+     * @throws IOException if the stream is truncated.
+     */
+    private static Event readEvent(DataInputStream in) throws IOException {
+        Event event = new Event();
+        event.setId(readLong(in));
+        event.setName(readString(in));
+        String status = readString(in);
+        event.setStatus(status == null ? null : Status.valueOf(status));
+        event.setStartTime(readLong(in));
+        event.setDuration(readLong(in));
+        event.setRemainingDuration(in.readLong());
+        event.setTimeOfStatusChange(in.readLong());
+        event.setVersion(in.readLong());
+        int poolCount = in.readInt();
+        List<PatientPool> pools = new ArrayList<>(poolCount);
+        for (int i = 0; i < poolCount; i++) {
+            PatientPool pool = new PatientPool();
+            pool.setId(readLong(in));
+            pool.setName(readString(in));
+            pool.setProcessTime(readLong(in));
+            pool.setStartedProcessingAt(readLong(in));
+            pool.setAutoDischarge(in.readBoolean());
+            String poolType = readString(in);
+            pool.setPoolType(poolType == null ? null : PoolType.valueOf(poolType));
+            pool.setQueueSize(in.readInt());
+            pool.setConcurrency(in.readInt());
+            pool.setIcon(readString(in));
+            pool.setVersion(in.readLong());
+            int patientCount = in.readInt();
+            List<Patient> patients = new ArrayList<>(patientCount);
+            for (int j = 0; j < patientCount; j++) {
+                Patient patient = new Patient();
+                patient.setId(readLong(in));
+                patient.setCardId(readString(in));
+                String condition = readString(in);
+                patient.setCondition(condition == null ? null : Condition.valueOf(condition));
+                patient.setProcessed(in.readBoolean());
+                patient.setStartedProcessingAt(readLong(in));
+                patient.setVersion(in.readLong());
+                patients.add(patient);
+            }
+            pool.setPatients(patients);
+            pools.add(pool);
+        }
+        event.setPools(pools);
+        return event;
+    }
+
+    /**
+     * Writes a nullable {@link Long} as a presence flag followed by the value.
+     *
+     * @param out   The stream to write to.
+     * @param value The value, may be {@code null}.
+     * @throws IOException if the stream fails.
+     */
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    /**
+     * Reads a nullable {@link Long} written by {@link #writeLong(DataOutputStream, Long)}.
+     *
+     * @param in The stream to read from.
+     * @return The value, or {@code null}.
+     * @throws IOException if the stream is truncated.
+     */
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    /**
+     * Writes a nullable {@link String} as a presence flag followed by the value.
+     *
+     * @param out   The stream to write to.
+     * @param value The value, may be {@code null}.
+     * @throws IOException if the stream fails.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    /**
+     * Reads a nullable {@link String} written by {@link #writeString(DataOutputStream, String)}.
+     *
+     * @param in The stream to read from.
+     * @return The value, or {@code null}.
+     * @throws IOException if the stream is truncated.
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * A running event together with the version of its runtime.
+     *
+     * @param version The runtime version when the snapshot was taken.
+     * @param event   The event graph.
+     */
+    public record Entry(long version, Event event) {
+    }
+
+    /**
+     * A decoded snapshot.
+     *
+     * @param writtenAt The event time at which the snapshot was taken, in milliseconds since epoch.
+     * @param entries   The running events at that time.
+     */
+    public record Snapshot(long writtenAt, List<Entry> entries) {
+    }
+}
@@ -0,0 +1,151 @@
+package com.retriage.retriage.services;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only local file of snapshot records with rotation.
+ * Every record is framed as a magic number, the payload length, the payload and a CRC32 of the payload,
+ * and is synced to disk before {@link #append(byte[])} returns. A record torn by a crash fails its
+ * checksum and is ignored, so the last complete record always wins. Once the file grows past its size
+ * limit it is rotated to a single {@code .1} backup and a fresh file is started.
+ * This class is not thread-safe.
+ */
+public class EventSnapshotFile {
+    /**
+     * Marks the start of every record.
+     */
+    private static final int MAGIC = 0x52545331; // "RTS1"
+    /**
+     * The current snapshot file.
+     */
+    private final Path file;
+    /**
+     * The previous snapshot file, kept after rotation.
+     */
+    private final Path backup;
+    /**
+     * The size in bytes after which the file is rotated.
+     */
+    private final long maxBytes;
+
+    /**
+     * Constructs a snapshot file at the given path.
+     *
+     * @param file     The path of the current snapshot file.
+     * @param maxBytes The size in bytes after which the file is rotated.
+     */
+    public EventSnapshotFile(Path file, long maxBytes) {
+        this.file = file;
+        this.backup = file.resolveSibling(file.getFileName() + ".1");
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Appends a record and syncs it to disk, rotating the file first if it is full.
+     *
+     * @param payload The record to append.
+     * @throws IOException if the record cannot be written.
+     */
+    public void append(byte[] payload) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        if (Files.exists(file) && Files.size(file) + payload.length + 16 > maxBytes) {
+            rotate();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        try (FileOutputStream stream = new FileOutputStream(file.toFile(), true);
+             DataOutputStream out = new DataOutputStream(stream)) {
+            out.writeInt(MAGIC);
+            out.writeInt(payload.length);
+            out.write(payload);
+            out.writeLong(crc.getValue());
+            out.flush();
+            stream.getFD().sync();
+        }
+    }
+
+    /**
+     * Reads the last complete record, from the current file or else from the backup.
+     *
+     * @return The last complete record, or {@code null} if neither file holds one.
+     * @throws IOException if a file exists but cannot be read.
+     */
+    public byte[] readLatest() throws IOException {
+        byte[] latest = readLatest(file);
+        return latest != null ? latest : readLatest(backup);
+    }
+
+    /**
+     * Gets the path of the current snapshot file.
+     *
+     * @return The snapshot file path.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Moves the current file over the backup so the next record starts a fresh file.
+     *
+     * @throws IOException if the file cannot be moved.
+     */
+    private void rotate() throws IOException {
+        try {
+            Files.move(file, backup, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(file, backup, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads the records of a single file and returns the last one with a valid frame and checksum.
+     * Reading stops at the first damaged record, which can only be a torn tail.
+     *
+     * @param path The file to read.
+     * @return The last complete record, or {@code null} if there is none.
+     * @throws IOException if the file exists but cannot be read.
+     */
+    private byte[] readLatest(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        byte[] latest = null;
+        try (InputStream stream = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(stream)) {
+            while (true) {
+                if (in.readInt() != MAGIC) {
+                    break;
+                }
+                int length = in.readInt();
+                if (length < 0 || length > maxBytes) {
+                    break;
+                }
+                byte[] payload = in.readNBytes(length);
+                if (payload.length != length) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if (in.readLong() != crc.getValue()) {
+                    break;
+                }
+                latest = payload;
+            }
+        } catch (EOFException e) {
+            // End of file or a torn tail; the last complete record stands
+        }
+        return latest;
+    }
+}
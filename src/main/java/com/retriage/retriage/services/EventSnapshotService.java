@@ -0,0 +1,29 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.models.Event;
+
+import java.util.List;
+
+/**
+ * Service interface defining the contract for crash-safe local snapshots of the running events.
+ * The runtime is written to a local file at a fixed interval and on shutdown, so a restarted server can
+ * resume its events from disk in milliseconds instead of rebuilding them from the database, without the
+ * time it was down counting against them.
+ */
+public interface EventSnapshotService {
+
+    /**
+     * Writes a snapshot of every running event, if anything changed since the last snapshot.
+     *
+     * @return {@code true} if a snapshot was written.
+     */
+    boolean writeSnapshot();
+
+    /**
+     * Restores the running events from the latest snapshot into the runtime. The event timers are shifted
+     * forward by the time since the snapshot was taken, so downtime does not count against the events.
+     *
+     * @return The restored events. Returns an empty list if there is no usable snapshot.
+     */
+    List<Event> restoreSnapshot();
+}
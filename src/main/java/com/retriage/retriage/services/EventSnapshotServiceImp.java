@@ -0,0 +1,299 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.configurations.WebSocketSessionRegistry;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of the {@link EventSnapshotService} interface.
+ * Snapshots are encoded by the {@link EventSnapshotCodec} and appended to an {@link EventSnapshotFile}
+ * on a dedicated background thread at a fixed interval while any event is running.
+ * <p>
+ * On startup the runtime is restored from the snapshot and the clocks are started straight away; the
+ * database is reconciled afterwards on the background thread. Without a usable snapshot the running
+ * events are read from the database as before. On shutdown a final snapshot is flushed and the open
+ * STOMP sessions are closed so clients reconnect cleanly.
+ */
+@Service
+public class EventSnapshotServiceImp implements EventSnapshotService {
+    /**
+     * Logger for this service implementation.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(EventSnapshotServiceImp.class);
+    /**
+     * Service for reading running events from the database during reconciliation.
+     */
+    private final EventService eventService;
+    /**
+     * In-memory runtime that is snapshotted and restored.
+     */
+    private final EventRuntimeService eventRuntimeService;
+    /**
+     * Clock to wake for every event restored or reconciled.
+     */
+    private final EventClockService eventClockService;
+    /**
+     * Source of the current event time.
+     */
+    private final EventClock eventClock;
+    /**
+     * Registry of open STOMP sessions, drained on shutdown.
+     */
+    private final WebSocketSessionRegistry sessionRegistry;
+    /**
+     * The local snapshot file.
+     */
+    private final EventSnapshotFile snapshotFile;
+    /**
+     * The interval between snapshots in milliseconds; {@code 0} only writes the final snapshot on shutdown.
+     */
+    private final long intervalMillis;
+    /**
+     * Background thread writing snapshots and reconciling with the database.
+     */
+    private final ScheduledExecutorService executor;
+    /**
+     * The runtime versions written by the last snapshot, by event ID. Used to write a single empty snapshot
+     * once the last event stops. Guarded by this object's monitor.
+     */
+    private Map<Long, Long> writtenVersions = Map.of();
+
+    /**
+     * Constructs an instance of {@code EventSnapshotServiceImp}.
+     *
+     * @param eventService        The {@link EventService} used to reconcile with the database.
+     * @param eventRuntimeService The {@link EventRuntimeService} holding the running events.
+     * @param eventClockService   The {@link EventClockService} woken for restored events.
+     * @param eventClock          The {@link EventClock} used to stamp snapshots.
+     * @param sessionRegistry     The {@link WebSocketSessionRegistry} drained on shutdown.
+     * @param path                The path of the snapshot file.
+     * @param maxBytes            The size in bytes after which the snapshot file is rotated.
+     * @param intervalMillis      The interval between snapshots in milliseconds.
+     */
+    public EventSnapshotServiceImp(EventService eventService, EventRuntimeService eventRuntimeService,
+                                   EventClockService eventClockService, EventClock eventClock,
+                                   WebSocketSessionRegistry sessionRegistry,
+                                   @Value("${retriage.snapshot.path:snapshots/events.snap}") String path,
+                                   @Value("${retriage.snapshot.max-bytes:1048576}") long maxBytes,
+                                   @Value("${retriage.snapshot.interval-ms:5000}") long intervalMillis) {
+        this.eventService = eventService;
+        this.eventRuntimeService = eventRuntimeService;
+        this.eventClockService = eventClockService;
+        this.eventClock = eventClock;
+        this.sessionRegistry = sessionRegistry;
+        this.snapshotFile = new EventSnapshotFile(Path.of(path), maxBytes);
+        this.intervalMillis = intervalMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Brings the running events back once the application is ready: from the snapshot if there is one,
+     * otherwise from the database. Runs before the clock starts ticking the running events.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onApplicationReady() {
+        List<Event> restored = restoreSnapshot();
+        if (restored.isEmpty()) {
+            eventRuntimeService.loadRunningEvents();
+        } else {
+            Set<Long> restoredIds = new HashSet<>();
+            restored.forEach(event -> restoredIds.add(event.getId()));
+            executor.execute(() -> reconcile(restoredIds));
+        }
+        if (intervalMillis > 0) {
+            executor.scheduleWithFixedDelay(this::writeSnapshotSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * A snapshot is written on every call while an event is running, since its timestamp marks how far the
+     * events had got; once nothing is running, a single empty snapshot records that. Each event is encoded
+     * while holding its lock and the file is written outside of it.
+     */
+    @Override
+    public synchronized boolean writeSnapshot() {
+        List<byte[]> events = new ArrayList<>();
+        Map<Long, Long> versions = new HashMap<>();
+        for (Event running : eventRuntimeService.getRunningEvents()) {
+            eventRuntimeService.withEvent(running.getId(), event -> {
+                if (event != null) {
+                    EventRuntime runtime = eventRuntimeService.getRuntime(event.getId());
+                    events.add(EventSnapshotCodec.encodeEvent(runtime.getVersion(), event));
+                    versions.put(event.getId(), runtime.getVersion());
+                }
+                return null;
+            });
+        }
+        if (events.isEmpty() && versions.equals(writtenVersions)) {
+            return false; // Nothing running now or at the last snapshot
+        }
+        byte[] payload = EventSnapshotCodec.encode(eventClock.now(), events);
+        try {
+            snapshotFile.append(payload);
+            writtenVersions = versions;
+            logger.debug("writeSnapshot - Wrote snapshot of {} event(s), {} bytes.", events.size(), payload.length);
+            return true;
+        } catch (IOException e) {
+            logger.error("writeSnapshot - Failed to write snapshot to {}: {}", snapshotFile.getFile(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Event> restoreSnapshot() {
+        List<Event> restored = new ArrayList<>();
+        EventSnapshotCodec.Snapshot snapshot;
+        try {
+            byte[] payload = snapshotFile.readLatest();
+            if (payload == null) {
+                logger.info("restoreSnapshot - No snapshot found at {}.", snapshotFile.getFile());
+                return restored;
+            }
+            snapshot = EventSnapshotCodec.decode(payload);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("restoreSnapshot - Unusable snapshot at {}: {}", snapshotFile.getFile(), e.getMessage());
+            return restored;
+        }
+        long downtime = Math.max(0, eventClock.now() - snapshot.writtenAt());
+        for (EventSnapshotCodec.Entry entry : snapshot.entries()) {
+            Event event = entry.event();
+            shiftTimers(event, downtime);
+            Event stored = eventRuntimeService.withEvent(event.getId(), current -> {
+                Event adopted = eventRuntimeService.adoptEvent(event);
+                if (adopted != null) {
+                    eventRuntimeService.getRuntime(event.getId()).restoreVersion(entry.version());
+                }
+                return adopted;
+            });
+            if (stored != null) {
+                restored.add(stored);
+            }
+        }
+        logger.info("restoreSnapshot - Restored {} running event(s) from snapshot, shifted by {} ms of downtime.", restored.size(), downtime);
+        return restored;
+    }
+
+    /**
+     * Flushes a final snapshot and closes the open STOMP sessions when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        if (writeSnapshot()) { // Its timestamp marks the start of the downtime
+            logger.info("shutdown - Flushed final snapshot to {}.", snapshotFile.getFile());
+        }
+        sessionRegistry.closeAll();
+    }
+
+    /**
+     * Reconciles restored events with the database. The database is authoritative, since commands were committed to
+     * it after the snapshot was taken: events still running there take their pools and patients from it and only
+     * keep the restored timers of unchanged rows; events that stopped running are dropped from the runtime; events
+     * running in the database but missing from the snapshot are loaded. An event that cannot be reconciled is
+     * reloaded from the database as it is, without affecting the others. Every touched clock is woken.
+     *
+     * @param restoredIds The IDs of the events restored from the snapshot.
+     */
+    private void reconcile(Set<Long> restoredIds) {
+        for (Long eventId : restoredIds) {
+            try {
+                eventRuntimeService.reconcileEvent(eventId);
+            } catch (RuntimeException e) {
+                logger.warn("reconcile - Restored state of event {} conflicts with the database, reloading it: {}", eventId, e.getMessage());
+                reloadSafely(eventId);
+            }
+            eventClockService.wake(eventId);
+        }
+        try {
+            for (Event event : eventService.findRunningEvents()) {
+                if (!restoredIds.contains(event.getId())) {
+                    logger.info("reconcile - Event {} was not in the snapshot, loading it from the database.", event.getId());
+                    eventRuntimeService.loadEvent(event.getId());
+                    eventClockService.wake(event.getId());
+                }
+            }
+            logger.info("reconcile - Reconciled {} restored event(s) with the database.", restoredIds.size());
+        } catch (RuntimeException e) {
+            logger.error("reconcile - Reconciliation with the database failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reloads an event from the database, logging instead of throwing so the other events are still reconciled.
+     *
+     * @param eventId The ID of the event.
+     */
+    private void reloadSafely(Long eventId) {
+        try {
+            eventRuntimeService.loadEvent(eventId);
+        } catch (RuntimeException e) {
+            logger.error("reconcile - Reloading event {} failed: {}", eventId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes a snapshot from the background thread, logging instead of throwing so the schedule keeps running.
+     */
+    private void writeSnapshotSafely() {
+        try {
+            writeSnapshot();
+        } catch (RuntimeException e) {
+            logger.error("writeSnapshot - Snapshot failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Shifts an event's start time, clock anchor and every processing timer forward by the downtime,
+     * so the countdown resumes where it stopped.
+     *
+     * @param event    The restored event.
+     * @param downtime The time since the snapshot was taken, in milliseconds.
+     */
+    private void shiftTimers(Event event, long downtime) {
+        if (event.getStartTime() != null) {
+            event.setStartTime(event.getStartTime() + downtime);
+        }
+        event.setTimeOfStatusChange(event.getTimeOfStatusChange() + downtime);
+        for (PatientPool pool : event.getPools()) {
+            if (pool.getStartedProcessingAt() != null) {
+                pool.setStartedProcessingAt(pool.getStartedProcessingAt() + downtime);
+            }
+            for (Patient patient : pool.getPatients()) {
+                if (patient.getStartedProcessingAt() != null) {
+                    patient.setStartedProcessingAt(patient.getStartedProcessingAt() + downtime);
+                }
+            }
+        }
+    }
+}
@@ -1,21 +1,68 @@
 package com.retriage.retriage.services;
 
+import com.retriage.retriage.models.EventClockAnchor;
+import com.retriage.retriage.models.EventPoolUpdate;
+import com.retriage.retriage.models.EventResumeMessage;
+import com.retriage.retriage.models.EventStateMessage;
+
 /**
  * Service interface defining the contract for managing event timing and broadcasting updates.
  * Implementations of this interface are typically responsible for tasks like
  * counting down event duration and sending real-time updates to connected clients.
+ * Every running event is ticked and broadcast independently, keyed by its ID.
  */
 public interface EventTimerService {
 
     /**
-     * Updates the remaining duration of the currently active event.
-     * This method is likely called periodically by a scheduled task.
+     * Updates the remaining duration of a running event.
+     * This method is called by the {@link EventClockService} on each tick of that event.
+     *
+     * @param eventId The ID of the event to tick.
+     */
+    void updateEventDuration(Long eventId);
+
+    /**
+     * Broadcasts what changed in a running event to all subscribed clients, as a sequenced delta.
+     * This method is called after the duration is updated or the event changed.
+     * Nothing is sent if nothing changed since the last broadcast.
+     *
+     * @param eventId The ID of the event to broadcast.
+     */
+    void broadcastEventUpdates(Long eventId);
+
+    /**
+     * Returns the full state of a running event together with the sequence number of the last delta it includes,
+     * for a client that subscribes or has to resync after missing a delta.
+     *
+     * @param eventId The ID of the event.
+     * @return The {@link EventStateMessage}, or {@code null} if the event is not running.
+     */
+    EventStateMessage getEventState(Long eventId);
+
+    /**
+     * Returns what a client reconnecting to a running event missed since the last delta it applied: only the missed
+     * deltas if they are all still kept, or the full event otherwise.
+     *
+     * @param eventId The ID of the event.
+     * @param lastSeq The sequence number of the last delta the client applied.
+     * @return The {@link EventResumeMessage}, or {@code null} if the event is not running.
+     */
+    EventResumeMessage getEventResume(Long eventId, long lastSeq);
+
+    /**
+     * Returns the current state of a single pool of a running event, for a client that only follows that pool.
+     *
+     * @param eventId The ID of the event.
+     * @param poolId  The ID of the pool.
+     * @return The {@link EventPoolUpdate}, or {@code null} if the event is not running or has no such pool.
      */
-    void updateEventDuration();
+    EventPoolUpdate getPoolState(Long eventId, Long poolId);
 
     /**
-     * Broadcasts the current state of the active event to all subscribed clients.
-     * This method is likely called periodically, potentially after the duration is updated.
+     * Returns the current clock anchor of a running event, for a client that only shows its countdown.
+     *
+     * @param eventId The ID of the event.
+     * @return The {@link EventClockAnchor}, or {@code null} if the event is not running.
      */
-    void broadcastEventUpdates();
-}
\ No newline at end of file
+    EventClockAnchor getClockAnchor(Long eventId);
+}
@@ -1,23 +1,30 @@
 package com.retriage.retriage.services;
 
-import com.retriage.retriage.enums.PoolType;
 import com.retriage.retriage.enums.Status;
 import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.EventClockAnchor;
+import com.retriage.retriage.models.EventDelta;
+import com.retriage.retriage.models.EventPoolUpdate;
+import com.retriage.retriage.models.EventResumeMessage;
+import com.retriage.retriage.models.EventStateMessage;
 import com.retriage.retriage.models.Patient;
 import com.retriage.retriage.models.PatientPool;
 import com.retriage.retriage.models.ResponseWrapper;
-import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Implementation of the {@link EventTimerService} interface.
  * This service manages the timing of the active event and broadcasts its state
- * using scheduled tasks and WebSocket messaging.
+ * using ticks from the {@link EventClockService} and WebSocket messaging. All work is done against the in-memory
+ * copy held by {@link EventRuntimeService}.
  */
 @Service
 public class EventTimerServiceImp implements EventTimerService {
@@ -26,105 +33,356 @@ public class EventTimerServiceImp implements EventTimerService {
      */
     private static final Logger logger = LoggerFactory.getLogger(EventTimerServiceImp.class);
     /**
-     * Service for managing event business logic and data access.
+     * Shared topic followed by clients that only track a single event.
+     */
+    private static final String LEGACY_TOPIC = "/topic/event_updates";
+    /**
+     * Prefix of the per-event topics, followed by the event ID. The event's own topic carries every delta whole;
+     * its {@code /clock}, {@code /summary} and {@code /pools/{poolId}} sub-topics each carry one slice of it.
      */
-    private final EventService eventService;
+    private static final String EVENT_TOPIC_PREFIX = "/topic/events/";
     /**
      * Spring component for sending messages to WebSocket destinations.
      */
     private final SimpMessagingTemplate messagingTemplate;
-
+    /**
+     * In-memory runtime holding the authoritative copy of the running event.
+     */
+    private final EventRuntimeService eventRuntimeService;
+    /**
+     * Source of the current event time, which may run faster than real time.
+     */
+    private final EventClock eventClock;
+    /**
+     * Leases deciding which node emits each event's deltas.
+     */
+    private final EventLeaseService eventLeaseService;
 
     /**
      * Constructs an instance of {@code EventTimerServiceImp}.
      *
-     * @param eventService      The {@link EventService} used for event data operations.
-     * @param messagingTemplate The {@link SimpMessagingTemplate} used for sending WebSocket messages.
+     * @param eventRuntimeService The {@link EventRuntimeService} holding the running event in memory.
+     * @param messagingTemplate   The {@link SimpMessagingTemplate} used for sending WebSocket messages.
+     * @param eventClock          The {@link EventClock} the event timers advance against.
+     * @param eventLeaseService   The {@link EventLeaseService} deciding which node emits each event's deltas.
      */
-    EventTimerServiceImp(EventService eventService, SimpMessagingTemplate messagingTemplate) {
-        this.eventService = eventService;
+    EventTimerServiceImp(EventRuntimeService eventRuntimeService, SimpMessagingTemplate messagingTemplate, EventClock eventClock,
+                         EventLeaseService eventLeaseService) {
+        this.eventRuntimeService = eventRuntimeService;
         this.messagingTemplate = messagingTemplate;
+        this.eventClock = eventClock;
+        this.eventLeaseService = eventLeaseService;
     }
 
     /**
-     * Periodically updates the remaining duration of the currently active event.
-     * This method is scheduled to run at a fixed rate (currently every 1000ms).
-     * It finds the active event, calculates the elapsed time, updates the remaining duration,
-     * and handles the transition to {@link Status#Ended} if the duration reaches zero.
-     * It also checks if patients in Medical Service pools have completed processing.
-     * Updates are persisted and broadcast if the status changes or a patient is processed.
+     * Advances a running event to the current time.
+     * This method is driven by the {@link EventClockService}, which calls it at the event's next pool deadline
+     * or end, and not at all while the event is not running.
+     * It works on the in-memory copy held by the {@link EventRuntimeService}. The countdown itself is not written
+     * here: it follows from the clock anchor set at the last status change (see {@link EventCountdown}), so a tick
+     * only changes the event when it reaches its end, which transitions it to {@link Status#Ended}.
+     * It also completes patients in Medical Service pools, taking only the pools whose deadline has passed
+     * from the runtime's {@link PoolDeadlineQueue} rather than scanning every pool. A pool may process several
+     * patients at once; its {@link PatientPoolQueue} completes every patient whose time is up and hands the freed
+     * servers to the waiting patients with the most urgent condition.
+     * The event is only persisted when the status changes or a patient is processed. If that fails, the event is
+     * reloaded from the database before the failure is rethrown, so memory never keeps changes the database lacks.
+     *
+     * @param eventId The ID of the event to tick.
      */
     @Override
-    @Scheduled(fixedRate = 1000) // Configured to run every 1000 milliseconds (1 second)
-    @Transactional // Ensures database operations within this method are atomic
-    public void updateEventDuration() {
-        Event activeEvent = eventService.findActiveEvent();
-        boolean updateEvent = false; // Flag to indicate if the event needs saving and broadcasting
-        if (activeEvent != null) {
-            logger.debug("updateEventDuration: activeEvent {} is currently active with {} seconds remaining.", activeEvent.getName(), activeEvent.getRemainingDuration() / 6000);
-            long now = System.currentTimeMillis();
-            long startTime = activeEvent.getTimeOfStatusChange(); // Timestamp of the last status change (e.g., when it started Running)
-            long duration = activeEvent.getRemainingDuration(); // remaining duration from the start time of the current status
-            long elapsed = now - startTime;
-            long remaining = activeEvent.getDuration() - (now - activeEvent.getStartTime());
-            activeEvent.setRemainingDuration(remaining);
-
-            if (remaining < 0) {
-                activeEvent.setRemainingDuration(0);
-                activeEvent.setStatus(Status.Ended);
-                updateEvent = true; // Status changed, need to save and broadcast
+    public void updateEventDuration(Long eventId) {
+        boolean updateEvent = eventRuntimeService.withEvent(eventId, activeEvent -> {
+            if (activeEvent == null) {
+                return false;
             }
+            boolean changed = false; // Flag to indicate if the event needs saving
+            long now = eventClock.now();
+            long remaining = EventCountdown.remainingAt(activeEvent, now);
+            logger.debug("updateEventDuration: event {} is currently active with {} seconds remaining.", activeEvent.getName(), remaining / 1000);
 
-            // Checking patient processing completion in MedService pools
-            for (PatientPool pool : activeEvent.getPools()) {
-                if (pool.getPoolType() == PoolType.MedService && !pool.getPatients().isEmpty()) {
-                    Patient patient = pool.getPatients().getFirst(); // Assuming only the first patient in the list is actively being processed
-                    long poolElapsed = now - pool.getStartedProcessingAt(); // Elapsed time since this patient started processing in the pool
-                    long processedTime = pool.getProcessTime(); // Required processing time for this pool type
-
-                    if (poolElapsed >= processedTime && !patient.isProcessed()) {
-                        patient.setProcessed(true);
-                        updateEvent = true; // Patient status changed, need to save and broadcast
-                        if (pool.isAutoDischarge()) {
-                            pool.getPatients().removeFirst(); // Remove the first patient
-                            pool.setStartedProcessingAt(System.currentTimeMillis()); // Reset timer for the next patient if any
-                            logger.debug("updateEventDuration: Patient in pool {} auto-discharged.", pool.getName());
-                        }
-                        logger.debug("updateEventDuration: Patient in pool {} marked as processed.", pool.getName());
-                    }
+            if (remaining <= 0) {
+                EventCountdown.reanchor(activeEvent, Status.Ended, now);
+                changed = true; // Status changed, need to save and broadcast
+            }
+
+            if (!completeDuePatients(eventId, now).isEmpty()) {
+                changed = true; // Patient status changed, need to save and broadcast
+            }
+
+            // Save the event only if its status changed or if any patient processing/discharge occurred
+            if (changed) {
+                try {
+                    eventRuntimeService.persistEvent(eventId);
+                } catch (RuntimeException e) {
+                    // The completions only happened in memory and their deadlines were consumed; reloading the
+                    // stored state rebuilds the deadlines, so the next tick retries them
+                    logger.warn("updateEventDuration: Persisting event {} failed, reloading it.", eventId);
+                    eventRuntimeService.loadEvent(eventId);
+                    throw e;
                 }
             }
+            return true;
+        });
+        if (updateEvent) {
+            // Nothing is sent unless the event really changed; clients run the countdown themselves
+            broadcastEventUpdates(eventId);
+        }
+    }
 
+    /**
+     * Completes, in memory, every patient of a running event whose processing time is up, taking only the
+     * Medical Service pools whose deadline has passed, and plans those pools' next deadlines. Freed servers go to
+     * the highest priority waiting patients. Nothing is persisted or broadcast, so headless simulations drive
+     * their own detached runtime through this step too.
+     *
+     * @param eventId The ID of the running event.
+     * @param now     The current time in milliseconds since epoch.
+     * @return The completed patients by pool. Returns an empty map if none completed.
+     */
+    Map<PatientPool, List<Patient>> completeDuePatients(Long eventId, long now) {
+        return eventRuntimeService.withEvent(eventId, activeEvent -> {
+            Map<PatientPool, List<Patient>> completedByPool = new IdentityHashMap<>();
+            if (activeEvent == null) {
+                return completedByPool;
+            }
+            EventRuntime runtime = eventRuntimeService.getRuntime(eventId);
+            for (PatientPool pool : eventRuntimeService.pollDuePools(eventId, now)) {
+                PatientPoolQueue queue = runtime.getQueue(pool);
+                if (queue == null) {
+                    continue;
+                }
+                List<Patient> completed = queue.completeDue(now);
+                if (!completed.isEmpty()) {
+                    completedByPool.put(pool, completed);
+                    logger.debug("updateEventDuration: {} patient(s) in pool {} marked as processed{}.", completed.size(), pool.getName(),
+                            pool.isAutoDischarge() ? " and auto-discharged" : "");
+                }
+                eventRuntimeService.reschedulePool(eventId, pool);
+            }
+            return completedByPool;
+        });
+    }
 
-            // Save the event if its status changed or if any patient processing/discharge occurred
-            if (activeEvent.getStatus() == Status.Ended || updateEvent) {
-                eventService.updateEvent(activeEvent.getId(), activeEvent);
-                // Only broadcast if there was a significant update
-                broadcastEventUpdates();
-            } else {
-                // Broadcast even if only duration changes, to update the timer on the frontend
-                broadcastEventUpdates();
+    /**
+     * Broadcasts what changed in a running event since the last broadcast, as an {@link EventDelta} wrapped in a
+     * {@link ResponseWrapper}, to its own topic {@code /topic/events/{id}} and to the shared topic
+     * {@code /topic/event_updates}. Clients that render only part of the event can instead follow the
+     * {@code /clock}, {@code /summary} or {@code /pools/{poolId}} sub-topics of the event's topic. The delta is computed and sent while holding the event's lock, so deltas reach
+     * the broker in sequence order. When an event stops, a final delta carries its new status, and the shared topic
+     * additionally gets a "not found" message once no event is running at all, and the event's runtime slot is released.
+     * Only the node holding the event's lease broadcasts, so the sequence numbers on the event's topics come from one node.
+     *
+     * @param eventId The ID of the event to broadcast.
+     */
+    @Override
+    public void broadcastEventUpdates(Long eventId) {
+        boolean stopped = eventRuntimeService.withEvent(eventId, activeEvent -> {
+            EventRuntime runtime = eventRuntimeService.getRuntime(eventId);
+            if (runtime == null || !holdsLease(eventId)) {
+                return false; // Not held by this node, or driven by another one
             }
+            EventDelta delta = activeEvent == null ? runtime.getDeltas().diffStopped() : runtime.getDeltas().diff(activeEvent);
+            if (delta == null) {
+                logger.debug("broadcastEventUpdates: Nothing changed in event {}.", eventId);
+                return false;
+            }
+            sendDelta(runtime, delta);
+            return activeEvent == null;
+        });
+        if (eventRuntimeService.getEvent(eventId) == null) {
+            eventRuntimeService.releaseRuntime(eventId); // Its final delta, if any, has been sent
+        }
+        if (stopped && eventRuntimeService.getRunningEvents().isEmpty()) {
+            ResponseWrapper<Event> notFound = new ResponseWrapper<>(HttpStatus.NOT_FOUND.value(), "There is not an event running currently.", null);
+            messagingTemplate.convertAndSend(LEGACY_TOPIC, notFound);
         }
     }
 
     /**
-     * Broadcasts the current state of the active event to the WebSocket topic {@code /topic/event_updates}.
-     * Sends the full {@link Event} object if an active event is found, wrapped in a {@link ResponseWrapper}.
-     * If no active event is found, sends a "not found" message.
+     * {@inheritDoc}
+     * Any change not broadcast yet is broadcast first, so the returned state and the deltas that follow it line up.
+     * A node that does not hold the event's lease emits nothing; it answers from a fresh read of the database instead.
      */
     @Override
-    @Transactional // Ensures consistency with the active event state before broadcasting
-    public void broadcastEventUpdates() {
-        Event activeEvent = eventService.findActiveEvent();
-        if (activeEvent == null) {
-            logger.debug("broadcastEventUpdates: No active event to broadcast.");
-            messagingTemplate.convertAndSend("/topic/event_updates",
-                    new ResponseWrapper<Event>(HttpStatus.NOT_FOUND.value(), "There is not an event running currently.", null));
-        } else {
-            logger.debug("broadcastEventUpdates: Broadcasting active event update for event ID {}", activeEvent.getId());
-            messagingTemplate.convertAndSend("/topic/event_updates",
-                    new ResponseWrapper<Event>(HttpStatus.OK.value(), "Nominal Event Update", activeEvent));
+    public EventStateMessage getEventState(Long eventId) {
+        if (eventId == null) {
+            return null;
         }
+        boolean holder = refreshUnlessHolder(eventId);
+        return eventRuntimeService.withEvent(eventId, activeEvent -> {
+            if (activeEvent == null) {
+                return null;
+            }
+            EventRuntime runtime = eventRuntimeService.getRuntime(eventId);
+            EventDelta pending = holder ? runtime.getDeltas().diff(activeEvent) : null;
+            if (pending != null) {
+                sendDelta(runtime, pending);
+            }
+            return new EventStateMessage(eventId, runtime.getDeltas().getSeq(), activeEvent);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * Any change not broadcast yet is broadcast first, so the answer and the deltas that follow it line up.
+     * A node that does not hold the event's lease has no deltas to replay; it answers with the full state from a
+     * fresh read of the database.
+     */
+    @Override
+    public EventResumeMessage getEventResume(Long eventId, long lastSeq) {
+        if (eventId == null) {
+            return null;
+        }
+        boolean holder = refreshUnlessHolder(eventId);
+        return eventRuntimeService.withEvent(eventId, activeEvent -> {
+            if (activeEvent == null) {
+                return null;
+            }
+            EventRuntime runtime = eventRuntimeService.getRuntime(eventId);
+            EventDelta pending = holder ? runtime.getDeltas().diff(activeEvent) : null;
+            if (pending != null) {
+                sendDelta(runtime, pending);
+            }
+            long seq = runtime.getDeltas().getSeq();
+            List<EventDelta> missed = holder ? runtime.getDeltaLog().since(lastSeq, seq) : null;
+            if (missed == null) {
+                logger.debug("getEventResume: Deltas after {} of event {} are no longer kept, sending the full state.", lastSeq, eventId);
+                return new EventResumeMessage(eventId, seq, null, activeEvent);
+            }
+            logger.debug("getEventResume: Replaying {} delta(s) of event {}.", missed.size(), eventId);
+            return new EventResumeMessage(eventId, seq, missed, null);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * Any change not broadcast yet is broadcast first, so the returned pool and the updates that follow it line up.
+     */
+    @Override
+    public EventPoolUpdate getPoolState(Long eventId, Long poolId) {
+        if (eventId == null || poolId == null) {
+            return null;
+        }
+        EventStateMessage state = getEventState(eventId);
+        if (state == null) {
+            return null;
+        }
+        return eventRuntimeService.withEvent(eventId, activeEvent -> {
+            EventRuntime runtime = eventRuntimeService.getRuntime(eventId);
+            PatientPool pool = activeEvent == null ? null : runtime.getPool(poolId);
+            return pool == null ? null : new EventPoolUpdate(eventId, runtime.getDeltas().getSeq(), poolId, pool);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EventClockAnchor getClockAnchor(Long eventId) {
+        if (getEventState(eventId) == null) {
+            return null;
+        }
+        return eventRuntimeService.withEvent(eventId, activeEvent ->
+                activeEvent == null ? null : eventRuntimeService.getRuntime(eventId).getDeltas().clockAnchor(eventClock.now()));
+    }
+
+    /**
+     * Checks whether this node holds an event's lease. A detached runtime's lease service always holds it.
+     *
+     * @param eventId The ID of the event.
+     * @return {@code true} if this node may emit the event's deltas.
+     */
+    private boolean holdsLease(Long eventId) {
+        return eventLeaseService.holds(eventId);
+    }
+
+    /**
+     * Reloads a running event from the database unless this node holds its lease, since only the holder's
+     * in-memory copy follows every change.
+     *
+     * @param eventId The ID of the event.
+     * @return {@code true} if this node holds the event's lease.
+     */
+    private boolean refreshUnlessHolder(Long eventId) {
+        if (holdsLease(eventId)) {
+            return true;
+        }
+        if (eventRuntimeService.getEvent(eventId) != null) {
+            eventRuntimeService.loadEvent(eventId);
+        }
+        return false;
+    }
+
+    /**
+     * Sends a delta to its event's topic and to the shared topic, and its slices to the event's sub-topics:
+     * the clock anchor to {@code /clock} if it moved, each changed or removed pool to {@code /pools/{poolId}},
+     * and the event fields with only the IDs of the changed pools to {@code /summary}. The delta is kept in the
+     * event's {@link EventDeltaLog} for clients that reconnect. Must be called while holding the event's lock.
+     *
+     * @param runtime The runtime of the event.
+     * @param delta   The delta to send.
+     */
+    private void sendDelta(EventRuntime runtime, EventDelta delta) {
+        logger.debug("broadcastEventUpdates: Broadcasting delta {} of event {}", delta.getSeq(), delta.getEventId());
+        runtime.getDeltaLog().append(delta);
+        String topic = EVENT_TOPIC_PREFIX + delta.getEventId();
+        messagingTemplate.convertAndSend(topic, wrap(delta));
+        messagingTemplate.convertAndSend(LEGACY_TOPIC, wrap(delta));
+        if (movesClock(delta)) {
+            messagingTemplate.convertAndSend(topic + "/clock", wrap(runtime.getDeltas().clockAnchor(eventClock.now())));
+        }
+        for (PatientPool pool : delta.getPools()) {
+            messagingTemplate.convertAndSend(topic + "/pools/" + pool.getId(), wrap(new EventPoolUpdate(delta.getEventId(), delta.getSeq(), pool.getId(), pool)));
+        }
+        for (Long poolId : delta.getRemovedPoolIds()) {
+            messagingTemplate.convertAndSend(topic + "/pools/" + poolId, wrap(new EventPoolUpdate(delta.getEventId(), delta.getSeq(), poolId, null)));
+        }
+        messagingTemplate.convertAndSend(topic + "/summary", wrap(summaryOf(delta)));
+    }
+
+    /**
+     * Checks whether a delta moves the event's clock anchor.
+     *
+     * @param delta The delta.
+     * @return {@code true} if the status, timing or anchor of the event changed.
+     */
+    private static boolean movesClock(EventDelta delta) {
+        return delta.getStatus() != null || delta.getStartTime() != null || delta.getDuration() != null
+                || delta.getRemainingDuration() != null || delta.getTimeOfStatusChange() != null;
+    }
+
+    /**
+     * Copies a delta without its pools, listing only the IDs of the pools that changed.
+     *
+     * @param delta The delta.
+     * @return The summary delta, with the same sequence number.
+     */
+    private static EventDelta summaryOf(EventDelta delta) {
+        EventDelta summary = new EventDelta();
+        summary.setEventId(delta.getEventId());
+        summary.setSeq(delta.getSeq());
+        summary.setName(delta.getName());
+        summary.setStatus(delta.getStatus());
+        summary.setStartTime(delta.getStartTime());
+        summary.setDuration(delta.getDuration());
+        summary.setRemainingDuration(delta.getRemainingDuration());
+        summary.setTimeOfStatusChange(delta.getTimeOfStatusChange());
+        summary.setRemovedPoolIds(delta.getRemovedPoolIds());
+        for (PatientPool pool : delta.getPools()) {
+            summary.getChangedPoolIds().add(pool.getId());
+        }
+        return summary;
+    }
+
+    /**
+     * Wraps a message in the {@link ResponseWrapper} every event topic uses.
+     *
+     * @param data The message.
+     * @param <T>  The message type.
+     * @return The wrapped message.
+     */
+    private static <T> ResponseWrapper<T> wrap(T data) {
+        return new ResponseWrapper<>(HttpStatus.OK.value(), "Nominal Event Update", data);
     }
-}
\ No newline at end of file
+}
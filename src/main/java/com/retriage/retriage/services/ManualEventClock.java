@@ -0,0 +1,57 @@
+package com.retriage.retriage.services;
+
+/**
+ * {@link EventClock} whose time only moves when it is told to. Used by headless simulations, which jump
+ * straight from one pool deadline or arrival to the next, and by tests that need deterministic timers.
+ * This class is not thread-safe.
+ */
+public class ManualEventClock implements EventClock {
+    /**
+     * The current event time in milliseconds since epoch.
+     */
+    private long now;
+
+    /**
+     * Constructs a clock stopped at the given time.
+     *
+     * @param start The initial time in milliseconds since epoch.
+     */
+    public ManualEventClock(long start) {
+        this.now = start;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long now() {
+        return now;
+    }
+
+    /**
+     * {@inheritDoc}
+     * A manual clock never waits; its time is moved explicitly.
+     */
+    @Override
+    public long toRealDelay(long eventMillis) {
+        return 0;
+    }
+
+    /**
+     * Moves the clock forward to the given time. Moving backwards is ignored.
+     *
+     * @param time The new time in milliseconds since epoch.
+     */
+    public void advanceTo(long time) {
+        now = Math.max(now, time);
+    }
+
+    /**
+     * Moves the clock forward by the given span.
+     *
+     * @param millis The span to advance in milliseconds; negative values are ignored.
+     */
+    public void advanceBy(long millis) {
+        now += Math.max(0, millis);
+    }
+}
@@ -0,0 +1,43 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.models.Event;
+
+/**
+ * {@link ActiveEventService} that never moves the active event pointer, for headless simulations, whose events
+ * must not become the deployment's active event.
+ */
+class NoOpActiveEventService implements ActiveEventService {
+
+    /**
+     * {@inheritDoc}
+     * There never is one.
+     */
+    @Override
+    public Long getActiveEventId() {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Does nothing.
+     */
+    @Override
+    public void started(Event event) {
+    }
+
+    /**
+     * {@inheritDoc}
+     * Does nothing.
+     */
+    @Override
+    public void stopped(Long eventId) {
+    }
+
+    /**
+     * {@inheritDoc}
+     * Does nothing.
+     */
+    @Override
+    public void refresh() {
+    }
+}
@@ -0,0 +1,62 @@
+package com.retriage.retriage.services;
+
+import java.util.Set;
+
+/**
+ * {@link EventLeaseService} for headless simulations, which run on a single detached runtime. That runtime is the
+ * only one working on its events, so it always holds their leases and is never a follower.
+ */
+class NoOpEventLeaseService implements EventLeaseService {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getNodeId() {
+        return "detached";
+    }
+
+    /**
+     * {@inheritDoc}
+     * Leases are never renewed, so this is only informative.
+     */
+    @Override
+    public long getRenewInterval() {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Every lease is held.
+     */
+    @Override
+    public boolean holds(Long eventId) {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Every lease is held.
+     */
+    @Override
+    public boolean acquire(Long eventId) {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Does nothing.
+     */
+    @Override
+    public void release(Long eventId) {
+    }
+
+    /**
+     * {@inheritDoc}
+     * Nothing is stored, so nothing is renewed.
+     */
+    @Override
+    public Set<Long> renew() {
+        return Set.of();
+    }
+}
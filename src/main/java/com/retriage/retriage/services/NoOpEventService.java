@@ -0,0 +1,120 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.EventSummaryPage;
+
+import java.util.List;
+
+/**
+ * {@link EventService} without a database, for headless simulations. Nothing is stored: lookups find nothing,
+ * and an update is accepted as given so an event adopted in memory can be persisted without effect.
+ */
+class NoOpEventService implements EventService {
+
+    /**
+     * {@inheritDoc}
+     * Nothing is stored.
+     */
+    @Override
+    public boolean saveEvent(Event event) {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * No event is stored.
+     */
+    @Override
+    public Event findEventById(Long id) {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * No event is stored.
+     */
+    @Override
+    public boolean existsEventById(Long id) {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * No event is stored.
+     */
+    @Override
+    public Long findEventVersion(Long id) {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Does nothing; the in-memory copy is the only one.
+     */
+    @Override
+    public void incrementEventVersion(Long id) {
+    }
+
+    /**
+     * {@inheritDoc}
+     * The update is accepted as given, without being stored.
+     */
+    @Override
+    public Event updateEvent(long id, Event event) {
+        return event;
+    }
+
+    /**
+     * {@inheritDoc}
+     * No event is stored.
+     */
+    @Override
+    public List<Event> findAllEvents() {
+        return List.of();
+    }
+
+    /**
+     * {@inheritDoc}
+     * No event is stored.
+     */
+    @Override
+    public EventSummaryPage findEventSummaries(Status status, Long from, Long to, Long after, int limit) {
+        return new EventSummaryPage(List.of(), null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Does nothing; no event is stored.
+     */
+    @Override
+    public void deleteEventById(Long id) {
+    }
+
+    /**
+     * {@inheritDoc}
+     * No event is stored.
+     */
+    @Override
+    public Event findActiveEvent() {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * No event is stored.
+     */
+    @Override
+    public List<Event> findRunningEvents() {
+        return List.of();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The event is returned unchanged.
+     */
+    @Override
+    public Event resetEventById(Event event) {
+        return event;
+    }
+}
@@ -0,0 +1,313 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Condition;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The in-memory service queue of a single MedService {@link PatientPool}.
+ * A pool can process up to {@link PatientPool#getConcurrency()} patients at once; every other patient
+ * waits in a sorted set ordered by {@link Condition} (Immediate, then Delayed, then Minor) and, within the same
+ * condition, by arrival. Admission, removal and dispatch are {@code O(log n)} in the number of waiting patients.
+ * <p>
+ * A processed patient keeps its server until it is discharged, as before. The pool's patient list is replaced by a
+ * read-only view for clients and the database, listing the patients in service followed by the waiting patients in
+ * dispatch order. The view reads the queue as it is iterated, so nothing is copied or sorted when the pool changes.
+ * This class is not thread-safe and is guarded by the runtime's lock.
+ */
+public class PatientPoolQueue {
+    /**
+     * The pool this queue serves.
+     */
+    private final PatientPool pool;
+    /**
+     * The patients currently holding a server, processed or not.
+     */
+    private final List<Patient> inService = new ArrayList<>();
+    /**
+     * The patients waiting for a server, in dispatch order.
+     */
+    private final TreeSet<Waiting> waiting = new TreeSet<>();
+    /**
+     * The entry of each waiting patient in {@link #waiting}, so a patient can be taken out without a scan.
+     */
+    private final Map<Patient, Waiting> waitingEntries = new IdentityHashMap<>();
+    /**
+     * Arrival counter used to keep patients of the same condition in first-come, first-served order.
+     */
+    private long arrivals;
+
+    /**
+     * Builds the queue of a pool from its current patient list.
+     * A patient counts as in service if it has a processing start time and, when {@code inServiceBefore} is given,
+     * was already in service in this pool, so a patient moved over from another pool does not bring its old timer.
+     * Pools saved before per-patient timers existed fall back to the pool's timer for their first patient.
+     * The pool's patient list is replaced by a view of this queue.
+     *
+     * @param pool            The MedService pool.
+     * @param inServiceBefore The IDs of the patients that were in service in this pool before, or {@code null} to trust the stored timers.
+     */
+    public PatientPoolQueue(PatientPool pool, Set<Long> inServiceBefore) {
+        this.pool = pool;
+        List<Patient> patients = pool.getPatients() == null ? List.of() : new ArrayList<>(pool.getPatients());
+        boolean legacyTimer = pool.getStartedProcessingAt() != null
+                && patients.stream().allMatch(patient -> patient.getStartedProcessingAt() == null);
+        for (Patient patient : patients) {
+            if (legacyTimer && patient == patients.getFirst()) {
+                patient.setStartedProcessingAt(pool.getStartedProcessingAt());
+            }
+            boolean wasInService = inServiceBefore == null || (patient.getId() != null && inServiceBefore.contains(patient.getId()));
+            if (patient.getStartedProcessingAt() != null && wasInService && inService.size() < capacity()) {
+                inService.add(patient);
+            } else {
+                patient.setStartedProcessingAt(null);
+                enqueue(patient);
+            }
+        }
+        pool.setPatients(new PoolPatients());
+    }
+
+    /**
+     * Returns the number of patients the pool can process at once. Pools stored without a concurrency count as one.
+     *
+     * @param pool The pool to inspect.
+     * @return The pool's concurrency, at least {@code 1}.
+     */
+    public static int concurrencyOf(PatientPool pool) {
+        return Math.max(1, pool.getConcurrency());
+    }
+
+    /**
+     * Returns the dispatch rank of a condition; lower ranks are served first.
+     *
+     * @param condition The condition of a waiting patient. May be {@code null}.
+     * @return The rank of the condition.
+     */
+    public static int priorityOf(Condition condition) {
+        if (condition == null) {
+            return Integer.MAX_VALUE;
+        }
+        return switch (condition) {
+            case Immediate -> 0;
+            case Delayed -> 1;
+            case Minor -> 2;
+            case Deceased -> 3;
+        };
+    }
+
+    /**
+     * Checks whether the pool can take another patient. A {@code queueSize} of {@code 0} means the pool has no limit.
+     *
+     * @param pool The pool to inspect.
+     * @return {@code true} if another patient may be admitted.
+     */
+    public static boolean hasRoom(PatientPool pool) {
+        int size = pool.getPatients() == null ? 0 : pool.getPatients().size();
+        return pool.getQueueSize() <= 0 || size < pool.getQueueSize();
+    }
+
+    /**
+     * Admits a patient to the pool and starts processing it straight away if a server is free.
+     *
+     * @param patient The patient to admit.
+     * @param now     The current time in milliseconds since epoch.
+     * @return {@code true} if the patient was admitted, {@code false} if the pool is full.
+     */
+    public boolean admit(Patient patient, long now) {
+        if (!hasRoom(pool)) {
+            return false;
+        }
+        patient.setProcessed(false);
+        patient.setStartedProcessingAt(null);
+        enqueue(patient);
+        dispatch(now);
+        return true;
+    }
+
+    /**
+     * Removes a patient from the pool, freeing its server if it had one, and dispatches the next waiting patients.
+     *
+     * @param patient The patient to remove.
+     * @param now     The current time in milliseconds since epoch.
+     * @return The patients that started processing on the freed server, or {@code null} if the patient was not in this pool.
+     */
+    public List<Patient> remove(Patient patient, long now) {
+        Waiting entry = waitingEntries.remove(patient);
+        boolean removed = entry != null ? waiting.remove(entry) : inService.remove(patient);
+        if (!removed) {
+            return null;
+        }
+        patient.setStartedProcessingAt(null);
+        return dispatch(now);
+    }
+
+    /**
+     * Marks every patient in service whose processing time has passed as processed. Processed patients are
+     * discharged from the pool if it auto-discharges, and their servers go to the next waiting patients.
+     *
+     * @param now The current time in milliseconds since epoch.
+     * @return The patients that completed processing.
+     */
+    public List<Patient> completeDue(long now) {
+        List<Patient> completed = new ArrayList<>();
+        Iterator<Patient> iterator = inService.iterator();
+        while (iterator.hasNext()) {
+            Patient patient = iterator.next();
+            if (!patient.isProcessed() && patient.getStartedProcessingAt() + pool.getProcessTime() <= now) {
+                patient.setProcessed(true);
+                completed.add(patient);
+                if (pool.isAutoDischarge()) {
+                    patient.setStartedProcessingAt(null);
+                    iterator.remove();
+                }
+            }
+        }
+        dispatch(now);
+        return completed;
+    }
+
+    /**
+     * Starts processing waiting patients, highest priority first, until every server is busy.
+     * The pool's own timer is updated afterwards.
+     *
+     * @param now The current time in milliseconds since epoch.
+     * @return The patients that started processing.
+     */
+    public List<Patient> dispatch(long now) {
+        List<Patient> started = new ArrayList<>();
+        while (inService.size() < capacity() && !waiting.isEmpty()) {
+            Patient patient = waiting.pollFirst().patient();
+            waitingEntries.remove(patient);
+            patient.setStartedProcessingAt(now);
+            inService.add(patient);
+            started.add(patient);
+        }
+        syncTimer();
+        return started;
+    }
+
+    /**
+     * Gets the patients currently holding a server.
+     *
+     * @return The patients in service.
+     */
+    public List<Patient> getInService() {
+        return inService;
+    }
+
+    /**
+     * Gets the number of patients waiting for a server.
+     *
+     * @return The number of waiting patients.
+     */
+    public int getWaitingCount() {
+        return waiting.size();
+    }
+
+    /**
+     * Returns the number of servers of this queue's pool.
+     *
+     * @return The pool's concurrency.
+     */
+    private int capacity() {
+        return concurrencyOf(pool);
+    }
+
+    /**
+     * Puts a patient at the back of its condition's line.
+     *
+     * @param patient The patient to queue.
+     */
+    private void enqueue(Patient patient) {
+        Waiting entry = new Waiting(patient, priorityOf(patient.getCondition()), arrivals++);
+        waiting.add(entry);
+        waitingEntries.put(patient, entry);
+    }
+
+    /**
+     * Keeps the pool's own timer on the earliest unfinished patient in service for older clients.
+     * Only looks at the servers, so it costs {@code O(concurrency)}.
+     */
+    private void syncTimer() {
+        pool.setStartedProcessingAt(inService.stream()
+                .filter(patient -> !patient.isProcessed())
+                .map(Patient::getStartedProcessingAt)
+                .min(Long::compare)
+                .orElse(pool.getStartedProcessingAt()));
+    }
+
+    /**
+     * A patient waiting for a server.
+     *
+     * @param patient  The waiting patient.
+     * @param priority The rank of the patient's condition when it joined the queue.
+     * @param arrival  The order in which the patient joined the queue.
+     */
+    private record Waiting(Patient patient, int priority, long arrival) implements Comparable<Waiting> {
+        @Override
+        public int compareTo(Waiting other) {
+            int byCondition = Integer.compare(priority, other.priority);
+            return byCondition != 0 ? byCondition : Long.compare(arrival, other.arrival);
+        }
+    }
+
+    /**
+     * The pool's patient list as seen by clients and the database: the patients in service followed by the
+     * waiting patients in dispatch order. It is read-only; patients join and leave through the queue.
+     * Indexed access walks the list, which is fine for the first few patients the callers look at.
+     */
+    private class PoolPatients extends AbstractList<Patient> {
+        @Override
+        public int size() {
+            return inService.size() + waiting.size();
+        }
+
+        @Override
+        public Patient get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            if (index < inService.size()) {
+                return inService.get(index);
+            }
+            Iterator<Waiting> iterator = waiting.iterator();
+            for (int i = inService.size(); i < index; i++) {
+                iterator.next();
+            }
+            return iterator.next().patient();
+        }
+
+        @Override
+        public Iterator<Patient> iterator() {
+            Iterator<Patient> servers = inService.iterator();
+            Iterator<Waiting> queued = waiting.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return servers.hasNext() || queued.hasNext();
+                }
+
+                @Override
+                public Patient next() {
+                    if (servers.hasNext()) {
+                        return servers.next();
+                    }
+                    if (queued.hasNext()) {
+                        return queued.next().patient();
+                    }
+                    throw new NoSuchElementException();
+                }
+            };
+        }
+    }
+}
@@ -134,5 +134,9 @@ public class PatientPoolTmpServiceImp implements PatientPoolTmpService {
             logger.warn("validatePoolTmp - Pool number is less than 1.");
             throw new IllegalArgumentException("Pool number must be at least 1.");
         }
+        if (pool.getConcurrency() < 1) {
+            logger.warn("validatePoolTmp - Concurrency is less than 1.");
+            throw new IllegalArgumentException("Concurrency must be at least 1.");
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.PoolType;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Deadline heap of {@link PatientPool} processing completions, keyed by the time the earliest patient
+ * in service is due to finish. A tick only has to look at the head of the heap instead of scanning
+ * every pool, so its cost depends on the number of pools that are actually due.
+ * <p>
+ * Rescheduling a pool does not search the heap; the previous entry is left in place and skipped
+ * when it reaches the head. This class is not thread-safe and is guarded by the runtime's lock.
+ */
+public class PoolDeadlineQueue {
+    /**
+     * Pending deadlines ordered by due time, including superseded entries.
+     */
+    private final PriorityQueue<Deadline> heap = new PriorityQueue<>();
+    /**
+     * The current deadline of each scheduled pool. Pools are compared by identity because a pool
+     * created by a client may not have an ID yet.
+     */
+    private final Map<PatientPool, Deadline> current = new IdentityHashMap<>();
+
+    /**
+     * Computes when the earliest patient being processed in the given pool is due to complete.
+     * Patients in service lead the pool's patient list, so only those are looked at. A pool without
+     * per-patient start times falls back to the pool's own timer for its first patient.
+     *
+     * @param pool The pool to inspect.
+     * @return The completion time in milliseconds since epoch, or {@code null} if the pool has nothing to complete.
+     */
+    public static Long deadlineOf(PatientPool pool) {
+        if (pool.getPoolType() != PoolType.MedService || pool.getPatients() == null || pool.getPatients().isEmpty()
+                || pool.getProcessTime() == null) {
+            return null;
+        }
+        Long earliest = null;
+        for (Patient patient : pool.getPatients()) {
+            Long started = patient.getStartedProcessingAt();
+            if (started == null && patient == pool.getPatients().getFirst()) {
+                started = pool.getStartedProcessingAt();
+            }
+            if (started == null) {
+                break; // The remaining patients are waiting for a server
+            }
+            if (!patient.isProcessed() && (earliest == null || started < earliest)) {
+                earliest = started;
+            }
+        }
+        return earliest == null ? null : earliest + pool.getProcessTime();
+    }
+
+    /**
+     * Clears the queue and schedules every pool of the given list that has a pending completion.
+     *
+     * @param pools The pools of the running event.
+     */
+    public void rebuild(List<PatientPool> pools) {
+        heap.clear();
+        current.clear();
+        if (pools != null) {
+            for (PatientPool pool : pools) {
+                reschedule(pool);
+            }
+        }
+    }
+
+    /**
+     * Recomputes the deadline of a single pool after its patients or timer changed.
+     * The pool is removed from the queue if it no longer has a pending completion.
+     *
+     * @param pool The pool to reschedule.
+     */
+    public void reschedule(PatientPool pool) {
+        Long dueAt = deadlineOf(pool);
+        if (dueAt == null) {
+            current.remove(pool);
+            return;
+        }
+        Deadline deadline = new Deadline(dueAt, pool);
+        current.put(pool, deadline);
+        heap.add(deadline);
+    }
+
+    /**
+     * Removes and returns every pool whose deadline is at or before the given time.
+     *
+     * @param now The current time in milliseconds since epoch.
+     * @return The due pools in deadline order. Returns an empty list if none are due.
+     */
+    public List<PatientPool> pollDue(long now) {
+        List<PatientPool> due = new ArrayList<>();
+        while (!heap.isEmpty() && heap.peek().dueAt() <= now) {
+            Deadline deadline = heap.poll();
+            if (current.get(deadline.pool()) == deadline) {
+                current.remove(deadline.pool());
+                due.add(deadline.pool());
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Returns the earliest pending deadline without removing it.
+     *
+     * @return The earliest deadline in milliseconds since epoch, or {@code null} if nothing is scheduled.
+     */
+    public Long nextDeadline() {
+        while (!heap.isEmpty() && current.get(heap.peek().pool()) != heap.peek()) {
+            heap.poll(); // Drop superseded entries so the head is always live
+        }
+        return heap.isEmpty() ? null : heap.peek().dueAt();
+    }
+
+    /**
+     * Returns the number of pools that currently have a pending completion.
+     *
+     * @return The number of scheduled pools.
+     */
+    public int size() {
+        return current.size();
+    }
+
+    /**
+     * A scheduled completion of a pool.
+     *
+     * @param dueAt The completion time in milliseconds since epoch.
+     * @param pool  The pool that completes at that time.
+     */
+    private record Deadline(long dueAt, PatientPool pool) implements Comparable<Deadline> {
+        @Override
+        public int compareTo(Deadline other) {
+            return Long.compare(dueAt, other.dueAt);
+        }
+    }
+}
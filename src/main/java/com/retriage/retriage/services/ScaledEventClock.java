@@ -0,0 +1,57 @@
+package com.retriage.retriage.services;
+
+/**
+ * {@link EventClock} that runs a fixed number of times faster than the system clock, so an instructor can
+ * watch a long scenario play out in a fraction of the time. Event time starts at the system time when the
+ * clock is created and then advances {@code speed} milliseconds per real millisecond.
+ * <p>
+ * Timestamps stamped by this clock drift away from wall-clock time, so it is intended for training servers
+ * rather than servers that also run live drills.
+ */
+public class ScaledEventClock implements EventClock {
+    /**
+     * The number of event milliseconds per real millisecond.
+     */
+    private final double speed;
+    /**
+     * The system time at which the clock was created.
+     */
+    private final long realAnchor;
+
+    /**
+     * Constructs a clock running at the given speed, anchored at the current system time.
+     *
+     * @param speed The number of event milliseconds per real millisecond; must be positive.
+     */
+    public ScaledEventClock(double speed) {
+        if (speed <= 0) {
+            throw new IllegalArgumentException("Clock speed must be positive.");
+        }
+        this.speed = speed;
+        this.realAnchor = System.currentTimeMillis();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long now() {
+        return realAnchor + (long) ((System.currentTimeMillis() - realAnchor) * speed);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long toRealDelay(long eventMillis) {
+        return (long) Math.ceil(eventMillis / speed);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getSpeed() {
+        return speed;
+    }
+}
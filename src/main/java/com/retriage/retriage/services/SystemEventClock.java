@@ -0,0 +1,15 @@
+package com.retriage.retriage.services;
+
+/**
+ * {@link EventClock} that follows the system clock. This is the default for live events.
+ */
+public class SystemEventClock implements EventClock {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long now() {
+        return System.currentTimeMillis();
+    }
+}
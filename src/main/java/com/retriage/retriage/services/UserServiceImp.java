@@ -70,8 +70,8 @@ public class UserServiceImp implements UserService {
     public User getUserByEmail(String email) {
         if (email != null && !email.trim().isEmpty()) { // Check for null or empty email
             try {
-                // findByEmailIgnoreCase is provided by Spring Data JPA based on repository method naming
-                List<User> users = userRepository.findByEmailIgnoreCase(email);
+                // Matches the indexed, normalized email instead of comparing lower(email) row by row
+                List<User> users = userRepository.findByEmailNormalized(User.normalizeEmail(email));
                 if (users.size() == 1) {
                     logger.info("getUserByEmail - User found with email: {}", email);
                     return users.getFirst();
@@ -0,0 +1,58 @@
+-- Schema as created by spring.jpa.hibernate.ddl-auto=update before migrations were introduced.
+-- Databases created that way are baselined at this version and skip this script.
+create table events (
+    status                tinyint,
+    duration              bigint,
+    id                    bigint       not null auto_increment,
+    remaining_duration    bigint       not null,
+    start_time            bigint,
+    time_of_status_change bigint       not null,
+    name                  varchar(255),
+    primary key (id)
+) engine = InnoDB;
+
+create table patient_pool (
+    auto_discharge        bit          not null,
+    pool_type             tinyint,
+    queue_size            integer      not null,
+    event_id              bigint,
+    id                    bigint       not null auto_increment,
+    process_time          bigint,
+    started_processing_at bigint,
+    icon                  varchar(255),
+    name                  varchar(255),
+    primary key (id)
+) engine = InnoDB;
+
+create table patient_pool_templates (
+    auto_discharge bit          not null,
+    pool_number    integer      not null,
+    pool_type      tinyint,
+    queue_size     integer      not null,
+    id             bigint       not null auto_increment,
+    process_time   bigint,
+    icon           varchar(255),
+    name           varchar(255),
+    primary key (id)
+) engine = InnoDB;
+
+create table patients (
+    processed         bit          not null,
+    id                bigint       not null auto_increment,
+    pool_id           bigint,
+    card_id           varchar(255) not null,
+    patient_condition enum ('Deceased','Delayed','Immediate','Minor') not null,
+    primary key (id)
+) engine = InnoDB;
+
+create table users (
+    role       tinyint      not null,
+    id         bigint       not null auto_increment,
+    email      varchar(255) not null,
+    first_name varchar(255) not null,
+    last_name  varchar(255) not null,
+    primary key (id)
+) engine = InnoDB;
+
+alter table patient_pool add constraint fk_patient_pool_event foreign key (event_id) references events (id);
+alter table patients add constraint fk_patients_pool foreign key (pool_id) references patient_pool (id);
@@ -0,0 +1,24 @@
+-- Optimistic locking versions, MedService concurrency, per-patient processing start and event clock leases.
+alter table events
+    add column version bigint not null default 0;
+
+alter table patient_pool
+    add column concurrency integer not null default 1,
+    add column version     bigint  not null default 0;
+
+alter table patient_pool_templates
+    add column concurrency integer not null default 1;
+
+alter table patients
+    add column started_processing_at bigint,
+    add column version               bigint not null default 0;
+
+create table event_leases (
+    event_id   bigint not null,
+    expires_at bigint not null,
+    node_id    varchar(255),
+    primary key (event_id)
+) engine = InnoDB;
+
+create index idx_event_leases_node_id on event_leases (node_id);
+create index idx_event_leases_expires_at on event_leases (expires_at);
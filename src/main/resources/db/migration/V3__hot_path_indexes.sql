@@ -0,0 +1,18 @@
+-- Indexes for the lookups made on every tick, read and login.
+
+-- Running events are looked up by status
+create index idx_events_status on events (status);
+
+-- Pools and patients are loaded by their owner. These replace the indexes InnoDB creates implicitly for the
+-- foreign keys; the unique key on patients leads with pool_id, so it serves pool lookups as well.
+create index idx_patient_pool_event_id on patient_pool (event_id);
+
+-- A card can only be held once per pool, so a patient creation applied twice is rejected. Patients of ended or
+-- reset events keep their rows and cards, so cards are not unique across the whole table.
+alter table patients add constraint uk_patients_pool_card unique (pool_id, card_id);
+
+-- Users are looked up by their normalized email instead of lower(email), which no index can serve.
+alter table users add column email_normalized varchar(255);
+update users set email_normalized = lower(trim(email));
+alter table users modify column email_normalized varchar(255) not null;
+alter table users add constraint uk_users_email_normalized unique (email_normalized);
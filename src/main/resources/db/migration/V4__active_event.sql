@@ -0,0 +1,14 @@
+-- The pointer to the active event, the running event most recently started or resumed. The table holds a single
+-- row, so reading the active event is a primary key lookup and two events can never be active at once.
+create table active_event (
+    id         bigint not null,
+    event_id   bigint,
+    started_at bigint not null,
+    primary key (id)
+) engine = InnoDB;
+
+-- Points to the event an upgraded database considers active: the latest running one (status 0 is Running)
+insert into active_event (id, event_id, started_at)
+values (1,
+        (select id from events where status = 0 order by time_of_status_change desc, id desc limit 1),
+        coalesce((select max(time_of_status_change) from events where status = 0), 0));
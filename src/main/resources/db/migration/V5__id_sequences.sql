@@ -0,0 +1,18 @@
+-- Sequences for the IDs of events, pools and patients, so Hibernate can assign IDs before inserting and batch the
+-- inserts. MySQL has no sequences; Hibernate emulates each one with a single-row table holding the next value.
+-- IDs are handed out in blocks starting at next_val (the pooled-lo optimizer), so each table starts above the
+-- highest ID already in use. The auto_increment columns are kept; the IDs Hibernate assigns take precedence.
+create table events_seq (
+    next_val bigint
+) engine = InnoDB;
+insert into events_seq (next_val) select coalesce(max(id), 0) + 1 from events;
+
+create table patient_pool_seq (
+    next_val bigint
+) engine = InnoDB;
+insert into patient_pool_seq (next_val) select coalesce(max(id), 0) + 1 from patient_pool;
+
+create table patients_seq (
+    next_val bigint
+) engine = InnoDB;
+insert into patients_seq (next_val) select coalesce(max(id), 0) + 1 from patients;
@@ -0,0 +1,110 @@
+package com.retriage.retriage.configurations;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Checks that a client that falls behind only receives the newest state and never more than its buffer allows.
+ */
+public class CoalescingSessionDecoratorTest {
+
+    private final WebSocketSessionRegistry registry = new WebSocketSessionRegistry(10_000, 1_000, false);
+    private final WebSocketSession delegate = mock(WebSocketSession.class);
+    // Holds the sender back, like a client that has not read anything yet
+    private final List<Runnable> senders = new ArrayList<>();
+
+    private TextMessage frame(String destination, String body) {
+        return new TextMessage("MESSAGE\ndestination:" + destination + "\nsubscription:sub-0\n\n" + body + "\0");
+    }
+
+    private List<String> drain(CoalescingSessionDecorator session, int expected) throws Exception {
+        new ArrayList<>(senders).forEach(Runnable::run);
+        ArgumentCaptor<WebSocketMessage<?>> sent = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(delegate, times(expected)).sendMessage(sent.capture());
+        return sent.getAllValues().stream().map(message -> (String) message.getPayload()).toList();
+    }
+
+    @Test
+    void stateMessagesAreCoalesced() throws Exception {
+        CoalescingSessionDecorator session = new CoalescingSessionDecorator(delegate, registry, senders::add, 1_000);
+        session.sendMessage(frame("/topic/events/1/pools/2", "first"));
+        session.sendMessage(frame("/topic/events/1", "delta"));
+        session.sendMessage(frame("/topic/events/1/pools/2", "second"));
+
+        List<String> sent = drain(session, 2);
+
+        assertEquals(1, senders.size());
+        assertEquals(1, registry.getStats().getCoalescedMessages());
+        assertTrue(sent.get(0).endsWith("second\0"));
+        assertTrue(sent.get(1).endsWith("delta\0"));
+    }
+
+    @Test
+    void oldestMessagesAreDroppedWhenTheBufferIsFull() throws Exception {
+        CoalescingSessionDecorator session = new CoalescingSessionDecorator(delegate, registry, senders::add, 300);
+        for (int i = 0; i < 10; i++) {
+            session.sendMessage(frame("/topic/events/1", "delta-" + i + "-" + "x".repeat(50)));
+        }
+
+        // Each frame is about 120 bytes, so only the newest two fit
+        List<String> sent = drain(session, 2);
+
+        assertEquals(8, registry.getStats().getDroppedMessages());
+        assertTrue(sent.get(0).contains("delta-8-"));
+        assertTrue(sent.get(1).contains("delta-9-"));
+        assertEquals(0, session.getBufferSize());
+    }
+
+    @Test
+    void repliesAndControlFramesAreNeverDropped() throws Exception {
+        CoalescingSessionDecorator session = new CoalescingSessionDecorator(delegate, registry, senders::add, 300);
+        session.sendMessage(new TextMessage("CONNECTED\nversion:1.2\n\n\0"));
+        // The full state a resyncing client waits for
+        session.sendMessage(frame("/ws/events/state", "state-" + "x".repeat(50)));
+        for (int i = 0; i < 10; i++) {
+            session.sendMessage(frame("/topic/events/1", "delta-" + i + "-" + "x".repeat(50)));
+        }
+
+        List<String> sent = drain(session, 3);
+
+        assertTrue(sent.get(0).startsWith("CONNECTED"));
+        assertTrue(sent.get(1).contains("state-"));
+        assertTrue(sent.get(2).contains("delta-9-"));
+        assertEquals(9, registry.getStats().getDroppedMessages());
+    }
+
+    @Test
+    void messageBeingSentDoesNotPushOutNewerDeltas() throws Exception {
+        CoalescingSessionDecorator session = new CoalescingSessionDecorator(delegate, registry, senders::add, 300);
+        TextMessage state = frame("/ws/events/state", "y".repeat(1_000));
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) == state) {
+                // Deltas arriving while the large state is still on its way
+                session.sendMessage(frame("/topic/events/1", "delta-1"));
+                session.sendMessage(frame("/topic/events/1", "delta-2"));
+            }
+            return null;
+        }).when(delegate).sendMessage(any());
+        session.sendMessage(state);
+
+        List<String> sent = drain(session, 3);
+
+        assertEquals(0, registry.getStats().getDroppedMessages());
+        assertTrue(sent.get(1).contains("delta-1"));
+        assertTrue(sent.get(2).contains("delta-2"));
+    }
+}
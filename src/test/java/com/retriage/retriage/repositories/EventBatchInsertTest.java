@@ -0,0 +1,91 @@
+package com.retriage.retriage.repositories;
+
+import com.retriage.retriage.enums.PoolType;
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.PatientPool;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Benchmarks creating an event from a large template set at several sizes: with IDs taken from sequences in blocks
+ * and inserts sent in batches, the statements grow with the number of batches rather than the number of pools.
+ * With IDENTITY keys, every pool would instead cost its own insert, so the count would grow by one per pool.
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.retriage.retriage.repositories.QueryCountInspector",
+        // The migrations are written for MySQL; on H2 the schema is generated from the entities instead
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+public class EventBatchInsertTest {
+    private static final Logger logger = LoggerFactory.getLogger(EventBatchInsertTest.class);
+
+    @Autowired
+    private EventRepo eventRepo;
+
+    private Event createEvent(int pools) {
+        Event event = new Event();
+        event.setName("Mass casualty drill");
+        event.setStatus(Status.Created);
+        event.setDuration(3_600_000L);
+        event.setRemainingDuration(3_600_000L);
+        event.setPools(new ArrayList<>());
+        for (int i = 0; i < pools; i++) {
+            PatientPool pool = new PatientPool();
+            pool.setName("Bay " + i);
+            pool.setPoolType(PoolType.Bay);
+            pool.setProcessTime(3_600_000L);
+            pool.setPatients(new ArrayList<>());
+            event.getPools().add(pool);
+        }
+        return event;
+    }
+
+    /**
+     * Saves an event with the given number of pools and counts the statements it takes.
+     *
+     * @param pools The number of pools.
+     * @return The number of statements prepared.
+     */
+    private int statementsToSave(int pools) {
+        Event event = createEvent(pools);
+        QueryCountInspector.reset();
+        long start = System.nanoTime();
+        Event saved = eventRepo.saveAndFlush(event);
+        long elapsed = System.nanoTime() - start;
+        int statements = QueryCountInspector.count();
+
+        logger.info("Created an event with {} pools in {} statements ({} ms).", pools, statements, elapsed / 1_000_000);
+        assertEquals(pools, saved.getPools().stream().map(PatientPool::getId).distinct().count());
+        return statements;
+    }
+
+    @Test
+    void save_StatementsGrowPerBatchNotPerPool() {
+        int[] sizes = {100, 500, 1_000};
+        int[] statements = new int[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            statements[i] = statementsToSave(sizes[i]);
+            int batches = sizes[i] / Event.ID_ALLOCATION_SIZE;
+            // Per block of pools: one sequence call, one batch of inserts and one batch linking them to the event
+            assertTrue(statements[i] <= 3 * batches + 2, sizes[i] + " pools took " + statements[i] + " statements");
+        }
+        for (int i = 1; i < sizes.length; i++) {
+            int addedBatches = (sizes[i] - sizes[i - 1]) / Event.ID_ALLOCATION_SIZE;
+            int added = statements[i] - statements[i - 1];
+            // An IDENTITY baseline would add at least one statement per added pool
+            assertTrue(added <= 3 * addedBatches, (sizes[i] - sizes[i - 1]) + " more pools took " + added + " more statements");
+        }
+    }
+}
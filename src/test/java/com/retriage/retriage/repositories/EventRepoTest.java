@@ -0,0 +1,143 @@
+package com.retriage.retriage.repositories;
+
+import com.retriage.retriage.enums.Condition;
+import com.retriage.retriage.enums.PoolType;
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.EventSummary;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that reading events with their whole graph costs a constant number of statements, however many pools
+ * they have, so serializing them cannot fall back to one query per pool, and that event summaries are read with a
+ * single statement.
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.retriage.retriage.repositories.QueryCountInspector",
+        // The migrations are written for MySQL; on H2 the schema is generated from the entities instead
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+public class EventRepoTest {
+
+    private static final int POOLS = 60;
+    private static final int PATIENTS_PER_POOL = 3;
+
+    @Autowired
+    private EventRepo eventRepo;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Long runningId;
+    private Long endedId;
+
+    private Event createEvent(String name, Status status, long startTime) {
+        Event event = new Event();
+        event.setName(name);
+        event.setStatus(status);
+        event.setStartTime(startTime);
+        event.setDuration(60_000L);
+        event.setRemainingDuration(60_000L);
+        event.setPools(new ArrayList<>());
+        for (int i = 0; i < POOLS; i++) {
+            PatientPool pool = new PatientPool();
+            pool.setName(name + " pool " + i);
+            pool.setPoolType(i == 0 ? PoolType.Bay : PoolType.MedService);
+            pool.setProcessTime(60_000L);
+            pool.setPatients(new ArrayList<>());
+            for (int j = 0; j < PATIENTS_PER_POOL; j++) {
+                Patient patient = new Patient();
+                patient.setCardId(name + "-" + i + "-" + j);
+                patient.setCondition(Condition.Delayed);
+                pool.getPatients().add(patient);
+            }
+            event.getPools().add(pool);
+        }
+        return entityManager.persist(event);
+    }
+
+    /**
+     * Touches every pool and patient of the events, as serializing them would.
+     */
+    private int countPatients(List<Event> events) {
+        int patients = 0;
+        for (Event event : events) {
+            for (PatientPool pool : event.getPools()) {
+                patients += pool.getPatients().size();
+            }
+        }
+        return patients;
+    }
+
+    @BeforeEach
+    void setUp() {
+        runningId = createEvent("running", Status.Running, 1_000L).getId();
+        endedId = createEvent("ended", Status.Ended, 2_000L).getId();
+        entityManager.flush();
+        entityManager.clear();
+        QueryCountInspector.reset();
+    }
+
+    @Test
+    void findById_LoadsWholeGraphInTwoStatements() {
+        Event event = eventRepo.findById(runningId).orElseThrow();
+
+        assertEquals(POOLS * PATIENTS_PER_POOL, countPatients(List.of(event)));
+        assertEquals(2, QueryCountInspector.count());
+    }
+
+    @Test
+    void findByStatus_LoadsWholeGraphInTwoStatements() {
+        List<Event> events = eventRepo.findByStatus(Status.Running);
+
+        assertEquals(1, events.size());
+        assertEquals(POOLS * PATIENTS_PER_POOL, countPatients(events));
+        assertEquals(2, QueryCountInspector.count());
+    }
+
+    @Test
+    void findAll_LoadsWholeGraphInTwoStatements() {
+        List<Event> events = eventRepo.findAll();
+
+        assertEquals(2, events.size());
+        assertEquals(2 * POOLS * PATIENTS_PER_POOL, countPatients(events));
+        assertEquals(2, QueryCountInspector.count());
+    }
+
+    @Test
+    void findSummaries_CountsPoolsAndPatientsInOneStatement() {
+        List<EventSummary> summaries = eventRepo.findSummaries(null, null, null, null, PageRequest.of(0, 10));
+
+        assertEquals(List.of(endedId, runningId), summaries.stream().map(EventSummary::getId).toList());
+        assertEquals(POOLS, summaries.getFirst().getPoolCount());
+        assertEquals(POOLS * PATIENTS_PER_POOL, summaries.getFirst().getPatientCount());
+        assertEquals(1, QueryCountInspector.count());
+    }
+
+    @Test
+    void findSummaries_FiltersAndPagesByKeyset() {
+        List<EventSummary> firstPage = eventRepo.findSummaries(null, null, null, null, PageRequest.of(0, 1));
+        List<EventSummary> secondPage = eventRepo.findSummaries(null, null, null, firstPage.getLast().getId(), PageRequest.of(0, 1));
+
+        assertEquals(List.of(endedId), firstPage.stream().map(EventSummary::getId).toList());
+        assertEquals(List.of(runningId), secondPage.stream().map(EventSummary::getId).toList());
+        assertEquals(List.of(runningId), eventRepo.findSummaries(Status.Running, null, null, null, PageRequest.of(0, 10))
+                .stream().map(EventSummary::getId).toList());
+        assertEquals(List.of(endedId), eventRepo.findSummaries(null, 1_500L, 3_000L, null, PageRequest.of(0, 10))
+                .stream().map(EventSummary::getId).toList());
+    }
+}
@@ -0,0 +1,44 @@
+package com.retriage.retriage.repositories;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the SQL statements Hibernate prepares, so repository tests can assert how many a read costs.
+ * Registered through {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}.
+ */
+public class QueryCountInspector implements StatementInspector {
+    /**
+     * The statements prepared since the last reset. Static, since Hibernate creates the inspector itself.
+     */
+    private static final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * Resets the count to zero.
+     */
+    public static void reset() {
+        count.set(0);
+    }
+
+    /**
+     * Gets the number of statements prepared since the last reset.
+     *
+     * @return The number of statements.
+     */
+    public static int count() {
+        return count.get();
+    }
+
+    /**
+     * Counts a statement and leaves it unchanged.
+     *
+     * @param sql The statement.
+     * @return The same statement.
+     */
+    @Override
+    public String inspect(String sql) {
+        count.incrementAndGet();
+        return sql;
+    }
+}
@@ -0,0 +1,57 @@
+package com.retriage.retriage.repositories;
+
+import com.retriage.retriage.enums.Role;
+import com.retriage.retriage.models.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that users are found by their normalized email whatever its case, and that it stays unique.
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+public class UserRepoTest {
+
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User createUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setRole(Role.Nurse);
+        return user;
+    }
+
+    @Test
+    void findByEmailNormalized_IgnoresCaseAndSurroundingSpaces() {
+        entityManager.persistAndFlush(createUser("Nurse.One@Example.com"));
+
+        List<User> users = userRepo.findByEmailNormalized(User.normalizeEmail("  nurse.one@EXAMPLE.com "));
+
+        assertEquals(1, users.size());
+        assertEquals("nurse.one@example.com", users.getFirst().getEmailNormalized());
+    }
+
+    @Test
+    void save_RejectsSameEmailInAnotherCase() {
+        userRepo.saveAndFlush(createUser("nurse.two@example.com"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> userRepo.saveAndFlush(createUser("Nurse.Two@example.com")));
+    }
+}
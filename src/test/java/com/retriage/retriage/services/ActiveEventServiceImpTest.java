@@ -0,0 +1,107 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.models.ActiveEvent;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.repositories.ActiveEventRepo;
+import com.retriage.retriage.repositories.EventRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that the active event pointer only moves to later events, hands over to the next running event when the
+ * active one stops, and is mirrored in memory once the moving transaction commits.
+ */
+@DataJpaTest
+@Import(ActiveEventServiceImp.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Every call commits, as it does in the application
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+public class ActiveEventServiceImpTest {
+
+    @Autowired
+    private ActiveEventService activeEventService;
+    @Autowired
+    private ActiveEventRepo activeEventRepo;
+    @Autowired
+    private EventRepo eventRepo;
+
+    private Event createEvent(String name, long startedAt) {
+        Event event = new Event();
+        event.setName(name);
+        event.setStatus(Status.Running);
+        event.setDuration(60_000L);
+        event.setRemainingDuration(60_000L);
+        event.setTimeOfStatusChange(startedAt);
+        event.setPools(new ArrayList<>());
+        return eventRepo.save(event);
+    }
+
+    @BeforeEach
+    void setUp() {
+        eventRepo.deleteAll();
+        activeEventRepo.deleteAll();
+        activeEventService.refresh();
+    }
+
+    @Test
+    void started_OnlyLaterEventTakesPointer() {
+        Event early = createEvent("Early", 1_000L);
+        Event late = createEvent("Late", 2_000L);
+
+        activeEventService.started(late);
+        activeEventService.started(early); // Loaded after the later one, e.g. at startup
+
+        assertEquals(late.getId(), activeEventService.getActiveEventId());
+        assertEquals(late.getId(), activeEventRepo.findById(ActiveEvent.SINGLETON_ID).orElseThrow().getEventId());
+    }
+
+    @Test
+    void stopped_HandsPointerToNextRunningEvent() {
+        Event first = createEvent("First", 1_000L);
+        Event second = createEvent("Second", 2_000L);
+        activeEventService.started(first);
+        activeEventService.started(second);
+
+        second.setStatus(Status.Paused);
+        eventRepo.save(second);
+        activeEventService.stopped(second.getId());
+        assertEquals(first.getId(), activeEventService.getActiveEventId());
+
+        activeEventService.stopped(second.getId()); // No longer active, so the pointer stays
+        assertEquals(first.getId(), activeEventService.getActiveEventId());
+
+        Event stored = eventRepo.findById(first.getId()).orElseThrow();
+        stored.setStatus(Status.Ended);
+        eventRepo.save(stored);
+        activeEventService.stopped(first.getId());
+        assertNull(activeEventService.getActiveEventId());
+    }
+
+    @Test
+    void refresh_PicksUpPointerMovedElsewhere() {
+        Event event = createEvent("Elsewhere", 1_000L);
+        ActiveEvent pointer = activeEventRepo.findById(ActiveEvent.SINGLETON_ID).orElseThrow();
+        pointer.setEventId(event.getId()); // As another node would have
+        pointer.setStartedAt(1_000L);
+        activeEventRepo.save(pointer);
+        assertNull(activeEventService.getActiveEventId());
+
+        activeEventService.refresh();
+
+        assertEquals(event.getId(), activeEventService.getActiveEventId());
+    }
+}
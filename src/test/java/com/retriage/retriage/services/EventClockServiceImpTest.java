@@ -0,0 +1,229 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Condition;
+import com.retriage.retriage.enums.PoolType;
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.EventClockStats;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks when the event clock plans ticks and how it counts late ones. The clock's time only moves when the test
+ * moves it, and a planned tick is an hour away in real time, so apart from the tick a wake fires straight away,
+ * ticks only fire when the test fires them.
+ */
+public class EventClockServiceImpTest {
+
+    private static final long PROCESS_TIME = 60_000L;
+    private static final long DURATION = 3_600_000L;
+
+    private final ManualEventClock clock = new ManualEventClock(0L) {
+        @Override
+        public long toRealDelay(long eventMillis) {
+            return eventMillis > 0 ? 3_600_000L : 0L;
+        }
+    };
+    private final EventService eventService = mock(EventService.class);
+    private final EventRuntimeServiceImp runtimeService = new EventRuntimeServiceImp(eventService, clock, mock(ActiveEventService.class));
+    private final FakeLeaseService leaseService = new FakeLeaseService();
+    private final EventTimerServiceImp timerService =
+            new EventTimerServiceImp(runtimeService, mock(SimpMessagingTemplate.class), clock, leaseService);
+    private final EventClockServiceImp clockService = new EventClockServiceImp(timerService, runtimeService, clock,
+            leaseService, mock(ActiveEventService.class), 1, false);
+
+    @AfterEach
+    void shutdown() {
+        clockService.shutdown();
+    }
+
+    /**
+     * A running event with one MedService pool whose only patient started processing at time 0.
+     */
+    private Event createEvent(Status status, long duration) {
+        Patient patient = new Patient();
+        patient.setId(10L);
+        patient.setCardId("card-10");
+        patient.setCondition(Condition.Delayed);
+        patient.setStartedProcessingAt(0L);
+        PatientPool pool = new PatientPool();
+        pool.setId(1L);
+        pool.setName("CT");
+        pool.setPoolType(PoolType.MedService);
+        pool.setProcessTime(PROCESS_TIME);
+        pool.setConcurrency(1);
+        pool.setAutoDischarge(true);
+        pool.setPatients(new ArrayList<>(List.of(patient)));
+        Event event = new Event();
+        event.setId(1L);
+        event.setStatus(status);
+        event.setDuration(duration);
+        event.setRemainingDuration(duration);
+        event.setTimeOfStatusChange(0L);
+        event.setPools(new ArrayList<>(List.of(pool)));
+        return event;
+    }
+
+    /**
+     * Wakes the event's clock and waits for the tick a wake fires straight away to plan the next one.
+     *
+     * @return The next planned tick, or {@code null} if the clock went idle.
+     */
+    private Long wake() throws InterruptedException {
+        long now = clock.now();
+        clockService.wake(1L);
+        EventRuntime runtime = runtimeService.getRuntime(1L);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            runtime.getClockLock().lock();
+            try {
+                Long next = runtime.getNextTickAt();
+                if (next == null || next != now) {
+                    return next;
+                }
+            } finally {
+                runtime.getClockLock().unlock();
+            }
+            Thread.sleep(1);
+        }
+        throw new AssertionError("The tick fired by the wake never planned the next one.");
+    }
+
+    @Test
+    void wake_StaysIdleWhileNoEventIsRunning() {
+        clockService.wake(1L);
+
+        EventClockStats stats = clockService.getStats();
+        assertTrue(stats.isIdle());
+        assertEquals(0, stats.getRunningEvents());
+        assertEquals(0, stats.getTickCount());
+        assertFalse(leaseService.holds(1L));
+        assertNull(runtimeService.getRuntime(1L));
+    }
+
+    @Test
+    void wake_PlansTheEarlierOfTheNextDeadlineAndTheEnd() throws InterruptedException {
+        runtimeService.adoptEvent(createEvent(Status.Running, DURATION));
+
+        assertEquals(PROCESS_TIME, wake());
+        assertTrue(leaseService.holds(1L));
+        assertFalse(clockService.getStats().isIdle());
+
+        runtimeService.adoptEvent(createEvent(Status.Running, 30_000L)); // Now ends before the patient is done
+        assertEquals(30_000L, wake());
+    }
+
+    @Test
+    void wake_GoesIdleAndReleasesTheLeaseWhenTheEventStops() throws InterruptedException {
+        runtimeService.adoptEvent(createEvent(Status.Running, DURATION));
+        wake();
+        EventRuntime runtime = runtimeService.getRuntime(1L);
+
+        runtimeService.adoptEvent(createEvent(Status.Paused, DURATION));
+
+        assertNull(wake());
+        assertNull(runtime.getPendingTick());
+        assertFalse(leaseService.holds(1L));
+        assertTrue(clockService.getStats().isIdle());
+    }
+
+    @Test
+    void tick_LateTickIsCoalescedIntoOneOverrunWithoutABurst() throws InterruptedException {
+        when(eventService.updateEvent(eq(1L), any(Event.class))).thenAnswer(invocation -> invocation.getArgument(1));
+        runtimeService.adoptEvent(createEvent(Status.Running, DURATION));
+        wake();
+        EventRuntime runtime = runtimeService.getRuntime(1L);
+
+        clock.advanceTo(PROCESS_TIME + 5_500L); // The clock thread was held up for five and a half seconds
+        clockService.tick(runtime, PROCESS_TIME);
+
+        EventClockStats stats = clockService.getStats();
+        assertEquals(2, stats.getTickCount()); // The wake's tick and the late one
+        assertEquals(5_500L, stats.getLastLagMillis());
+        assertEquals(5_500L, stats.getMaxLagMillis());
+        assertEquals(1, stats.getOverrunCount());
+        assertEquals(5, stats.getCoalescedTicks());
+        // The one late tick did the work; the next is planned for the end instead of replaying the missed seconds
+        assertTrue(runtimeService.getEvent(1L).getPools().getFirst().getPatients().isEmpty());
+        assertEquals(DURATION, runtime.getNextTickAt());
+    }
+
+    @Test
+    void tick_LagUnderASecondIsNoOverrun() throws InterruptedException {
+        when(eventService.updateEvent(eq(1L), any(Event.class))).thenAnswer(invocation -> invocation.getArgument(1));
+        runtimeService.adoptEvent(createEvent(Status.Running, DURATION));
+        wake();
+        EventRuntime runtime = runtimeService.getRuntime(1L);
+
+        clock.advanceTo(PROCESS_TIME + 999L);
+        clockService.tick(runtime, PROCESS_TIME);
+        clock.advanceTo(DURATION + 200L);
+        clockService.tick(runtime, DURATION);
+
+        EventClockStats stats = clockService.getStats();
+        assertEquals(3, stats.getTickCount());
+        assertEquals(200L, stats.getLastLagMillis());
+        assertEquals(999L, stats.getMaxLagMillis());
+        assertEquals(0, stats.getOverrunCount());
+        assertEquals(0, stats.getCoalescedTicks());
+        // The event ended on the second tick, so nothing is planned and its lease is given up
+        assertNull(runtime.getNextTickAt());
+        assertFalse(leaseService.holds(1L));
+    }
+
+    /**
+     * A lease table for a single node that gets every lease it asks for.
+     */
+    private static class FakeLeaseService implements EventLeaseService {
+        private final Set<Long> held = new HashSet<>();
+
+        @Override
+        public String getNodeId() {
+            return "test";
+        }
+
+        @Override
+        public long getRenewInterval() {
+            return 10_000L;
+        }
+
+        @Override
+        public synchronized boolean holds(Long eventId) {
+            return held.contains(eventId);
+        }
+
+        @Override
+        public synchronized boolean acquire(Long eventId) {
+            held.add(eventId);
+            return true;
+        }
+
+        @Override
+        public synchronized void release(Long eventId) {
+            held.remove(eventId);
+        }
+
+        @Override
+        public synchronized Set<Long> renew() {
+            return Set.of();
+        }
+    }
+}
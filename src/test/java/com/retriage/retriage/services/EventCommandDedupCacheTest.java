@@ -0,0 +1,49 @@
+package com.retriage.retriage.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Checks that re-sent commands find their original result for as long as it is kept, and no longer.
+ */
+public class EventCommandDedupCacheTest {
+
+    @Test
+    void putIfAbsent_ShouldReturnOriginalResultUntilItExpires() {
+        EventCommandDedupCache cache = new EventCommandDedupCache(8, 1_000L);
+        CompletableFuture<Integer> original = CompletableFuture.completedFuture(1);
+
+        assertNull(cache.putIfAbsent("a", original, 0L));
+        assertSame(original, cache.putIfAbsent("a", new CompletableFuture<>(), 999L));
+        // Expired, so the command is applied again
+        assertNull(cache.putIfAbsent("a", new CompletableFuture<>(), 1_000L));
+    }
+
+    @Test
+    void putIfAbsent_ShouldEvictOldestBeyondCapacity() {
+        EventCommandDedupCache cache = new EventCommandDedupCache(2, 1_000L);
+        cache.putIfAbsent("a", new CompletableFuture<>(), 0L);
+        cache.putIfAbsent("b", new CompletableFuture<>(), 1L);
+        cache.putIfAbsent("c", new CompletableFuture<>(), 2L);
+
+        assertEquals(2, cache.size());
+        assertNull(cache.putIfAbsent("a", new CompletableFuture<>(), 3L));
+    }
+
+    @Test
+    void remove_ShouldOnlyForgetTheSameResult() {
+        EventCommandDedupCache cache = new EventCommandDedupCache(8, 1_000L);
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        cache.putIfAbsent("a", first, 0L);
+
+        cache.remove("a", new CompletableFuture<>());
+        assertSame(first, cache.putIfAbsent("a", new CompletableFuture<>(), 1L));
+        cache.remove("a", first);
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,209 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.models.Event;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that the commands of an event are applied in order by one writer, batched into few transactions,
+ * and rejected rather than queued without bound.
+ */
+public class EventCommandSequencerImpTest {
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final EventTimerService eventTimerService = mock(EventTimerService.class);
+    private final EventService eventService = mock(EventService.class);
+    private final EventLeaseService eventLeaseService = mock(EventLeaseService.class);
+    private final EventRuntimeServiceImp runtimeService =
+            new EventRuntimeServiceImp(eventService, new ManualEventClock(1_000L), mock(ActiveEventService.class));
+    private final EventCommandSequencerImp sequencer = new EventCommandSequencerImp(runtimeService, eventTimerService,
+            mock(EventClockService.class), eventLeaseService, new TransactionTemplate(transactionManager), 4, 32, false);
+
+    @BeforeEach
+    public void startEvent() {
+        runtimeService.adoptEvent(createEvent());
+        when(eventLeaseService.holds(1L)).thenReturn(true);
+    }
+
+    private static Event createEvent() {
+        Event event = new Event();
+        event.setId(1L);
+        event.setStatus(Status.Running);
+        event.setPools(new ArrayList<>());
+        return event;
+    }
+
+    @AfterEach
+    public void shutdown() {
+        sequencer.shutdown();
+    }
+
+    @Test
+    public void commandsWaitingTogetherAreAppliedInOrderInOneTransaction() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        List<Integer> applied = Collections.synchronizedList(new ArrayList<>());
+        List<String> writers = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        results.add(sequencer.submit(1L, () -> {
+            started.countDown();
+            await(release);
+            applied.add(0);
+            return 0;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 10; i++) {
+            int command = i;
+            results.add(sequencer.submit(1L, () -> {
+                applied.add(command);
+                writers.add(Thread.currentThread().getName());
+                return command;
+            }));
+        }
+        release.countDown();
+
+        for (int i = 0; i <= 10; i++) {
+            assertEquals(i, results.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10), applied);
+        assertEquals(1, writers.stream().distinct().count());
+        // The first command ran alone, the ten submitted while it was blocked ran together
+        verify(transactionManager, times(2)).commit(any());
+        verify(eventTimerService, timeout(5_000).times(2)).broadcastEventUpdates(1L);
+    }
+
+    @Test
+    public void commandsRunOnVirtualThreadsWhenEnabled() throws Exception {
+        EventCommandSequencerImp virtualSequencer = new EventCommandSequencerImp(runtimeService, eventTimerService,
+                mock(EventClockService.class), eventLeaseService, new TransactionTemplate(transactionManager), 4, 32, true);
+        try {
+            Thread writer = virtualSequencer.submit(1L, Thread::currentThread).get(5, TimeUnit.SECONDS);
+            assertTrue(writer.isVirtual());
+            assertTrue(writer.getName().startsWith("event-commands-"));
+        } finally {
+            virtualSequencer.shutdown();
+        }
+    }
+
+    @Test
+    public void commandsBeyondTheQueueCapacityAreRejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Integer> blocking = sequencer.submit(1L, () -> {
+            started.countDown();
+            await(release);
+            return 0;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<Integer>> waiting = new ArrayList<>();
+        for (int i = 0; i < 1025; i++) {
+            waiting.add(sequencer.submit(1L, () -> 1));
+        }
+        release.countDown();
+
+        assertEquals(0, blocking.get(5, TimeUnit.SECONDS));
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> waiting.get(1024).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, rejected.getCause());
+        assertEquals(1, waiting.get(1023).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void resentCommandGetsTheOriginalResultWithoutBeingAppliedAgain() throws Exception {
+        AtomicInteger applied = new AtomicInteger();
+
+        int first = sequencer.submit(1L, "create-1", applied::incrementAndGet).get(5, TimeUnit.SECONDS);
+        int resent = sequencer.submit(1L, "create-1", applied::incrementAndGet).get(5, TimeUnit.SECONDS);
+        int other = sequencer.submit(1L, "create-2", applied::incrementAndGet).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, first);
+        assertEquals(1, resent);
+        assertEquals(2, other);
+        assertEquals(2, applied.get());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    public void resentCommandIsDeduplicatedAfterItsRuntimeSlotWasReleased() throws Exception {
+        when(eventService.existsEventById(2L)).thenReturn(true);
+        when(eventLeaseService.holds(2L)).thenReturn(true);
+        AtomicInteger applied = new AtomicInteger();
+
+        int first = sequencer.submit(2L, "create-1", applied::incrementAndGet).get(5, TimeUnit.SECONDS);
+        // Event 2 is not running, so its slot goes once the command has been applied
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (runtimeService.getRuntime(2L) != null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNull(runtimeService.getRuntime(2L));
+        int resent = sequencer.submit(2L, "create-1", applied::incrementAndGet).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, first);
+        assertEquals(1, resent);
+        assertEquals(1, applied.get());
+        assertNull(runtimeService.getRuntime(2L));
+    }
+
+    @Test
+    public void commandsForUnknownEventsAreRejectedWithoutARuntimeSlot() {
+        CompletableFuture<Integer> result = sequencer.submit(2L, () -> 1);
+
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(NoSuchElementException.class, rejected.getCause());
+        assertNull(runtimeService.getRuntime(2L));
+    }
+
+    @Test
+    public void nodeWithoutTheLeaseReloadsBeforeApplyingAndLeavesTheBroadcastToTheHolder() throws Exception {
+        when(eventLeaseService.holds(1L)).thenReturn(false);
+        when(eventService.findEventById(1L)).thenAnswer(invocation -> {
+            Event stored = createEvent();
+            stored.setVersion(7L);
+            return stored;
+        });
+
+        long seen = sequencer.submit(1L, () -> runtimeService.getEvent(1L).getVersion()).get(5, TimeUnit.SECONDS);
+
+        // The command ran on the stored copy, which was then marked as changed for the holder
+        assertEquals(7L, seen);
+        assertEquals(8L, runtimeService.getEvent(1L).getVersion());
+        verify(eventService).incrementEventVersion(1L);
+        verify(eventTimerService, after(200).never()).broadcastEventUpdates(1L);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Condition;
+import com.retriage.retriage.enums.PoolType;
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.forms.EventStatusForm;
+import com.retriage.retriage.forms.PatientBatchForm;
+import com.retriage.retriage.forms.PatientCreateForm;
+import com.retriage.retriage.forms.PatientDischargeForm;
+import com.retriage.retriage.forms.PatientMoveForm;
+import com.retriage.retriage.forms.PatientOperationForm;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientOperationResult;
+import com.retriage.retriage.models.PatientPool;
+import com.retriage.retriage.models.ResponseWrapper;
+import com.retriage.retriage.repositories.EventRepo;
+import com.retriage.retriage.repositories.PatientPoolRepo;
+import com.retriage.retriage.repositories.PatientRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that patient commands change only the pools they name and stay within their query budget.
+ */
+public class EventCommandServiceImpTest {
+
+    private final ManualEventClock clock = new ManualEventClock(1_000L);
+    private final EventService eventService = mock(EventService.class);
+    private final EventRepo eventRepo = mock(EventRepo.class);
+    private final PatientRepo patientRepo = mock(PatientRepo.class);
+    private final PatientPoolRepo patientPoolRepo = mock(PatientPoolRepo.class);
+    private final ActiveEventService activeEventService = mock(ActiveEventService.class);
+    private final EventRuntimeServiceImp runtimeService = new EventRuntimeServiceImp(eventService, clock, activeEventService);
+    private final EventCommandServiceImp commandService =
+            new EventCommandServiceImp(runtimeService, eventService, eventRepo, patientRepo, patientPoolRepo, clock);
+
+    private PatientPool bay;
+    private PatientPool ct;
+    private Patient waiting;
+
+    private PatientPool createPool(long id, PoolType type) {
+        PatientPool pool = new PatientPool();
+        pool.setId(id);
+        pool.setName("Pool " + id);
+        pool.setPoolType(type);
+        pool.setProcessTime(60_000L);
+        pool.setPatients(new ArrayList<>());
+        return pool;
+    }
+
+    private Patient createPatient(long id) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setCardId("card-" + id);
+        patient.setCondition(Condition.Delayed);
+        return patient;
+    }
+
+    @BeforeEach
+    void setUp() {
+        bay = createPool(1, PoolType.Bay);
+        ct = createPool(2, PoolType.MedService);
+        // One patient scanning and one waiting for the scanner
+        ct.getPatients().add(createPatient(10));
+        waiting = createPatient(11);
+        ct.getPatients().add(waiting);
+        Event event = new Event();
+        event.setId(1L);
+        event.setStatus(Status.Running);
+        event.setDuration(60_000L);
+        event.setRemainingDuration(60_000L);
+        event.setPools(new ArrayList<>(List.of(bay, ct)));
+        runtimeService.adoptEvent(event);
+    }
+
+    @Test
+    void createPatient_InsertsAndPlacesOnce() {
+        when(patientRepo.save(any(Patient.class))).thenAnswer(invocation -> {
+            Patient saved = invocation.getArgument(0);
+            saved.setId(20L);
+            return saved;
+        });
+        PatientCreateForm form = new PatientCreateForm();
+        form.setEventId(1L);
+        form.setPoolId(1L);
+        form.setCardId("card-20");
+        form.setCondition(Condition.Minor);
+
+        ResponseWrapper<Long> result = commandService.createPatient(form);
+
+        assertEquals(200, result.getHttpStatus());
+        assertEquals(20L, result.getData());
+        assertEquals(1, bay.getPatients().size());
+        verify(patientRepo).save(any(Patient.class));
+        verify(patientRepo).placePatient(20L, 1L, false, null, 0);
+        verify(patientPoolRepo).incrementVersion(1L);
+        assertEquals(1L, bay.getVersion());
+        verifyNoMoreInteractions(patientRepo, patientPoolRepo);
+        verifyNoInteractions(eventService, eventRepo);
+    }
+
+    @Test
+    void createPatient_RejectsCardAlreadyInEvent() {
+        PatientCreateForm form = new PatientCreateForm();
+        form.setEventId(1L);
+        form.setPoolId(1L);
+        form.setCardId("card-11");
+        form.setCondition(Condition.Minor);
+
+        ResponseWrapper<Long> result = commandService.createPatient(form);
+
+        assertEquals(409, result.getHttpStatus());
+        assertEquals(0, bay.getPatients().size());
+        verifyNoInteractions(patientRepo, patientPoolRepo);
+    }
+
+    @Test
+    void movePatient_HandsFreedServerToWaitingPatient() {
+        clock.advanceBy(5_000L);
+        PatientMoveForm form = new PatientMoveForm();
+        form.setEventId(1L);
+        form.setPatientId(10L);
+        form.setPoolId(1L);
+
+        ResponseWrapper<Long> result = commandService.movePatient(form);
+
+        assertEquals(200, result.getHttpStatus());
+        assertEquals(List.of(waiting), ct.getPatients());
+        assertEquals(6_000L, waiting.getStartedProcessingAt());
+        assertNull(bay.getPatients().get(0).getStartedProcessingAt());
+        verify(patientRepo).placePatient(10L, 1L, false, null, 1);
+        verify(patientRepo).updateProcessing(11L, false, 6_000L);
+        verify(patientPoolRepo).incrementVersion(1L);
+        verify(patientPoolRepo).incrementVersion(2L);
+        // Versions in memory follow the database, so the next full save of the event is not rejected as stale
+        assertEquals(1L, bay.getVersion());
+        assertEquals(1L, ct.getVersion());
+        assertEquals(1L, waiting.getVersion());
+        verifyNoMoreInteractions(patientRepo, patientPoolRepo);
+        verifyNoInteractions(eventService, eventRepo);
+    }
+
+    @Test
+    void movePatient_RejectsFullPool() {
+        bay.setQueueSize(1);
+        bay.getPatients().add(createPatient(12));
+        runtimeService.adoptEvent(runtimeService.getEvent(1L));
+        PatientMoveForm form = new PatientMoveForm();
+        form.setEventId(1L);
+        form.setPatientId(10L);
+        form.setPoolId(1L);
+
+        ResponseWrapper<Long> result = commandService.movePatient(form);
+
+        assertEquals(409, result.getHttpStatus());
+        assertEquals(2, ct.getPatients().size());
+        verifyNoInteractions(patientRepo, patientPoolRepo);
+    }
+
+    @Test
+    void applyBatch_AnswersEveryOperationBySequenceId() {
+        PatientMoveForm move = new PatientMoveForm();
+        move.setPatientId(10L);
+        move.setPoolId(1L);
+        PatientOperationForm first = new PatientOperationForm();
+        first.setSeq(7L);
+        first.setMove(move);
+        PatientDischargeForm discharge = new PatientDischargeForm();
+        discharge.setPatientId(99L);
+        PatientOperationForm second = new PatientOperationForm();
+        second.setSeq(8L);
+        second.setDischarge(discharge);
+        PatientOperationForm third = new PatientOperationForm();
+        third.setSeq(9L);
+        PatientBatchForm form = new PatientBatchForm();
+        form.setEventId(1L);
+        form.setOperations(List.of(first, second, third));
+
+        ResponseWrapper<List<PatientOperationResult>> result = commandService.applyBatch(form);
+
+        assertEquals(200, result.getHttpStatus());
+        List<PatientOperationResult> results = result.getData();
+        assertEquals(List.of(7L, 8L, 9L), results.stream().map(PatientOperationResult::getSeq).toList());
+        assertEquals(List.of(200, 404, 400), results.stream().map(PatientOperationResult::getHttpStatus).toList());
+        assertEquals(10L, results.get(0).getPatientId());
+        // A rejected operation does not undo the ones before it
+        assertEquals(List.of(waiting), ct.getPatients());
+        verify(patientRepo).placePatient(10L, 1L, false, null, 1);
+    }
+
+    @Test
+    void changeStatus_PausingHandsActiveEventPointerOn() {
+        EventStatusForm form = new EventStatusForm();
+        form.setEventId(1L);
+        form.setStatus(Status.Paused);
+
+        ResponseWrapper<Long> result = commandService.changeStatus(form);
+
+        assertEquals(200, result.getHttpStatus());
+        assertNull(runtimeService.getEvent(1L));
+        verify(activeEventService).started(any(Event.class)); // When the event was adopted as running
+        verify(activeEventService).stopped(1L);
+    }
+}
@@ -0,0 +1,46 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.models.Event;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the countdown follows the clock anchor across pauses and resumes.
+ */
+public class EventCountdownTest {
+
+    private Event createEvent() {
+        Event event = new Event();
+        event.setStatus(Status.Running);
+        event.setDuration(60_000L);
+        event.setRemainingDuration(60_000L);
+        event.setTimeOfStatusChange(1_000L);
+        return event;
+    }
+
+    @Test
+    void countdownRunsOnlyWhileRunning() {
+        Event event = createEvent();
+        assertEquals(50_000L, EventCountdown.remainingAt(event, 11_000L));
+
+        EventCountdown.reanchor(event, Status.Paused, 11_000L);
+        assertEquals(50_000L, event.getRemainingDuration());
+        assertEquals(50_000L, EventCountdown.remainingAt(event, 500_000L));
+
+        EventCountdown.reanchor(event, Status.Running, 500_000L);
+        assertEquals(40_000L, EventCountdown.remainingAt(event, 510_000L));
+        assertEquals(550_000L, EventCountdown.endsAt(event));
+    }
+
+    @Test
+    void countdownNeverGoesNegative() {
+        Event event = createEvent();
+        assertEquals(0L, EventCountdown.remainingAt(event, 120_000L));
+
+        EventCountdown.reanchor(event, Status.Ended, 120_000L);
+        assertEquals(0L, event.getRemainingDuration());
+        assertEquals(Status.Ended, event.getStatus());
+    }
+}
@@ -0,0 +1,51 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.models.EventDelta;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that reconnecting clients get exactly the deltas they missed, or nothing if some are no longer kept.
+ */
+public class EventDeltaLogTest {
+
+    private EventDelta delta(long seq) {
+        EventDelta delta = new EventDelta();
+        delta.setEventId(1L);
+        delta.setSeq(seq);
+        return delta;
+    }
+
+    private EventDeltaLog logWith(int capacity, long lastSeq) {
+        EventDeltaLog log = new EventDeltaLog(capacity);
+        for (long seq = 1; seq <= lastSeq; seq++) {
+            log.append(delta(seq));
+        }
+        return log;
+    }
+
+    @Test
+    void since_ShouldReplayOnlyMissedDeltas() {
+        EventDeltaLog log = logWith(4, 10);
+
+        List<EventDelta> missed = log.since(7, 10);
+
+        assertEquals(List.of(8L, 9L, 10L), missed.stream().map(EventDelta::getSeq).toList());
+        assertTrue(log.since(10, 10).isEmpty());
+    }
+
+    @Test
+    void since_ShouldRequireFullStateWhenGapIsNoLongerKept() {
+        EventDeltaLog log = logWith(4, 10);
+
+        assertEquals(4, log.since(6, 10).size());
+        assertNull(log.since(5, 10));
+        // A client ahead of the server, e.g. after a restart, also needs the full state
+        assertNull(log.since(12, 10));
+    }
+}
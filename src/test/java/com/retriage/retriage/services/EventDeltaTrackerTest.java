@@ -0,0 +1,95 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Condition;
+import com.retriage.retriage.enums.PoolType;
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.EventDelta;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that deltas only carry what changed and are numbered consecutively.
+ */
+public class EventDeltaTrackerTest {
+
+    private PatientPool createPool(long id) {
+        PatientPool pool = new PatientPool();
+        pool.setId(id);
+        pool.setName("Pool " + id);
+        pool.setPoolType(PoolType.Bay);
+        pool.setPatients(new ArrayList<>());
+        return pool;
+    }
+
+    private Event createEvent() {
+        Event event = new Event();
+        event.setId(1L);
+        event.setName("Drill");
+        event.setStatus(Status.Running);
+        event.setStartTime(0L);
+        event.setDuration(60_000L);
+        event.setRemainingDuration(60_000L);
+        event.setPools(new ArrayList<>(List.of(createPool(1), createPool(2))));
+        return event;
+    }
+
+    @Test
+    void diff_ShouldOnlyCarryChanges() {
+        EventDeltaTracker tracker = new EventDeltaTracker(1L);
+        Event event = createEvent();
+
+        EventDelta first = tracker.diff(event);
+        assertEquals(1, first.getSeq());
+        assertEquals(2, first.getPools().size());
+        assertEquals(Status.Running, first.getStatus());
+
+        assertNull(tracker.diff(event), "Nothing changed, so nothing should be sent");
+
+        event.setRemainingDuration(59_000L);
+        EventDelta countdown = tracker.diff(event);
+        assertEquals(2, countdown.getSeq());
+        assertEquals(59_000L, countdown.getRemainingDuration());
+        assertNull(countdown.getStatus());
+        assertEquals(0, countdown.getPools().size());
+
+        Patient patient = new Patient();
+        patient.setId(5L);
+        patient.setCardId("A-5");
+        patient.setCondition(Condition.Minor);
+        event.getPools().get(1).getPatients().add(patient);
+        EventDelta admitted = tracker.diff(event);
+        assertEquals(3, admitted.getSeq());
+        assertEquals(List.of(event.getPools().get(1)), admitted.getPools());
+        assertNull(admitted.getRemainingDuration());
+
+        event.getPools().removeFirst();
+        assertEquals(List.of(1L), tracker.diff(event).getRemovedPoolIds());
+    }
+
+    @Test
+    void diffStopped_ShouldAnnounceStopOnce() {
+        EventDeltaTracker tracker = new EventDeltaTracker(1L);
+        Event event = createEvent();
+        tracker.diff(event);
+        EventCountdown.reanchor(event, Status.Paused, 20_000L);
+        tracker.stopped(event);
+
+        EventDelta stopped = tracker.diffStopped();
+        assertEquals(2, stopped.getSeq());
+        assertEquals(Status.Paused, stopped.getStatus());
+        assertEquals(40_000L, stopped.getRemainingDuration());
+        assertEquals(20_000L, stopped.getTimeOfStatusChange());
+        assertTrue(stopped.getPools().isEmpty());
+        assertNull(tracker.diffStopped());
+        assertEquals(40_000L, tracker.clockAnchor(25_000L).getRemainingDuration());
+    }
+}
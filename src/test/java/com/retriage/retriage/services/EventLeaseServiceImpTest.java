@@ -0,0 +1,86 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.repositories.EventLeaseRepo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that leases are taken once, renewed with a single statement, and handed over when their holder stops renewing.
+ */
+public class EventLeaseServiceImpTest {
+
+    private final EventLeaseRepo leaseRepo = mock(EventLeaseRepo.class);
+    private long now = 1_000L;
+    private final EventLeaseServiceImp leaseService =
+            new EventLeaseServiceImp(leaseRepo, "node-a", 10_000L, 3_000L, () -> now);
+
+    @Test
+    public void acquireCreatesTheLeaseOnceAndHoldsItUntilRenewalIsDue() {
+        when(leaseRepo.takeLease(1L, "node-a", 1_000L, 11_000L)).thenReturn(0);
+        when(leaseRepo.existsById(1L)).thenReturn(false);
+        when(leaseRepo.insertLease(1L, "node-a", 11_000L)).thenReturn(1);
+
+        assertTrue(leaseService.acquire(1L));
+        assertTrue(leaseService.acquire(1L));
+        assertTrue(leaseService.holds(1L));
+        verify(leaseRepo, times(1)).insertLease(1L, "node-a", 11_000L);
+
+        now = 8_000L;
+        assertFalse(leaseService.holds(1L));
+    }
+
+    @Test
+    public void acquireFailsWhileAnotherNodeHoldsTheLease() {
+        when(leaseRepo.takeLease(1L, "node-a", 1_000L, 11_000L)).thenReturn(0);
+        when(leaseRepo.existsById(1L)).thenReturn(true);
+
+        assertFalse(leaseService.acquire(1L));
+        assertFalse(leaseService.holds(1L));
+        verify(leaseRepo, never()).insertLease(1L, "node-a", 11_000L);
+    }
+
+    @Test
+    public void renewUsesOneStatementAndReportsTakenOverEvents() {
+        when(leaseRepo.takeLease(1L, "node-a", 1_000L, 11_000L)).thenReturn(1);
+        leaseService.acquire(1L);
+
+        now = 4_000L;
+        when(leaseRepo.renewLeases("node-a", 4_000L, 14_000L)).thenReturn(1);
+        assertEquals(Set.of(), leaseService.renew());
+        verify(leaseRepo, never()).findEventIdsByNodeId(anyString());
+        now = 9_000L;
+        assertTrue(leaseService.holds(1L));
+
+        // Another node died and its lease expired, so the renewal takes it over
+        when(leaseRepo.renewLeases("node-a", 9_000L, 19_000L)).thenReturn(2);
+        when(leaseRepo.findEventIdsByNodeId("node-a")).thenReturn(List.of(1L, 2L));
+        assertEquals(Set.of(2L), leaseService.renew());
+        assertTrue(leaseService.holds(2L));
+    }
+
+    @Test
+    public void lateRenewalDropsLeasesTakenByAnotherNode() {
+        when(leaseRepo.takeLease(1L, "node-a", 1_000L, 11_000L)).thenReturn(1);
+        leaseService.acquire(1L);
+        when(leaseRepo.renewLeases("node-a", 1_000L, 11_000L)).thenReturn(1);
+        leaseService.renew();
+
+        now = 20_000L;
+        when(leaseRepo.renewLeases("node-a", 20_000L, 30_000L)).thenReturn(0);
+        when(leaseRepo.findEventIdsByNodeId("node-a")).thenReturn(List.of());
+        assertEquals(Set.of(), leaseService.renew());
+        assertFalse(leaseService.holds(1L));
+    }
+}
@@ -0,0 +1,173 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Condition;
+import com.retriage.retriage.enums.PoolType;
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that concurrent updates to different pools both apply and that updates based on outdated versions are
+ * rejected with the current versions.
+ */
+public class EventMergerTest {
+
+    private Event current;
+
+    private PatientPool createPool(long id, long version, Patient... patients) {
+        PatientPool pool = new PatientPool();
+        pool.setId(id);
+        pool.setName("Pool " + id);
+        pool.setPoolType(PoolType.Bay);
+        pool.setVersion(version);
+        pool.setPatients(new ArrayList<>(List.of(patients)));
+        return pool;
+    }
+
+    private Patient createPatient(long id, long version, Condition condition) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setCardId("card-" + id);
+        patient.setCondition(condition);
+        patient.setVersion(version);
+        return patient;
+    }
+
+    private Event copyOf(Event event) {
+        Event copy = new Event();
+        copy.setId(event.getId());
+        copy.setName(event.getName());
+        copy.setStatus(event.getStatus());
+        copy.setDuration(event.getDuration());
+        copy.setVersion(event.getVersion());
+        List<PatientPool> pools = new ArrayList<>();
+        for (PatientPool pool : event.getPools()) {
+            Patient[] patients = pool.getPatients().stream()
+                    .map(p -> createPatient(p.getId(), p.getVersion(), p.getCondition()))
+                    .toArray(Patient[]::new);
+            pools.add(createPool(pool.getId(), pool.getVersion(), patients));
+        }
+        copy.setPools(pools);
+        return copy;
+    }
+
+    @BeforeEach
+    void setUp() {
+        current = new Event();
+        current.setId(1L);
+        current.setName("Drill");
+        current.setStatus(Status.Running);
+        current.setDuration(60_000L);
+        current.setVersion(3);
+        current.setPools(new ArrayList<>(List.of(
+                createPool(1, 5, createPatient(10, 2, Condition.Delayed)),
+                createPool(2, 7, createPatient(20, 1, Condition.Delayed)))));
+    }
+
+    @Test
+    void concurrentEditsOfDifferentPoolsBothApply() {
+        Event fromNurseA = copyOf(current);
+        Event fromNurseB = copyOf(current);
+        fromNurseA.getPools().get(0).getPatients().get(0).setCondition(Condition.Immediate);
+        fromNurseB.getPools().get(1).getPatients().get(0).setCondition(Condition.Minor);
+
+        EventMerger.Result first = EventMerger.merge(current, fromNurseA, List.of(1L));
+        assertNull(first.conflict());
+        // Persisting the first change bumps the first pool's version
+        Event afterFirst = first.merged();
+        afterFirst.getPools().get(0).setVersion(6);
+
+        EventMerger.Result second = EventMerger.merge(afterFirst, fromNurseB, List.of(2L));
+        assertNull(second.conflict());
+        Event merged = second.merged();
+        assertEquals(Condition.Immediate, merged.getPools().get(0).getPatients().get(0).getCondition());
+        assertEquals(Condition.Minor, merged.getPools().get(1).getPatients().get(0).getCondition());
+        assertSame(afterFirst.getPools().get(0), merged.getPools().get(0));
+    }
+
+    @Test
+    void staleUpdateOfTheSamePoolIsRejectedWithCurrentVersions() {
+        Event stale = copyOf(current);
+        current.getPools().get(0).setVersion(6);
+        stale.getPools().get(0).getPatients().get(0).setCondition(Condition.Minor);
+
+        EventMerger.Result result = EventMerger.merge(current, stale, List.of(1L));
+
+        assertNull(result.merged());
+        assertNotNull(result.conflict());
+        assertEquals(List.of(1L), result.conflict().getConflictingPoolIds());
+        assertEquals(6L, result.conflict().getPoolVersions().get(1L));
+        assertEquals(7L, result.conflict().getPoolVersions().get(2L));
+        assertFalse(result.conflict().isEventConflict());
+    }
+
+    @Test
+    void staleEventFieldsAreRejected() {
+        Event stale = copyOf(current);
+        stale.setVersion(2);
+        stale.setName("Renamed");
+
+        EventMerger.Result result = EventMerger.merge(current, stale, List.of());
+
+        assertNull(result.merged());
+        assertTrue(result.conflict().isEventConflict());
+        assertEquals(3L, result.conflict().getEventVersion());
+    }
+
+    @Test
+    void patientInTwoPoolsIsRejected() {
+        Event moved = copyOf(current);
+        // Moved into the second pool without removing it from the first
+        moved.getPools().get(1).getPatients().add(createPatient(10, 2, Condition.Delayed));
+
+        EventMerger.Result result = EventMerger.merge(current, moved, List.of(2L));
+
+        assertNull(result.merged());
+        assertEquals(List.of(2L), result.conflict().getConflictingPoolIds());
+    }
+
+    @Test
+    void cardHeldByAnotherPatientOfTheEventIsRejected() {
+        EventRuntime runtime = new EventRuntime(1L);
+        runtime.setEvent(current, 0L);
+        Event admitted = copyOf(current);
+        Patient newcomer = new Patient();
+        newcomer.setCardId("card-10"); // Held by patient 10 in the first pool
+        newcomer.setCondition(Condition.Minor);
+        admitted.getPools().get(1).getPatients().add(newcomer);
+
+        EventMerger.Result result = EventMerger.merge(current, admitted, List.of(2L), runtime.getPatientsByCard());
+
+        assertNull(result.merged());
+        assertEquals(List.of("card-10"), result.conflict().getDuplicateCardIds());
+        assertTrue(result.conflict().getConflictingPoolIds().isEmpty());
+    }
+
+    @Test
+    void cardFreedByTheSameUpdateCanBeReused() {
+        Event replaced = copyOf(current);
+        replaced.getPools().get(0).getPatients().clear(); // Patient 10 leaves the event with its card
+        Patient newcomer = new Patient();
+        newcomer.setCardId("card-10");
+        newcomer.setCondition(Condition.Minor);
+        replaced.getPools().get(1).getPatients().add(newcomer);
+
+        EventMerger.Result result = EventMerger.merge(current, replaced, List.of(1L, 2L));
+
+        assertNotNull(result.merged());
+        assertSame(newcomer, result.merged().getPools().get(1).getPatients().get(1));
+    }
+}
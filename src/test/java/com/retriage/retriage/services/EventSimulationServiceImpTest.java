@@ -0,0 +1,75 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Condition;
+import com.retriage.retriage.enums.PoolType;
+import com.retriage.retriage.forms.SimulationForm;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.PatientPool;
+import com.retriage.retriage.models.SimulationResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the headless simulation on an in-memory event, using a {@link ManualEventClock} instead of the system clock.
+ */
+public class EventSimulationServiceImpTest {
+
+    private static final long THREE_HOURS = 3 * 3_600_000L;
+
+    private final EventSimulationServiceImp simulationService = new EventSimulationServiceImp(null);
+
+    /**
+     * Builds an event with a single CT pool taking two minutes per patient.
+     */
+    private Event createEvent(int concurrency) {
+        PatientPool pool = new PatientPool();
+        pool.setName("CT");
+        pool.setPoolType(PoolType.MedService);
+        pool.setProcessTime(120_000L);
+        pool.setConcurrency(concurrency);
+        pool.setPatients(new ArrayList<>());
+        Event event = new Event();
+        event.setName("Drill");
+        event.setDuration(THREE_HOURS);
+        event.setPools(List.of(pool));
+        return event;
+    }
+
+    private SimulationForm createForm() {
+        SimulationForm form = new SimulationForm();
+        form.setArrivalsPerHour(50); // One scanner handles 30 patients an hour, two handle 60
+        form.setSeed(42L);
+        return form;
+    }
+
+    @Test
+    void simulate_ShouldBeRepeatableWithSeed() {
+        SimulationResult first = simulationService.simulate(createEvent(1), createForm());
+        SimulationResult second = simulationService.simulate(createEvent(1), createForm());
+        assertEquals(first.getArrivals(), second.getArrivals());
+        assertEquals(first.getCompleted(), second.getCompleted());
+        assertEquals(first.getAverageWaitMillis(), second.getAverageWaitMillis());
+        assertEquals(THREE_HOURS, first.getSimulatedMillis());
+    }
+
+    @Test
+    void simulate_ParallelServersShouldRaiseThroughput() {
+        SimulationResult single = simulationService.simulate(createEvent(1), createForm());
+        SimulationResult parallel = simulationService.simulate(createEvent(2), createForm());
+        assertTrue(single.getCompleted() <= 90, "One scanner can complete at most 30 patients an hour");
+        assertTrue(parallel.getCompleted() > single.getCompleted());
+        assertTrue(parallel.getAverageWaitMillis() < single.getAverageWaitMillis());
+    }
+
+    @Test
+    void simulate_ImmediatePatientsShouldWaitLeast() {
+        SimulationResult result = simulationService.simulate(createEvent(1), createForm());
+        assertTrue(result.getAverageWaitByCondition().get(Condition.Immediate)
+                < result.getAverageWaitByCondition().get(Condition.Minor));
+    }
+}
@@ -0,0 +1,104 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Condition;
+import com.retriage.retriage.enums.PoolType;
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes and reads back snapshots of a running event, including a torn write and a rotation.
+ */
+public class EventSnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    private Event createEvent(String name) {
+        Patient patient = new Patient();
+        patient.setId(7L);
+        patient.setCardId("A-7");
+        patient.setCondition(Condition.Immediate);
+        patient.setStartedProcessingAt(1_000L);
+        PatientPool pool = new PatientPool();
+        pool.setId(3L);
+        pool.setName("CT");
+        pool.setPoolType(PoolType.MedService);
+        pool.setProcessTime(120_000L);
+        pool.setConcurrency(2);
+        pool.setQueueSize(4);
+        pool.setPatients(new ArrayList<>(List.of(patient)));
+        Event event = new Event();
+        event.setId(1L);
+        event.setName(name);
+        event.setStatus(Status.Running);
+        event.setStartTime(500L);
+        event.setDuration(3_600_000L);
+        event.setPools(List.of(pool));
+        return event;
+    }
+
+    private byte[] snapshotOf(String name, long writtenAt) {
+        return EventSnapshotCodec.encode(writtenAt, List.of(EventSnapshotCodec.encodeEvent(5, createEvent(name))));
+    }
+
+    @Test
+    void readLatest_ShouldReturnLastCompleteSnapshot() throws Exception {
+        EventSnapshotFile file = new EventSnapshotFile(directory.resolve("events.snap"), 1 << 20);
+        file.append(snapshotOf("First", 10));
+        file.append(snapshotOf("Second", 20));
+
+        EventSnapshotCodec.Snapshot snapshot = EventSnapshotCodec.decode(file.readLatest());
+        assertEquals(20, snapshot.writtenAt());
+        EventSnapshotCodec.Entry entry = snapshot.entries().getFirst();
+        assertEquals(5, entry.version());
+        assertEquals("Second", entry.event().getName());
+        PatientPool pool = entry.event().getPools().getFirst();
+        assertEquals(2, pool.getConcurrency());
+        assertEquals(Condition.Immediate, pool.getPatients().getFirst().getCondition());
+        assertEquals(1_000L, pool.getPatients().getFirst().getStartedProcessingAt());
+        assertNull(pool.getStartedProcessingAt());
+    }
+
+    @Test
+    void readLatest_ShouldIgnoreTornTail() throws Exception {
+        Path path = directory.resolve("events.snap");
+        EventSnapshotFile file = new EventSnapshotFile(path, 1 << 20);
+        file.append(snapshotOf("Complete", 10));
+        byte[] torn = snapshotOf("Torn", 20);
+        file.append(torn);
+        long size = Files.size(path);
+        try (var channel = Files.newByteChannel(path, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 5); // Lose the end of the last record, as a crash mid-write would
+        }
+
+        assertEquals("Complete", EventSnapshotCodec.decode(file.readLatest()).entries().getFirst().event().getName());
+    }
+
+    @Test
+    void append_ShouldRotateWhenFull() throws Exception {
+        Path path = directory.resolve("events.snap");
+        byte[] record = snapshotOf("Rotated", 10);
+        EventSnapshotFile file = new EventSnapshotFile(path, record.length * 2L + 40);
+        for (int i = 0; i < 5; i++) {
+            file.append(snapshotOf("Rotated " + i, i));
+        }
+
+        assertTrue(Files.exists(directory.resolve("events.snap.1")));
+        assertTrue(Files.size(path) <= record.length * 2L + 40);
+        assertEquals("Rotated 4", EventSnapshotCodec.decode(file.readLatest()).entries().getFirst().event().getName());
+    }
+}
@@ -0,0 +1,148 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.configurations.WebSocketSessionRegistry;
+import com.retriage.retriage.enums.Condition;
+import com.retriage.retriage.enums.PoolType;
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Writes a snapshot with one runtime and restores it into a fresh one after a downtime, against a database
+ * that has moved on since the snapshot was taken.
+ */
+public class EventSnapshotServiceImpTest {
+
+    private static final long SNAPSHOT_AT = 5_000L;
+    private static final long RESTART_AT = 15_000L;
+
+    @TempDir
+    Path dir;
+
+    private final List<EventSnapshotServiceImp> services = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(EventSnapshotServiceImp::shutdown);
+    }
+
+    /**
+     * A running event with one MedService pool, whose patient 10 started processing at 1 s.
+     * Once the database has moved on, patient 11 has joined the pool, bumping the pool's version.
+     */
+    private Event createEvent(boolean movedOn) {
+        PatientPool pool = new PatientPool();
+        pool.setId(1L);
+        pool.setName("CT");
+        pool.setPoolType(PoolType.MedService);
+        pool.setProcessTime(60_000L);
+        pool.setConcurrency(1);
+        pool.setPatients(new ArrayList<>(List.of(createPatient(10L, 1_000L))));
+        if (movedOn) {
+            pool.getPatients().add(createPatient(11L, null));
+            pool.setVersion(1L);
+        }
+        Event event = new Event();
+        event.setId(1L);
+        event.setStatus(Status.Running);
+        event.setDuration(3_600_000L);
+        event.setRemainingDuration(3_600_000L);
+        event.setTimeOfStatusChange(0L);
+        event.setPools(new ArrayList<>(List.of(pool)));
+        return event;
+    }
+
+    private Patient createPatient(Long id, Long startedProcessingAt) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setCardId("card-" + id);
+        patient.setCondition(Condition.Delayed);
+        patient.setStartedProcessingAt(startedProcessingAt);
+        return patient;
+    }
+
+    private EventSnapshotServiceImp createService(EventService eventService, EventRuntimeService runtimeService,
+                                                  EventClockService clockService, EventClock clock) {
+        EventSnapshotServiceImp service = new EventSnapshotServiceImp(eventService, runtimeService, clockService, clock,
+                new WebSocketSessionRegistry(10_000, 1_000, false), dir.resolve("events.snap").toString(), 1_048_576L, 0L);
+        services.add(service);
+        return service;
+    }
+
+    /**
+     * Writes a snapshot of the event as it was at {@link #SNAPSHOT_AT}.
+     */
+    private void writeSnapshot() {
+        ManualEventClock clock = new ManualEventClock(SNAPSHOT_AT);
+        EventRuntimeServiceImp runtimeService = new EventRuntimeServiceImp(mock(EventService.class), clock, mock(ActiveEventService.class));
+        runtimeService.adoptEvent(createEvent(false));
+        createService(mock(EventService.class), runtimeService, mock(EventClockService.class), clock).writeSnapshot();
+    }
+
+    private Patient patient(Event event, long id) {
+        return event.getPools().getFirst().getPatients().stream()
+                .filter(patient -> patient.getId() == id)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void onApplicationReady_KeepsDatabasePatientsAndShiftedTimersOfUnchangedRows() {
+        writeSnapshot();
+        ManualEventClock clock = new ManualEventClock(RESTART_AT);
+        EventService eventService = mock(EventService.class);
+        EventClockService clockService = mock(EventClockService.class);
+        when(eventService.findEventById(1L)).thenAnswer(invocation -> createEvent(true));
+        when(eventService.findRunningEvents()).thenAnswer(invocation -> List.of(createEvent(true)));
+        when(eventService.updateEvent(eq(1L), any(Event.class))).thenAnswer(invocation -> invocation.getArgument(1));
+        EventRuntimeServiceImp runtimeService = new EventRuntimeServiceImp(eventService, clock, mock(ActiveEventService.class));
+
+        createService(eventService, runtimeService, clockService, clock).onApplicationReady();
+        verify(clockService, timeout(5_000)).wake(1L);
+
+        Event event = runtimeService.getEvent(1L);
+        // Patient 11 was committed after the snapshot and is kept
+        assertEquals(2, event.getPools().getFirst().getPatients().size());
+        assertEquals(11_000L, patient(event, 10L).getStartedProcessingAt());
+        assertEquals(10_000L, event.getTimeOfStatusChange());
+        verify(eventService).updateEvent(eq(1L), any(Event.class));
+    }
+
+    @Test
+    void onApplicationReady_ReloadsFromDatabaseWhenRestoredTimersConflict() {
+        writeSnapshot();
+        ManualEventClock clock = new ManualEventClock(RESTART_AT);
+        EventService eventService = mock(EventService.class);
+        EventClockService clockService = mock(EventClockService.class);
+        when(eventService.findEventById(1L)).thenAnswer(invocation -> createEvent(true));
+        when(eventService.findRunningEvents()).thenAnswer(invocation -> List.of(createEvent(true)));
+        when(eventService.updateEvent(eq(1L), any(Event.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Event.class, 1L));
+        EventRuntimeServiceImp runtimeService = new EventRuntimeServiceImp(eventService, clock, mock(ActiveEventService.class));
+
+        createService(eventService, runtimeService, clockService, clock).onApplicationReady();
+        verify(clockService, timeout(5_000)).wake(1L);
+
+        Event event = runtimeService.getEvent(1L);
+        assertEquals(2, event.getPools().getFirst().getPatients().size());
+        assertEquals(1_000L, patient(event, 10L).getStartedProcessingAt());
+        assertEquals(0L, event.getTimeOfStatusChange());
+    }
+}
@@ -0,0 +1,168 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Condition;
+import com.retriage.retriage.enums.PoolType;
+import com.retriage.retriage.enums.Status;
+import com.retriage.retriage.models.Event;
+import com.retriage.retriage.models.EventResumeMessage;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the event timer with a {@link ManualEventClock}, so every tick happens at an exact time.
+ */
+public class EventTimerServiceImpTest {
+
+    private static final long PROCESS_TIME = 60_000L;
+
+    private final ManualEventClock clock = new ManualEventClock(0L);
+    private final EventService eventService = mock(EventService.class);
+    private final EventRuntimeServiceImp runtimeService = new EventRuntimeServiceImp(eventService, clock, mock(ActiveEventService.class));
+    private final EventLeaseService eventLeaseService = mock(EventLeaseService.class);
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final EventTimerServiceImp timerService = new EventTimerServiceImp(runtimeService, messagingTemplate, clock, eventLeaseService);
+
+    @BeforeEach
+    void holdLease() {
+        when(eventLeaseService.holds(1L)).thenReturn(true);
+    }
+
+    /**
+     * A running event with one MedService pool whose only patient started processing at time 0,
+     * as the database holds it.
+     */
+    private Event createEvent() {
+        Patient patient = new Patient();
+        patient.setId(10L);
+        patient.setCardId("card-10");
+        patient.setCondition(Condition.Delayed);
+        patient.setStartedProcessingAt(0L);
+        PatientPool pool = new PatientPool();
+        pool.setId(1L);
+        pool.setName("CT");
+        pool.setPoolType(PoolType.MedService);
+        pool.setProcessTime(PROCESS_TIME);
+        pool.setConcurrency(1);
+        pool.setPatients(new ArrayList<>(List.of(patient)));
+        Event event = new Event();
+        event.setId(1L);
+        event.setStatus(Status.Running);
+        event.setDuration(3_600_000L);
+        event.setRemainingDuration(3_600_000L);
+        event.setTimeOfStatusChange(0L);
+        event.setPools(new ArrayList<>(List.of(pool)));
+        return event;
+    }
+
+    private Patient patient() {
+        return runtimeService.getEvent(1L).getPools().getFirst().getPatients().getFirst();
+    }
+
+    @Test
+    void updateEventDuration_ReloadsAndRetriesWhenPersistingFails() {
+        when(eventService.findEventById(1L)).thenAnswer(invocation -> createEvent());
+        runtimeService.adoptEvent(createEvent());
+        clock.advanceTo(PROCESS_TIME);
+
+        assertThrows(IllegalStateException.class, () -> timerService.updateEventDuration(1L));
+
+        // The completion was not stored, so it is not kept in memory and its deadline is planned again
+        assertFalse(patient().isProcessed());
+        assertEquals(PROCESS_TIME, runtimeService.nextDeadline(1L));
+
+        when(eventService.updateEvent(eq(1L), any(Event.class))).thenAnswer(invocation -> invocation.getArgument(1));
+        timerService.updateEventDuration(1L);
+
+        assertTrue(patient().isProcessed());
+    }
+
+    @Test
+    void broadcastEventUpdates_ReleasesRuntimeOnceStoppedEventWasBroadcast() {
+        runtimeService.adoptEvent(createEvent());
+        Event paused = createEvent();
+        paused.setStatus(Status.Paused);
+        runtimeService.adoptEvent(paused);
+
+        // Kept for the delta telling clients the event stopped
+        assertNotNull(runtimeService.getRuntime(1L));
+        timerService.broadcastEventUpdates(1L);
+
+        assertNull(runtimeService.getRuntime(1L));
+    }
+
+    @Test
+    void getEventResume_CreatesNoRuntimeForEventsNotRunning() {
+        assertNull(runtimeService.loadEvent(99L));
+
+        assertNull(timerService.getEventResume(99L, 0L));
+        assertNull(timerService.getPoolState(99L, 1L));
+        assertNull(runtimeService.getRuntime(99L));
+    }
+
+    @Test
+    void updateEventDuration_JumpingToEachDeadlineCompletesPatientsByPriorityAtExactTimes() {
+        when(eventService.updateEvent(eq(1L), any(Event.class))).thenAnswer(invocation -> invocation.getArgument(1));
+        Event event = createEvent();
+        PatientPool pool = event.getPools().getFirst();
+        pool.setAutoDischarge(true);
+        Patient minor = new Patient();
+        minor.setId(11L);
+        minor.setCardId("card-11");
+        minor.setCondition(Condition.Minor);
+        Patient immediate = new Patient();
+        immediate.setId(12L);
+        immediate.setCardId("card-12");
+        immediate.setCondition(Condition.Immediate);
+        pool.getPatients().add(minor);
+        pool.getPatients().add(immediate);
+        runtimeService.adoptEvent(event);
+        Patient first = patient();
+
+        List<Long> deadlines = new ArrayList<>();
+        List<Patient> completed = new ArrayList<>();
+        for (Long deadline = runtimeService.nextDeadline(1L); deadline != null; deadline = runtimeService.nextDeadline(1L)) {
+            clock.advanceTo(deadline);
+            List<Patient> before = new ArrayList<>(runtimeService.getEvent(1L).getPools().getFirst().getPatients());
+            timerService.updateEventDuration(1L);
+            before.removeAll(runtimeService.getEvent(1L).getPools().getFirst().getPatients());
+            deadlines.add(deadline);
+            completed.addAll(before);
+        }
+
+        assertEquals(List.of(PROCESS_TIME, 2 * PROCESS_TIME, 3 * PROCESS_TIME), deadlines);
+        assertEquals(List.of(first, immediate, minor), completed);
+    }
+
+    @Test
+    void broadcastEventUpdates_NodeWithoutTheLeaseEmitsNoDeltas() {
+        when(eventLeaseService.holds(1L)).thenReturn(false);
+        when(eventService.findEventById(1L)).thenAnswer(invocation -> createEvent());
+        runtimeService.adoptEvent(createEvent());
+
+        timerService.broadcastEventUpdates(1L);
+        EventResumeMessage resume = timerService.getEventResume(1L, 0L);
+
+        // Followers answer with the stored state rather than replaying deltas of their own
+        assertNull(resume.getDeltas());
+        assertNotNull(resume.getEvent());
+        verifyNoInteractions(messagingTemplate);
+    }
+}
@@ -0,0 +1,189 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Condition;
+import com.retriage.retriage.enums.PoolType;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the dispatch order, concurrency, capacity and completion rules of a MedService pool's queue.
+ */
+public class PatientPoolQueueTest {
+
+    private static final long PROCESS_TIME = 60_000L;
+
+    private PatientPool createPool(int concurrency, int queueSize, boolean autoDischarge) {
+        PatientPool pool = new PatientPool();
+        pool.setId(1L);
+        pool.setName("CT");
+        pool.setPoolType(PoolType.MedService);
+        pool.setProcessTime(PROCESS_TIME);
+        pool.setConcurrency(concurrency);
+        pool.setQueueSize(queueSize);
+        pool.setAutoDischarge(autoDischarge);
+        pool.setPatients(new ArrayList<>());
+        return pool;
+    }
+
+    private Patient createPatient(long id, Condition condition) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setCardId("card-" + id);
+        patient.setCondition(condition);
+        return patient;
+    }
+
+    private List<Long> ids(List<Patient> patients) {
+        return patients.stream().map(Patient::getId).toList();
+    }
+
+    @Test
+    void dispatch_ServesByConditionThenByArrival() {
+        PatientPool pool = createPool(1, 0, true);
+        PatientPoolQueue queue = new PatientPoolQueue(pool, null);
+        queue.admit(createPatient(1, Condition.Minor), 0L); // Takes the free server
+        queue.admit(createPatient(2, Condition.Delayed), 1L);
+        queue.admit(createPatient(3, Condition.Minor), 2L);
+        queue.admit(createPatient(4, Condition.Immediate), 3L);
+        queue.admit(createPatient(5, Condition.Delayed), 4L);
+
+        assertEquals(List.of(1L, 4L, 2L, 5L, 3L), ids(pool.getPatients()));
+
+        List<Long> served = new ArrayList<>();
+        long now = 0L;
+        for (int i = 0; i < 5; i++) {
+            now += PROCESS_TIME;
+            served.addAll(ids(queue.completeDue(now)));
+        }
+        assertEquals(List.of(1L, 4L, 2L, 5L, 3L), served);
+    }
+
+    @Test
+    void admit_ProcessesUpToConcurrencyPatientsAtOnce() {
+        PatientPool pool = createPool(3, 0, true);
+        PatientPoolQueue queue = new PatientPoolQueue(pool, null);
+        for (long id = 1; id <= 5; id++) {
+            queue.admit(createPatient(id, Condition.Delayed), 1_000L);
+        }
+
+        assertEquals(List.of(1L, 2L, 3L), ids(queue.getInService()));
+        assertTrue(queue.getInService().stream().allMatch(patient -> patient.getStartedProcessingAt() == 1_000L));
+        assertEquals(2, queue.getWaitingCount());
+        assertNull(pool.getPatients().get(3).getStartedProcessingAt());
+    }
+
+    @Test
+    void admit_RejectsWhenFullUnlessQueueSizeIsZero() {
+        PatientPoolQueue limited = new PatientPoolQueue(createPool(1, 2, false), null);
+        assertTrue(limited.admit(createPatient(1, Condition.Minor), 0L));
+        assertTrue(limited.admit(createPatient(2, Condition.Minor), 0L));
+        assertFalse(limited.admit(createPatient(3, Condition.Immediate), 0L));
+
+        PatientPool unlimited = createPool(1, 0, false);
+        PatientPoolQueue queue = new PatientPoolQueue(unlimited, null);
+        for (long id = 1; id <= 100; id++) {
+            assertTrue(queue.admit(createPatient(id, Condition.Minor), 0L));
+        }
+        assertEquals(100, unlimited.getPatients().size());
+    }
+
+    @Test
+    void completeDue_DischargesAndHandsServerOnWhenAutoDischarging() {
+        PatientPool pool = createPool(1, 0, true);
+        PatientPoolQueue queue = new PatientPoolQueue(pool, null);
+        Patient first = createPatient(1, Condition.Delayed);
+        Patient second = createPatient(2, Condition.Delayed);
+        queue.admit(first, 0L);
+        queue.admit(second, 0L);
+
+        assertTrue(queue.completeDue(PROCESS_TIME - 1).isEmpty());
+        assertEquals(List.of(first), queue.completeDue(PROCESS_TIME));
+
+        assertTrue(first.isProcessed());
+        assertEquals(List.of(2L), ids(pool.getPatients()));
+        assertEquals(PROCESS_TIME, second.getStartedProcessingAt());
+    }
+
+    @Test
+    void completeDue_KeepsServerUntilDischargedWithoutAutoDischarge() {
+        PatientPool pool = createPool(1, 0, false);
+        PatientPoolQueue queue = new PatientPoolQueue(pool, null);
+        Patient first = createPatient(1, Condition.Delayed);
+        Patient second = createPatient(2, Condition.Delayed);
+        queue.admit(first, 0L);
+        queue.admit(second, 0L);
+
+        assertEquals(List.of(first), queue.completeDue(PROCESS_TIME));
+        assertTrue(first.isProcessed());
+        assertEquals(List.of(1L, 2L), ids(pool.getPatients()));
+        assertNull(second.getStartedProcessingAt());
+        assertTrue(queue.completeDue(2 * PROCESS_TIME).isEmpty()); // Already processed, not completed again
+
+        assertEquals(List.of(second), queue.remove(first, 2 * PROCESS_TIME));
+        assertEquals(2 * PROCESS_TIME, second.getStartedProcessingAt());
+        assertNull(queue.remove(first, 2 * PROCESS_TIME));
+    }
+
+    @Test
+    void remove_TakesWaitingPatientOutAndPoolListFollowsTheQueue() {
+        PatientPool pool = createPool(1, 0, false);
+        PatientPoolQueue queue = new PatientPoolQueue(pool, null);
+        List<Patient> patients = pool.getPatients();
+        Patient delayed = createPatient(2, Condition.Delayed);
+        queue.admit(createPatient(1, Condition.Minor), 0L);
+        queue.admit(delayed, 1L);
+        queue.admit(createPatient(3, Condition.Immediate), 2L);
+        queue.admit(createPatient(4, Condition.Delayed), 3L);
+        assertEquals(List.of(1L, 3L, 2L, 4L), ids(patients));
+
+        assertTrue(queue.remove(delayed, 4L).isEmpty()); // Was waiting, so no server is freed
+        assertEquals(List.of(1L, 3L, 4L), ids(patients));
+        assertEquals(4L, patients.get(2).getId());
+        assertEquals(2, queue.getWaitingCount());
+        assertNull(queue.remove(delayed, 5L));
+        assertThrows(UnsupportedOperationException.class, () -> patients.add(delayed));
+    }
+
+    @Test
+    void constructor_MovedPatientDoesNotBringItsOldTimer() {
+        PatientPool pool = createPool(2, 0, true);
+        Patient staying = createPatient(1, Condition.Delayed);
+        staying.setStartedProcessingAt(5_000L);
+        Patient moved = createPatient(2, Condition.Delayed);
+        moved.setStartedProcessingAt(1_000L); // Started in the pool it came from
+        pool.getPatients().addAll(List.of(staying, moved));
+
+        PatientPoolQueue queue = new PatientPoolQueue(pool, Set.of(1L));
+
+        assertEquals(List.of(staying), queue.getInService());
+        assertNull(moved.getStartedProcessingAt());
+        assertEquals(List.of(moved), queue.dispatch(10_000L));
+        assertEquals(10_000L, moved.getStartedProcessingAt());
+    }
+
+    @Test
+    void constructor_FallsBackToPoolTimerForLegacyPools() {
+        PatientPool pool = createPool(1, 0, true);
+        pool.setStartedProcessingAt(3_000L);
+        Patient first = createPatient(1, Condition.Minor);
+        Patient second = createPatient(2, Condition.Immediate);
+        pool.getPatients().addAll(List.of(first, second));
+
+        PatientPoolQueue queue = new PatientPoolQueue(pool, null);
+
+        assertEquals(List.of(first), queue.getInService());
+        assertEquals(3_000L, first.getStartedProcessingAt());
+        assertEquals(List.of(first), queue.completeDue(3_000L + PROCESS_TIME));
+    }
+}
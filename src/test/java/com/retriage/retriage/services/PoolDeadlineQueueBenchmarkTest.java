@@ -0,0 +1,133 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Condition;
+import com.retriage.retriage.enums.PoolType;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the {@link PoolDeadlineQueue} against the full pool scan that
+ * {@link EventTimerServiceImp#updateEventDuration(Long)} used to run on every tick.
+ * Both approaches must complete exactly the same pools; their timings are only logged for comparison, see
+ * {@link PoolDeadlineQueueTest} for the queue's own rules. Tagged as a benchmark, so it only runs with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+public class PoolDeadlineQueueBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(PoolDeadlineQueueBenchmarkTest.class);
+
+    private static final int TICKS = 3_600; // One simulated hour of one-second ticks
+    private static final long TICK_MS = 1_000;
+
+    /**
+     * Builds MedService pools with staggered process times so only a few complete on any given tick.
+     */
+    private List<PatientPool> createPools(int count, long start) {
+        List<PatientPool> pools = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            PatientPool pool = new PatientPool();
+            pool.setName("CT " + i);
+            pool.setPoolType(PoolType.MedService);
+            pool.setProcessTime((long) (60_000 + (i * 7_919L) % 1_800_000));
+            pool.setStartedProcessingAt(start);
+            pool.setAutoDischarge(true);
+            List<Patient> patients = new ArrayList<>();
+            for (int j = 0; j < 3; j++) {
+                Patient patient = new Patient();
+                patient.setCardId(i + "-" + j);
+                patient.setCondition(Condition.Delayed);
+                patients.add(patient);
+            }
+            pool.setPatients(patients);
+            pools.add(pool);
+        }
+        return pools;
+    }
+
+    /**
+     * Completes the first patient of a pool the same way the tick does.
+     */
+    private void complete(PatientPool pool, long now) {
+        pool.getPatients().getFirst().setProcessed(true);
+        pool.getPatients().removeFirst();
+        pool.setStartedProcessingAt(now);
+    }
+
+    /**
+     * The pre-existing tick: look at every pool and check its first patient.
+     */
+    private int fullScan(List<PatientPool> pools, long start) {
+        int completed = 0;
+        for (int tick = 1; tick <= TICKS; tick++) {
+            long now = start + tick * TICK_MS;
+            for (PatientPool pool : pools) {
+                if (pool.getPoolType() == PoolType.MedService && !pool.getPatients().isEmpty()) {
+                    Patient patient = pool.getPatients().getFirst();
+                    if (now - pool.getStartedProcessingAt() >= pool.getProcessTime() && !patient.isProcessed()) {
+                        complete(pool, now);
+                        completed++;
+                    }
+                }
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * The deadline-driven tick: only handle the pools at the head of the heap.
+     */
+    private int deadlineQueue(List<PatientPool> pools, long start) {
+        PoolDeadlineQueue queue = new PoolDeadlineQueue();
+        queue.rebuild(pools);
+        int completed = 0;
+        for (int tick = 1; tick <= TICKS; tick++) {
+            long now = start + tick * TICK_MS;
+            for (PatientPool pool : queue.pollDue(now)) {
+                complete(pool, now);
+                queue.reschedule(pool);
+                completed++;
+            }
+        }
+        return completed;
+    }
+
+    @Test
+    void deadlineQueue_ShouldCompleteSamePoolsAsFullScan() {
+        for (int poolCount : new int[]{10, 100, 1_000}) {
+            long start = 0;
+            // Warm up both paths so the JIT does not favour whichever runs second
+            for (int i = 0; i < 5; i++) {
+                fullScan(createPools(poolCount, start), start);
+                deadlineQueue(createPools(poolCount, start), start);
+            }
+
+            List<PatientPool> scanned = createPools(poolCount, start);
+            long scanStart = System.nanoTime();
+            int scanCompleted = fullScan(scanned, start);
+            long scanNanos = System.nanoTime() - scanStart;
+
+            List<PatientPool> queued = createPools(poolCount, start);
+            long queueStart = System.nanoTime();
+            int queueCompleted = deadlineQueue(queued, start);
+            long queueNanos = System.nanoTime() - queueStart;
+
+            assertEquals(scanCompleted, queueCompleted, "Both approaches should complete the same number of patients");
+            for (int i = 0; i < poolCount; i++) {
+                assertEquals(scanned.get(i).getPatients().size(), queued.get(i).getPatients().size(),
+                        "Pool " + i + " should have the same patients left");
+            }
+            // Wall-clock timings depend on the machine and its load, so they are reported rather than asserted
+            logger.info("{} pools: full scan {} ns/tick, deadline queue {} ns/tick, {}x ({} completions)",
+                    poolCount, scanNanos / TICKS, queueNanos / TICKS,
+                    String.format("%.1f", (double) scanNanos / Math.max(1, queueNanos)), queueCompleted);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.retriage.retriage.services;
+
+import com.retriage.retriage.enums.Condition;
+import com.retriage.retriage.enums.PoolType;
+import com.retriage.retriage.models.Patient;
+import com.retriage.retriage.models.PatientPool;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks which pools the deadline queue hands out and when, after pools are scheduled, rescheduled and emptied.
+ */
+public class PoolDeadlineQueueTest {
+
+    private static final long PROCESS_TIME = 60_000L;
+
+    private PatientPool createPool(long id, Long startedProcessingAt) {
+        PatientPool pool = new PatientPool();
+        pool.setId(id);
+        pool.setName("Pool " + id);
+        pool.setPoolType(PoolType.MedService);
+        pool.setProcessTime(PROCESS_TIME);
+        pool.setPatients(new ArrayList<>());
+        if (startedProcessingAt != null) {
+            Patient patient = new Patient();
+            patient.setId(id * 10);
+            patient.setCardId("card-" + id);
+            patient.setCondition(Condition.Delayed);
+            patient.setStartedProcessingAt(startedProcessingAt);
+            pool.getPatients().add(patient);
+        }
+        return pool;
+    }
+
+    @Test
+    void pollDue_HandsOutDuePoolsInDeadlineOrderOnlyOnce() {
+        PatientPool late = createPool(1, 5_000L);
+        PatientPool early = createPool(2, 1_000L);
+        PatientPool idle = createPool(3, null);
+        PoolDeadlineQueue queue = new PoolDeadlineQueue();
+        queue.rebuild(List.of(late, early, idle));
+
+        assertEquals(2, queue.size());
+        assertEquals(1_000L + PROCESS_TIME, queue.nextDeadline());
+        assertTrue(queue.pollDue(1_000L + PROCESS_TIME - 1).isEmpty());
+        assertEquals(List.of(early, late), queue.pollDue(5_000L + PROCESS_TIME));
+        assertTrue(queue.pollDue(Long.MAX_VALUE).isEmpty());
+        assertNull(queue.nextDeadline());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void reschedule_SupersededEntryIsSkipped() {
+        PatientPool pool = createPool(1, 0L);
+        PoolDeadlineQueue queue = new PoolDeadlineQueue();
+        queue.reschedule(pool);
+
+        pool.getPatients().getFirst().setStartedProcessingAt(30_000L); // Restarted, so it is due later
+        queue.reschedule(pool);
+
+        assertEquals(1, queue.size());
+        // The entry for the old deadline is still in the heap but no longer counts
+        assertTrue(queue.pollDue(PROCESS_TIME).isEmpty());
+        assertEquals(30_000L + PROCESS_TIME, queue.nextDeadline());
+        assertEquals(List.of(pool), queue.pollDue(30_000L + PROCESS_TIME));
+    }
+
+    @Test
+    void nextDeadline_DropsSupersededHeadsWithoutHandingOutThePool() {
+        PatientPool first = createPool(1, 0L);
+        PatientPool second = createPool(2, 10_000L);
+        PoolDeadlineQueue queue = new PoolDeadlineQueue();
+        queue.rebuild(List.of(first, second));
+
+        first.getPatients().getFirst().setStartedProcessingAt(20_000L);
+        queue.reschedule(first);
+
+        assertEquals(10_000L + PROCESS_TIME, queue.nextDeadline());
+        assertEquals(10_000L + PROCESS_TIME, queue.nextDeadline()); // Peeking twice changes nothing
+        assertEquals(List.of(second), queue.pollDue(10_000L + PROCESS_TIME));
+        assertEquals(20_000L + PROCESS_TIME, queue.nextDeadline());
+    }
+
+    @Test
+    void reschedule_RemovesPoolWithNothingLeftToComplete() {
+        PatientPool emptied = createPool(1, 0L);
+        PatientPool processed = createPool(2, 0L);
+        PoolDeadlineQueue queue = new PoolDeadlineQueue();
+        queue.rebuild(List.of(emptied, processed));
+
+        emptied.getPatients().clear(); // Discharged
+        queue.reschedule(emptied);
+        processed.getPatients().getFirst().setProcessed(true); // Done, but kept until discharged
+        queue.reschedule(processed);
+
+        assertEquals(0, queue.size());
+        assertNull(queue.nextDeadline());
+        assertTrue(queue.pollDue(Long.MAX_VALUE).isEmpty());
+    }
+}